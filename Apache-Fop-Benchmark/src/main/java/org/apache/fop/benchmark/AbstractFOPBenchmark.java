@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.io.OutputStream;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FormattingResults;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Common state of the benchmarks that run a corpus document through (part of)
+ * the FOP pipeline. The factory is shared by all invocations just like in a
+ * long-running service, so font and image caches are warm after the first
+ * iterations.
+ */
+@State(Scope.Benchmark)
+public abstract class AbstractFOPBenchmark {
+
+    /** The corpus document processed by the benchmark. */
+    @Param({ BenchmarkCorpus.INVOICE, BenchmarkCorpus.LONG_TABLE,
+        BenchmarkCorpus.MULTILINGUAL_BOOK })
+    public String corpus;
+
+    /** The FOP factory shared by all invocations */
+    protected FopFactory fopFactory;
+
+    /** The JAXP transformer factory used to feed FOP */
+    protected TransformerFactory transformerFactory;
+
+    /** The content of the corpus document */
+    protected byte[] document;
+
+    /**
+     * Loads the corpus document and sets up the factories.
+     *
+     * @throws Exception
+     *             if the document cannot be loaded
+     */
+    @Setup
+    public void setUpFactories() throws Exception {
+        this.fopFactory = FopFactory.newInstance();
+        this.transformerFactory = TransformerFactory.newInstance();
+        this.document = BenchmarkCorpus.load(this.corpus);
+    }
+
+    /**
+     * Runs the corpus document through a new {@link Fop} instance.
+     *
+     * @param outputFormat
+     *            the MIME type of the output format, may be null if an
+     *            override is set on the user agent
+     * @param userAgent
+     *            the user agent to use
+     * @param out
+     *            the output stream
+     * @return the formatting results
+     * @throws Exception
+     *             if the document cannot be processed
+     */
+    protected FormattingResults process(final String outputFormat,
+            final FOUserAgent userAgent, final OutputStream out)
+                    throws Exception {
+        final Fop fop = this.fopFactory.newFop(outputFormat, userAgent, out);
+        final Transformer transformer = this.transformerFactory
+                .newTransformer();
+        final Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(
+                BenchmarkCorpus.newSource(this.document, this.corpus), res);
+        return fop.getResults();
+    }
+}
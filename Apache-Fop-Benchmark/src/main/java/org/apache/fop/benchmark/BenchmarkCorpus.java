@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Access to the FO documents used to drive the benchmarks. The corpus is
+ * bundled as class path resources so that the self-contained benchmark jar
+ * can be run from any directory.
+ */
+public final class BenchmarkCorpus {
+
+    /** A one page invoice with a "page X of Y" footer and a small table. */
+    public static final String INVOICE = "invoice";
+
+    /** A multi-page table with a repeated header and keep constraints. */
+    public static final String LONG_TABLE = "long-table";
+
+    /** Justified, hyphenated text in several languages and page-sequences. */
+    public static final String MULTILINGUAL_BOOK = "multilingual-book";
+
+    private static final String RESOURCE_PATH = "corpus/";
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Loads a corpus document fully into memory so that I/O does not take
+     * part in the measurement.
+     *
+     * @param name
+     *            the name of the document (one of the constants of this
+     *            class)
+     * @return the content of the FO document
+     * @throws IOException
+     *             if the document cannot be read
+     */
+    public static byte[] load(final String name) throws IOException {
+        final InputStream in = BenchmarkCorpus.class
+                .getResourceAsStream(RESOURCE_PATH + name + ".fo");
+        if (in == null) {
+            throw new IOException("Unknown corpus document: " + name);
+        }
+        try {
+            return IOUtils.toByteArray(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Creates a new JAXP source over an in-memory document.
+     *
+     * @param content
+     *            the document content, as returned by {@link #load(String)}
+     * @param name
+     *            the name of the document, used as system id
+     * @return a new source
+     */
+    public static Source newSource(final byte[] content, final String name) {
+        final StreamSource source = new StreamSource(new ByteArrayInputStream(
+                content));
+        source.setSystemId(RESOURCE_PATH + name + ".fo");
+        return source;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.layoutmgr.BlockKnuthSequence;
+import org.apache.fop.layoutmgr.BreakingAlgorithm;
+import org.apache.fop.layoutmgr.KnuthBox;
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthGlue;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+import org.apache.fop.layoutmgr.KnuthSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Knuth breaking algorithm in isolation on a synthetic
+ * paragraph: words of varying width separated by stretchable spaces, with
+ * hyphenation penalties inside the longer words. This is the shape of the
+ * element lists produced by TextLayoutManager for justified text.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BreakingAlgorithmBenchmark {
+
+    /** Number of words in the paragraph */
+    @Param({ "100", "1000" })
+    public int words;
+
+    private KnuthSequence paragraph;
+
+    /**
+     * Creates the element list of the paragraph.
+     */
+    @Setup
+    public void createParagraph() {
+        final KnuthSequence seq = new BlockKnuthSequence();
+        for (int i = 0; i < this.words; i++) {
+            // 3 to 12 characters of 5pt each
+            final int letters = 3 + i * 7 % 10;
+            if (letters > 8) {
+                // hyphenation point in the middle of the word
+                seq.add(new KnuthBox(letters / 2 * 5000, null, false));
+                seq.add(new KnuthPenalty(3000, 50, true, null, false));
+                seq.add(new KnuthBox((letters - letters / 2) * 5000, null,
+                        false));
+            } else {
+                seq.add(new KnuthBox(letters * 5000, null, false));
+            }
+            if (i < this.words - 1) {
+                seq.add(new KnuthGlue(3000, 1500, 1000, null, false));
+            }
+        }
+        seq.add(new KnuthPenalty(0, KnuthElement.INFINITE, false, null, false));
+        seq.add(new KnuthGlue(0, 10000000, 0, null, false));
+        seq.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        this.paragraph = seq;
+    }
+
+    /**
+     * Breaks the paragraph into justified lines.
+     *
+     * @return the number of lines
+     */
+    @Benchmark
+    public int findBreakingPoints() {
+        final LineCounter algo = new LineCounter();
+        algo.setConstantLineWidth(300000);
+        return algo.findBreakingPoints(this.paragraph, 1, true,
+                BreakingAlgorithm.ALL_BREAKS);
+    }
+
+    /**
+     * Breaking algorithm which only counts the lines it finds.
+     */
+    private static final class LineCounter extends BreakingAlgorithm {
+
+        LineCounter() {
+            super(Constants.EN_JUSTIFY, Constants.EN_START, true, false, 2);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void updateData1(final int total, final double demerits) {
+            // nop
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void updateData2(final KnuthNode bestActiveNode,
+                final KnuthSequence sequence, final int total) {
+            // nop
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected int filterActiveNodes() {
+            // nop
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FormattingResults;
+import org.apache.xmlgraphics.util.MimeConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the complete FO to PDF pipeline: FO tree building, layout, area
+ * tree rendering through the intermediate format and PDF serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EndToEndBenchmark extends AbstractFOPBenchmark {
+
+    /**
+     * Renders the corpus document to PDF.
+     *
+     * @return the formatting results, returned so that the work cannot be
+     *         eliminated
+     * @throws Exception
+     *             if the document cannot be rendered
+     */
+    @Benchmark
+    public FormattingResults foToPDF() throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        return process(MimeConstants.MIME_PDF, userAgent,
+                new NullOutputStream());
+    }
+
+    /**
+     * Renders the corpus document to PDF with the conserve memory policy,
+     * which spills pages waiting for forward references to disk.
+     *
+     * @return the formatting results
+     * @throws Exception
+     *             if the document cannot be rendered
+     */
+    @Benchmark
+    public FormattingResults foToPDFConserveMemory() throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        userAgent.setConserveMemoryPolicy(true);
+        return process(MimeConstants.MIME_PDF, userAgent,
+                new NullOutputStream());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.render.intermediate.IFContext;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFParser;
+import org.apache.fop.render.intermediate.IFSerializer;
+import org.apache.fop.render.intermediate.IFUtil;
+import org.apache.xmlgraphics.util.MimeConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the output stage: the corpus document is formatted once to the
+ * intermediate format and every invocation then replays it into a
+ * PDFDocumentHandler/PDFPainter. This covers what IFRenderer drives during a
+ * normal run, without the cost of FO tree building and layout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class IFToPDFBenchmark extends AbstractFOPBenchmark {
+
+    private byte[] intermediate;
+
+    /**
+     * Formats the corpus document to the intermediate format.
+     *
+     * @throws Exception
+     *             if the document cannot be formatted
+     */
+    @Setup
+    public void formatToIntermediate() throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        final IFDocumentHandler targetHandler = userAgent.getRendererFactory()
+                .createDocumentHandler(userAgent, MimeConstants.MIME_PDF);
+        final IFSerializer serializer = new IFSerializer();
+        serializer.setContext(new IFContext(userAgent));
+        serializer.mimicDocumentHandler(targetHandler);
+        userAgent.setDocumentHandlerOverride(serializer);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        process(null, userAgent, out);
+        this.intermediate = out.toByteArray();
+    }
+
+    /**
+     * Renders the intermediate format to PDF.
+     *
+     * @return the user agent, returned so that the work cannot be eliminated
+     * @throws Exception
+     *             if the document cannot be rendered
+     */
+    @Benchmark
+    public FOUserAgent intermediateToPDF() throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        final IFDocumentHandler documentHandler = userAgent
+                .getRendererFactory().createDocumentHandler(userAgent,
+                        MimeConstants.MIME_PDF);
+        IFUtil.setupFonts(documentHandler);
+        documentHandler.setResult(new StreamResult(new NullOutputStream()));
+        new IFParser().parse(new StreamSource(new ByteArrayInputStream(
+                this.intermediate)), documentHandler, userAgent);
+        return userAgent;
+    }
+}
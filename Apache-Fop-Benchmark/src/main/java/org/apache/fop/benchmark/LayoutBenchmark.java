@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.AreaTreeModel;
+import org.apache.fop.render.intermediate.IFDocumentHandler;
+import org.apache.fop.render.intermediate.IFUtil;
+import org.apache.xmlgraphics.util.MimeConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures FO tree building plus layout: the layout managers (among them
+ * TextLayoutManager element generation), line breaking with
+ * BreakingAlgorithm and page breaking with PageBreakingAlgorithm. The pages
+ * are kept in a plain {@link AreaTreeModel} and never rendered, so the
+ * difference to {@link FOTreeBuilderBenchmark} is the cost of layout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LayoutBenchmark extends AbstractFOPBenchmark {
+
+    /**
+     * Lays out the corpus document.
+     *
+     * @return the formatting results
+     * @throws Exception
+     *             if the document cannot be laid out
+     */
+    @Benchmark
+    public FormattingResults layout() throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        final OutputStream out = new NullOutputStream();
+        userAgent.setFOEventHandlerOverride(new LayoutOnlyAreaTreeHandler(
+                userAgent, out));
+        return process(null, userAgent, out);
+    }
+
+    /**
+     * Area tree handler which lays out pages but does not render them. Fonts
+     * are set up exactly like for PDF output so that the layout is the same.
+     */
+    private static final class LayoutOnlyAreaTreeHandler extends
+    AreaTreeHandler {
+
+        LayoutOnlyAreaTreeHandler(final FOUserAgent userAgent,
+                final OutputStream stream) throws FOPException {
+            super(userAgent, MimeConstants.MIME_PDF, stream);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected void setupModel(final FOUserAgent userAgent,
+                final String outputFormat, final OutputStream stream)
+                        throws FOPException {
+            final IFDocumentHandler documentHandler = userAgent
+                    .getRendererFactory().createDocumentHandler(userAgent,
+                            outputFormat);
+            IFUtil.setupFonts(documentHandler, this.fontInfo);
+            this.model = new AreaTreeModel();
+        }
+    }
+}
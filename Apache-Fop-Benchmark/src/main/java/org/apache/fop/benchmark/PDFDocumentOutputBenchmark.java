@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.fop.pdf.PDFArray;
+import org.apache.fop.pdf.PDFDictionary;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFName;
+import org.apache.fop.pdf.PDFNumber;
+import org.apache.fop.pdf.PDFPage;
+import org.apache.fop.pdf.PDFResources;
+import org.apache.fop.pdf.PDFStream;
+import org.apache.fop.pdf.PDFText;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link PDFDocument#output(java.io.OutputStream)} and the trailer
+ * (cross-reference table) on a document made of many small objects:
+ * dictionaries, arrays, numbers and strings, similar to what a tagged PDF
+ * produces. Since output() drains the document, a fresh document is built
+ * before each invocation and its construction is not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class PDFDocumentOutputBenchmark {
+
+    /** Number of pages of the document */
+    @Param({ "100", "1000" })
+    public int pages;
+
+    /** Number of small indirect objects per page */
+    @Param({ "50" })
+    public int objectsPerPage;
+
+    /** Whether content streams are compressed */
+    @Param({ "true", "false" })
+    public boolean compress;
+
+    private PDFDocument pdfDoc;
+
+    /**
+     * Builds the document to be written.
+     *
+     * @throws IOException
+     *             if a content stream cannot be filled
+     */
+    @Setup(Level.Invocation)
+    public void createDocument() throws IOException {
+        this.pdfDoc = new PDFDocument("Apache FOP benchmark");
+        if (!this.compress) {
+            this.pdfDoc.getFilterMap().put(PDFFilterList.DEFAULT_FILTER,
+                    Collections.singletonList("null"));
+        }
+        final PDFResources resources = this.pdfDoc.getResources();
+        for (int p = 0; p < this.pages; p++) {
+            final PDFPage page = this.pdfDoc.getFactory().makePage(resources,
+                    595, 842, p);
+            final PDFStream contents = this.pdfDoc.getFactory().makeStream(
+                    PDFFilterList.CONTENT_FILTER, false);
+            for (int line = 0; line < 40; line++) {
+                contents.add("BT /F1 10 Tf 72 " + (770 - line * 12)
+                        + " Td (Line " + line + " of page " + p
+                        + ") Tj ET\n");
+            }
+            this.pdfDoc.registerObject(contents);
+            page.setContents(contents);
+
+            final PDFArray annots = new PDFArray();
+            for (int i = 0; i < this.objectsPerPage; i++) {
+                final PDFDictionary dict = new PDFDictionary();
+                dict.put("Type", new PDFName("StructElem"));
+                dict.put("S", new PDFName("Span"));
+                dict.put("K", i);
+                final PDFText actualText = new PDFText();
+                actualText.setText("item " + i);
+                dict.put("ActualText", actualText);
+                final PDFNumber left = new PDFNumber();
+                left.setNumber(100.25);
+                final PDFArray rect = new PDFArray();
+                rect.add(72.5 + i);
+                rect.add(left);
+                rect.add(i * 1.5);
+                rect.add(842);
+                dict.put("Rect", rect);
+                this.pdfDoc.registerObject(dict);
+                annots.add(dict);
+            }
+            page.put("FOPBenchmarkObjects", annots);
+            this.pdfDoc.addObject(page);
+        }
+    }
+
+    /**
+     * Writes the document.
+     *
+     * @return the number of bytes written
+     * @throws IOException
+     *             if the document cannot be written
+     */
+    @Benchmark
+    public long output() throws IOException {
+        final CountingOutputStream out = new CountingOutputStream(
+                new NullOutputStream());
+        this.pdfDoc.outputHeader(out);
+        this.pdfDoc.output(out);
+        this.pdfDoc.outputTrailer(out);
+        return out.getByteCount();
+    }
+}
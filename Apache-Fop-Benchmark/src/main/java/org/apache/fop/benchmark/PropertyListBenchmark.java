@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FOEventHandler;
+import org.apache.fop.fo.PropertyList;
+import org.apache.fop.fo.StaticPropertyList;
+import org.apache.fop.fo.flow.Block;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Measures property list construction and resolution, including shorthand
+ * expansion, inheritance from the parent list and the computation of the
+ * common property groups the layout managers ask for. The blocks of the
+ * corpus document are used as the formatting objects the lists are attached
+ * to, so the property lists see a realistic FO tree context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PropertyListBenchmark extends AbstractFOPBenchmark {
+
+    private static final int[] RESOLVED_PROPERTIES = {
+        Constants.PR_LINE_HEIGHT, Constants.PR_TEXT_ALIGN,
+        Constants.PR_TEXT_INDENT, Constants.PR_COLOR,
+        Constants.PR_KEEP_WITH_NEXT, Constants.PR_SPACE_BEFORE,
+        Constants.PR_START_INDENT, Constants.PR_END_INDENT };
+
+    private final List<Block> blocks = new ArrayList<Block>();
+
+    private AttributesImpl parentAttributes;
+
+    private AttributesImpl blockAttributes;
+
+    /**
+     * Builds the FO tree of the corpus document once and keeps its blocks.
+     *
+     * @throws Exception
+     *             if the document cannot be parsed
+     */
+    @Setup
+    public void collectBlocks() throws Exception {
+        this.blocks.clear();
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        userAgent.setFOEventHandlerOverride(new FOEventHandler(userAgent) {
+            @Override
+            public void startBlock(final Block bl) {
+                PropertyListBenchmark.this.blocks.add(bl);
+            }
+        });
+        process(null, userAgent, new NullOutputStream());
+
+        this.parentAttributes = new AttributesImpl();
+        addAttribute(this.parentAttributes, "font-family", "Helvetica");
+        addAttribute(this.parentAttributes, "font-size", "10pt");
+        addAttribute(this.parentAttributes, "color", "#333333");
+        addAttribute(this.parentAttributes, "hyphenate", "true");
+        addAttribute(this.parentAttributes, "xml:lang", "en");
+
+        this.blockAttributes = new AttributesImpl();
+        addAttribute(this.blockAttributes, "font", "bold 1.2em/1.4 Times");
+        addAttribute(this.blockAttributes, "margin", "0.5em 1cm");
+        addAttribute(this.blockAttributes, "padding", "2pt 4pt");
+        addAttribute(this.blockAttributes, "border-bottom",
+                "0.5pt solid #808080");
+        addAttribute(this.blockAttributes, "space-before", "6pt");
+        addAttribute(this.blockAttributes, "text-align", "justify");
+        addAttribute(this.blockAttributes, "text-indent", "1em");
+        addAttribute(this.blockAttributes, "keep-with-next.within-page",
+                "always");
+    }
+
+    private static void addAttribute(final AttributesImpl attributes,
+            final String name, final String value) {
+        attributes.addAttribute("", name, name, "CDATA", value);
+    }
+
+    /**
+     * Creates a parent and a child property list for every block of the
+     * corpus document and resolves the properties the block layout manager
+     * needs.
+     *
+     * @param blackhole
+     *            sink for the resolved values
+     * @throws Exception
+     *             if a property cannot be resolved
+     */
+    @Benchmark
+    public void resolveBlockProperties(final Blackhole blackhole)
+            throws Exception {
+        for (final Block block : this.blocks) {
+            final PropertyList parent = new StaticPropertyList(block, null);
+            parent.addAttributesToList(this.parentAttributes);
+            final PropertyList propertyList = new StaticPropertyList(block,
+                    parent);
+            propertyList.addAttributesToList(this.blockAttributes);
+
+            blackhole.consume(propertyList.getFontProps());
+            blackhole.consume(propertyList.getBorderPaddingBackgroundProps());
+            blackhole.consume(propertyList.getMarginBlockProps());
+            blackhole.consume(propertyList.getHyphenationProps());
+            for (final int propId : RESOLVED_PROPERTIES) {
+                blackhole.consume(propertyList.get(propId));
+            }
+        }
+    }
+}
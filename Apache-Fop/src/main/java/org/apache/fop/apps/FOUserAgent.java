@@ -91,6 +91,9 @@ public class FOUserAgent {
     private boolean locatorEnabled = true; // true by default (for error
     // messages).
     private boolean conserveMemoryPolicy = false;
+    private boolean parallelPageSequenceLayout = false;
+    private boolean lineBreakMemoization = false;
+    private int imagePrefetchThreads = 0;
     private final EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler = DummyStructureTreeEventHandler.INSTANCE;
 
@@ -711,6 +714,86 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Check whether independent page-sequences are laid out concurrently.
+     *
+     * @return true if page-sequences may be laid out on a worker pool
+     */
+    public boolean isParallelPageSequenceLayoutEnabled() {
+        return this.parallelPageSequenceLayout;
+    }
+
+    /**
+     * Controls whether independent page-sequences are laid out concurrently.
+     * A page-sequence is independent if it has an explicit numeric
+     * initial-page-number, uses a simple-page-master and does not retrieve
+     * markers across page-sequences. The pages are still rendered in document
+     * order. Event listeners registered on this user agent must be thread-safe
+     * when this is enabled.
+     *
+     * @param parallelPageSequenceLayout
+     *            true to enable parallel page-sequence layout
+     */
+    public void setParallelPageSequenceLayout(
+            final boolean parallelPageSequenceLayout) {
+        this.parallelPageSequenceLayout = parallelPageSequenceLayout;
+    }
+
+    /**
+     * Check whether the line breaks of paragraphs are memoized.
+     *
+     * @return true if line breaks are looked up in the factory's cache
+     */
+    public boolean isLineBreakMemoizationEnabled() {
+        return this.lineBreakMemoization;
+    }
+
+    /**
+     * Controls whether the line breaks of paragraphs are memoized in the
+     * cache of the {@link FopFactory}, so that a paragraph that is identical
+     * to one laid out before, in this document or in another document created
+     * with the same factory, is not broken into lines again. This pays off
+     * when the same template is rendered many times with small data
+     * differences. The cache lives as long as the factory and holds up to
+     * {@link org.apache.fop.layoutmgr.inline.LineBreakCache#DEFAULT_MAX_WEIGHT}
+     * (8 MB) of paragraph keys and line break traces; the least recently used
+     * paragraphs are evicted beyond that.
+     *
+     * @param lineBreakMemoization
+     *            true to enable line break memoization
+     */
+    public void setLineBreakMemoization(final boolean lineBreakMemoization) {
+        this.lineBreakMemoization = lineBreakMemoization;
+    }
+
+    /**
+     * Returns the number of threads preloading the images of
+     * fo:external-graphic elements while the FO tree is built.
+     *
+     * @return the number of threads (0: images are loaded when parsed)
+     */
+    public int getImagePrefetchThreads() {
+        return this.imagePrefetchThreads;
+    }
+
+    /**
+     * Sets the number of threads preloading the images of
+     * fo:external-graphic elements while the FO tree is built, so loading
+     * the images overlaps with parsing the rest of the document. With 0, the
+     * image information is loaded on the parsing thread as each
+     * fo:external-graphic is parsed. The default is 0.
+     *
+     * @param threads
+     *            the number of threads (0 or more)
+     */
+    public void setImagePrefetchThreads(final int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException(
+                    "The number of image prefetch threads must not be negative");
+        }
+        this.imagePrefetchThreads = threads;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -43,6 +43,7 @@ import org.apache.fop.fonts.FontCache;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.hyphenation.HyphenationTreeResolver;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.layoutmgr.inline.LineBreakCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.RendererFactory;
 import org.apache.fop.render.XMLHandlerRegistry;
@@ -82,6 +83,9 @@ public class FopFactory implements ImageContext {
 
     private ColorSpaceCache colorSpaceCache = null;
 
+    /** Line breaks memoized across documents */
+    private final LineBreakCache lineBreakCache = new LineBreakCache();
+
     /** Image manager for loading and caching image objects */
     private final ImageManager imageManager;
 
@@ -941,4 +945,16 @@ public class FopFactory implements ImageContext {
         return this.colorSpaceCache;
     }
 
+    /**
+     * Returns the cache of the line breaks memoized by the documents created
+     * with this instance, see {@link FOUserAgent#setLineBreakMemoization}.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     *
+     * @return the line break cache
+     */
+    public LineBreakCache getLineBreakCache() {
+        return this.lineBreakCache;
+    }
+
 }
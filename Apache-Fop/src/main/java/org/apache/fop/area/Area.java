@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Map;
 import java.util.TreeMap;
@@ -509,4 +510,43 @@ public class Area extends AreaTreeObject implements Serializable {
         sb.append("}");
         return sb.toString();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.areaClass);
+        out.writeInt(this.ipd);
+        out.writeInt(this.bpd);
+        out.writeInt(this.bidiLevel);
+        if (this.traits == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(this.traits.size());
+            for (final Map.Entry<Integer, Object> e : this.traits.entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeObject(e.getValue());
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.areaClass = in.readInt();
+        this.ipd = in.readInt();
+        this.bpd = in.readInt();
+        this.bidiLevel = in.readInt();
+        final int traitCount = in.readInt();
+        if (traitCount < 0) {
+            this.traits = null;
+        } else {
+            this.traits = new TreeMap<Integer, Object>();
+            for (int i = 0; i < traitCount; i++) {
+                final Integer key = in.readInt();
+                this.traits.put(key, in.readObject());
+            }
+        }
+    }
 }
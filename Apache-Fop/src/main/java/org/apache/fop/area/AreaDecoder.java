@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.area.inline.Anchor;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.Container;
+import org.apache.fop.area.inline.FilledArea;
+import org.apache.fop.area.inline.ForeignObject;
+import org.apache.fop.area.inline.Image;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.InlineBlockParent;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.Leader;
+import org.apache.fop.area.inline.Space;
+import org.apache.fop.area.inline.SpaceArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+
+import static org.apache.fop.area.AreaEncoder.TAG_ANCHOR;
+import static org.apache.fop.area.AreaEncoder.TAG_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_BASIC_LINK_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_BEFORE_FLOAT;
+import static org.apache.fop.area.AreaEncoder.TAG_BLOCK;
+import static org.apache.fop.area.AreaEncoder.TAG_BLOCK_PARENT;
+import static org.apache.fop.area.AreaEncoder.TAG_BLOCK_VIEWPORT;
+import static org.apache.fop.area.AreaEncoder.TAG_BODY_REGION;
+import static org.apache.fop.area.AreaEncoder.TAG_CONTAINER;
+import static org.apache.fop.area.AreaEncoder.TAG_FALSE;
+import static org.apache.fop.area.AreaEncoder.TAG_FILLED_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_FOOTNOTE;
+import static org.apache.fop.area.AreaEncoder.TAG_FOREIGN_OBJECT;
+import static org.apache.fop.area.AreaEncoder.TAG_HEAP_OBJECT;
+import static org.apache.fop.area.AreaEncoder.TAG_IMAGE;
+import static org.apache.fop.area.AreaEncoder.TAG_INLINE_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_INLINE_BLOCK_PARENT;
+import static org.apache.fop.area.AreaEncoder.TAG_INLINE_PARENT;
+import static org.apache.fop.area.AreaEncoder.TAG_INLINE_VIEWPORT;
+import static org.apache.fop.area.AreaEncoder.TAG_INTEGER;
+import static org.apache.fop.area.AreaEncoder.TAG_INTERNAL_LINK;
+import static org.apache.fop.area.AreaEncoder.TAG_LEADER;
+import static org.apache.fop.area.AreaEncoder.TAG_LINE_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_LINK_RESOLVER;
+import static org.apache.fop.area.AreaEncoder.TAG_NORMAL_FLOW;
+import static org.apache.fop.area.AreaEncoder.TAG_NULL;
+import static org.apache.fop.area.AreaEncoder.TAG_REFERENCE;
+import static org.apache.fop.area.AreaEncoder.TAG_REGION_REFERENCE;
+import static org.apache.fop.area.AreaEncoder.TAG_REGION_VIEWPORT;
+import static org.apache.fop.area.AreaEncoder.TAG_SPACE;
+import static org.apache.fop.area.AreaEncoder.TAG_SPACE_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_SPAN;
+import static org.apache.fop.area.AreaEncoder.TAG_STRING;
+import static org.apache.fop.area.AreaEncoder.TAG_TEXT_AREA;
+import static org.apache.fop.area.AreaEncoder.TAG_TRUE;
+import static org.apache.fop.area.AreaEncoder.TAG_UNRESOLVED_PAGE_NUMBER;
+import static org.apache.fop.area.AreaEncoder.TAG_WORD_AREA;
+
+/**
+ * Reads a page written by {@link AreaEncoder}. The areas read their own state
+ * through {@link AreaTreeObject#readState(AreaDecoder)}. A decoder is used for
+ * a single page.
+ */
+public final class AreaDecoder {
+
+    private final ByteBuffer data;
+
+    private final Object[] heapObjects;
+
+    private final List<Object> handles = new ArrayList<Object>();
+
+    private final List<String> strings = new ArrayList<String>();
+
+    /** the number of heap objects read so far */
+    private int heapObjectCount;
+
+    /**
+     * Creates a decoder.
+     *
+     * @param data
+     *            the encoded page, read from its position
+     * @param heapObjects
+     *            the objects which were kept on the heap by the encoder
+     */
+    AreaDecoder(final ByteBuffer data, final Object[] heapObjects) {
+        this.data = data;
+        this.heapObjects = heapObjects;
+    }
+
+    /**
+     * Reads a page and all its areas.
+     *
+     * @return the page
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    Page readPage() throws IOException {
+        final Page page = new Page();
+        try {
+            page.readState(this);
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Unexpected end of page data");
+        } catch (final ClassCastException e) {
+            throw new IOException("Corrupt page data: " + e.getMessage());
+        }
+        return page;
+    }
+
+    private int readUnsigned() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = this.data.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt page data: malformed number");
+    }
+
+    private int readCount() throws IOException {
+        final int count = readUnsigned() - 1;
+        // every element takes at least one byte
+        if (count > this.data.remaining()) {
+            throw new IOException("Corrupt page data: " + count
+                    + " elements but " + this.data.remaining()
+                    + " bytes left");
+        }
+        return count;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return the value
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    public int readInt() throws IOException {
+        final int value = readUnsigned();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the value
+     */
+    public boolean readBoolean() {
+        return this.data.get() != 0;
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return the value
+     */
+    public double readDouble() {
+        return Double.longBitsToDouble(this.data.getLong());
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return the string, or null
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    public String readString() throws IOException {
+        final int index = readUnsigned();
+        if (index == 0) {
+            return null;
+        } else if (index > 1) {
+            if (index - 2 >= this.strings.size()) {
+                throw new IOException("Corrupt page data: string " + index);
+            }
+            return this.strings.get(index - 2);
+        }
+        final int length = readCount() + 1;
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) readUnsigned();
+        }
+        final String value = new String(chars);
+        this.strings.add(value);
+        return value;
+    }
+
+    /**
+     * Reads an int array.
+     *
+     * @return the array, or null
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    public int[] readInts() throws IOException {
+        final int length = readCount();
+        if (length < 0) {
+            return null;
+        }
+        final int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Reads an array of int arrays.
+     *
+     * @return the array, or null
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    public int[][] readIntArrays() throws IOException {
+        final int length = readCount();
+        if (length < 0) {
+            return null;
+        }
+        final int[][] values = new int[length][];
+        for (int i = 0; i < length; i++) {
+            values[i] = readInts();
+        }
+        return values;
+    }
+
+    /**
+     * Reads a rectangle.
+     *
+     * @return the rectangle, or null
+     */
+    public Rectangle2D readRectangle() {
+        if (!readBoolean()) {
+            return null;
+        }
+        return new Rectangle2D.Double(readDouble(), readDouble(), readDouble(),
+                readDouble());
+    }
+
+    /**
+     * Reads a transformation matrix.
+     *
+     * @return the matrix, or null
+     */
+    public CTM readCTM() {
+        if (!readBoolean()) {
+            return null;
+        }
+        return new CTM(readDouble(), readDouble(), readDouble(), readDouble(),
+                readDouble(), readDouble());
+    }
+
+    /**
+     * Reads an area.
+     *
+     * @param <T>
+     *            the expected type of the area
+     * @return the area, or null
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Area> T readArea() throws IOException {
+        return (T) readObject();
+    }
+
+    /**
+     * Reads a list of areas.
+     *
+     * @param <T>
+     *            the expected type of the areas
+     * @return the list, or null
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Area> ArrayList<T> readAreas() throws IOException {
+        final int size = readCount();
+        if (size < 0) {
+            return null;
+        }
+        final ArrayList<T> areas = new ArrayList<T>(size);
+        for (int i = 0; i < size; i++) {
+            areas.add((T) readObject());
+        }
+        return areas;
+    }
+
+    /**
+     * Reads an object written by {@link AreaEncoder#writeObject(Object)}.
+     *
+     * @return the object, or null
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    public Object readObject() throws IOException {
+        final int tag = readUnsigned();
+        switch (tag) {
+        case TAG_NULL:
+            return null;
+        case TAG_REFERENCE:
+            final int handle = readUnsigned();
+            if (handle >= this.handles.size()) {
+                throw new IOException("Corrupt page data: object " + handle);
+            }
+            return this.handles.get(handle);
+        case TAG_INTEGER:
+            return readInt();
+        case TAG_FALSE:
+            return Boolean.FALSE;
+        case TAG_TRUE:
+            return Boolean.TRUE;
+        case TAG_STRING:
+            return readString();
+        case TAG_INTERNAL_LINK:
+            return new Trait.InternalLink(readString(), readString());
+        case TAG_LINK_RESOLVER:
+            final LinkResolver resolver = new LinkResolver(readString(), null);
+            this.handles.add(resolver);
+            resolver.readState(this);
+            return resolver;
+        case TAG_HEAP_OBJECT:
+            if (this.heapObjectCount >= this.heapObjects.length) {
+                throw new IOException("Corrupt page data: heap object "
+                        + this.heapObjectCount);
+            }
+            final Object obj = this.heapObjects[this.heapObjectCount++];
+            this.handles.add(obj);
+            return obj;
+        default:
+            final Area area = createArea(tag);
+            this.handles.add(area);
+            area.readState(this);
+            return area;
+        }
+    }
+
+    /**
+     * Constructs an area from what {@link AreaEncoder} has written in front
+     * of the area's state.
+     */
+    private Area createArea(final int tag) throws IOException {
+        switch (tag) {
+        case TAG_AREA:
+            return new Area();
+        case TAG_BLOCK_PARENT:
+            return new BlockParent();
+        case TAG_BLOCK:
+            return new Block();
+        case TAG_BLOCK_VIEWPORT:
+            return new BlockViewport();
+        case TAG_LINE_AREA:
+            return new LineArea();
+        case TAG_REGION_VIEWPORT:
+            return new RegionViewport(null);
+        case TAG_REGION_REFERENCE:
+            return new RegionReference(readInt(), readString(), null);
+        case TAG_BODY_REGION:
+            return new BodyRegion(readInt(), readString(), null, readInt(),
+                    readInt());
+        case TAG_SPAN:
+            return new Span(readInt(), readInt(), 0);
+        case TAG_NORMAL_FLOW:
+            return new NormalFlow(0);
+        case TAG_BEFORE_FLOAT:
+            return new BeforeFloat();
+        case TAG_FOOTNOTE:
+            return new Footnote();
+        case TAG_INLINE_AREA:
+            return new InlineArea();
+        case TAG_INLINE_PARENT:
+            return new InlineParent();
+        case TAG_TEXT_AREA:
+            return new TextArea();
+        case TAG_UNRESOLVED_PAGE_NUMBER:
+            return new UnresolvedPageNumber(readString(), null, readBoolean());
+        case TAG_WORD_AREA:
+            return new WordArea(0, -1, "", null, null, null);
+        case TAG_SPACE_AREA:
+            return new SpaceArea(0, -1, ' ', false);
+        case TAG_BASIC_LINK_AREA:
+            return new BasicLinkArea();
+        case TAG_FILLED_AREA:
+            return new FilledArea();
+        case TAG_INLINE_BLOCK_PARENT:
+            return new InlineBlockParent();
+        case TAG_INLINE_VIEWPORT:
+            return new InlineViewport(null);
+        case TAG_LEADER:
+            return new Leader();
+        case TAG_SPACE:
+            return new Space();
+        case TAG_ANCHOR:
+            return new Anchor();
+        case TAG_CONTAINER:
+            return new Container();
+        case TAG_IMAGE:
+            return new Image(readString());
+        case TAG_FOREIGN_OBJECT:
+            return new ForeignObject(readString());
+        default:
+            throw new IOException("Corrupt page data: unknown tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.geom.Rectangle2D;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.area.inline.Anchor;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.Container;
+import org.apache.fop.area.inline.FilledArea;
+import org.apache.fop.area.inline.ForeignObject;
+import org.apache.fop.area.inline.Image;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.InlineBlockParent;
+import org.apache.fop.area.inline.InlineParent;
+import org.apache.fop.area.inline.InlineViewport;
+import org.apache.fop.area.inline.Leader;
+import org.apache.fop.area.inline.Space;
+import org.apache.fop.area.inline.SpaceArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+
+/**
+ * Writes the contents of a page in the compact binary encoding used to hold
+ * deferred pages outside of the Java heap. Numbers are written as variable
+ * length integers, strings are written once per page and referred to by index
+ * afterwards, and every area is written once, so references between areas
+ * (parent areas, link resolvers, unresolved references) are kept. The areas
+ * write their own state through {@link AreaTreeObject#writeState(AreaEncoder)}.
+ * <p>
+ * Objects the encoding has no representation for (fonts, colors, borders,
+ * images, foreign documents and the like) are not copied: they are collected
+ * in a list which the caller keeps on the heap alongside the encoded page.
+ * These objects are usually shared by many areas and pages.
+ * </p>
+ * <p>
+ * An encoder can be reused for several pages, but it is not thread-safe.
+ * </p>
+ */
+public final class AreaEncoder {
+
+    /* Tags written in front of an object */
+    static final int TAG_NULL = 0;
+    static final int TAG_REFERENCE = 1;
+    static final int TAG_INTEGER = 2;
+    static final int TAG_FALSE = 3;
+    static final int TAG_TRUE = 4;
+    static final int TAG_STRING = 5;
+    static final int TAG_INTERNAL_LINK = 6;
+    static final int TAG_LINK_RESOLVER = 7;
+    static final int TAG_HEAP_OBJECT = 8;
+
+    /* Tags of the area classes */
+    static final int TAG_AREA = 16;
+    static final int TAG_BLOCK_PARENT = 17;
+    static final int TAG_BLOCK = 18;
+    static final int TAG_BLOCK_VIEWPORT = 19;
+    static final int TAG_LINE_AREA = 20;
+    static final int TAG_REGION_VIEWPORT = 21;
+    static final int TAG_REGION_REFERENCE = 22;
+    static final int TAG_BODY_REGION = 23;
+    static final int TAG_SPAN = 24;
+    static final int TAG_NORMAL_FLOW = 25;
+    static final int TAG_BEFORE_FLOAT = 26;
+    static final int TAG_FOOTNOTE = 27;
+    static final int TAG_INLINE_AREA = 32;
+    static final int TAG_INLINE_PARENT = 33;
+    static final int TAG_TEXT_AREA = 34;
+    static final int TAG_UNRESOLVED_PAGE_NUMBER = 35;
+    static final int TAG_WORD_AREA = 36;
+    static final int TAG_SPACE_AREA = 37;
+    static final int TAG_BASIC_LINK_AREA = 38;
+    static final int TAG_FILLED_AREA = 39;
+    static final int TAG_INLINE_BLOCK_PARENT = 40;
+    static final int TAG_INLINE_VIEWPORT = 41;
+    static final int TAG_LEADER = 42;
+    static final int TAG_SPACE = 43;
+    static final int TAG_ANCHOR = 44;
+    static final int TAG_CONTAINER = 45;
+    static final int TAG_IMAGE = 46;
+    static final int TAG_FOREIGN_OBJECT = 47;
+
+    private static final Map<Class<?>, Integer> AREA_TAGS = new java.util.HashMap<Class<?>, Integer>();
+
+    static {
+        AREA_TAGS.put(Area.class, TAG_AREA);
+        AREA_TAGS.put(BlockParent.class, TAG_BLOCK_PARENT);
+        AREA_TAGS.put(Block.class, TAG_BLOCK);
+        AREA_TAGS.put(BlockViewport.class, TAG_BLOCK_VIEWPORT);
+        AREA_TAGS.put(LineArea.class, TAG_LINE_AREA);
+        AREA_TAGS.put(RegionViewport.class, TAG_REGION_VIEWPORT);
+        AREA_TAGS.put(RegionReference.class, TAG_REGION_REFERENCE);
+        AREA_TAGS.put(BodyRegion.class, TAG_BODY_REGION);
+        AREA_TAGS.put(Span.class, TAG_SPAN);
+        AREA_TAGS.put(NormalFlow.class, TAG_NORMAL_FLOW);
+        AREA_TAGS.put(BeforeFloat.class, TAG_BEFORE_FLOAT);
+        AREA_TAGS.put(Footnote.class, TAG_FOOTNOTE);
+        AREA_TAGS.put(InlineArea.class, TAG_INLINE_AREA);
+        AREA_TAGS.put(InlineParent.class, TAG_INLINE_PARENT);
+        AREA_TAGS.put(TextArea.class, TAG_TEXT_AREA);
+        AREA_TAGS.put(UnresolvedPageNumber.class, TAG_UNRESOLVED_PAGE_NUMBER);
+        AREA_TAGS.put(WordArea.class, TAG_WORD_AREA);
+        AREA_TAGS.put(SpaceArea.class, TAG_SPACE_AREA);
+        AREA_TAGS.put(BasicLinkArea.class, TAG_BASIC_LINK_AREA);
+        AREA_TAGS.put(FilledArea.class, TAG_FILLED_AREA);
+        AREA_TAGS.put(InlineBlockParent.class, TAG_INLINE_BLOCK_PARENT);
+        AREA_TAGS.put(InlineViewport.class, TAG_INLINE_VIEWPORT);
+        AREA_TAGS.put(Leader.class, TAG_LEADER);
+        AREA_TAGS.put(Space.class, TAG_SPACE);
+        AREA_TAGS.put(Anchor.class, TAG_ANCHOR);
+        AREA_TAGS.put(Container.class, TAG_CONTAINER);
+        AREA_TAGS.put(Image.class, TAG_IMAGE);
+        AREA_TAGS.put(ForeignObject.class, TAG_FOREIGN_OBJECT);
+    }
+
+    private byte[] buf = new byte[64 * 1024];
+
+    private int count;
+
+    /** objects written so far, mapped to their handle */
+    private final Map<Object, Integer> handles = new IdentityHashMap<Object, Integer>();
+
+    /** strings written so far, mapped to their index */
+    private final Map<String, Integer> strings = new java.util.HashMap<String, Integer>();
+
+    /** objects kept on the heap, in the order they were written */
+    private final List<Object> heapObjects = new java.util.ArrayList<Object>();
+
+    /** Creates a new encoder. */
+    AreaEncoder() {
+    }
+
+    /**
+     * Discards the data of the previous page so the encoder can be reused.
+     */
+    void reset() {
+        this.count = 0;
+        this.handles.clear();
+        this.strings.clear();
+        this.heapObjects.clear();
+    }
+
+    /**
+     * Returns the encoded data, without copying it. The buffer is only valid
+     * until the next call to {@link #reset()}.
+     *
+     * @return the encoded data
+     */
+    ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(this.buf, 0, this.count);
+    }
+
+    /**
+     * Returns the objects which have not been encoded and have to be passed
+     * to the {@link AreaDecoder} together with the encoded data.
+     *
+     * @return the objects kept on the heap
+     */
+    Object[] getHeapObjects() {
+        return this.heapObjects.toArray();
+    }
+
+    /**
+     * Writes a page and all its areas.
+     *
+     * @param page
+     *            the page
+     */
+    void writePage(final Page page) {
+        page.writeState(this);
+    }
+
+    private void ensureCapacity(final int bytes) {
+        if (this.count + bytes > this.buf.length) {
+            final byte[] newBuf = new byte[Math.max(this.buf.length * 2,
+                    this.count + bytes)];
+            System.arraycopy(this.buf, 0, newBuf, 0, this.count);
+            this.buf = newBuf;
+        }
+    }
+
+    private void writeUnsigned(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            this.buf[this.count++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        this.buf[this.count++] = (byte) value;
+    }
+
+    /**
+     * Writes an int. Small positive and negative values take less space.
+     *
+     * @param value
+     *            the value
+     */
+    public void writeInt(final int value) {
+        writeUnsigned(value << 1 ^ value >> 31);
+    }
+
+    /**
+     * Writes a boolean.
+     *
+     * @param value
+     *            the value
+     */
+    public void writeBoolean(final boolean value) {
+        ensureCapacity(1);
+        this.buf[this.count++] = (byte) (value ? 1 : 0);
+    }
+
+    /**
+     * Writes a double.
+     *
+     * @param value
+     *            the value
+     */
+    public void writeDouble(final double value) {
+        ensureCapacity(8);
+        final long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            this.buf[this.count++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * Writes a string, which may be null. A string already written for the
+     * current page is only referred to.
+     *
+     * @param value
+     *            the string
+     */
+    public void writeString(final String value) {
+        if (value == null) {
+            writeUnsigned(0);
+            return;
+        }
+        final Integer index = this.strings.get(value);
+        if (index != null) {
+            writeUnsigned(index + 2);
+            return;
+        }
+        this.strings.put(value, this.strings.size());
+        writeUnsigned(1);
+        final int length = value.length();
+        writeUnsigned(length);
+        for (int i = 0; i < length; i++) {
+            writeUnsigned(value.charAt(i));
+        }
+    }
+
+    /**
+     * Writes an int array, which may be null.
+     *
+     * @param values
+     *            the array
+     */
+    public void writeInts(final int[] values) {
+        if (values == null) {
+            writeUnsigned(0);
+            return;
+        }
+        writeUnsigned(values.length + 1);
+        for (final int value : values) {
+            writeInt(value);
+        }
+    }
+
+    /**
+     * Writes an array of int arrays, which may be null or contain null.
+     *
+     * @param values
+     *            the array
+     */
+    public void writeInts(final int[][] values) {
+        if (values == null) {
+            writeUnsigned(0);
+            return;
+        }
+        writeUnsigned(values.length + 1);
+        for (final int[] value : values) {
+            writeInts(value);
+        }
+    }
+
+    /**
+     * Writes a rectangle, which may be null.
+     *
+     * @param rect
+     *            the rectangle
+     */
+    public void writeRectangle(final Rectangle2D rect) {
+        writeBoolean(rect != null);
+        if (rect != null) {
+            writeDouble(rect.getX());
+            writeDouble(rect.getY());
+            writeDouble(rect.getWidth());
+            writeDouble(rect.getHeight());
+        }
+    }
+
+    /**
+     * Writes a transformation matrix, which may be null.
+     *
+     * @param ctm
+     *            the matrix
+     */
+    public void writeCTM(final CTM ctm) {
+        writeBoolean(ctm != null);
+        if (ctm != null) {
+            for (final double value : ctm.toArray()) {
+                writeDouble(value);
+            }
+        }
+    }
+
+    /**
+     * Writes a list of areas, which may be null.
+     *
+     * @param areas
+     *            the areas
+     */
+    public void writeAreas(final List<? extends Area> areas) {
+        if (areas == null) {
+            writeUnsigned(0);
+            return;
+        }
+        writeUnsigned(areas.size() + 1);
+        for (final Area area : areas) {
+            writeObject(area);
+        }
+    }
+
+    /**
+     * Writes an object, which may be null. Areas and link resolvers are
+     * written with their state unless they have been written before for the
+     * current page. Integers, booleans, strings and internal links are written
+     * as values. Any other object is kept on the heap.
+     *
+     * @param obj
+     *            the object
+     */
+    public void writeObject(final Object obj) {
+        if (obj == null) {
+            writeUnsigned(TAG_NULL);
+        } else if (obj instanceof Integer) {
+            writeUnsigned(TAG_INTEGER);
+            writeInt((Integer) obj);
+        } else if (obj instanceof Boolean) {
+            writeUnsigned((Boolean) obj ? TAG_TRUE : TAG_FALSE);
+        } else if (obj instanceof String) {
+            writeUnsigned(TAG_STRING);
+            writeString((String) obj);
+        } else if (obj.getClass() == Trait.InternalLink.class) {
+            final Trait.InternalLink link = (Trait.InternalLink) obj;
+            writeUnsigned(TAG_INTERNAL_LINK);
+            writeString(link.getPVKey());
+            writeString(link.getIDRef());
+        } else {
+            final Integer handle = this.handles.get(obj);
+            if (handle != null) {
+                writeUnsigned(TAG_REFERENCE);
+                writeUnsigned(handle);
+                return;
+            }
+            final Integer tag = AREA_TAGS.get(obj.getClass());
+            if (tag != null) {
+                this.handles.put(obj, this.handles.size());
+                writeUnsigned(tag);
+                writeArea(tag, (Area) obj);
+            } else if (obj.getClass() == LinkResolver.class) {
+                this.handles.put(obj, this.handles.size());
+                writeUnsigned(TAG_LINK_RESOLVER);
+                writeString(((LinkResolver) obj).getIDRefs()[0]);
+                ((LinkResolver) obj).writeState(this);
+            } else {
+                this.handles.put(obj, this.handles.size());
+                writeUnsigned(TAG_HEAP_OBJECT);
+                this.heapObjects.add(obj);
+            }
+        }
+    }
+
+    /**
+     * Writes what is needed to construct an area, then the area's state.
+     * {@link AreaDecoder} constructs the area the same way.
+     */
+    private void writeArea(final int tag, final Area area) {
+        switch (tag) {
+        case TAG_REGION_REFERENCE:
+            writeRegionReference((RegionReference) area);
+            break;
+        case TAG_BODY_REGION:
+            writeRegionReference((RegionReference) area);
+            writeInt(((BodyRegion) area).getColumnCount());
+            writeInt(((BodyRegion) area).getColumnGap());
+            break;
+        case TAG_SPAN:
+            writeInt(((Span) area).getColumnCount());
+            writeInt(((Span) area).getColumnGap());
+            break;
+        case TAG_UNRESOLVED_PAGE_NUMBER:
+            final UnresolvedPageNumber pageNumber = (UnresolvedPageNumber) area;
+            writeString(pageNumber.getIDRefs()[0]);
+            writeBoolean(pageNumber.getPageType());
+            break;
+        case TAG_IMAGE:
+            writeString(((Image) area).getURL());
+            break;
+        case TAG_FOREIGN_OBJECT:
+            writeString(((ForeignObject) area).getNameSpace());
+            break;
+        default:
+            // constructed without arguments
+            break;
+        }
+        area.writeState(this);
+    }
+
+    private void writeRegionReference(final RegionReference region) {
+        writeInt(region.getRegionClass());
+        writeString(region.getRegionName());
+    }
+}
@@ -84,6 +84,9 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private TopLevelLayoutManager prevPageSeqLM;
 
+    // Lays out independent page-sequences concurrently, null if disabled
+    private ParallelPageSequenceLayout parallelLayout;
+
     private int idGen = 0;
 
     /**
@@ -116,6 +119,12 @@ public class AreaTreeHandler extends FOEventHandler {
         this.useComplexScriptFeatures = userAgent
                 .isComplexScriptFeaturesEnabled();
 
+        if (userAgent.isParallelPageSequenceLayoutEnabled()) {
+            this.parallelLayout = new ParallelPageSequenceLayout(this);
+            // the fonts are shared by the concurrent layouts
+            this.fontInfo.setConcurrentUse(true);
+        }
+
         if (log.isDebugEnabled()) {
             this.statistics = new Statistics();
         }
@@ -235,10 +244,9 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private void startAbstractPageSequence(
             final AbstractPageSequence pageSequence) {
-        this.rootFObj = pageSequence.getRoot();
-
         // Before the first page-sequence...
-        if (this.prevPageSeqLM == null) {
+        if (this.rootFObj == null) {
+            this.rootFObj = pageSequence.getRoot();
             // extension attachments from fo:root
             wrapAndAddExtensionAttachments(this.rootFObj
                     .getExtensionAttachments());
@@ -249,6 +257,9 @@ public class AreaTreeHandler extends FOEventHandler {
             }
         }
 
+        if (this.parallelLayout != null) {
+            this.parallelLayout.startPageSequence(pageSequence);
+        }
         finishPrevPageSequence(pageSequence.getInitialPageNumber());
         pageSequence.initPageNumber();
     }
@@ -279,6 +290,11 @@ public class AreaTreeHandler extends FOEventHandler {
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
+            if (this.parallelLayout != null
+                    && this.parallelLayout.submit(pageSLM, pageSequence)) {
+                // finished by the parallel layout, in document order
+                return;
+            }
             pageSLM.activateLayout();
             // preserve the current PageSequenceLayoutManger for the
             // force-page-count check at the beginning of the next PageSequence
@@ -335,6 +351,10 @@ public class AreaTreeHandler extends FOEventHandler {
     @Override
     public void endDocument() throws SAXException {
 
+        if (this.parallelLayout != null) {
+            this.parallelLayout.finishPendingLayouts();
+            this.parallelLayout.shutdown();
+        }
         finishPrevPageSequence(null);
         // process fox:destination elements
         if (this.rootFObj != null) {
@@ -407,7 +427,7 @@ public class AreaTreeHandler extends FOEventHandler {
      *
      * @return the generated key.
      */
-    public String generatePageViewportKey() {
+    public synchronized String generatePageViewportKey() {
         this.idGen++;
         return "P" + this.idGen;
     }
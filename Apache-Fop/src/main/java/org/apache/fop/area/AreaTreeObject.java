@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -156,4 +157,60 @@ public abstract class AreaTreeObject implements Cloneable {
                 && !this.extensionAttachments.isEmpty();
     }
 
+    /**
+     * Writes the state of this object for a page which is held outside of the
+     * heap. Subclasses with state of their own override this method and call
+     * it first.
+     *
+     * @param out
+     *            the encoder
+     */
+    protected void writeState(final AreaEncoder out) {
+        if (this.foreignAttributes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(this.foreignAttributes.size());
+            for (final Map.Entry<QName, String> e : this.foreignAttributes
+                    .entrySet()) {
+                out.writeString(e.getKey().getNamespaceURI());
+                out.writeString(e.getKey().getQName());
+                out.writeString(e.getValue());
+            }
+        }
+        if (this.extensionAttachments == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(this.extensionAttachments.size());
+            for (final ExtensionAttachment attachment : this.extensionAttachments) {
+                out.writeObject(attachment);
+            }
+        }
+    }
+
+    /**
+     * Restores the state written by {@link #writeState(AreaEncoder)}.
+     *
+     * @param in
+     *            the decoder
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    protected void readState(final AreaDecoder in) throws IOException {
+        final int attributeCount = in.readInt();
+        if (attributeCount >= 0) {
+            this.foreignAttributes = new HashMap<QName, String>();
+            for (int i = 0; i < attributeCount; i++) {
+                final QName name = new QName(in.readString(), in.readString());
+                this.foreignAttributes.put(name, in.readString());
+            }
+        }
+        final int attachmentCount = in.readInt();
+        if (attachmentCount >= 0) {
+            this.extensionAttachments = new ArrayList<ExtensionAttachment>();
+            for (int i = 0; i < attachmentCount; i++) {
+                this.extensionAttachments.add((ExtensionAttachment) in
+                        .readObject());
+            }
+        }
+    }
 }
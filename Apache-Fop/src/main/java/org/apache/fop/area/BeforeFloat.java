@@ -19,6 +19,8 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
+
 /**
  * The before-float-reference-area optionally generated by an fo:region-body. It
  * has an optional separator and before float block children. See fo:region-body
@@ -71,4 +73,18 @@ public class BeforeFloat extends BlockParent {
     public boolean isEmpty() {
         return true; // before floats are not yet implemented
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.separator);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.separator = in.readArea();
+    }
 }
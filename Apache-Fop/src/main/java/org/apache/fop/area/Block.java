@@ -19,6 +19,8 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
+
 // block areas hold either more block areas or line
 // areas can also be used as a block spacer
 // a block area may have children positioned by stacking
@@ -148,4 +150,17 @@ public class Block extends BlockParent {
         return endIndent != null ? endIndent : 0;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.positioning);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.positioning = in.readInt();
+    }
 }
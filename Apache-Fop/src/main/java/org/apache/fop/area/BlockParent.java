@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -126,4 +127,22 @@ public class BlockParent extends Area {
     public int getYOffset() {
         return this.yOffset;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.xOffset);
+        out.writeInt(this.yOffset);
+        out.writeAreas(this.children);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.xOffset = in.readInt();
+        this.yOffset = in.readInt();
+        this.children = in.readAreas();
+    }
 }
@@ -20,6 +20,7 @@
 package org.apache.fop.area;
 
 import java.awt.Rectangle;
+import java.io.IOException;
 
 /**
  * A BlockViewport. This is used for block level Viewport/reference pairs. The
@@ -97,4 +98,20 @@ public class BlockViewport extends Block implements Viewport {
             return null;
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeBoolean(this.clip);
+        out.writeCTM(this.viewportCTM);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.clip = in.readBoolean();
+        this.viewportCTM = in.readCTM();
+    }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.fop.fo.pagination.RegionBody;
@@ -172,4 +173,22 @@ public class BodyRegion extends RegionReference {
         return br;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.beforeFloat);
+        // the main reference area is created by the constructor
+        this.mainReference.writeState(out);
+        out.writeObject(this.footnote);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.beforeFloat = in.readArea();
+        this.mainReference.readState(in);
+        this.footnote = in.readArea();
+    }
 }
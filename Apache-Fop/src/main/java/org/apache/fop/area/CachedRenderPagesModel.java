@@ -19,22 +19,13 @@
 
 package org.apache.fop.area;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
@@ -44,12 +35,14 @@ import org.xml.sax.SAXException;
 /**
  * A simple cached render pages model. If the page is prepared for later
  * rendering then this saves the page contents to a file and once the page is
- * resolved the contents are reloaded.
+ * resolved the contents are reloaded. All saved pages share a single
+ * temporary file holding them in a compact binary encoding.
  */
 @Slf4j
 public class CachedRenderPagesModel extends RenderPagesModel {
 
-    private final Map<PageViewport, String> pageMap = new HashMap<PageViewport, String>();
+    /** Holds the contents of the saved pages, created on first use */
+    private PageSpillFile spillFile;
 
     /**
      * Base directory to save temporary file in, typically points to the user's
@@ -90,24 +83,11 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                 if (pageViewport != newpage) {
                     try {
                         // load page from cache
-                        final String name = this.pageMap.get(pageViewport);
-                        final File tempFile = new File(this.baseDir, name);
-                        log.debug("Loading page from: " + tempFile);
-                        final ObjectInputStream in = new ObjectInputStream(
-                                new BufferedInputStream(new FileInputStream(
-                                        tempFile)));
-                        try {
-                            pageViewport.loadPage(in);
-                        } finally {
-                            IOUtils.closeQuietly(in);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Loading page from: "
+                                    + this.spillFile.getFile());
                         }
-                        if (!tempFile.delete()) {
-                            final ResourceEventProducer eventProducer = ResourceEventProducer.Provider
-                                    .get(this.renderer.getUserAgent()
-                                            .getEventBroadcaster());
-                            eventProducer.cannotDeleteTempFile(this, tempFile);
-                        }
-                        this.pageMap.remove(pageViewport);
+                        this.spillFile.loadPage(pageViewport);
                     } catch (final Exception e) {
                         final AreaEventProducer eventProducer = AreaEventProducer.Provider
                                 .get(this.renderer.getUserAgent()
@@ -117,6 +97,12 @@ public class CachedRenderPagesModel extends RenderPagesModel {
                     }
                 }
 
+                if (!this.renderer.supportsOutOfOrder()
+                        && pageViewport.getPageSequence().isFirstPage(
+                                pageViewport)) {
+                    this.renderer.startPageSequence(pageViewport
+                            .getPageSequence());
+                }
                 renderPage(pageViewport);
                 pageViewport.clear();
                 iter.remove();
@@ -142,20 +128,13 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     protected void savePage(final PageViewport page) {
         try {
             // save page to cache
-            ObjectOutputStream tempstream;
-            final String fname = "fop-page-" + page.getPageIndex() + ".ser";
-            final File tempFile = new File(this.baseDir, fname);
-            tempFile.deleteOnExit();
-            tempstream = new ObjectOutputStream(new BufferedOutputStream(
-                    new FileOutputStream(tempFile)));
-            try {
-                page.savePage(tempstream);
-            } finally {
-                IOUtils.closeQuietly(tempstream);
+            if (this.spillFile == null) {
+                this.spillFile = new PageSpillFile(this.baseDir);
             }
-            this.pageMap.put(page, fname);
+            this.spillFile.savePage(page);
             if (log.isDebugEnabled()) {
-                log.debug("Page saved to temporary file: " + tempFile);
+                log.debug("Page saved to temporary file: "
+                        + this.spillFile.getFile());
             }
         } catch (final IOException ioe) {
             final AreaEventProducer eventProducer = AreaEventProducer.Provider
@@ -168,5 +147,20 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     @Override
     public void endDocument() throws SAXException {
         super.endDocument();
+        if (this.spillFile != null) {
+            final File tempFile = this.spillFile.getFile();
+            boolean deleted;
+            try {
+                deleted = this.spillFile.close();
+            } catch (final IOException ioe) {
+                deleted = false;
+            }
+            this.spillFile = null;
+            if (!deleted) {
+                final ResourceEventProducer eventProducer = ResourceEventProducer.Provider
+                        .get(this.renderer.getUserAgent().getEventBroadcaster());
+                eventProducer.cannotDeleteTempFile(this, tempFile);
+            }
+        }
     }
 }
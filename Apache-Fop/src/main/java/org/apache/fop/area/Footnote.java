@@ -19,6 +19,8 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
+
 // may combine with before float into a conditional area
 
 /**
@@ -89,4 +91,19 @@ public class Footnote extends BlockParent {
         setBPD(getBPD() + child.getBPD());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.separator);
+        out.writeInt(this.top);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.separator = in.readArea();
+        this.top = in.readInt();
+    }
 }
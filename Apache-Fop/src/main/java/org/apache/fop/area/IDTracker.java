@@ -252,4 +252,45 @@ public class IDTracker {
         // add Resolvable object to this HashSet
         todo.add(res);
     }
+
+    /**
+     * Takes over the IDs tracked by another tracker, as if the pages they were
+     * tracked for had been laid out against this tracker. This is used when a
+     * page-sequence has been laid out apart from the rest of the document:
+     * the IDs located in that page-sequence resolve the references waiting for
+     * them here, and the references the page-sequence could not resolve on its
+     * own are registered here.
+     *
+     * @param other
+     *            the tracker the page-sequence was laid out against
+     */
+    public void importIDs(final IDTracker other) {
+        // hold back resolution until all PageViewports of an ID are known
+        for (final String id : other.unfinishedIDs) {
+            signalPendingID(id);
+        }
+        for (final String id : other.alreadyResolvedIDs) {
+            signalPendingID(id);
+        }
+        for (final Map.Entry<String, List<PageViewport>> entry : other.idLocations
+                .entrySet()) {
+            for (final PageViewport pv : entry.getValue()) {
+                associateIDWithPageViewport(entry.getKey(), pv);
+            }
+        }
+        for (final String id : other.alreadyResolvedIDs) {
+            signalIDProcessed(id);
+        }
+        for (final Map.Entry<String, Set<Resolvable>> entry : other.unresolvedIDRefs
+                .entrySet()) {
+            final String id = entry.getKey();
+            for (final Resolvable res : entry.getValue()) {
+                addUnresolvedIDRef(id, res);
+            }
+            final List<PageViewport> pvList = this.idLocations.get(id);
+            if (pvList != null && !this.unfinishedIDs.contains(id)) {
+                tryIDResolution(id, pvList);
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -298,4 +299,35 @@ public class LineArea extends Area {
             // been handled, modifying the line indent
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeBoolean(this.adjustingInfo != null);
+        if (this.adjustingInfo != null) {
+            out.writeInt(this.adjustingInfo.lineAlignment);
+            out.writeInt(this.adjustingInfo.difference);
+            out.writeInt(this.adjustingInfo.availableStretch);
+            out.writeInt(this.adjustingInfo.availableShrink);
+            out.writeDouble(this.adjustingInfo.variationFactor);
+            out.writeBoolean(this.adjustingInfo.bAddedToAreaTree);
+        }
+        out.writeAreas(this.inlineAreas);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        if (in.readBoolean()) {
+            this.adjustingInfo = new LineAdjustingInfo(in.readInt(),
+                    in.readInt(), in.readInt(), in.readInt());
+            this.adjustingInfo.variationFactor = in.readDouble();
+            this.adjustingInfo.bAddedToAreaTree = in.readBoolean();
+        } else {
+            this.adjustingInfo = null;
+        }
+        this.inlineAreas = in.readAreas();
+    }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -90,6 +91,7 @@ public class LinkResolver implements Resolvable, Serializable {
             if (this.area != null) {
                 final Trait.InternalLink iLink = new Trait.InternalLink(
                         pv.getKey(), this.idRef);
+                pv.addInternalLink(iLink);
                 this.area.addTrait(Trait.INTERNAL_LINK, iLink);
                 this.area = null; // break circular reference from basic link
                                   // area to this resolver
@@ -122,4 +124,28 @@ public class LinkResolver implements Resolvable, Serializable {
         }
     }
 
+    /**
+     * Writes the state of this resolver for a page which is held outside of
+     * the heap. The ID reference is written by the encoder.
+     *
+     * @param out
+     *            the encoder
+     */
+    void writeState(final AreaEncoder out) {
+        out.writeBoolean(this.resolved);
+        out.writeObject(this.area);
+    }
+
+    /**
+     * Restores the state written by {@link #writeState(AreaEncoder)}.
+     *
+     * @param in
+     *            the decoder
+     * @throws IOException
+     *             if the data is corrupt
+     */
+    void readState(final AreaDecoder in) throws IOException {
+        this.resolved = in.readBoolean();
+        this.area = in.readArea();
+    }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -143,4 +144,19 @@ public class MainReference extends Area {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeAreas(this.spanAreas);
+        out.writeBoolean(this.isEmpty);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.spanAreas = in.readAreas();
+        this.isEmpty = in.readBoolean();
+    }
 }
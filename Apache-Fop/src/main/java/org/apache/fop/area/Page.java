@@ -21,7 +21,10 @@ package org.apache.fop.area;
 
 import java.awt.Rectangle;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -335,4 +338,55 @@ public class Page extends AreaTreeObject implements Serializable {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.regionBefore);
+        out.writeObject(this.regionStart);
+        out.writeObject(this.regionBody);
+        out.writeObject(this.regionEnd);
+        out.writeObject(this.regionAfter);
+        if (this.unresolved == null) {
+            out.writeInt(-1);
+        } else {
+            // written after the regions, so the resolvables in the areas are
+            // only referred to
+            out.writeInt(this.unresolved.size());
+            for (final Map.Entry<String, List<Resolvable>> e : this.unresolved
+                    .entrySet()) {
+                out.writeString(e.getKey());
+                out.writeInt(e.getValue().size());
+                for (final Resolvable res : e.getValue()) {
+                    out.writeObject(res);
+                }
+            }
+        }
+        out.writeBoolean(this.fakeNonEmpty);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.regionBefore = in.readArea();
+        this.regionStart = in.readArea();
+        this.regionBody = in.readArea();
+        this.regionEnd = in.readArea();
+        this.regionAfter = in.readArea();
+        final int idCount = in.readInt();
+        if (idCount >= 0) {
+            this.unresolved = new HashMap<String, List<Resolvable>>();
+            for (int i = 0; i < idCount; i++) {
+                final String id = in.readString();
+                final int resolvableCount = in.readInt();
+                final List<Resolvable> resolvables = new ArrayList<Resolvable>();
+                for (int j = 0; j < resolvableCount; j++) {
+                    resolvables.add((Resolvable) in.readObject());
+                }
+                this.unresolved.put(id, resolvables);
+            }
+        }
+        this.fakeNonEmpty = in.readBoolean();
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.List;
+
+/**
+ * Area tree model collecting the pages of a single page-sequence which is
+ * laid out apart from the rest of the document. The pages are handed over to
+ * the real area tree model later, in document order, through
+ * {@link #transferTo(AreaTreeModel)}.
+ */
+class PageSequenceBuffer extends AreaTreeModel {
+
+    private final List<PageViewport> pages = new java.util.ArrayList<PageViewport>();
+
+    /** {@inheritDoc} */
+    @Override
+    public void startPageSequence(final PageSequence pageSequence) {
+        if (pageSequence == null) {
+            throw new NullPointerException("pageSequence must not be null");
+        }
+        this.currentPageSequence = pageSequence;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void addPage(final PageViewport page) {
+        this.pages.add(page);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getPageSequenceCount() {
+        return this.currentPageSequence == null ? 0 : 1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getPageCount(final int seq) {
+        return this.pages.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PageViewport getPage(final int seq, final int count) {
+        return this.pages.get(count);
+    }
+
+    /**
+     * Adds the page-sequence and its pages to the given model.
+     *
+     * @param model
+     *            the model receiving the page-sequence
+     */
+    void transferTo(final AreaTreeModel model) {
+        model.startPageSequence(this.currentPageSequence);
+        for (final PageViewport page : this.pages) {
+            model.addPage(page);
+        }
+        this.pages.clear();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+/**
+ * Holds the contents of deferred pages outside of the Java heap. The pages are
+ * written in the compact binary encoding of {@link AreaEncoder} and appended
+ * to a single temporary file; an index maps each PageViewport to the extent
+ * of its contents in the file. Objects the encoding doesn't cover, typically
+ * shared ones like fonts and colors, stay on the heap with the index entry.
+ * Pages are read back with a single positional read into a reused buffer.
+ * The file is not memory-mapped, as a mapping would keep the file from being
+ * deleted on some platforms until the mapping is garbage collected. The
+ * space of the file is reused once all the pages written to it have been read
+ * back.
+ */
+class PageSpillFile {
+
+    private final File file;
+
+    private final RandomAccessFile raf;
+
+    private final FileChannel channel;
+
+    private final Map<PageViewport, Extent> index = new java.util.HashMap<PageViewport, Extent>();
+
+    /** reused for the encoded form of each page */
+    private final AreaEncoder encoder = new AreaEncoder();
+
+    /** reused for reading pages back, grown as needed */
+    private ByteBuffer readBuffer;
+
+    /** end of the data written since the file was last emptied */
+    private long writePosition;
+
+    /**
+     * Creates a new spill file in the given directory.
+     *
+     * @param baseDir
+     *            the directory for the temporary file
+     * @throws IOException
+     *             if the file cannot be created
+     */
+    PageSpillFile(final File baseDir) throws IOException {
+        this.file = File.createTempFile("fop-pages-", ".bin", baseDir);
+        this.file.deleteOnExit();
+        this.raf = new RandomAccessFile(this.file, "rw");
+        this.channel = this.raf.getChannel();
+    }
+
+    /**
+     * Returns the temporary file holding the pages.
+     *
+     * @return the file
+     */
+    File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Indicates whether the contents of the given page are held by this file.
+     *
+     * @param page
+     *            the page
+     * @return true if the page has been saved and not loaded again
+     */
+    boolean contains(final PageViewport page) {
+        return this.index.containsKey(page);
+    }
+
+    /**
+     * Writes the contents of a page to the file. The page contents are
+     * released by {@link PageViewport#savePage(AreaEncoder)}.
+     *
+     * @param page
+     *            the page to save
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    void savePage(final PageViewport page) throws IOException {
+        this.encoder.reset();
+        page.savePage(this.encoder);
+        final ByteBuffer data = this.encoder.toByteBuffer();
+        final long offset = this.writePosition;
+        long pos = offset;
+        while (data.hasRemaining()) {
+            pos += this.channel.write(data, pos);
+        }
+        this.writePosition = pos;
+        this.index.put(page, new Extent(offset, (int) (pos - offset),
+                this.encoder.getHeapObjects()));
+    }
+
+    /**
+     * Reads the contents of a page back from the file and removes the page
+     * from the index.
+     *
+     * @param page
+     *            the page to load
+     * @throws IOException
+     *             if an I/O error occurs or the contents are corrupt
+     */
+    void loadPage(final PageViewport page) throws IOException {
+        final Extent extent = this.index.remove(page);
+        if (extent == null) {
+            throw new IllegalStateException("Page " + page.getKey()
+                    + " is not in the spill file");
+        }
+        page.loadPage(new AreaDecoder(read(extent), extent.heapObjects));
+        if (this.index.isEmpty()) {
+            // nothing left to read: overwrite from the start
+            this.writePosition = 0;
+        }
+    }
+
+    private ByteBuffer read(final Extent extent) throws IOException {
+        if (this.readBuffer == null
+                || this.readBuffer.capacity() < extent.length) {
+            this.readBuffer = ByteBuffer.allocate(Math.max(extent.length,
+                    64 * 1024));
+        }
+        final ByteBuffer data = this.readBuffer;
+        data.clear();
+        data.limit(extent.length);
+        long pos = extent.offset;
+        while (data.hasRemaining()) {
+            final int n = this.channel.read(data, pos);
+            if (n < 0) {
+                throw new EOFException("Page data truncated in "
+                        + this.file);
+            }
+            pos += n;
+        }
+        data.flip();
+        return data;
+    }
+
+    /**
+     * Closes and deletes the file.
+     *
+     * @return true if the file could be deleted
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    boolean close() throws IOException {
+        this.index.clear();
+        this.readBuffer = null;
+        this.raf.close();
+        return this.file.delete();
+    }
+
+    /** The location of a page in the file */
+    private static final class Extent {
+
+        private final long offset;
+
+        private final int length;
+
+        /** the objects of the page which are not in the file */
+        private final Object[] heapObjects;
+
+        Extent(final long offset, final int length, final Object[] heapObjects) {
+            this.offset = offset;
+            this.length = length;
+            this.heapObjects = heapObjects;
+        }
+    }
+}
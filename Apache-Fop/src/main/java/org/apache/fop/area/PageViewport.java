@@ -62,6 +62,9 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
      */
     private String pageKey;
 
+    /** internal links to this page created while its key was provisional */
+    private transient List<Trait.InternalLink> provisionalLinks;
+
     private int pageNumber = -1;
     private String pageNumberString = null;
     private int pageIndex = -1; // -1 = undetermined
@@ -275,6 +278,38 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
      */
     public void setKey(final String key) {
         this.pageKey = key;
+        if (this.provisionalLinks != null) {
+            for (final Trait.InternalLink link : this.provisionalLinks) {
+                link.setPVKey(key);
+            }
+            this.provisionalLinks = null;
+        }
+    }
+
+    /**
+     * Sets a key which is only valid until the final key is set through
+     * {@link #setKey(String)}. Internal links made to this page in the
+     * meantime are updated with the final key.
+     *
+     * @param key
+     *            the provisional key
+     */
+    public void setProvisionalKey(final String key) {
+        this.pageKey = key;
+        this.provisionalLinks = new ArrayList<Trait.InternalLink>();
+    }
+
+    /**
+     * Registers an internal link to this page, so it follows a change of the
+     * provisional page key.
+     *
+     * @param link
+     *            the internal link referring to this page's key
+     */
+    void addInternalLink(final Trait.InternalLink link) {
+        if (this.provisionalLinks != null) {
+            this.provisionalLinks.add(link);
+        }
     }
 
     /**
@@ -599,6 +634,40 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
     public void loadPage(final ObjectInputStream in) throws IOException,
     ClassNotFoundException {
         this.page = (Page) in.readObject();
+        resolvePendingIDRefs();
+    }
+
+    /**
+     * Save the page contents in the binary encoding of the area tree. The
+     * map of unresolved references is set on the page so that the resolvers
+     * can be reloaded.
+     *
+     * @param out
+     *            the encoder to write the contents to
+     */
+    public void savePage(final AreaEncoder out) {
+        // set the unresolved references so they are encoded
+        this.page.setUnresolvedReferences(this.unresolvedIDRefs);
+        out.writePage(this.page);
+        this.page = null;
+    }
+
+    /**
+     * Load the page contents from the binary encoding of the area tree. If
+     * there are any unresolved references that were resolved while the page
+     * was saved they will be resolved on the page contents.
+     *
+     * @param in
+     *            the decoder to read the contents from
+     * @throws IOException
+     *             if the encoded contents are corrupt
+     */
+    public void loadPage(final AreaDecoder in) throws IOException {
+        this.page = in.readPage();
+        resolvePendingIDRefs();
+    }
+
+    private void resolvePendingIDRefs() {
         this.unresolvedIDRefs = this.page.getUnresolvedReferences();
         if (this.unresolvedIDRefs != null && this.pendingResolved != null) {
             for (final String id : this.pendingResolved.keySet()) {
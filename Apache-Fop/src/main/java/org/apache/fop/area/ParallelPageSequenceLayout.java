@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.fo.pagination.StaticContent;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+import org.apache.fop.util.DaemonThreadFactory;
+
+/**
+ * Lays out independent page-sequences concurrently on a pool of worker
+ * threads. Each page-sequence is laid out against its own
+ * {@link PageSequenceBuffer} and {@link IDTracker}. Once the layout of a
+ * page-sequence is done, and all page-sequences before it have been handed
+ * over, its pages and IDs are handed over to the AreaTreeHandler on the
+ * calling thread, so the rendering order and the resolution of references
+ * are the same as for sequential layout.
+ * <p>
+ * A page-sequence is independent if its page numbers do not depend on the
+ * preceding page-sequences (explicit initial-page-number), if it uses a
+ * simple-page-master (page-sequence-masters are stateful and shared between
+ * page-sequences) and if it does not retrieve markers from other
+ * page-sequences. Page number citations to other page-sequences are resolved
+ * when the page-sequence is handed over, like forward references.
+ */
+@Slf4j
+final class ParallelPageSequenceLayout {
+
+    private final AreaTreeHandler areaTreeHandler;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxPendingLayouts;
+
+    /** page-sequences being laid out, in document order */
+    private final LinkedList<Layout> pendingLayouts = new LinkedList<Layout>();
+
+    /**
+     * Creates a new instance with one worker thread per available processor.
+     *
+     * @param areaTreeHandler
+     *            the area tree handler receiving the pages
+     */
+    ParallelPageSequenceLayout(final AreaTreeHandler areaTreeHandler) {
+        this.areaTreeHandler = areaTreeHandler;
+        final int threads = Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 1,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("fop-layout"));
+        // don't keep idle threads if the document is never finished
+        this.executor.allowCoreThreadTimeOut(true);
+        // bounds the number of FO subtrees and pages held in memory
+        this.maxPendingLayouts = threads * 2;
+    }
+
+    /**
+     * Indicates whether the page numbers of a page-sequence are independent
+     * of the preceding page-sequences and whether it uses a stateless page
+     * master. This can already be decided when the page-sequence starts.
+     *
+     * @param pageSequence
+     *            the page-sequence
+     * @return true if the page-sequence may be laid out concurrently
+     */
+    static boolean hasIndependentNumbering(
+            final AbstractPageSequence pageSequence) {
+        if (!(pageSequence instanceof PageSequence)) {
+            return false;
+        }
+        final Numeric initialPageNumber = pageSequence.getInitialPageNumber();
+        if (initialPageNumber == null || initialPageNumber.getEnum() != 0) {
+            // auto, auto-odd or auto-even
+            return false;
+        }
+        final PageSequence ps = (PageSequence) pageSequence;
+        return ps.getRoot().getLayoutMasterSet()
+                .getPageSequenceMaster(ps.getMasterReference()) == null;
+    }
+
+    /**
+     * Indicates whether a complete page-sequence can be laid out
+     * concurrently.
+     *
+     * @param pageSequence
+     *            the page-sequence, fully parsed
+     * @return true if the page-sequence may be laid out concurrently
+     */
+    static boolean isIndependent(final PageSequence pageSequence) {
+        if (!hasIndependentNumbering(pageSequence)) {
+            return false;
+        }
+        for (final FONode node : pageSequence.getFlowMap().values()) {
+            if (node instanceof StaticContent
+                    && retrievesDocumentMarkers(node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean retrievesDocumentMarkers(final FONode node) {
+        if (node instanceof RetrieveMarker
+                && ((RetrieveMarker) node).getRetrieveBoundary() == Constants.EN_DOCUMENT) {
+            return true;
+        }
+        final FONode.FONodeIterator children = node.getChildNodes();
+        if (children != null) {
+            while (children.hasNext()) {
+                if (retrievesDocumentMarkers(children.nextNode())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notifies the start of a page-sequence. If the page-sequence depends on
+     * the preceding ones, all pending layouts are finished.
+     *
+     * @param pageSequence
+     *            the page-sequence which starts
+     */
+    void startPageSequence(final AbstractPageSequence pageSequence) {
+        if (!this.pendingLayouts.isEmpty()) {
+            this.pendingLayouts.getLast().nextInitialPageNumber = pageSequence
+                    .getInitialPageNumber();
+        }
+        if (!hasIndependentNumbering(pageSequence)) {
+            finishPendingLayouts();
+        }
+    }
+
+    /**
+     * Submits the layout of a page-sequence to the worker threads if it is
+     * independent. Otherwise all pending layouts are finished so the
+     * page-sequence can be laid out on the calling thread.
+     *
+     * @param pslm
+     *            the layout manager of the page-sequence
+     * @param pageSequence
+     *            the page-sequence
+     * @return true if the page-sequence has been submitted, false if it has to
+     *         be laid out by the caller
+     */
+    boolean submit(final PageSequenceLayoutManager pslm,
+            final PageSequence pageSequence) {
+        if (!isIndependent(pageSequence)) {
+            finishPendingLayouts();
+            return false;
+        }
+        while (this.pendingLayouts.size() >= this.maxPendingLayouts) {
+            finish(this.pendingLayouts.removeFirst());
+        }
+        final Layout layout = new Layout(pslm);
+        pslm.setLayoutTarget(layout.buffer, layout.idTracker);
+        pslm.getPageProvider().useProvisionalPageKeys();
+        layout.result = this.executor.submit(layout);
+        this.pendingLayouts.add(layout);
+        return true;
+    }
+
+    /**
+     * Waits for all pending layouts and hands their pages over to the
+     * AreaTreeHandler, in document order.
+     */
+    void finishPendingLayouts() {
+        while (!this.pendingLayouts.isEmpty()) {
+            finish(this.pendingLayouts.removeFirst());
+        }
+    }
+
+    /**
+     * Stops the worker threads. Pending layouts must have been finished.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+    }
+
+    private void finish(final Layout layout) {
+        try {
+            layout.result.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while waiting for page-sequence layout");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+        // The same steps as for sequential layout, but on the calling thread
+        layout.pslm.doForcePageCount(layout.nextInitialPageNumber);
+        layout.pslm.finishPageSequence();
+        layout.pslm.getPageProvider().assignPageKeys();
+        this.areaTreeHandler.getIDTracker().importIDs(layout.idTracker);
+        layout.buffer.transferTo(this.areaTreeHandler.getAreaTreeModel());
+        if (log.isDebugEnabled()) {
+            log.debug("Page-sequence laid out in parallel handed over");
+        }
+    }
+
+    /** The layout of one page-sequence */
+    private static final class Layout implements Runnable {
+
+        private final PageSequenceLayoutManager pslm;
+
+        private final PageSequenceBuffer buffer = new PageSequenceBuffer();
+
+        private final IDTracker idTracker = new IDTracker();
+
+        /** initial-page-number of the next page-sequence, for force-page-count */
+        private Numeric nextInitialPageNumber;
+
+        private Future<?> result;
+
+        Layout(final PageSequenceLayoutManager pslm) {
+            this.pslm = pslm;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+            this.pslm.activateLayout();
+        }
+    }
+}
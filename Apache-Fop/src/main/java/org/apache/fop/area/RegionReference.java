@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -160,4 +161,22 @@ public class RegionReference extends Area {
         sb.append("}");
         return sb.toString();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeCTM(this.ctm);
+        out.writeAreas(this.blocks);
+        out.writeObject(this.regionViewport);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.ctm = in.readCTM();
+        this.blocks = in.readAreas();
+        this.regionViewport = in.readArea();
+    }
 }
@@ -148,4 +148,21 @@ public class RegionViewport extends Area implements Viewport {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeRectangle(this.viewArea);
+        out.writeBoolean(this.clip);
+        out.writeObject(this.regionReference);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.viewArea = in.readRectangle();
+        this.clip = in.readBoolean();
+        this.regionReference = in.readArea();
+    }
 }
@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 
@@ -85,6 +86,15 @@ public class Span extends Area {
         return this.colCount;
     }
 
+    /**
+     * Get the column gap for this span area.
+     *
+     * @return the column gap for this span area
+     */
+    public int getColumnGap() {
+        return this.colGap;
+    }
+
     /**
      * Get the width of a single column within this Span
      *
@@ -230,4 +240,21 @@ public class Span extends Area {
         return sb.toString();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeAreas(this.flowAreas);
+        out.writeInt(this.colWidth);
+        out.writeInt(this.curFlowIdx);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.flowAreas = in.readAreas();
+        this.colWidth = in.readInt();
+        this.curFlowIdx = in.readInt();
+    }
 }
@@ -19,6 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
+
 /**
  * Abstract base class for both TextArea and Character.
  */
@@ -215,4 +220,36 @@ public abstract class AbstractTextArea extends InlineParent {
          */
         return getBPD();
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.textWordSpaceAdjust);
+        out.writeInt(this.textLetterSpaceAdjust);
+        out.writeBoolean(this.textAdjustingInfo != null);
+        if (this.textAdjustingInfo != null) {
+            out.writeInt(this.textAdjustingInfo.availableStretch);
+            out.writeInt(this.textAdjustingInfo.availableShrink);
+            out.writeInt(this.textAdjustingInfo.adjustment);
+            out.writeInt(this.textAdjustingInfo.spaceDifference);
+        }
+        out.writeInt(this.baselineOffset);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.textWordSpaceAdjust = in.readInt();
+        this.textLetterSpaceAdjust = in.readInt();
+        if (in.readBoolean()) {
+            this.textAdjustingInfo = new TextAdjustingInfo(in.readInt(),
+                    in.readInt(), in.readInt());
+            this.textAdjustingInfo.spaceDifference = in.readInt();
+        } else {
+            this.textAdjustingInfo = null;
+        }
+        this.baselineOffset = in.readInt();
+    }
 }
@@ -19,7 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.area.LinkResolver;
 
 /**
@@ -79,4 +83,18 @@ public class BasicLinkArea extends InlineParent {
     public LinkResolver getResolver() {
         return this.resolver;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.resolver);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.resolver = (LinkResolver) in.readObject();
+    }
 }
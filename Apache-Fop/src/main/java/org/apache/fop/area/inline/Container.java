@@ -19,10 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.area.Block;
 
 /**
@@ -77,4 +80,20 @@ public class Container extends Area {
     public int getWidth() {
         return this.width;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeAreas(this.blocks);
+        out.writeInt(this.width);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.blocks = in.readAreas();
+        this.width = in.readInt();
+    }
 }
@@ -19,9 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
+
 /**
  * Filled area. This inline area contains some inline areas. When the renderer
  * gets the child areas to render the inline areas are repeated to fill the ipd
@@ -124,4 +128,17 @@ public class FilledArea extends InlineParent {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.unitWidth);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.unitWidth = in.readInt();
+    }
 }
@@ -19,7 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.w3c.dom.Document;
 
 // cacheable object
@@ -85,4 +89,19 @@ public class ForeignObject extends Area {
     public String getNameSpace() {
         return this.namespace;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        // DOM documents are kept on the heap
+        out.writeObject(this.doc);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.doc = (Document) in.readObject();
+    }
 }
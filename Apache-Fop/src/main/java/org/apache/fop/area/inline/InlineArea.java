@@ -19,12 +19,15 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.area.Trait;
 import org.apache.fop.complexscripts.bidi.InlineRun;
@@ -373,4 +376,33 @@ public class InlineArea extends Area {
         return false;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.blockProgressionOffset);
+        out.writeObject(this.parentArea);
+        out.writeInt(this.storedIPDVariation);
+        out.writeBoolean(this.adjustingInfo != null);
+        if (this.adjustingInfo != null) {
+            out.writeInt(this.adjustingInfo.availableStretch);
+            out.writeInt(this.adjustingInfo.availableShrink);
+            out.writeInt(this.adjustingInfo.adjustment);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.blockProgressionOffset = in.readInt();
+        this.parentArea = in.readArea();
+        this.storedIPDVariation = in.readInt();
+        if (in.readBoolean()) {
+            this.adjustingInfo = new InlineAdjustingInfo(in.readInt(),
+                    in.readInt(), in.readInt());
+        } else {
+            this.adjustingInfo = null;
+        }
+    }
 }
@@ -19,7 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.area.Block;
 
 /**
@@ -74,4 +78,17 @@ public class InlineBlockParent extends InlineArea {
         return this.child;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.child);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.child = in.readArea();
+    }
 }
@@ -19,10 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 
 /**
  * Inline parent area. This is an inline area that can have other inlines as
@@ -154,4 +157,21 @@ public class InlineParent extends InlineArea {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeAreas(this.inlines);
+        out.writeInt(this.minChildOffset);
+        out.writeInt(this.maxAfterEdge);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.inlines = in.readAreas();
+        this.minChildOffset = in.readInt();
+        this.maxAfterEdge = in.readInt();
+    }
 }
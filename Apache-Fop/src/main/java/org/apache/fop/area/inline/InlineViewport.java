@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.util.TreeMap;
 
 import org.apache.fop.area.Area;
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.area.Viewport;
 
 /**
@@ -155,4 +157,21 @@ public class InlineViewport extends InlineArea implements Viewport {
         this.content = (Area) in.readObject();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeObject(this.content);
+        out.writeBoolean(this.clip);
+        out.writeRectangle(this.contentPosition);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.content = in.readArea();
+        this.clip = in.readBoolean();
+        this.contentPosition = in.readRectangle();
+    }
 }
@@ -19,6 +19,10 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.fo.Constants;
 
 /**
@@ -128,4 +132,19 @@ public class Leader extends InlineArea {
         return this.ruleThickness;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.ruleStyle);
+        out.writeInt(this.ruleThickness);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.ruleStyle = in.readInt();
+        this.ruleThickness = in.readInt();
+    }
 }
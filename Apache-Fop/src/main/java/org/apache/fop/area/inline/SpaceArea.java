@@ -19,6 +19,11 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
+
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
+
 /**
  * A space
  */
@@ -65,4 +70,19 @@ public class SpaceArea extends InlineArea {
         return this.isAdjustable;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeInt(this.space);
+        out.writeBoolean(this.isAdjustable);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.space = (char) in.readInt();
+        this.isAdjustable = in.readBoolean();
+    }
 }
@@ -19,10 +19,13 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.area.PageViewport;
 import org.apache.fop.area.Resolvable;
 import org.apache.fop.complexscripts.bidi.InlineRun;
@@ -191,4 +194,33 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
         runs.add(new InlineRun(this, new int[] { getBidiLevel() }));
         return runs;
     }
+
+    /**
+     * Indicates whether the first or the last page of the referenced ID is
+     * cited.
+     *
+     * @return {@link #FIRST} or {@link #LAST}
+     */
+    public boolean getPageType() {
+        return this.pageType;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeBoolean(this.resolved);
+        out.writeString(this.text);
+        // the font is needed to update the IPD once resolved, so it is kept
+        out.writeObject(this.font);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.resolved = in.readBoolean();
+        this.text = in.readString();
+        this.font = (Font) in.readObject();
+    }
 }
@@ -19,9 +19,12 @@
 
 package org.apache.fop.area.inline;
 
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.fop.area.AreaDecoder;
+import org.apache.fop.area.AreaEncoder;
 import org.apache.fop.complexscripts.bidi.InlineRun;
 import org.apache.fop.complexscripts.util.CharMirror;
 
@@ -365,4 +368,25 @@ public class WordArea extends InlineArea {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void writeState(final AreaEncoder out) {
+        super.writeState(out);
+        out.writeString(this.word);
+        out.writeInts(this.letterAdjust);
+        out.writeInts(this.levels);
+        out.writeInts(this.gposAdjustments);
+        out.writeBoolean(this.reversed);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void readState(final AreaDecoder in) throws IOException {
+        super.readState(in);
+        this.word = in.readString();
+        this.letterAdjust = in.readInts();
+        this.levels = in.readInts();
+        this.gposAdjustments = in.readIntArrays();
+        this.reversed = in.readBoolean();
+    }
 }
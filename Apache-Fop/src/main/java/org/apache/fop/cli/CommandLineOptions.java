@@ -122,6 +122,8 @@ public class CommandLineOptions {
     private int targetResolution = 0;
     /* control memory-conservation policy */
     private boolean conserveMemoryPolicy = false;
+    /* true if independent page-sequences should be laid out concurrently */
+    private boolean parallelPageSequenceLayout = false;
     /* true if a complex script features are enabled */
     private boolean useComplexScriptFeatures = true;
 
@@ -178,6 +180,8 @@ public class CommandLineOptions {
                 addXSLTParameter("fop-version", Version.getVersion());
                 this.foUserAgent
                         .setConserveMemoryPolicy(this.conserveMemoryPolicy);
+                this.foUserAgent
+                        .setParallelPageSequenceLayout(this.parallelPageSequenceLayout);
                 if (!this.useComplexScriptFeatures) {
                     this.foUserAgent.setComplexScriptFeaturesEnabled(false);
                 }
@@ -280,6 +284,8 @@ public class CommandLineOptions {
                 this.factory.setStrictValidation(false);
             } else if (args[i].equals("-conserve")) {
                 this.conserveMemoryPolicy = true;
+            } else if (args[i].equals("-parallel")) {
+                this.parallelPageSequenceLayout = true;
             } else if (args[i].equals("-flush")) {
                 this.flushCache = true;
             } else if (args[i].equals("-cache")) {
@@ -1211,7 +1217,10 @@ public class CommandLineOptions {
                 + "  -conserve         enable memory-conservation policy (trades memory-consumption"
                 + " for disk I/O)\n"
                 + "                    (Note: currently only influences whether the area tree is"
-                + " serialized.)\n\n"
+                + " serialized.)\n"
+                + "  -parallel         lay out independent page-sequences (explicit"
+                + " initial-page-number)\n"
+                + "                    concurrently on all available processors\n\n"
 
                 + "  -cache            specifies a file/directory path location"
                 + " for the font cache file\n"
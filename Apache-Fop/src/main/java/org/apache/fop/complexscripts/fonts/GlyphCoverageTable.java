@@ -51,12 +51,27 @@ GlyphCoverageMapping {
     /** range based mapping table */
     public static final int GLYPH_COVERAGE_TYPE_RANGE = GLYPH_MAPPING_TYPE_RANGE;
 
+    /**
+     * maximum ratio of the glyph span of a coverage to its size, for which the
+     * coverage is indexed by a bit set (of at most 6 bytes per covered glyph)
+     */
+    private static final int MAX_INDEXED_SPAN_RATIO = 32;
+
     private final GlyphCoverageMapping cm;
 
+    // optional dense index of the coverage: a bit set of the covered glyphs,
+    // starting with the first glyph, and the number of covered glyphs that
+    // precede each word of the bit set, which is the coverage index of the
+    // first covered glyph in the word
+    private int firstGlyph;
+    private long[] glyphBits;
+    private int[] glyphRanks;
+
     private GlyphCoverageTable(final GlyphCoverageMapping cm) {
         assert cm != null;
         assert cm instanceof GlyphMappingTable;
         this.cm = cm;
+        index();
     }
 
     /** {@inheritDoc} */
@@ -80,7 +95,80 @@ GlyphCoverageMapping {
     /** {@inheritDoc} */
     @Override
     public int getCoverageIndex(final int gid) {
-        return this.cm.getCoverageIndex(gid);
+        if (this.glyphBits != null) {
+            final int i = gid - this.firstGlyph;
+            final int w = i >>> 6;
+            if (i < 0 || w >= this.glyphBits.length) {
+                return -1;
+            }
+            final long word = this.glyphBits[w];
+            final long bit = 1L << (i & 63);
+            if ((word & bit) == 0) {
+                return -1;
+            } else {
+                return this.glyphRanks[w] + Long.bitCount(word & (bit - 1));
+            }
+        } else {
+            return this.cm.getCoverageIndex(gid);
+        }
+    }
+
+    /**
+     * Build the dense index of the coverage if its glyphs are not too sparse,
+     * and if their coverage indices follow the glyph order, as they should.
+     */
+    private void index() {
+        final List entries = getEntries();
+        final int n = entries.size();
+        if (n == 0) {
+            return;
+        }
+        final int first = getStart(entries.get(0));
+        final int last = getEnd(entries.get(n - 1));
+        final int size = getCoverageSize();
+        if (size <= 0 || last - first >= MAX_INDEXED_SPAN_RATIO * size) {
+            return;
+        }
+        final long[] bits = new long[((last - first) >>> 6) + 1];
+        final int[] ranks = new int[bits.length];
+        int ci = 0;
+        for (int k = 0; k < n; k++) {
+            final Object o = entries.get(k);
+            for (int gid = getStart(o), ge = getEnd(o); gid <= ge; gid++) {
+                if (this.cm.getCoverageIndex(gid) != ci) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("coverage indices do not follow glyph order, not indexing coverage: "
+                                + this.cm);
+                    }
+                    return;
+                }
+                final int i = gid - first;
+                bits[i >>> 6] |= 1L << (i & 63);
+                ci++;
+            }
+        }
+        for (int w = 1; w < bits.length; w++) {
+            ranks[w] = ranks[w - 1] + Long.bitCount(bits[w - 1]);
+        }
+        this.firstGlyph = first;
+        this.glyphBits = bits;
+        this.glyphRanks = ranks;
+    }
+
+    private static int getStart(final Object entry) {
+        if (entry instanceof MappingRange) {
+            return ((MappingRange) entry).getStart();
+        } else {
+            return ((Integer) entry).intValue();
+        }
+    }
+
+    private static int getEnd(final Object entry) {
+        if (entry instanceof MappingRange) {
+            return ((MappingRange) entry).getEnd();
+        } else {
+            return ((Integer) entry).intValue();
+        }
     }
 
     /**
@@ -183,7 +271,10 @@ GlyphCoverageMapping {
         @Override
         public int getMappedIndex(final int gid) {
             int i;
-            if ((i = Arrays.binarySearch(this.map, gid)) >= 0) {
+            if (this.map.length == 0 || gid < this.map[0]
+                    || gid > this.map[this.map.length - 1]) {
+                return -1;
+            } else if ((i = Arrays.binarySearch(this.map, gid)) >= 0) {
                 return i;
             } else {
                 return -1;
@@ -231,7 +322,7 @@ GlyphCoverageMapping {
             }
             assert i + skipped == n;
             assert this.map == null;
-            this.map = map;
+            this.map = skipped > 0 ? Arrays.copyOf(map, i) : map;
         }
 
         /** {@inheritDoc} */
@@ -150,10 +150,18 @@ public class GlyphMappingTable {
 
     /** range mapping table base class */
     protected abstract static class RangeMappingTable extends GlyphMappingTable {
+        /**
+         * maximum ratio of the glyph span of the ranges to their number, for
+         * which the mapped indices are also stored by glyph (using at most 64
+         * bytes per range, instead of 12)
+         */
+        private static final int MAX_DENSE_SPAN_RATIO = 16;
         private int[] sa = null; // array of range (inclusive) starts
         private int[] ea = null; // array of range (inclusive) ends
         private int[] ma = null; // array of range mapped values
         private int miMax = -1;
+        private int[] da = null; // optional array of mapped values by glyph,
+                                 // starting with first range start, or -1
 
         /**
          * Construct range mapping table.
@@ -195,7 +203,12 @@ public class GlyphMappingTable {
         public int getMappedIndex(final int gid) {
             int i;
             int mi;
-            if ((i = Arrays.binarySearch(this.sa, gid)) >= 0) {
+            if (this.da != null) {
+                i = gid - this.sa[0];
+                mi = i >= 0 && i < this.da.length ? this.da[i] : -1;
+            } else if (this.sa.length == 0 || gid > this.ea[this.ea.length - 1]) {
+                mi = -1; // follows last range
+            } else if ((i = Arrays.binarySearch(this.sa, gid)) >= 0) {
                 mi = getMappedIndex(gid, this.sa[i], this.ma[i]); // matches
                                                                   // start of
                                                                   // (some)
@@ -285,6 +298,16 @@ public class GlyphMappingTable {
             this.ea = ea;
             this.ma = ma;
             this.miMax = miMax;
+            if (n > 0 && gidMax - sa[0] < MAX_DENSE_SPAN_RATIO * n) {
+                final int[] da = new int[gidMax - sa[0] + 1];
+                Arrays.fill(da, -1);
+                for (int k = 0; k < n; k++) {
+                    for (int gid = sa[k]; gid <= ea[k]; gid++) {
+                        da[gid - sa[0]] = getMappedIndex(gid, sa[k], ma[k]);
+                    }
+                }
+                this.da = da;
+            }
         }
 
         /** {@inheritDoc} */
@@ -96,6 +96,22 @@ public class GlyphPositioningTable extends GlyphTable {
         }
     }
 
+    /**
+     * Instantiate a <code>GlyphPositioningTable</code> object using the
+     * specified lookups, whose positioning subtables are parsed on first use.
+     *
+     * @param gdef
+     *            glyph definition table that applies
+     * @param lookups
+     *            a map of lookup specifications to subtable identifier strings
+     * @param lookupLoader
+     *            a loader of glyph positioning subtables by lookup identifier
+     */
+    public GlyphPositioningTable(final GlyphDefinitionTable gdef,
+            final Map lookups, final LookupLoader lookupLoader) {
+        super(gdef, lookups, lookupLoader);
+    }
+
     /**
      * Map a lookup type name to its constant (integer) value.
      *
@@ -284,10 +300,11 @@ public class GlyphPositioningTable extends GlyphTable {
     public boolean position(final GlyphSequence gs, final String script,
             final String language, final int fontSize, final int[] widths,
             final int[][] adjustments) {
+        final ScriptProcessor sp = ScriptProcessor.getInstance(script);
+        // only the lookups of the features applied by the script processor
         final Map/* <LookupSpec,List<LookupTable>> */lookups = matchLookups(
-                script, language, "*");
+                script, language, sp.getPositioningFeatures());
         if (lookups != null && lookups.size() > 0) {
-            final ScriptProcessor sp = ScriptProcessor.getInstance(script);
             return sp.position(this, gs, script, language, fontSize, lookups,
                     widths, adjustments);
         } else {
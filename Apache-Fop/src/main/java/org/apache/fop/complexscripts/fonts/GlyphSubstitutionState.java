@@ -130,13 +130,16 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
      *            a predication value to add to association A if predications
      *            enabled
      */
-    public void putGlyph(final int glyph,
-            final GlyphSequence.CharAssociation a, final Object predication) {
+    public void putGlyph(final int glyph, GlyphSequence.CharAssociation a,
+            final Object predication) {
         if (!this.ogb.hasRemaining()) {
             this.ogb = growBuffer(this.ogb);
         }
         this.ogb.put(glyph);
         if (this.predications && predication != null) {
+            if (a.isShared()) {
+                a = (GlyphSequence.CharAssociation) a.clone();
+            }
             a.setPredication(this.feature, predication);
         }
         this.oal.add(a);
@@ -92,6 +92,22 @@ public class GlyphSubstitutionTable extends GlyphTable {
         }
     }
 
+    /**
+     * Instantiate a <code>GlyphSubstitutionTable</code> object using the
+     * specified lookups, whose substitution subtables are parsed on first use.
+     *
+     * @param gdef
+     *            glyph definition table that applies
+     * @param lookups
+     *            a map of lookup specifications to subtable identifier strings
+     * @param lookupLoader
+     *            a loader of glyph substitution subtables by lookup identifier
+     */
+    public GlyphSubstitutionTable(final GlyphDefinitionTable gdef,
+            final Map lookups, final LookupLoader lookupLoader) {
+        super(gdef, lookups, lookupLoader);
+    }
+
     /**
      * Perform substitution processing using all matching lookups.
      *
@@ -106,10 +122,11 @@ public class GlyphSubstitutionTable extends GlyphTable {
     public GlyphSequence substitute(final GlyphSequence gs,
             final String script, final String language) {
         GlyphSequence ogs;
+        final ScriptProcessor sp = ScriptProcessor.getInstance(script);
+        // only the lookups of the features applied by the script processor
         final Map/* <LookupSpec,List<LookupTable>> */lookups = matchLookups(
-                script, language, "*");
+                script, language, sp.getSubstitutionFeatures());
         if (lookups != null && lookups.size() > 0) {
-            final ScriptProcessor sp = ScriptProcessor.getInstance(script);
             ogs = sp.substitute(this, gs, script, language, lookups);
         } else {
             ogs = gs;
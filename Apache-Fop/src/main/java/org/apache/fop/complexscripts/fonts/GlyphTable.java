@@ -29,6 +29,8 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -79,6 +81,15 @@ public class GlyphTable {
     // if true, then prevent further subtable addition
     private boolean frozen;
 
+    // (optional) loader of lookup tables that are parsed on first use
+    private LookupLoader lookupLoader;
+
+    // identifiers of lookup tables that the loader failed to provide
+    private Set/* <String> */missingLookupTables;
+
+    // lookup tables by lookup spec, as found by findLookupTables
+    private final ConcurrentMap/* <LookupSpec,List<LookupTable>> */foundLookupTables = new ConcurrentHashMap/* <LookupSpec,List<LookupTable>> */();
+
     /**
      * Instantiate glyph table with specified lookups.
      *
@@ -103,6 +114,34 @@ public class GlyphTable {
         }
     }
 
+    /**
+     * Instantiate glyph table with specified lookups, whose lookup tables are
+     * obtained from a loader when they are first used. No subtable may be
+     * added to such a table. The lookup tables may be loaded by several
+     * threads at once; each is published once it is completely resolved.
+     *
+     * @param gdef
+     *            glyph definition table that applies
+     * @param lookups
+     *            map from lookup specs to lookup tables
+     * @param lookupLoader
+     *            loader of the lookup tables (must be non-null)
+     */
+    public GlyphTable(final GlyphTable gdef, final Map/*
+     * <LookupSpec,List<String>>
+     */lookups, final LookupLoader lookupLoader) {
+        this(gdef, lookups);
+        if (lookupLoader == null) {
+            throw new AdvancedTypographicTableFormatException(
+                    "lookup loader must be non-null");
+        }
+        this.lookupLoader = lookupLoader;
+        this.lookupTables = new ConcurrentHashMap/* <String,LookupTable> */();
+        this.missingLookupTables = java.util.Collections
+                .newSetFromMap(new ConcurrentHashMap/* <String,Boolean> */());
+        this.frozen = true;
+    }
+
     /**
      * Obtain glyph definition table.
      *
@@ -128,6 +167,12 @@ public class GlyphTable {
      * @return (possibly empty) ordered list of all lookup tables
      */
     public List/* <LookupTable> */getLookupTables() {
+        if (this.lookupLoader != null) {
+            for (final Iterator it = this.lookupLoader.getLookupIds()
+                    .iterator(); it.hasNext();) {
+                getLookupTable((String) it.next());
+            }
+        }
         final TreeSet/* <String> */lids = new TreeSet/* <String> */(
                 this.lookupTables.keySet());
         final List/* <LookupTable> */ltl = new ArrayList/* <LookupTable> */(
@@ -149,7 +194,75 @@ public class GlyphTable {
      * @return table associated with lookup id or null if none
      */
     public LookupTable getLookupTable(final String lid) {
-        return (LookupTable) this.lookupTables.get(lid);
+        LookupTable lt = (LookupTable) this.lookupTables.get(lid);
+        if (lt == null && this.lookupLoader != null
+                && !this.missingLookupTables.contains(lid)) {
+            final Map/* <String,LookupTable> */loaded = new java.util.HashMap/* <String,LookupTable> */();
+            lt = loadLookupTable(lid, loaded);
+            // publish the tables once all their references are resolved; if
+            // another thread was faster, its (equivalent) tables are kept
+            for (final Iterator it = loaded.entrySet().iterator(); it.hasNext();) {
+                final Map.Entry/* <String,LookupTable> */e = (Map.Entry) it
+                        .next();
+                if (e.getValue() != null) {
+                    ((ConcurrentMap) this.lookupTables).putIfAbsent(
+                            e.getKey(), e.getValue());
+                }
+            }
+            if (lt != null) {
+                lt = (LookupTable) this.lookupTables.get(lid);
+            }
+        }
+        return lt;
+    }
+
+    /**
+     * Load a lookup table from the lookup loader, and resolve the references
+     * of its subtables to other lookup tables, loading these in turn. The
+     * lookup table is registered in the given map of tables loaded by the
+     * current thread before its references are resolved, so that (mutually)
+     * recursive lookups are loaded only once.
+     */
+    private LookupTable loadLookupTable(final String lid,
+            final Map/* <String,LookupTable> */loaded) {
+        LookupTable lt = (LookupTable) this.lookupTables.get(lid);
+        if (lt != null || loaded.containsKey(lid)
+                || this.missingLookupTables.contains(lid)) {
+            return lt != null ? lt : (LookupTable) loaded.get(lid);
+        }
+        final List/* <GlyphSubtable> */subtables = this.lookupLoader
+                .loadLookup(lid);
+        if (subtables == null || subtables.isEmpty()) {
+            this.missingLookupTables.add(lid);
+            loaded.put(lid, null);
+            return null;
+        }
+        for (final Iterator it = subtables.iterator(); it.hasNext();) {
+            final GlyphSubtable subtable = (GlyphSubtable) it.next();
+            subtable.setTable(this);
+            if (lt == null) {
+                lt = new LookupTable(lid, subtable);
+            } else {
+                lt.addSubtable(subtable);
+            }
+        }
+        loaded.put(lid, lt);
+        lt.freezeSubtables(new java.util.AbstractMap/* <String,LookupTable> */() {
+            @Override
+            public Object get(final Object key) {
+                return loadLookupTable((String) key, loaded);
+            }
+
+            @Override
+            public Set entrySet() {
+                return loaded.entrySet();
+            }
+        });
+        if (log.isDebugEnabled()) {
+            log.debug("loaded lookup table " + lid + " with "
+                    + subtables.size() + " subtable(s)");
+        }
+        return lt;
     }
 
     /**
@@ -255,6 +368,34 @@ public class GlyphTable {
         return lm;
     }
 
+    /**
+     * Match lookup specifications according to <script,language> and a set of
+     * features, where '*' is a wildcard for the script or language. Only the
+     * lookup tables of the specified features are loaded.
+     *
+     * @param script
+     *            a script identifier
+     * @param language
+     *            a language identifier
+     * @param features
+     *            the feature identifiers to match, or null to match all
+     *            features
+     * @return a (possibly empty) map from matching lookup specifications to
+     *         lists of corresponding lookup tables
+     */
+    public Map/* <LookupSpec,List<LookupTable>> */matchLookups(
+            final String script, final String language,
+            final String[] features) {
+        if (features == null) {
+            return matchLookups(script, language, "*");
+        }
+        final Map lm = new LinkedHashMap();
+        for (final String feature : features) {
+            lm.putAll(matchLookups(script, language, feature));
+        }
+        return lm;
+    }
+
     /**
      * Obtain ordered list of glyph lookup tables that match a specific lookup
      * specification.
@@ -265,19 +406,29 @@ public class GlyphTable {
      *         corresponding lookup specifications match the specified lookup
      *         spec
      */
-    public List/* <LookupTable> */findLookupTables(final LookupSpec ls) {
-        final TreeSet/* <LookupTable> */lts = new TreeSet/* <LookupTable> */();
-        List/* <String> */ids;
-        if ((ids = (List/* <String> */) this.lookups.get(ls)) != null) {
-            for (final Iterator it = ids.iterator(); it.hasNext();) {
-                final String lid = (String) it.next();
-                LookupTable lt;
-                if ((lt = (LookupTable) this.lookupTables.get(lid)) != null) {
-                    lts.add(lt);
+    public List/* <LookupTable> */findLookupTables(
+            final LookupSpec ls) {
+        List/* <LookupTable> */ltl = (List/* <LookupTable> */) this.foundLookupTables
+                .get(ls);
+        if (ltl == null) {
+            final TreeSet/* <LookupTable> */lts = new TreeSet/* <LookupTable> */();
+            List/* <String> */ids;
+            if ((ids = (List/* <String> */) this.lookups.get(ls)) != null) {
+                for (final Iterator it = ids.iterator(); it.hasNext();) {
+                    final String lid = (String) it.next();
+                    LookupTable lt;
+                    if ((lt = getLookupTable(lid)) != null) {
+                        lts.add(lt);
+                    }
                 }
             }
+            ltl = java.util.Collections
+                    .unmodifiableList(new ArrayList/* <LookupTable> */(lts));
+            if (this.frozen) {
+                this.foundLookupTables.put(ls, ltl);
+            }
         }
-        return new ArrayList/* <LookupTable> */(lts);
+        return ltl;
     }
 
     /**
@@ -384,6 +535,32 @@ public class GlyphTable {
         }
     }
 
+    /**
+     * The <code>LookupLoader</code> interface is implemented by sources of
+     * lookup tables that are parsed on demand, the first time one of their
+     * lookup specifications is matched.
+     */
+    public interface LookupLoader {
+
+        /**
+         * Obtain the identifiers of all lookup tables that can be loaded.
+         *
+         * @return a (possibly empty) list of lookup identifiers, e.g. "lu4"
+         */
+        List/* <String> */getLookupIds();
+
+        /**
+         * Load the subtables of a lookup table.
+         *
+         * @param lid
+         *            lookup identifier
+         * @return the (possibly empty) list of subtables of the lookup table,
+         *         or null if it cannot be loaded
+         */
+        List/* <GlyphSubtable> */loadLookup(String lid);
+
+    }
+
     /**
      * A structure class encapsulating a lookup specification as a
      * <script,language,feature> tuple.
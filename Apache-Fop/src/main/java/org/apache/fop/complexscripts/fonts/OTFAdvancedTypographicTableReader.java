@@ -53,11 +53,13 @@ import org.apache.fop.fonts.truetype.TTFTableName;
 public final class OTFAdvancedTypographicTableReader {
 
     // instance state
-    private final TTFFile ttf; // parent font file reader
+    private final TTFFile ttf; // parent font file reader (null if deferred)
     private final FontFileReader in; // input reader
+    private final int upem; // units per em, for converting design units
     private GlyphDefinitionTable gdef; // glyph definition table
     private GlyphSubstitutionTable gsub; // glyph substitution table
     private GlyphPositioningTable gpos; // glyph positioning table
+    private boolean deferLookups; // if true, GSUB/GPOS lookups are read on demand
     // transient parsing state
     private transient Map/* <String,Object[3]> */seScripts; // script-tag =>
     // Object[3] : {
@@ -77,6 +79,7 @@ public final class OTFAdvancedTypographicTableReader {
     private transient GlyphMappingTable seMapping; // subtable entry mappings
     private transient List seEntries; // subtable entry entries
     private transient List seSubtables; // subtable entry subtables
+    private transient long[] seLookups; // lookup table offsets, if deferred
 
     /**
      * Construct an <code>OTFAdvancedTypographicTableReader</code> instance.
@@ -92,6 +95,23 @@ public final class OTFAdvancedTypographicTableReader {
         assert in != null;
         this.ttf = ttf;
         this.in = in;
+        this.upem = ttf.getUnitsPerEm();
+    }
+
+    /**
+     * Construct an instance reading deferred lookup tables only.
+     *
+     * @param upem
+     *            units per em of the font
+     * @param in
+     *            font file reader (must be non-null)
+     */
+    private OTFAdvancedTypographicTableReader(final int upem,
+            final FontFileReader in) {
+        assert in != null;
+        this.ttf = null;
+        this.in = in;
+        this.upem = upem;
     }
 
     /**
@@ -101,6 +121,25 @@ public final class OTFAdvancedTypographicTableReader {
      *             if ATT table has invalid format
      */
     public void readAll() throws AdvancedTypographicTableFormatException {
+        readAll(false);
+    }
+
+    /**
+     * Read all advanced typographic tables. If the lookups are deferred, only
+     * the GDEF table and the script, feature and lookup lists of the GSUB and
+     * GPOS tables are read here; each lookup table is then read from the font
+     * file the first time a lookup specification referring to it is matched,
+     * and kept by its glyph table. This keeps a reader of the font data, so
+     * it should only be done for memory-mapped font files.
+     *
+     * @param deferLookups
+     *            true to read the GSUB and GPOS lookup tables on demand
+     * @throws AdvancedTypographicTableFormatException
+     *             if ATT table has invalid format
+     */
+    public void readAll(final boolean deferLookups)
+            throws AdvancedTypographicTableFormatException {
+        this.deferLookups = deferLookups;
         try {
             readGDEF();
             readGSUB();
@@ -1048,9 +1087,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int nrs = this.in.readTTFUShort();
         // read rule set offsets
         final int[] rsoa = new int[nrs];
-        for (int i = 0; i < nrs; i++) {
-            rsoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(rsoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " contextual substitution format: "
@@ -1147,9 +1184,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int ngc = this.in.readTTFUShort();
         // read class rule set offsets
         final int[] csoa = new int[ngc];
-        for (int i = 0; i < ngc; i++) {
-            csoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(csoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " contextual substitution format: "
@@ -1257,9 +1292,7 @@ public final class OTFAdvancedTypographicTableReader {
         // read glyph coverage offsets, one per glyph input sequence length
         // count
         final int[] gcoa = new int[ng];
-        for (int i = 0; i < ng; i++) {
-            gcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(gcoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " contextual substitution format: "
@@ -1342,9 +1375,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int nrs = this.in.readTTFUShort();
         // read rule set offsets
         final int[] rsoa = new int[nrs];
-        for (int i = 0; i < nrs; i++) {
-            rsoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(rsoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " chained contextual substitution format: "
@@ -1461,9 +1492,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int ngc = this.in.readTTFUShort();
         // read class set offsets
         final int[] csoa = new int[ngc];
-        for (int i = 0; i < ngc; i++) {
-            csoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(csoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " chained contextual substitution format: "
@@ -1605,23 +1634,17 @@ public final class OTFAdvancedTypographicTableReader {
         final int nbg = this.in.readTTFUShort();
         // read backtrack glyph coverage offsets
         final int[] bgcoa = new int[nbg];
-        for (int i = 0; i < nbg; i++) {
-            bgcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(bgcoa);
         // read input glyph count
         final int nig = this.in.readTTFUShort();
         // read input glyph coverage offsets
         final int[] igcoa = new int[nig];
-        for (int i = 0; i < nig; i++) {
-            igcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(igcoa);
         // read lookahead glyph count
         final int nlg = this.in.readTTFUShort();
         // read lookahead glyph coverage offsets
         final int[] lgcoa = new int[nlg];
-        for (int i = 0; i < nlg; i++) {
-            lgcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(lgcoa);
         // read substitution lookup count
         final int nl = this.in.readTTFUShort();
         // dump info if debugging
@@ -1795,16 +1818,12 @@ public final class OTFAdvancedTypographicTableReader {
         final int nbg = this.in.readTTFUShort();
         // read backtrack glyph coverage offsets
         final int[] bgcoa = new int[nbg];
-        for (int i = 0; i < nbg; i++) {
-            bgcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(bgcoa);
         // read lookahead glyph count
         final int nlg = this.in.readTTFUShort();
         // read backtrack glyph coverage offsets
         final int[] lgcoa = new int[nlg];
-        for (int i = 0; i < nlg; i++) {
-            lgcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(lgcoa);
         // read substitution (output) glyph count
         final int ng = this.in.readTTFUShort();
         // read substitution (output) glyphs
@@ -2015,28 +2034,28 @@ public final class OTFAdvancedTypographicTableReader {
         // XPlacement
         int xp;
         if ((valueFormat & GlyphPositioningTable.Value.X_PLACEMENT) != 0) {
-            xp = this.ttf.convertTTFUnit2PDFUnit(this.in.readTTFShort());
+            xp = convertUnit(this.in.readTTFShort());
         } else {
             xp = 0;
         }
         // YPlacement
         int yp;
         if ((valueFormat & GlyphPositioningTable.Value.Y_PLACEMENT) != 0) {
-            yp = this.ttf.convertTTFUnit2PDFUnit(this.in.readTTFShort());
+            yp = convertUnit(this.in.readTTFShort());
         } else {
             yp = 0;
         }
         // XAdvance
         int xa;
         if ((valueFormat & GlyphPositioningTable.Value.X_ADVANCE) != 0) {
-            xa = this.ttf.convertTTFUnit2PDFUnit(this.in.readTTFShort());
+            xa = convertUnit(this.in.readTTFShort());
         } else {
             xa = 0;
         }
         // YAdvance
         int ya;
         if ((valueFormat & GlyphPositioningTable.Value.Y_ADVANCE) != 0) {
-            ya = this.ttf.convertTTFUnit2PDFUnit(this.in.readTTFShort());
+            ya = convertUnit(this.in.readTTFShort());
         } else {
             ya = 0;
         }
@@ -2352,29 +2371,23 @@ public final class OTFAdvancedTypographicTableReader {
         final int af = this.in.readTTFUShort();
         if (af == 1) {
             // read x coordinate
-            final int x = this.ttf.convertTTFUnit2PDFUnit(this.in
-                    .readTTFShort());
+            final int x = convertUnit(this.in.readTTFShort());
             // read y coordinate
-            final int y = this.ttf.convertTTFUnit2PDFUnit(this.in
-                    .readTTFShort());
+            final int y = convertUnit(this.in.readTTFShort());
             a = new GlyphPositioningTable.Anchor(x, y);
         } else if (af == 2) {
             // read x coordinate
-            final int x = this.ttf.convertTTFUnit2PDFUnit(this.in
-                    .readTTFShort());
+            final int x = convertUnit(this.in.readTTFShort());
             // read y coordinate
-            final int y = this.ttf.convertTTFUnit2PDFUnit(this.in
-                    .readTTFShort());
+            final int y = convertUnit(this.in.readTTFShort());
             // read anchor point index
             final int ap = this.in.readTTFUShort();
             a = new GlyphPositioningTable.Anchor(x, y, ap);
         } else if (af == 3) {
             // read x coordinate
-            final int x = this.ttf.convertTTFUnit2PDFUnit(this.in
-                    .readTTFShort());
+            final int x = convertUnit(this.in.readTTFShort());
             // read y coordinate
-            final int y = this.ttf.convertTTFUnit2PDFUnit(this.in
-                    .readTTFShort());
+            final int y = convertUnit(this.in.readTTFShort());
             // read x device table offset
             final int xdo = this.in.readTTFUShort();
             // read y device table offset
@@ -2699,9 +2712,7 @@ public final class OTFAdvancedTypographicTableReader {
         }
         // read ligature attach table offsets
         final int[] laoa = new int[nl];
-        for (int i = 0; i < nl; i++) {
-            laoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(laoa);
         // iterate over ligature attach tables, recording maximum component
         // count
         int mxc = 0;
@@ -2920,9 +2931,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int nrs = this.in.readTTFUShort();
         // read rule set offsets
         final int[] rsoa = new int[nrs];
-        for (int i = 0; i < nrs; i++) {
-            rsoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(rsoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " contextual positioning subtable format: "
@@ -3018,9 +3027,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int ngc = this.in.readTTFUShort();
         // read class rule set offsets
         final int[] csoa = new int[ngc];
-        for (int i = 0; i < ngc; i++) {
-            csoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(csoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " contextual positioning subtable format: "
@@ -3127,9 +3134,7 @@ public final class OTFAdvancedTypographicTableReader {
         // read glyph coverage offsets, one per glyph input sequence length
         // count
         final int[] gcoa = new int[ng];
-        for (int i = 0; i < ng; i++) {
-            gcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(gcoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag + " contextual positioning subtable format: "
@@ -3211,9 +3216,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int nrs = this.in.readTTFUShort();
         // read rule set offsets
         final int[] rsoa = new int[nrs];
-        for (int i = 0; i < nrs; i++) {
-            rsoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(rsoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag
@@ -3331,9 +3334,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int ngc = this.in.readTTFUShort();
         // read class set offsets
         final int[] csoa = new int[ngc];
-        for (int i = 0; i < ngc; i++) {
-            csoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(csoa);
         // dump info if debugging
         if (log.isDebugEnabled()) {
             log.debug(tableTag
@@ -3475,23 +3476,17 @@ public final class OTFAdvancedTypographicTableReader {
         final int nbg = this.in.readTTFUShort();
         // read backtrack glyph coverage offsets
         final int[] bgcoa = new int[nbg];
-        for (int i = 0; i < nbg; i++) {
-            bgcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(bgcoa);
         // read input glyph count
         final int nig = this.in.readTTFUShort();
         // read backtrack glyph coverage offsets
         final int[] igcoa = new int[nig];
-        for (int i = 0; i < nig; i++) {
-            igcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(igcoa);
         // read lookahead glyph count
         final int nlg = this.in.readTTFUShort();
         // read backtrack glyph coverage offsets
         final int[] lgcoa = new int[nlg];
-        for (int i = 0; i < nlg; i++) {
-            lgcoa[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(lgcoa);
         // read positioning lookup count
         final int nl = this.in.readTTFUShort();
         // dump info if debugging
@@ -3775,6 +3770,14 @@ public final class OTFAdvancedTypographicTableReader {
                 }
                 loa[i] = lo;
             }
+            if (this.deferLookups) {
+                // record lookup table offsets, to be read on demand
+                this.seLookups = new long[nl];
+                for (int i = 0, n = nl; i < n; i++) {
+                    this.seLookups[i] = lookupList + loa[i];
+                }
+                return;
+            }
             // read lookup tables
             for (int i = 0, n = nl; i < n; i++) {
                 if (log.isDebugEnabled()) {
@@ -3863,9 +3866,7 @@ public final class OTFAdvancedTypographicTableReader {
         final int nl = this.in.readTTFUShort();
         // read ligature glyph table offsets
         final int[] lgto = new int[nl];
-        for (int i = 0; i < nl; i++) {
-            lgto[i] = this.in.readTTFUShort();
-        }
+        this.in.readTTFUShorts(lgto);
 
         // dump info if debugging
         if (log.isDebugEnabled()) {
@@ -4147,7 +4148,13 @@ public final class OTFAdvancedTypographicTableReader {
     private GlyphSubstitutionTable constructGSUB() {
         GlyphSubstitutionTable gsub = null;
         Map lookups;
-        if ((lookups = constructLookups()) != null) {
+        if ((lookups = constructLookups()) != null && this.seLookups != null) {
+            if (lookups.size() > 0 && this.seLookups.length > 0) {
+                gsub = new GlyphSubstitutionTable(this.gdef, lookups,
+                        new DeferredLookupLoader(TTFTableName.GSUB,
+                                this.seLookups, this.upem, this.in));
+            }
+        } else if (lookups != null) {
             List subtables;
             if ((subtables = constructGSUBSubtables()) != null) {
                 if (lookups.size() > 0 && subtables.size() > 0) {
@@ -4169,7 +4176,13 @@ public final class OTFAdvancedTypographicTableReader {
     private GlyphPositioningTable constructGPOS() {
         GlyphPositioningTable gpos = null;
         Map lookups;
-        if ((lookups = constructLookups()) != null) {
+        if ((lookups = constructLookups()) != null && this.seLookups != null) {
+            if (lookups.size() > 0 && this.seLookups.length > 0) {
+                gpos = new GlyphPositioningTable(this.gdef, lookups,
+                        new DeferredLookupLoader(TTFTableName.GPOS,
+                                this.seLookups, this.upem, this.in));
+            }
+        } else if (lookups != null) {
             List subtables;
             if ((subtables = constructGPOSSubtables()) != null) {
                 if (lookups.size() > 0 && subtables.size() > 0) {
@@ -4367,6 +4380,7 @@ public final class OTFAdvancedTypographicTableReader {
         this.seLanguages = new java.util.LinkedHashMap();
         this.seFeatures = new java.util.LinkedHashMap();
         this.seSubtables = new java.util.ArrayList();
+        this.seLookups = null;
         resetATSubState();
     }
 
@@ -4375,6 +4389,7 @@ public final class OTFAdvancedTypographicTableReader {
         this.seLanguages = null;
         this.seFeatures = null;
         this.seSubtables = null;
+        this.seLookups = null;
         resetATSubState();
     }
 
@@ -4415,6 +4430,85 @@ public final class OTFAdvancedTypographicTableReader {
         this.gpos = null;
     }
 
+    /**
+     * Reads the lookup tables of a GSUB or GPOS table on demand, from the
+     * offsets recorded while reading its lookup list. Only the offsets and the
+     * (memory-mapped) font data are kept; each lookup is read by a reader of
+     * its own, so lookups may be loaded concurrently.
+     */
+    private static final class DeferredLookupLoader implements
+            GlyphTable.LookupLoader {
+
+        private final TTFTableName tableTag;
+        private final long[] lookupOffsets;
+        private final int upem;
+        private final FontFileReader fontData;
+
+        DeferredLookupLoader(final TTFTableName tableTag,
+                final long[] lookupOffsets, final int upem,
+                final FontFileReader in) {
+            this.tableTag = tableTag;
+            this.lookupOffsets = lookupOffsets;
+            this.upem = upem;
+            this.fontData = in.duplicate();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List/* <String> */getLookupIds() {
+            final List/* <String> */lids = new java.util.ArrayList/* <String> */(
+                    this.lookupOffsets.length);
+            for (int i = 0, n = this.lookupOffsets.length; i < n; i++) {
+                lids.add("lu" + i);
+            }
+            return lids;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public List/* <GlyphSubtable> */loadLookup(final String lid) {
+            int lookupSequence;
+            try {
+                lookupSequence = lid.startsWith("lu") ? Integer.parseInt(lid
+                        .substring(2)) : -1;
+            } catch (final NumberFormatException e) {
+                lookupSequence = -1;
+            }
+            if (lookupSequence < 0
+                    || lookupSequence >= this.lookupOffsets.length) {
+                return null;
+            }
+            final OTFAdvancedTypographicTableReader reader = new OTFAdvancedTypographicTableReader(
+                    this.upem, this.fontData.duplicate());
+            reader.initATState();
+            try {
+                reader.readLookupTable(this.tableTag, lookupSequence,
+                        this.lookupOffsets[lookupSequence]);
+                if (this.tableTag.equals(TTFTableName.GSUB)) {
+                    return reader.constructGSUBSubtables();
+                } else {
+                    return reader.constructGPOSSubtables();
+                }
+            } catch (final AdvancedTypographicTableFormatException e) {
+                log.warn("Encountered format constraint violation in "
+                        + this.tableTag + " lookup table " + lid
+                        + ", ignoring it: " + e.getMessage());
+                return null;
+            } catch (final IOException e) {
+                log.warn("Unable to read " + this.tableTag + " lookup table "
+                        + lid + ", ignoring it: " + e.getMessage());
+                return null;
+            } finally {
+                reader.resetATState();
+            }
+        }
+    }
+
+    /** convert from design units to pdf units */
+    private int convertUnit(final int n) {
+        return TTFFile.convertTTFUnit2PDFUnit(n, this.upem);
+    }
+
     /** helper method for formatting an integer array for output */
     private String toString(final int[] ia) {
         final StringBuilder sb = new StringBuilder();
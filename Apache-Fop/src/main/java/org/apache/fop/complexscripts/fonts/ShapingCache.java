@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.fop.complexscripts.util.GlyphSequence;
+
+/**
+ * <p>
+ * Bounded cache of the results of glyph substitution and positioning of a
+ * font, so that a repeated text run is shaped only once. The results depend
+ * on the script and language, which determine the features to apply, and on
+ * the characters and glyphs of the run; the font is implied by the owner of
+ * the cache. The cache is thread safe, and least recently used entries are
+ * evicted once it is full.
+ * </p>
+ */
+public final class ShapingCache {
+
+    /** default maximum number of cached results */
+    public static final int DEFAULT_MAX_ENTRIES = 2048;
+
+    /** maximum length of a cached run, longer runs are rarely repeated */
+    public static final int MAX_RUN_LENGTH = 64;
+
+    private static final int SUBSTITUTION = 0;
+
+    private static final int POSITIONING = 1;
+
+    private final Map<Key, Object> results;
+
+    /**
+     * Instantiate a cache holding up to {@link #DEFAULT_MAX_ENTRIES} results.
+     */
+    public ShapingCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Instantiate a cache.
+     *
+     * @param maxEntries
+     *            the maximum number of cached results
+     */
+    public ShapingCache(final int maxEntries) {
+        this.results = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Key, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Determine if the results for a glyph sequence are cached.
+     *
+     * @param gs
+     *            a glyph sequence
+     * @return true if the sequence is short enough to be cached
+     */
+    public static boolean isCacheable(final GlyphSequence gs) {
+        return gs.getGlyphCount() <= MAX_RUN_LENGTH
+                && gs.getCharacterCount() <= MAX_RUN_LENGTH;
+    }
+
+    /**
+     * Make the key of the substitution of a glyph sequence. The key must be
+     * made before the sequence is substituted.
+     *
+     * @param gs
+     *            an input glyph sequence
+     * @param script
+     *            a script identifier
+     * @param language
+     *            a language identifier
+     * @return the key
+     */
+    public static Key makeSubstitutionKey(final GlyphSequence gs,
+            final String script, final String language) {
+        return new Key(SUBSTITUTION, gs, script, language, 0);
+    }
+
+    /**
+     * Make the key of the positioning of a glyph sequence. The key must be
+     * made before the sequence is positioned.
+     *
+     * @param gs
+     *            an input glyph sequence
+     * @param script
+     *            a script identifier
+     * @param language
+     *            a language identifier
+     * @param fontSize
+     *            size in device units
+     * @return the key
+     */
+    public static Key makePositioningKey(final GlyphSequence gs,
+            final String script, final String language, final int fontSize) {
+        return new Key(POSITIONING, gs, script, language, fontSize);
+    }
+
+    /**
+     * Obtain the substituted glyphs of a glyph sequence.
+     *
+     * @param key
+     *            the substitution key of the sequence
+     * @return a copy of the substituted glyphs, or null if not cached
+     */
+    public int[] getSubstitution(final Key key) {
+        final int[] glyphs = (int[]) get(key);
+        return glyphs != null ? glyphs.clone() : null;
+    }
+
+    /**
+     * Cache the substituted glyphs of a glyph sequence.
+     *
+     * @param key
+     *            the substitution key of the sequence
+     * @param glyphs
+     *            the substituted glyphs (copied)
+     */
+    public void putSubstitution(final Key key, final int[] glyphs) {
+        put(key, glyphs.clone());
+    }
+
+    /**
+     * Obtain the positioning adjustments of a glyph sequence.
+     *
+     * @param key
+     *            the positioning key of the sequence
+     * @return a copy of the adjustments, with one 4-tuple for each glyph, an
+     *         empty array if no adjustment applies, or null if not cached
+     */
+    public int[][] getPositioning(final Key key) {
+        final int[][] adjustments = (int[][]) get(key);
+        return adjustments != null ? copy(adjustments) : null;
+    }
+
+    /**
+     * Cache the positioning adjustments of a glyph sequence.
+     *
+     * @param key
+     *            the positioning key of the sequence
+     * @param adjustments
+     *            the adjustments (copied), with one 4-tuple for each glyph, or
+     *            null if no adjustment applies
+     */
+    public void putPositioning(final Key key, final int[][] adjustments) {
+        put(key, adjustments != null ? copy(adjustments) : new int[0][]);
+    }
+
+    private static int[][] copy(final int[][] adjustments) {
+        final int[][] copy = new int[adjustments.length][];
+        for (int i = 0; i < adjustments.length; i++) {
+            copy[i] = adjustments[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Obtain the number of cached results.
+     *
+     * @return the number of cached results
+     */
+    public int size() {
+        synchronized (this.results) {
+            return this.results.size();
+        }
+    }
+
+    private Object get(final Key key) {
+        synchronized (this.results) {
+            return this.results.get(key);
+        }
+    }
+
+    private void put(final Key key, final Object result) {
+        synchronized (this.results) {
+            this.results.put(key, result);
+        }
+    }
+
+    /**
+     * The key of a cached result, which captures the characters and glyphs of
+     * a glyph sequence, with the script, language and shaping operation.
+     */
+    public static final class Key {
+
+        private final int type;
+        private final String script;
+        private final String language;
+        private final int fontSize;
+        private final int[] characters;
+        private final int[] glyphs;
+        private final int hashCode;
+
+        Key(final int type, final GlyphSequence gs, final String script,
+                final String language, final int fontSize) {
+            this.type = type;
+            this.script = script;
+            this.language = language;
+            this.fontSize = fontSize;
+            this.characters = gs.getCharacterArray(true);
+            this.glyphs = gs.getGlyphArray(true);
+            int hc = type;
+            hc = 31 * hc + (script != null ? script.hashCode() : 0);
+            hc = 31 * hc + (language != null ? language.hashCode() : 0);
+            hc = 31 * hc + fontSize;
+            hc = 31 * hc + Arrays.hashCode(this.characters);
+            hc = 31 * hc + Arrays.hashCode(this.glyphs);
+            this.hashCode = hc;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object o) {
+            if (o instanceof Key) {
+                final Key k = (Key) o;
+                return k.hashCode == this.hashCode && k.type == this.type
+                        && k.fontSize == this.fontSize
+                        && equal(k.script, this.script)
+                        && equal(k.language, this.language)
+                        && Arrays.equals(k.characters, this.characters)
+                        && Arrays.equals(k.glyphs, this.glyphs);
+            } else {
+                return false;
+            }
+        }
+
+        private static boolean equal(final String s1, final String s2) {
+            return s1 == null ? s2 == null : s1.equals(s2);
+        }
+    }
+
+}
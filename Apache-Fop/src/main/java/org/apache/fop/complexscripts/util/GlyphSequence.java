@@ -20,6 +20,7 @@
 package org.apache.fop.complexscripts.util;
 
 import java.nio.IntBuffer;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -360,6 +361,9 @@ public class GlyphSequence implements Cloneable {
      *            disable
      */
     public void setPredications(final boolean enable) {
+        if (enable && !this.predications) {
+            this.associations = unshareAssociations(this.associations);
+        }
         this.predications = enable;
     }
 
@@ -386,7 +390,11 @@ public class GlyphSequence implements Cloneable {
             final Object value) {
         if (this.predications) {
             final CharAssociation[] aa = getAssociations(offset, 1);
-            final CharAssociation ca = aa[0];
+            CharAssociation ca = aa[0];
+            if (ca.isShared()) {
+                this.associations = unshareAssociations(this.associations);
+                ca = getAssociation(offset);
+            }
             ca.setPredication(key, value);
         }
     }
@@ -688,7 +696,10 @@ public class GlyphSequence implements Cloneable {
         if (ib != null) {
             final int n = ib.limit();
             final int[] ia = new int[n];
-            ib.get(ia, 0, n);
+            // absolute reads, leaving the buffer's position unchanged
+            for (int i = 0; i < n; i++) {
+                ia[i] = ib.get(i);
+            }
             return ia;
         } else {
             return new int[0];
@@ -697,22 +708,15 @@ public class GlyphSequence implements Cloneable {
 
     private static List makeIdentityAssociations(final int numChars,
             final int numGlyphs) {
-        final int nc = numChars;
-        final int ng = numGlyphs;
-        final List av = new ArrayList(ng);
-        for (int i = 0, n = ng; i < n; i++) {
-            final int k = i > nc ? nc : i;
-            av.add(new CharAssociation(i, k == nc ? 0 : 1));
-        }
-        return av;
+        return new IdentityAssociations(numChars, numGlyphs);
     }
 
     private static IntBuffer copyBuffer(final IntBuffer ib) {
         if (ib != null) {
-            final int[] ia = new int[ib.capacity()];
             final int p = ib.position();
             final int l = ib.limit();
-            System.arraycopy(ib.array(), 0, ia, 0, ia.length);
+            final int[] ia = new int[l];
+            System.arraycopy(ib.array(), 0, ia, 0, l);
             return IntBuffer.wrap(ia, p, l - p);
         } else {
             return null;
@@ -720,13 +724,68 @@ public class GlyphSequence implements Cloneable {
     }
 
     private static List copyAssociations(final List ca) {
-        if (ca != null) {
+        if (ca == null || ca instanceof IdentityAssociations) {
+            // identity associations are immutable, so may be shared
+            return ca;
+        } else {
             return new ArrayList(ca);
+        }
+    }
+
+    /**
+     * Replace shared identity associations with private copies, so that
+     * predications may be recorded on them.
+     */
+    private static List unshareAssociations(final List ca) {
+        if (ca != null) {
+            final int na = ca.size();
+            final List al = new ArrayList(na);
+            for (int i = 0; i < na; i++) {
+                final CharAssociation a = (CharAssociation) ca.get(i);
+                al.add(a.isShared() ? a.clone() : a);
+            }
+            return al;
         } else {
             return ca;
         }
     }
 
+    /**
+     * An immutable list of the identity associations of a sequence of
+     * <code>numGlyphs</code> glyphs mapped one-to-one from
+     * <code>numChars</code> characters. Elements are obtained from
+     * {@link CharAssociation#getIdentity}, so no per-glyph association is
+     * allocated for a freshly mapped sequence.
+     */
+    private static final class IdentityAssociations extends AbstractList {
+
+        private final int numChars;
+        private final int numGlyphs;
+
+        IdentityAssociations(final int numChars, final int numGlyphs) {
+            this.numChars = numChars;
+            this.numGlyphs = numGlyphs;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object get(final int index) {
+            if (index < 0 || index >= this.numGlyphs) {
+                throw new IndexOutOfBoundsException("attempting index at "
+                        + index);
+            }
+            return CharAssociation.getIdentity(index,
+                    index < this.numChars ? 1 : 0);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int size() {
+            return this.numGlyphs;
+        }
+
+    }
+
     /**
      * A structure class encapsulating an interval of characters expressed as an
      * offset and count of Unicode scalar values (in an IntBuffer). A
@@ -750,10 +809,25 @@ public class GlyphSequence implements Cloneable {
         private final int count;
         private final int[] subIntervals;
         private Map<String, Object> predications;
+        private boolean shared;
 
         // class state
         private static volatile Map<String, PredicationMerger> predicationMergers;
 
+        /** number of shared single character identity associations */
+        private static final int MAX_SHARED_IDENTITIES = 256;
+
+        /** shared single character identity associations, by offset */
+        private static final CharAssociation[] IDENTITIES = new CharAssociation[MAX_SHARED_IDENTITIES];
+
+        static {
+            for (int i = 0; i < MAX_SHARED_IDENTITIES; i++) {
+                final CharAssociation ca = new CharAssociation(i, 1);
+                ca.shared = true;
+                IDENTITIES[i] = ca;
+            }
+        }
+
         interface PredicationMerger {
             Object merge(final String key, final Object v1, final Object v2);
         }
@@ -806,6 +880,34 @@ public class GlyphSequence implements Cloneable {
                     getSubIntervalsLength(subIntervals), subIntervals);
         }
 
+        /**
+         * Obtain a non-disjoint association without predications. Single
+         * character associations at small offsets are shared instances, which
+         * must be cloned before recording predications on them.
+         * 
+         * @param offset
+         *            into array of Unicode scalar values
+         * @param count
+         *            of Unicode scalar values
+         * @return a (possibly shared) character association
+         */
+        public static CharAssociation getIdentity(final int offset,
+                final int count) {
+            if (count == 1 && offset >= 0 && offset < MAX_SHARED_IDENTITIES) {
+                return IDENTITIES[offset];
+            } else {
+                return new CharAssociation(offset, count);
+            }
+        }
+
+        /**
+         * @return true if this association is a shared instance, in which case
+         *         no predications may be recorded on it
+         */
+        public boolean isShared() {
+            return this.shared;
+        }
+
         /** @return offset (start of association interval) */
         public int getOffset() {
             return this.offset;
@@ -970,6 +1072,7 @@ public class GlyphSequence implements Cloneable {
         public Object clone() {
             try {
                 final CharAssociation ca = (CharAssociation) super.clone();
+                ca.shared = false;
                 if (this.predications != null) {
                     ca.predications = new HashMap<String, Object>(
                             this.predications);
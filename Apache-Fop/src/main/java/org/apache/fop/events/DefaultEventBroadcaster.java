@@ -27,6 +27,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamSource;
@@ -73,7 +75,7 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
     }
 
     private static List/* <EventModel> */eventModels = new java.util.ArrayList();
-    private final Map proxies = new java.util.HashMap();
+    private final ConcurrentMap proxies = new ConcurrentHashMap();
 
     /**
      * Loads an event model and returns its instance.
@@ -138,7 +140,11 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
         producer = (EventProducer) this.proxies.get(clazz);
         if (producer == null) {
             producer = createProxyFor(clazz);
-            this.proxies.put(clazz, producer);
+            final EventProducer existing = (EventProducer) this.proxies
+                    .putIfAbsent(clazz, producer);
+            if (existing != null) {
+                producer = existing;
+            }
         }
         return producer;
     }
@@ -115,6 +115,11 @@ public class FOTreeBuilder extends DefaultHandler {
                 return new StaticPropertyList(fobj, parentPropertyList);
             }
         });
+        final int prefetchThreads = this.userAgent.getImagePrefetchThreads();
+        if (prefetchThreads > 0) {
+            this.builderContext.setImagePrefetcher(new ImagePrefetcher(
+                    this.userAgent, prefetchThreads));
+        }
     }
 
     /** {@inheritDoc} */
@@ -168,6 +173,11 @@ public class FOTreeBuilder extends DefaultHandler {
             eventProducer.emptyDocument(this);
         }
         this.rootFObj = null;
+        final ImagePrefetcher imagePrefetcher = this.builderContext
+                .getImagePrefetcher();
+        if (imagePrefetcher != null) {
+            imagePrefetcher.shutdown();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Parsing of document complete");
         }
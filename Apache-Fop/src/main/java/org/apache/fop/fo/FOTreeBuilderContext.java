@@ -48,6 +48,11 @@ public class FOTreeBuilderContext {
      */
     private boolean inMarker = false;
 
+    /**
+     * Preloads the images referenced by the FO tree (null if disabled)
+     */
+    private ImagePrefetcher imagePrefetcher;
+
     /**
      * Returns the set of ID references.
      * 
@@ -85,6 +90,27 @@ public class FOTreeBuilderContext {
         return this.whiteSpaceHandler;
     }
 
+    /**
+     * Returns the image prefetcher of this tree.
+     *
+     * @return the {@link ImagePrefetcher}, or null if images are loaded as
+     *         they are parsed
+     */
+    public ImagePrefetcher getImagePrefetcher() {
+        return this.imagePrefetcher;
+    }
+
+    /**
+     * Sets the image prefetcher of this tree.
+     *
+     * @param imagePrefetcher
+     *            the {@link ImagePrefetcher} to use, or null to load images as
+     *            they are parsed
+     */
+    public void setImagePrefetcher(final ImagePrefetcher imagePrefetcher) {
+        this.imagePrefetcher = imagePrefetcher;
+    }
+
     /**
      * Switch to or from marker context (used by FOTreeBuilder when processing a
      * marker)
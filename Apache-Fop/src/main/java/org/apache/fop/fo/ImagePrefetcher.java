@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.xml.transform.Source;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.util.DaemonThreadFactory;
+import org.apache.xmlgraphics.image.loader.ImageContext;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+import org.apache.xmlgraphics.image.loader.impl.AbstractImageSessionContext;
+
+/**
+ * Preloads the {@link ImageInfo} of images referenced by the FO tree on a pool
+ * of worker threads while the FO tree is still being built. The image
+ * information ends up in the {@link ImageManager}'s cache, and the FO nodes
+ * pick it up from the returned {@link Future} when the layout needs it, so
+ * loading the images overlaps with parsing the rest of the page-sequence.
+ * <p>
+ * Each preload uses its own {@link ImageSessionContext}, since the session
+ * context of the user agent is not thread-safe. The first {@link Future#get()}
+ * hands the Source the image was read from over to the user agent's session
+ * context, so the renderer loads the image from it instead of fetching it a
+ * second time. Errors are not reported here: they are thrown by
+ * {@link Future#get()} and reported by the FO node which requested the image.
+ */
+public class ImagePrefetcher {
+
+    private final FOUserAgent userAgent;
+
+    private final ThreadPoolExecutor executor;
+
+    /** preloads already requested, by URI (accessed by the parsing thread only) */
+    private final Map<String, Future<ImageInfo>> preloads = new java.util.HashMap<String, Future<ImageInfo>>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param userAgent
+     *            the user agent of the processing run
+     * @param threads
+     *            the number of worker threads (at least 1)
+     */
+    public ImagePrefetcher(final FOUserAgent userAgent, final int threads) {
+        this.userAgent = userAgent;
+        this.executor = new ThreadPoolExecutor(threads, threads, 1,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("fop-image-prefetch"));
+        // don't keep idle threads if the document is never finished
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Starts preloading the image information for the given URI, unless it
+     * has already been requested.
+     *
+     * @param uri
+     *            the URI of the image
+     * @return the image information, available once the preload is done
+     */
+    public Future<ImageInfo> prefetch(final String uri) {
+        Future<ImageInfo> preload = this.preloads.get(uri);
+        if (preload == null) {
+            final Preload task = new Preload(uri, this.userAgent.getFactory()
+                    .getImageManager(), new PrefetchSessionContext(
+                    this.userAgent));
+            this.executor.execute(task);
+            this.preloads.put(uri, task);
+            preload = task;
+        }
+        return preload;
+    }
+
+    /**
+     * Stops accepting preloads. The preloads already requested are completed.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        this.preloads.clear();
+    }
+
+    /** Preloads the information of one image */
+    private final class Preload extends FutureTask<ImageInfo> {
+
+        private final String uri;
+
+        /** keeps the Source of the image until it's handed over */
+        private final ImageSessionContext session;
+
+        Preload(final String uri, final ImageManager manager,
+                final ImageSessionContext session) {
+            super(new Callable<ImageInfo>() {
+                @Override
+                public ImageInfo call() throws Exception {
+                    return manager.getImageInfo(uri, session);
+                }
+            });
+            this.uri = uri;
+            this.session = session;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ImageInfo get() throws InterruptedException, ExecutionException {
+            final ImageInfo info = super.get();
+            handOverSource();
+            return info;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ImageInfo get(final long timeout, final TimeUnit unit)
+                throws InterruptedException, ExecutionException,
+                TimeoutException {
+            final ImageInfo info = super.get(timeout, unit);
+            handOverSource();
+            return info;
+        }
+
+        /**
+         * Passes the Source the image information was read from on to the
+         * user agent's session context, where the renderer looks for it.
+         */
+        private synchronized void handOverSource() {
+            final Source src = this.session.getSource(this.uri);
+            if (src != null) {
+                ImagePrefetcher.this.userAgent.getImageSessionContext()
+                        .returnSource(this.uri, src);
+            }
+        }
+    }
+
+    /** A session context of its own for a preload, resolving like the user agent's */
+    private static final class PrefetchSessionContext extends
+            AbstractImageSessionContext {
+
+        private final FOUserAgent userAgent;
+
+        PrefetchSessionContext(final FOUserAgent userAgent) {
+            this.userAgent = userAgent;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ImageContext getParentContext() {
+            return this.userAgent.getFactory();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public float getTargetResolution() {
+            return this.userAgent.getTargetResolution();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        protected Source resolveURI(final String uri) {
+            return this.userAgent.resolveURI(uri);
+        }
+    }
+}
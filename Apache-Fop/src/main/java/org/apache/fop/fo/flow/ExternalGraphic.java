@@ -21,6 +21,8 @@ package org.apache.fop.fo.flow;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOPException;
@@ -28,6 +30,8 @@ import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.datatypes.Length;
 import org.apache.fop.datatypes.URISpecification;
 import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FOTreeBuilderContext;
+import org.apache.fop.fo.ImagePrefetcher;
 import org.apache.fop.fo.PropertyList;
 import org.apache.fop.fo.ValidationException;
 import org.apache.fop.fo.properties.FixedLength;
@@ -54,6 +58,8 @@ public class ExternalGraphic extends AbstractGraphics {
     private int intrinsicWidth;
     private int intrinsicHeight;
     private Length intrinsicAlignmentAdjust;
+    /** image information being preloaded, until the intrinsic size is needed */
+    private Future<ImageInfo> pendingImageInfo;
 
     /**
      * Create a new ExternalGraphic node that is a child of the given
@@ -75,33 +81,83 @@ public class ExternalGraphic extends AbstractGraphics {
         // Additional processing: obtain the image's intrinsic size and baseline
         // information
         this.url = URISpecification.getURL(this.src);
+        final FOTreeBuilderContext builderContext = getBuilderContext();
+        final ImagePrefetcher prefetcher = builderContext != null ? builderContext
+                .getImagePrefetcher() : null;
+        if (prefetcher != null) {
+            // resolved when the intrinsic size is first needed
+            this.pendingImageInfo = prefetcher.prefetch(this.url);
+        } else {
+            loadImageInfo();
+        }
+    }
+
+    /**
+     * Loads the image information on the current thread and takes over the
+     * image's intrinsic size and baseline information.
+     */
+    private void loadImageInfo() {
         final FOUserAgent userAgent = getUserAgent();
         final ImageManager manager = userAgent.getFactory().getImageManager();
-        ImageInfo info = null;
         try {
-            info = manager.getImageInfo(this.url,
-                    userAgent.getImageSessionContext());
+            setImageInfo(manager.getImageInfo(this.url,
+                    userAgent.getImageSessionContext()));
         } catch (final ImageException e) {
-            final ResourceEventProducer eventProducer = ResourceEventProducer.Provider
-                    .get(getUserAgent().getEventBroadcaster());
-            eventProducer.imageError(this, this.url, e, getLocator());
-        } catch (final FileNotFoundException fnfe) {
-            final ResourceEventProducer eventProducer = ResourceEventProducer.Provider
-                    .get(getUserAgent().getEventBroadcaster());
-            eventProducer.imageNotFound(this, this.url, fnfe, getLocator());
+            imageError(e);
         } catch (final IOException ioe) {
-            final ResourceEventProducer eventProducer = ResourceEventProducer.Provider
-                    .get(getUserAgent().getEventBroadcaster());
-            eventProducer.imageIOError(this, this.url, ioe, getLocator());
+            imageError(ioe);
         }
-        if (info != null) {
-            this.intrinsicWidth = info.getSize().getWidthMpt();
-            this.intrinsicHeight = info.getSize().getHeightMpt();
-            final int baseline = info.getSize().getBaselinePositionFromBottom();
-            if (baseline != 0) {
-                this.intrinsicAlignmentAdjust = FixedLength
-                        .getInstance(-baseline);
+    }
+
+    /**
+     * Waits for the image information being preloaded, if any, and takes over
+     * the image's intrinsic size and baseline information.
+     */
+    private void resolveImageInfo() {
+        if (this.pendingImageInfo == null) {
+            return;
+        }
+        final Future<ImageInfo> preload = this.pendingImageInfo;
+        this.pendingImageInfo = null;
+        try {
+            setImageInfo(preload.get());
+        } catch (final InterruptedException ie) {
+            // the layout still needs the intrinsic size, so load the image
+            // here and leave the interrupt to the caller
+            loadImageInfo();
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
             }
+            imageError((Exception) cause);
+        }
+    }
+
+    private void setImageInfo(final ImageInfo info) {
+        this.intrinsicWidth = info.getSize().getWidthMpt();
+        this.intrinsicHeight = info.getSize().getHeightMpt();
+        final int baseline = info.getSize().getBaselinePositionFromBottom();
+        if (baseline != 0) {
+            this.intrinsicAlignmentAdjust = FixedLength.getInstance(-baseline);
+        }
+    }
+
+    private void imageError(final Exception e) {
+        final ResourceEventProducer eventProducer = ResourceEventProducer.Provider
+                .get(getUserAgent().getEventBroadcaster());
+        if (e instanceof ImageException) {
+            eventProducer.imageError(this, this.url, (ImageException) e,
+                    getLocator());
+        } else if (e instanceof FileNotFoundException) {
+            eventProducer.imageNotFound(this, this.url,
+                    (FileNotFoundException) e, getLocator());
+        } else {
+            eventProducer.imageIOError(this, this.url, (IOException) e,
+                    getLocator());
         }
     }
 
@@ -153,18 +209,21 @@ public class ExternalGraphic extends AbstractGraphics {
     /** {@inheritDoc} */
     @Override
     public int getIntrinsicWidth() {
+        resolveImageInfo();
         return this.intrinsicWidth;
     }
 
     /** {@inheritDoc} */
     @Override
     public int getIntrinsicHeight() {
+        resolveImageInfo();
         return this.intrinsicHeight;
     }
 
     /** {@inheritDoc} */
     @Override
     public Length getIntrinsicAlignmentAdjust() {
+        resolveImageInfo();
         return this.intrinsicAlignmentAdjust;
     }
 
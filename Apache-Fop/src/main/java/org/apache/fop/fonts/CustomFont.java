@@ -32,7 +32,7 @@ import javax.xml.transform.Source;
  * Abstract base class for custom fonts loaded from files, for example.
  */
 public abstract class CustomFont extends Typeface implements FontDescriptor,
-        MutableFont {
+        MutableFont, Cloneable {
 
     private String fontName = null;
     private String fullName = null;
@@ -523,6 +523,25 @@ public abstract class CustomFont extends Typeface implements FontDescriptor,
         this.useAdvanced = enabled;
     }
 
+    /**
+     * Creates a copy of this font for use by another document. The metrics,
+     * kerning tables and character maps are shared with this font and must not
+     * be modified; the usage state (used characters, subsets, additional
+     * encodings) starts out empty.
+     *
+     * @return a copy of this font
+     */
+    public CustomFont copy() {
+        final CustomFont copy;
+        try {
+            copy = (CustomFont) clone();
+        } catch (final CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.resetUsageState();
+        return copy;
+    }
+
     /**
      * Sets the font resolver. Needed for URI resolution.
      * 
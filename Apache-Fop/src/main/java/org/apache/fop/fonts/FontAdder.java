@@ -21,17 +21,34 @@ package org.apache.fop.fonts;
 
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.fonts.autodetect.FontInfoFinder;
+import org.apache.fop.util.DaemonThreadFactory;
 
 /**
- * Adds a list of fonts to a given font info list
+ * Adds a list of fonts to a given font info list. If the font manager allows
+ * more than one font detection thread, the font files are parsed
+ * concurrently; the font infos are still added in the order of the font file
+ * list.
  */
+@Slf4j
 public class FontAdder {
+
     private final FontEventListener listener;
     private final FontResolver resolver;
     private final FontManager manager;
 
+    private ExecutorService executor;
+
     /**
      * Main constructor
      * 
@@ -49,6 +66,37 @@ public class FontAdder {
         this.listener = listener;
     }
 
+    /**
+     * Returns the executor running the font detection tasks, creating it on
+     * first use.
+     *
+     * @return the executor or null if fonts are detected on the calling thread
+     */
+    synchronized ExecutorService getExecutor() {
+        if (this.executor == null) {
+            final int threads = this.manager.getFontDetectionThreads();
+            if (threads > 1) {
+                final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads,
+                        threads, 1, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(),
+                        new DaemonThreadFactory("fop-font-detection"));
+                pool.allowCoreThreadTimeOut(true);
+                this.executor = pool;
+            }
+        }
+        return this.executor;
+    }
+
+    /**
+     * Stops the font detection threads, if any.
+     */
+    public synchronized void shutdown() {
+        if (this.executor != null) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+    }
+
     /**
      * Iterates over font url list adding to font info list
      * 
@@ -63,17 +111,57 @@ public class FontAdder {
         final FontInfoFinder finder = new FontInfoFinder();
         finder.setEventListener(this.listener);
 
-        for (final URL fontURL : fontURLList) {
-            final EmbedFontInfo[] embedFontInfos = finder.find(fontURL,
-                    this.resolver, cache);
-            if (embedFontInfos == null) {
-                continue;
+        final ExecutorService executor = fontURLList.size() > 1 ? getExecutor()
+                : null;
+        if (executor == null) {
+            for (final URL fontURL : fontURLList) {
+                addAll(finder.find(fontURL, this.resolver, cache),
+                        fontInfoList);
             }
-            for (int i = 0, c = embedFontInfos.length; i < c; i++) {
-                final EmbedFontInfo fontInfo = embedFontInfos[i];
-                if (fontInfo != null) {
-                    fontInfoList.add(fontInfo);
+            return;
+        }
+
+        final List<Future<EmbedFontInfo[]>> results = new java.util.ArrayList<Future<EmbedFontInfo[]>>(
+                fontURLList.size());
+        for (final URL fontURL : fontURLList) {
+            results.add(executor.submit(new Callable<EmbedFontInfo[]>() {
+                @Override
+                public EmbedFontInfo[] call() {
+                    return finder.find(fontURL, FontAdder.this.resolver,
+                            cache);
+                }
+            }));
+        }
+        for (int i = 0, c = results.size(); i < c; i++) {
+            try {
+                addAll(results.get(i).get(), fontInfoList);
+            } catch (final InterruptedException e) {
+                log.warn("Interrupted while detecting fonts, "
+                        + (c - i) + " font files are skipped");
+                for (int j = i; j < c; j++) {
+                    results.get(j).cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error) {
+                    throw (Error) cause;
                 }
+                throw (RuntimeException) cause;
+            }
+        }
+    }
+
+    private static void addAll(final EmbedFontInfo[] embedFontInfos,
+            final List<EmbedFontInfo> fontInfoList) {
+        if (embedFontInfos == null) {
+            return;
+        }
+        for (int i = 0, c = embedFontInfos.length; i < c; i++) {
+            final EmbedFontInfo fontInfo = embedFontInfos[i];
+            if (fontInfo != null) {
+                fontInfoList.add(fontInfo);
             }
         }
     }
@@ -19,20 +19,21 @@
 
 package org.apache.fop.fonts;
 
-import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
-import java.io.Serializable;
+import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,16 +43,13 @@ import org.apache.fop.apps.FOPException;
 import org.apache.fop.util.LogUtil;
 
 /**
- * Fop cache (currently only used for font info caching)
+ * Fop cache (currently only used for font info caching). The cache is stored
+ * in the binary format described in {@link FontCacheFile}: it is decoded
+ * lazily when read, and changes are appended to the file when it is saved
+ * again.
  */
 @Slf4j
-public final class FontCache implements Serializable {
-
-    /**
-     * Serialization Version UID. Change this value if you want to make sure the
-     * user's cache file is purged after an update.
-     */
-    private static final long serialVersionUID = 605232520271754719L;
+public final class FontCache {
 
     /** FOP's user directory name */
     private static final String FOP_USER_DIR = ".fop";
@@ -60,7 +58,7 @@ public final class FontCache implements Serializable {
     private static final String DEFAULT_CACHE_FILENAME = "fop-fonts.cache";
 
     /** has this cache been changed since it was last read? */
-    private transient boolean changed = false;
+    private boolean changed = false;
 
     /** change lock */
     private final boolean[] changeLock = new boolean[1];
@@ -77,6 +75,24 @@ public final class FontCache implements Serializable {
      */
     private Map<String, Long> failedFontMap = null;
 
+    /** font files changed since the cache was read or written */
+    private final Set<String> changedFontFiles = new HashSet<String>();
+
+    /** failed fonts changed since the cache was read or written */
+    private final Set<String> changedFailedFonts = new HashSet<String>();
+
+    /** the file this cache was read from or last written to */
+    private File file;
+
+    /** the length of the valid part of {@link #file} */
+    private long fileLength;
+
+    /** the number of records in {@link #file}, including superseded ones */
+    private int fileRecords;
+
+    /** true if the next save has to rewrite the whole file */
+    private boolean rewrite = true;
+
     /**
      * Default constructor
      */
@@ -154,19 +170,7 @@ public final class FontCache implements Serializable {
                     log.trace("Loading font cache from "
                             + cacheFile.getCanonicalPath());
                 }
-                final InputStream in = new BufferedInputStream(
-                        new FileInputStream(cacheFile));
-                final ObjectInputStream oin = new ObjectInputStream(in);
-                try {
-                    return (FontCache) oin.readObject();
-                } finally {
-                    IOUtils.closeQuietly(oin);
-                }
-            } catch (final ClassNotFoundException e) {
-                // We don't really care about the exception since it's just a
-                // cache file
-                log.warn("Could not read font cache. Discarding font cache file. Reason: "
-                        + e.getMessage());
+                return read(cacheFile);
             } catch (final IOException ioe) {
                 // We don't really care about the exception since it's just a
                 // cache file
@@ -183,6 +187,47 @@ public final class FontCache implements Serializable {
         return null;
     }
 
+    private static FontCache read(final File cacheFile) throws IOException {
+        final ByteBuffer data = FontCacheFile.read(cacheFile);
+        final FontCache cache = new FontCache();
+        cache.fileLength = FontCacheFile.scan(data,
+                new FontCacheFile.RecordHandler() {
+                    @Override
+                    public void record(final byte type, final String url,
+                            final long lastModified, final int infoOffset,
+                            final int recordOffset, final int recordLength) {
+                        cache.readRecord(type, url, new CachedFontFile(
+                                lastModified, data, infoOffset, recordOffset,
+                                recordLength));
+                    }
+                });
+        cache.file = cacheFile;
+        cache.rewrite = cache.fileLength != data.capacity();
+        return cache;
+    }
+
+    private void readRecord(final byte type, final String url,
+            final CachedFontFile record) {
+        switch (type) {
+        case FontCacheFile.FONT_FILE:
+            getFontFileMap().put(url, record);
+            break;
+        case FontCacheFile.FONT_FILE_REMOVED:
+            getFontFileMap().remove(url);
+            break;
+        case FontCacheFile.FAILED_FONT:
+            getFailedFontMap().put(url, record.lastModified());
+            break;
+        case FontCacheFile.FAILED_FONT_REMOVED:
+            getFailedFontMap().remove(url);
+            break;
+        default:
+            // unknown record type, skip it
+            break;
+        }
+        this.fileRecords++;
+    }
+
     /**
      * Writes the font cache to disk.
      *
@@ -207,23 +252,109 @@ public final class FontCache implements Serializable {
                 try {
                     log.trace("Writing font cache to "
                             + cacheFile.getCanonicalPath());
-                    OutputStream out = new java.io.FileOutputStream(cacheFile);
-                    out = new java.io.BufferedOutputStream(out);
-                    final ObjectOutputStream oout = new ObjectOutputStream(out);
-                    try {
-                        oout.writeObject(this);
-                    } finally {
-                        IOUtils.closeQuietly(oout);
+                    if (this.rewrite || !cacheFile.equals(this.file)
+                            || cacheFile.length() != this.fileLength
+                            || needsCompaction()) {
+                        writeAll(cacheFile);
+                    } else {
+                        appendChanges(cacheFile);
                     }
                 } catch (final IOException ioe) {
                     LogUtil.handleException(log, ioe, true);
                 }
                 this.changed = false;
+                this.changedFontFiles.clear();
+                this.changedFailedFonts.clear();
                 log.trace("Cache file written.");
             }
         }
     }
 
+    /**
+     * Indicates whether superseded records make up most of the cache file.
+     */
+    private boolean needsCompaction() {
+        final int live = getFontFileMap().size() + getFailedFontMap().size();
+        return this.fileRecords > 2 * live + 64;
+    }
+
+    /**
+     * Writes the whole cache to a new file which then replaces the cache file.
+     */
+    private void writeAll(final File cacheFile) throws IOException {
+        final File tempFile = new File(cacheFile.getPath() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tempFile)));
+        int records = 0;
+        try {
+            out.write(FontCacheFile.createHeader());
+            for (final Map.Entry<String, CachedFontFile> entry : getFontFileMap()
+                    .entrySet()) {
+                entry.getValue().write(out, entry.getKey());
+                records++;
+            }
+            for (final Map.Entry<String, Long> entry : getFailedFontMap()
+                    .entrySet()) {
+                FontCacheFile.writeRecord(out, FontCacheFile.FAILED_FONT,
+                        entry.getKey(), entry.getValue().longValue(), null);
+                records++;
+            }
+            out.flush();
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+        if (!tempFile.renameTo(cacheFile)) {
+            if (!cacheFile.delete() || !tempFile.renameTo(cacheFile)) {
+                tempFile.delete();
+                throw new IOException("Cannot replace font cache file "
+                        + cacheFile);
+            }
+        }
+        this.file = cacheFile;
+        this.fileLength = out.size();
+        this.fileRecords = records;
+        this.rewrite = false;
+    }
+
+    /**
+     * Appends records for the entries that changed since the cache file was
+     * read or written.
+     */
+    private void appendChanges(final File cacheFile) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bout);
+        for (final String url : this.changedFontFiles) {
+            final CachedFontFile cff = getFontFileMap().get(url);
+            if (cff != null) {
+                cff.write(out, url);
+            } else {
+                FontCacheFile.writeRecord(out,
+                        FontCacheFile.FONT_FILE_REMOVED, url, -1, null);
+            }
+        }
+        for (final String url : this.changedFailedFonts) {
+            final Long lastModified = getFailedFontMap().get(url);
+            if (lastModified != null) {
+                FontCacheFile.writeRecord(out, FontCacheFile.FAILED_FONT, url,
+                        lastModified.longValue(), null);
+            } else {
+                FontCacheFile.writeRecord(out,
+                        FontCacheFile.FAILED_FONT_REMOVED, url, -1, null);
+            }
+        }
+        out.flush();
+        final RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw");
+        try {
+            raf.seek(this.fileLength);
+            raf.write(bout.toByteArray());
+        } finally {
+            raf.close();
+        }
+        this.fileLength += bout.size();
+        this.fileRecords += this.changedFontFiles.size()
+                + this.changedFailedFonts.size();
+    }
+
     /**
      * creates a key given a font info for the font mapping
      *
@@ -257,7 +388,9 @@ public final class FontCache implements Serializable {
      * @return boolean
      */
     public boolean containsFont(final String embedUrl) {
-        return embedUrl != null && getFontFileMap().containsKey(embedUrl);
+        synchronized (this.changeLock) {
+            return embedUrl != null && getFontFileMap().containsKey(embedUrl);
+        }
     }
 
     /**
@@ -268,8 +401,10 @@ public final class FontCache implements Serializable {
      * @return font
      */
     public boolean containsFont(final EmbedFontInfo fontInfo) {
-        return fontInfo != null
-                && getFontFileMap().containsKey(getCacheKey(fontInfo));
+        synchronized (this.changeLock) {
+            return fontInfo != null
+                    && getFontFileMap().containsKey(getCacheKey(fontInfo));
+        }
     }
 
     /**
@@ -324,6 +459,8 @@ public final class FontCache implements Serializable {
                 cachedFontFile = getFontFileMap().get(cacheKey);
                 if (!cachedFontFile.containsFont(fontInfo)) {
                     cachedFontFile.put(fontInfo);
+                    this.changedFontFiles.add(cacheKey);
+                    this.changed = true;
                 }
             } else {
                 // try and determine modified date
@@ -337,6 +474,7 @@ public final class FontCache implements Serializable {
                 }
                 cachedFontFile.put(fontInfo);
                 getFontFileMap().put(cacheKey, cachedFontFile);
+                this.changedFontFiles.add(cacheKey);
                 this.changed = true;
             }
         }
@@ -350,7 +488,10 @@ public final class FontCache implements Serializable {
      * @return CachedFontFile object
      */
     public CachedFontFile getFontFile(final String embedUrl) {
-        return containsFont(embedUrl) ? getFontFileMap().get(embedUrl) : null;
+        synchronized (this.changeLock) {
+            return containsFont(embedUrl) ? getFontFileMap().get(embedUrl)
+                    : null;
+        }
     }
 
     /**
@@ -367,12 +508,14 @@ public final class FontCache implements Serializable {
      */
     public EmbedFontInfo[] getFontInfos(final String embedUrl,
             final long lastModified) {
-        final CachedFontFile cff = getFontFile(embedUrl);
-        if (cff.lastModified() == lastModified) {
-            return cff.getEmbedFontInfos();
-        } else {
-            removeFont(embedUrl);
-            return null;
+        synchronized (this.changeLock) {
+            final CachedFontFile cff = getFontFile(embedUrl);
+            if (cff.lastModified() == lastModified) {
+                return cff.getEmbedFontInfos();
+            } else {
+                removeFont(embedUrl);
+                return null;
+            }
         }
     }
 
@@ -389,6 +532,7 @@ public final class FontCache implements Serializable {
                     log.trace("Font removed from cache: " + embedUrl);
                 }
                 getFontFileMap().remove(embedUrl);
+                this.changedFontFiles.add(embedUrl);
                 this.changed = true;
             }
         }
@@ -412,6 +556,7 @@ public final class FontCache implements Serializable {
                     // this font has been changed so lets remove it
                     // from failed font map for now
                     getFailedFontMap().remove(embedUrl);
+                    this.changedFailedFonts.add(embedUrl);
                     this.changed = true;
                 }
                 return true;
@@ -434,6 +579,7 @@ public final class FontCache implements Serializable {
         synchronized (this.changeLock) {
             if (!getFailedFontMap().containsKey(embedUrl)) {
                 getFailedFontMap().put(embedUrl, new Long(lastModified));
+                this.changedFailedFonts.add(embedUrl);
                 this.changed = true;
             }
         }
@@ -456,6 +602,9 @@ public final class FontCache implements Serializable {
             }
             this.fontfileMap = null;
             this.failedFontMap = null;
+            this.changedFontFiles.clear();
+            this.changedFailedFonts.clear();
+            this.rewrite = true;
             this.changed = true;
         }
     }
@@ -484,27 +633,57 @@ public final class FontCache implements Serializable {
         }
     }
 
-    private static class CachedFontFile implements Serializable {
-        private static final long serialVersionUID = 4524237324330578883L;
+    private static class CachedFontFile {
 
         /** file modify date (if available) */
         private long lastModified = -1;
 
         private Map<String, EmbedFontInfo> filefontsMap = null;
 
+        /** cache file contents holding the font infos until they're decoded */
+        private ByteBuffer data;
+
+        private int infoOffset;
+
+        private int recordOffset;
+
+        private int recordLength;
+
         public CachedFontFile(final long lastModified) {
             setLastModified(lastModified);
         }
 
-        private Map<String, EmbedFontInfo> getFileFontsMap() {
+        CachedFontFile(final long lastModified, final ByteBuffer data,
+                final int infoOffset, final int recordOffset,
+                final int recordLength) {
+            this(lastModified);
+            this.data = data;
+            this.infoOffset = infoOffset;
+            this.recordOffset = recordOffset;
+            this.recordLength = recordLength;
+        }
+
+        private synchronized Map<String, EmbedFontInfo> getFileFontsMap() {
             if (this.filefontsMap == null) {
                 this.filefontsMap = new HashMap<String, EmbedFontInfo>();
+                if (this.data != null) {
+                    try {
+                        for (final EmbedFontInfo efi : FontCacheFile
+                                .readEmbedFontInfos(this.data, this.infoOffset,
+                                        this.recordOffset + this.recordLength)) {
+                            this.filefontsMap.put(efi.getPostScriptName(), efi);
+                        }
+                    } catch (final IOException e) {
+                        log.warn(e.getMessage() + ", ignoring the entry");
+                    }
+                }
             }
             return this.filefontsMap;
         }
 
-        void put(final EmbedFontInfo efi) {
+        synchronized void put(final EmbedFontInfo efi) {
             getFileFontsMap().put(efi.getPostScriptName(), efi);
+            this.data = null;
         }
 
         public boolean containsFont(final EmbedFontInfo efi) {
@@ -513,8 +692,28 @@ public final class FontCache implements Serializable {
         }
 
         public EmbedFontInfo[] getEmbedFontInfos() {
-            return getFileFontsMap().values().toArray(
-                    new EmbedFontInfo[getFileFontsMap().size()]);
+            final Map<String, EmbedFontInfo> map = getFileFontsMap();
+            synchronized (this) {
+                return map.values().toArray(new EmbedFontInfo[map.size()]);
+            }
+        }
+
+        /**
+         * Writes this font file as a record of the cache file. A record that
+         * hasn't been decoded is copied as is.
+         */
+        synchronized void write(final DataOutputStream out, final String url)
+                throws IOException {
+            if (this.data != null && this.filefontsMap == null) {
+                final byte[] record = new byte[this.recordLength];
+                final ByteBuffer buf = this.data.duplicate();
+                buf.position(this.recordOffset);
+                buf.get(record);
+                out.write(record);
+            } else {
+                FontCacheFile.writeRecord(out, FontCacheFile.FONT_FILE, url,
+                        this.lastModified, getEmbedFontInfos());
+            }
         }
 
         /**
@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary format of the font cache file.
+ * <p>
+ * The file starts with a magic number and a format version, followed by a
+ * sequence of records. Every record consists of a type byte, the length of
+ * its body and the body itself, which always starts with the font URL. Later
+ * records supersede earlier ones for the same URL, so a changed cache can be
+ * saved by appending records instead of rewriting the whole file.
+ * <p>
+ * The file is read into a single buffer. Only the record headers (type, URL
+ * and last-modified date) are decoded up front, the font infos of a font file
+ * are decoded from the buffer when they're first accessed. The file isn't
+ * memory-mapped: a mapped file can neither be replaced nor deleted on Windows
+ * while the mapping is alive, and the cache file is replaced when it's
+ * compacted. Every length read from the file is checked against the data
+ * left, so a corrupt file is reported as an {@link IOException}.
+ */
+final class FontCacheFile {
+
+    /** Magic number identifying a font cache file ("FOPF"). */
+    static final int MAGIC = 0x464F5046;
+
+    /** Version of the file format. Files of another version are discarded. */
+    static final int VERSION = 1;
+
+    /** Length of the file header. */
+    static final int HEADER_LENGTH = 8;
+
+    /** Record type: a font file and the fonts it contains. */
+    static final byte FONT_FILE = 1;
+
+    /** Record type: a font file has been removed from the cache. */
+    static final byte FONT_FILE_REMOVED = 2;
+
+    /** Record type: a font file has failed to load. */
+    static final byte FAILED_FONT = 3;
+
+    /** Record type: a font file is no longer registered as failed. */
+    static final byte FAILED_FONT_REMOVED = 4;
+
+    private static final int RECORD_HEADER_LENGTH = 5;
+
+    /** The minimum length of an encoded font info. */
+    private static final int MIN_FONT_INFO_LENGTH = 6 * 4 + 2 + 4;
+
+    /** The minimum length of an encoded font triplet. */
+    private static final int MIN_TRIPLET_LENGTH = 2 * 4 + 2 * 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private FontCacheFile() {
+    }
+
+    /**
+     * Receives the records found while scanning a font cache file.
+     */
+    interface RecordHandler {
+
+        /**
+         * Called for every record in the file.
+         *
+         * @param type
+         *            the record type
+         * @param url
+         *            the font URL the record applies to
+         * @param lastModified
+         *            the last-modified date of the font file (-1 if the
+         *            record type doesn't carry one)
+         * @param infoOffset
+         *            the position of the encoded font infos in the buffer
+         * @param recordOffset
+         *            the position of the record in the buffer
+         * @param recordLength
+         *            the length of the record
+         */
+        void record(byte type, String url, long lastModified, int infoOffset,
+                int recordOffset, int recordLength);
+    }
+
+    /**
+     * Reads a font cache file.
+     *
+     * @param file
+     *            the file
+     * @return the read-only buffer holding the file's contents
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    static ByteBuffer read(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Font cache file too large: " + size);
+            }
+            final ByteBuffer data = ByteBuffer.allocate((int) size);
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    throw new EOFException("Font cache file truncated while"
+                            + " reading it");
+                }
+            }
+            data.flip();
+            return data.asReadOnlyBuffer();
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Scans the records of a font cache file. A truncated record at the end of
+     * the file (left behind by an interrupted write) ends the scan.
+     *
+     * @param data
+     *            the file contents
+     * @param handler
+     *            the handler receiving the records
+     * @return the length of the valid part of the file
+     * @throws IOException
+     *             if the data is not a font cache file of the current version
+     *             or if a record is corrupt
+     */
+    static int scan(final ByteBuffer data, final RecordHandler handler)
+            throws IOException {
+        final ByteBuffer buf = data.duplicate();
+        if (buf.remaining() < HEADER_LENGTH || buf.getInt() != MAGIC) {
+            throw new IOException("Not a font cache file");
+        }
+        final int version = buf.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported font cache version " + version);
+        }
+        int end = buf.position();
+        while (buf.remaining() >= RECORD_HEADER_LENGTH) {
+            final int recordOffset = buf.position();
+            final byte type = buf.get();
+            final int length = buf.getInt();
+            if (length < 4 || length > buf.remaining()) {
+                break;
+            }
+            final int next = buf.position() + length;
+            // the body of the record must not be read beyond its end
+            final ByteBuffer body = buf.duplicate();
+            body.limit(next);
+            final String url;
+            long lastModified = -1;
+            try {
+                url = readString(body);
+                if (type == FONT_FILE || type == FAILED_FONT) {
+                    lastModified = body.getLong();
+                }
+            } catch (final BufferUnderflowException e) {
+                throw new IOException("Corrupt font cache record at "
+                        + recordOffset);
+            }
+            if (url == null) {
+                throw new IOException("Corrupt font cache record at "
+                        + recordOffset);
+            }
+            handler.record(type, url, lastModified, body.position(),
+                    recordOffset, next - recordOffset);
+            buf.position(next);
+            end = next;
+        }
+        return end;
+    }
+
+    /**
+     * Creates the file header.
+     *
+     * @return the header bytes
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    static byte[] createHeader() throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream(
+                HEADER_LENGTH);
+        final DataOutputStream out = new DataOutputStream(bout);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+        return bout.toByteArray();
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param out
+     *            the stream to write to
+     * @param type
+     *            the record type
+     * @param url
+     *            the font URL
+     * @param lastModified
+     *            the last-modified date (only written for {@link #FONT_FILE}
+     *            and {@link #FAILED_FONT} records)
+     * @param infos
+     *            the font infos (only written for {@link #FONT_FILE} records)
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    static void writeRecord(final DataOutputStream out, final byte type,
+            final String url, final long lastModified,
+            final EmbedFontInfo[] infos) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream(256);
+        final DataOutputStream body = new DataOutputStream(bout);
+        writeString(body, url);
+        if (type == FONT_FILE || type == FAILED_FONT) {
+            body.writeLong(lastModified);
+        }
+        if (type == FONT_FILE) {
+            body.writeInt(infos.length);
+            for (final EmbedFontInfo info : infos) {
+                writeEmbedFontInfo(body, info);
+            }
+        }
+        body.flush();
+        out.writeByte(type);
+        out.writeInt(bout.size());
+        bout.writeTo(out);
+    }
+
+    private static void writeEmbedFontInfo(final DataOutputStream out,
+            final EmbedFontInfo info) throws IOException {
+        writeString(out, info.getMetricsFile());
+        writeString(out, info.getEmbedFile());
+        out.writeBoolean(info.getKerning());
+        out.writeBoolean(info.getAdvanced());
+        writeString(out, info.getEncodingMode().name());
+        writeString(out, info.getEmbeddingMode().name());
+        writeString(out, info.getPostScriptName());
+        writeString(out, info.getSubFontName());
+        final List<FontTriplet> triplets = info.getFontTriplets();
+        final int count = triplets != null ? triplets.size() : 0;
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            final FontTriplet triplet = triplets.get(i);
+            writeString(out, triplet.getName());
+            writeString(out, triplet.getStyle());
+            out.writeInt(triplet.getWeight());
+            out.writeInt(triplet.getPriority());
+        }
+    }
+
+    /**
+     * Decodes the font infos of a {@link #FONT_FILE} record.
+     *
+     * @param data
+     *            the file contents
+     * @param offset
+     *            the position of the font infos
+     * @param end
+     *            the end of the record holding the font infos
+     * @return the font infos
+     * @throws IOException
+     *             if the record is corrupt
+     */
+    static EmbedFontInfo[] readEmbedFontInfos(final ByteBuffer data,
+            final int offset, final int end) throws IOException {
+        final ByteBuffer buf = data.duplicate();
+        try {
+            buf.limit(end);
+            buf.position(offset);
+            return readEmbedFontInfos(buf);
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Corrupt font cache record at " + offset);
+        } catch (final IllegalArgumentException e) {
+            // an invalid position, limit or enum constant
+            throw new IOException("Corrupt font cache record at " + offset
+                    + ": " + e.getMessage());
+        }
+    }
+
+    private static EmbedFontInfo[] readEmbedFontInfos(final ByteBuffer buf)
+            throws IOException {
+        final EmbedFontInfo[] infos = new EmbedFontInfo[readCount(buf,
+                MIN_FONT_INFO_LENGTH)];
+        for (int i = 0; i < infos.length; i++) {
+            final String metricsFile = readString(buf);
+            final String embedFile = readString(buf);
+            final boolean kerning = buf.get() != 0;
+            final boolean advanced = buf.get() != 0;
+            final EncodingMode encodingMode = EncodingMode
+                    .valueOf(readString(buf));
+            final EmbeddingMode embeddingMode = EmbeddingMode
+                    .valueOf(readString(buf));
+            final String postScriptName = readString(buf);
+            final String subFontName = readString(buf);
+            final int count = readCount(buf, MIN_TRIPLET_LENGTH);
+            final List<FontTriplet> triplets = new ArrayList<FontTriplet>(count);
+            for (int j = 0; j < count; j++) {
+                final String name = readString(buf);
+                final String style = readString(buf);
+                final int weight = buf.getInt();
+                final int priority = buf.getInt();
+                triplets.add(new FontTriplet(name, style, weight, priority));
+            }
+            final EmbedFontInfo info = new EmbedFontInfo(metricsFile, kerning,
+                    advanced, triplets, embedFile, subFontName);
+            info.setEncodingMode(encodingMode);
+            info.setEmbeddingMode(embeddingMode);
+            info.setPostScriptName(postScriptName);
+            infos[i] = info;
+        }
+        return infos;
+    }
+
+    private static void writeString(final DataOutputStream out,
+            final String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = s.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the number of items that follow and checks that the data left can
+     * hold them before anything is allocated for them.
+     */
+    private static int readCount(final ByteBuffer buf, final int minItemLength)
+            throws IOException {
+        final int count = buf.getInt();
+        if (count < 0 || count > buf.remaining() / minItemLength) {
+            throw new IOException("Invalid count in font cache: " + count);
+        }
+        return count;
+    }
+
+    private static String readString(final ByteBuffer buf) throws IOException {
+        final int length = buf.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buf.remaining()) {
+            throw new IOException("Invalid string length in font cache: "
+                    + length);
+        }
+        final byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -80,6 +80,7 @@ public class FontDetector {
         // is a directory but don't recurse
         final FontFileFinder fontFileFinder = new FontFileFinder(
                 this.eventListener);
+        fontFileFinder.setExecutor(this.fontAdder.getExecutor());
         final String fontBaseURL = this.fontManager.getFontBaseURL();
         if (fontBaseURL != null) {
             try {
@@ -59,6 +59,9 @@ public class FontInfo {
     /** Event listener for font events */
     private FontEventListener eventListener = null;
 
+    /** Whether the fonts are used by several threads at the same time */
+    private boolean concurrentUse;
+
     /**
      * Main constructor
      */
@@ -206,10 +209,31 @@ public class FontInfo {
 
         if (metrics instanceof Typeface) {
             ((Typeface) metrics).setEventListener(this.eventListener);
+            if (this.concurrentUse) {
+                ((Typeface) metrics).setConcurrentUse(true);
+            }
         }
         this.fonts.put(internalFontKey, (Typeface) metrics);
     }
 
+    /**
+     * Declares that the fonts are used by several threads at the same time,
+     * as with parallel page-sequence layout. The fonts, including those added
+     * later, then serialize the changes of their state, and so does this
+     * object for the record of used fonts. Must be called before the fonts are
+     * handed to other threads.
+     *
+     * @param concurrentUse
+     *            true if the fonts are used by several threads
+     * @see Typeface#setConcurrentUse(boolean)
+     */
+    public void setConcurrentUse(final boolean concurrentUse) {
+        this.concurrentUse = concurrentUse;
+        for (final Typeface typeface : this.fonts.values()) {
+            typeface.setConcurrentUse(concurrentUse);
+        }
+    }
+
     /**
      * Lookup a font. <br>
      * Locate the font name for a given family, style and weight. The font name
@@ -309,7 +333,7 @@ public class FontInfo {
      *            the internal font name (F1, F2 etc.)
      */
     public void useFont(final String internalName) {
-        this.usedFonts.put(internalName, this.fonts.get(internalName));
+        getMetricsFor(internalName);
     }
 
     private Map<FontTriplet, Map<Integer, Font>> getFontInstanceCache() {
@@ -330,6 +354,15 @@ public class FontInfo {
      * @return the requested Font instance
      */
     public Font getFontInstance(final FontTriplet triplet, final int fontSize) {
+        if (this.concurrentUse) {
+            synchronized (this) {
+                return findFontInstance(triplet, fontSize);
+            }
+        }
+        return findFontInstance(triplet, fontSize);
+    }
+
+    private Font findFontInstance(final FontTriplet triplet, final int fontSize) {
         Map<Integer, Font> sizes = getFontInstanceCache().get(triplet);
         if (sizes == null) {
             sizes = new HashMap<Integer, Font>();
@@ -339,8 +372,7 @@ public class FontInfo {
         Font font = sizes.get(size);
         if (font == null) {
             final String fontKey = getInternalFontKey(triplet);
-            useFont(fontKey);
-            final FontMetrics metrics = getMetricsFor(fontKey);
+            final FontMetrics metrics = findMetrics(fontKey);
             font = new Font(fontKey, triplet, metrics, fontSize);
             sizes.put(size, font);
         }
@@ -642,6 +674,15 @@ public class FontInfo {
      * @return font metrics
      */
     public FontMetrics getMetricsFor(final String fontName) {
+        if (this.concurrentUse) {
+            synchronized (this) {
+                return findMetrics(fontName);
+            }
+        }
+        return findMetrics(fontName);
+    }
+
+    private FontMetrics findMetrics(final String fontName) {
         final Typeface metrics = this.fonts.get(fontName);
         this.usedFonts.put(fontName, metrics);
         return metrics;
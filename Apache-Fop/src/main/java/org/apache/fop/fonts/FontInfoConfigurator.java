@@ -95,17 +95,22 @@ public class FontInfoConfigurator {
             final FontAdder fontAdder = new FontAdder(this.fontManager,
                     this.fontResolver, this.listener);
 
-            // native o/s search (autodetect) configuration
-            final boolean autodetectFonts = fontsCfg.getChild("auto-detect",
-                    false) != null;
-            if (autodetectFonts) {
-                final FontDetector fontDetector = new FontDetector(
-                        this.fontManager, fontAdder, this.strict, this.listener);
-                fontDetector.detect(fontInfoList);
-            }
+            try {
+                // native o/s search (autodetect) configuration
+                final boolean autodetectFonts = fontsCfg.getChild(
+                        "auto-detect", false) != null;
+                if (autodetectFonts) {
+                    final FontDetector fontDetector = new FontDetector(
+                            this.fontManager, fontAdder, this.strict,
+                            this.listener);
+                    fontDetector.detect(fontInfoList);
+                }
 
-            // Add configured directories to FontInfo list
-            addDirectories(fontsCfg, fontAdder, fontInfoList);
+                // Add configured directories to FontInfo list
+                addDirectories(fontsCfg, fontAdder, fontInfoList);
+            } finally {
+                fontAdder.shutdown();
+            }
 
             // Add fonts from configuration to FontInfo list
             addFonts(fontsCfg, this.fontManager.getFontCache(), fontInfoList);
@@ -156,6 +161,7 @@ public class FontInfoConfigurator {
             // add fonts found in directory
             final FontFileFinder fontFileFinder = new FontFileFinder(
                     recursive ? -1 : 1, this.listener);
+            fontFileFinder.setExecutor(fontAdder.getExecutor());
             List<URL> fontURLList;
             try {
                 fontURLList = fontFileFinder.find(directory);
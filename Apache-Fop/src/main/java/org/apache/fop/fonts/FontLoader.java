@@ -28,6 +28,9 @@ import java.net.URL;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.fop.fonts.truetype.FontFileReader;
 import org.apache.fop.fonts.truetype.TTFFontLoader;
 import org.apache.fop.fonts.type1.Type1FontLoader;
 
@@ -209,27 +212,91 @@ public abstract class FontLoader {
      */
     public static InputStream openFontUri(final FontResolver resolver,
             final String uri) throws IOException, MalformedURLException {
-        InputStream in = null;
         if (resolver != null) {
-            final Source source = resolver.resolve(uri);
-            if (source == null) {
-                final String err = "Cannot load font: failed to create Source for font file "
-                        + uri;
-                throw new IOException(err);
-            }
+            return openSource(resolveFontUri(resolver, uri), uri);
+        } else {
+            return new URL(uri).openStream();
+        }
+    }
+
+    /**
+     * Opens a TrueType font URI for reading. A font URI resolving to a local
+     * file is memory-mapped (see {@link FontFileReader#FontFileReader(File)}),
+     * other fonts are read into memory.
+     *
+     * @param resolver
+     *            the FontResolver to use for font URI resolution
+     * @param uri
+     *            the URI representing the font
+     * @return the reader for the font file
+     * @throws IOException
+     *             In case of an I/O error
+     */
+    public static FontFileReader openFontFile(final FontResolver resolver,
+            final String uri) throws IOException {
+        final Source source = resolver != null ? resolveFontUri(resolver, uri)
+                : null;
+        final File file = toLocalFile(source != null ? source.getSystemId()
+                : uri);
+        if (file != null) {
             if (source instanceof StreamSource) {
-                in = ((StreamSource) source).getInputStream();
-            }
-            if (in == null && source.getSystemId() != null) {
-                in = new java.net.URL(source.getSystemId()).openStream();
+                IOUtils.closeQuietly(((StreamSource) source).getInputStream());
             }
-            if (in == null) {
-                final String err = "Cannot load font: failed to create InputStream from"
-                        + " Source for font file " + uri;
-                throw new IOException(err);
-            }
-        } else {
-            in = new URL(uri).openStream();
+            return new FontFileReader(file);
+        }
+        final InputStream in = source != null ? openSource(source, uri)
+                : new URL(uri).openStream();
+        try {
+            return new FontFileReader(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the local file a font URL refers to.
+     *
+     * @param url
+     *            the URL of a font file (may be null)
+     * @return the existing local file, or null if the URL does not refer to
+     *         one
+     */
+    public static File toLocalFile(final String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            final File file = FileUtils.toFile(new URL(url));
+            return file != null && file.isFile() ? file : null;
+        } catch (final MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private static Source resolveFontUri(final FontResolver resolver,
+            final String uri) throws IOException {
+        final Source source = resolver.resolve(uri);
+        if (source == null) {
+            final String err = "Cannot load font: failed to create Source for font file "
+                    + uri;
+            throw new IOException(err);
+        }
+        return source;
+    }
+
+    private static InputStream openSource(final Source source, final String uri)
+            throws IOException {
+        InputStream in = null;
+        if (source instanceof StreamSource) {
+            in = ((StreamSource) source).getInputStream();
+        }
+        if (in == null && source.getSystemId() != null) {
+            in = new java.net.URL(source.getSystemId()).openStream();
+        }
+        if (in == null) {
+            final String err = "Cannot load font: failed to create InputStream from"
+                    + " Source for font file " + uri;
+            throw new IOException(err);
         }
         return in;
     }
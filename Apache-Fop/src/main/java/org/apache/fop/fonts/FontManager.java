@@ -41,6 +41,12 @@ public class FontManager {
     /** Use cache (record previously detected font triplet info) */
     public static final boolean DEFAULT_USE_CACHE = true;
 
+    /**
+     * Detect fonts on the configuring thread unless more threads are
+     * configured
+     */
+    public static final int DEFAULT_FONT_DETECTION_THREADS = 1;
+
     /** The base URL for all font URL resolutions. */
     private String fontBase = null;
 
@@ -65,6 +71,9 @@ public class FontManager {
     /** Provides a font cache file path **/
     private File cacheFile;
 
+    /** Number of threads detecting fonts (1: on the configuring thread) */
+    private int fontDetectionThreads = DEFAULT_FONT_DETECTION_THREADS;
+
     /**
      * Main constructor
      */
@@ -174,6 +183,31 @@ public class FontManager {
         return this.useCache;
     }
 
+    /**
+     * Sets the number of threads that search font directories and parse font
+     * files during font auto-detection. With 1, the default, fonts are
+     * detected on the thread configuring the fonts.
+     * 
+     * @param threads
+     *            the number of threads (at least 1)
+     */
+    public void setFontDetectionThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                    "The number of font detection threads must be at least 1");
+        }
+        this.fontDetectionThreads = threads;
+    }
+
+    /**
+     * Returns the number of threads used for font auto-detection.
+     * 
+     * @return the number of threads
+     */
+    public int getFontDetectionThreads() {
+        return this.fontDetectionThreads;
+    }
+
     /**
      * Returns the font cache instance used by this font manager.
      * 
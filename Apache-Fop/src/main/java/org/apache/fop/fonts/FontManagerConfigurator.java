@@ -97,6 +97,16 @@ public class FontManagerConfigurator {
                 LogUtil.handleException(log, e, true);
             }
         }
+        if (this.cfg.getChild("font-detection-threads", false) != null) {
+            try {
+                fontManager.setFontDetectionThreads(this.cfg.getChild(
+                        "font-detection-threads").getValueAsInteger());
+            } catch (final ConfigurationException e) {
+                LogUtil.handleException(log, e, true);
+            } catch (final IllegalArgumentException e) {
+                LogUtil.handleException(log, e, true);
+            }
+        }
         if (this.cfg.getChild("font-base", false) != null) {
             String path = this.cfg.getChild("font-base").getValue(null);
             if (this.baseURI != null) {
@@ -0,0 +1,351 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.fop.apps.FOPException;
+
+/**
+ * Process-wide repository of parsed font metrics. Parsing a TrueType, Type 1
+ * or XML metrics file is by far the most expensive step of using a custom
+ * font, and it used to be repeated by every {@link LazyFont}, i.e. for every
+ * rendering run. The repository keeps the parsed fonts, keyed by the resolved
+ * font URI, its modification time and the loading options, and hands out
+ * {@link CustomFont#copy() copies} that share the metrics but not the
+ * per-document usage state.
+ * <p>
+ * The repository is bounded (least recently used fonts are evicted first) and
+ * safe for concurrent use: a font requested by several threads at once is
+ * parsed only once.
+ */
+@Slf4j
+public final class FontMetricsRepository {
+
+    /** The default maximum number of fonts kept in the repository. */
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private static final FontMetricsRepository INSTANCE = new FontMetricsRepository(
+            DEFAULT_MAX_ENTRIES);
+
+    private final Map<Object, FutureTask<CustomFont>> fonts;
+
+    private int maxEntries;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * Creates a new repository.
+     *
+     * @param maxEntries
+     *            the maximum number of fonts to keep (0 disables caching)
+     */
+    FontMetricsRepository(final int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.fonts = new LinkedHashMap<Object, FutureTask<CustomFont>>(16,
+                0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    final Map.Entry<Object, FutureTask<CustomFont>> eldest) {
+                return size() > FontMetricsRepository.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide repository instance.
+     *
+     * @return the repository
+     */
+    public static FontMetricsRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Sets the maximum number of fonts kept in the repository. Setting it to 0
+     * disables the repository; every font is then parsed again.
+     *
+     * @param maxEntries
+     *            the maximum number of fonts
+     */
+    public synchronized void setMaxEntries(final int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException(
+                    "maxEntries must not be negative: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        if (this.fonts.size() > maxEntries) {
+            this.fonts.clear();
+        }
+    }
+
+    /**
+     * Returns the maximum number of fonts kept in the repository.
+     *
+     * @return the maximum number of fonts
+     */
+    public synchronized int getMaxEntries() {
+        return this.maxEntries;
+    }
+
+    /**
+     * Returns the number of fonts currently held.
+     *
+     * @return the number of fonts
+     */
+    public synchronized int size() {
+        return this.fonts.size();
+    }
+
+    /**
+     * Returns the number of requests served from the repository.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of requests that required parsing a font.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount() {
+        return this.misses;
+    }
+
+    /** Removes all fonts from the repository. */
+    public synchronized void clear() {
+        this.fonts.clear();
+    }
+
+    /**
+     * Creates the key identifying a font in the repository.
+     *
+     * @param resolver
+     *            the font resolver used to resolve the font URI (may be null)
+     * @param fontURI
+     *            the URI of the file that is parsed (metrics file or font
+     *            file)
+     * @param options
+     *            the loading options that influence the parsed font
+     * @return the key, or null if the font's location cannot be determined, in
+     *         which case the font must not be cached
+     */
+    static Object createKey(final FontResolver resolver, final String fontURI,
+            final Object... options) {
+        final String systemId = resolveSystemId(resolver, fontURI.trim());
+        if (systemId == null) {
+            return null;
+        }
+        final long lastModified;
+        try {
+            final URL url = new URL(systemId);
+            if ("file".equals(url.getProtocol())) {
+                lastModified = new File(url.toURI()).lastModified();
+            } else {
+                lastModified = FontCache.getLastModified(url);
+            }
+        } catch (final MalformedURLException e) {
+            return null;
+        } catch (final URISyntaxException e) {
+            return null;
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+        return new FontKey(systemId, lastModified, options);
+    }
+
+    private static String resolveSystemId(final FontResolver resolver,
+            final String uri) {
+        if (resolver == null) {
+            return uri;
+        }
+        final Source source = resolver.resolve(uri);
+        if (source == null) {
+            return null;
+        }
+        if (source instanceof StreamSource) {
+            // Only the location is needed here, the font is opened again when
+            // it's actually parsed
+            final StreamSource streamSource = (StreamSource) source;
+            IOUtils.closeQuietly(streamSource.getInputStream());
+            IOUtils.closeQuietly(streamSource.getReader());
+        }
+        return source.getSystemId();
+    }
+
+    /**
+     * Returns a copy of the font identified by the given key, parsing it with
+     * the given loader if it isn't in the repository yet.
+     *
+     * @param key
+     *            the key created by {@link #createKey}
+     * @param loader
+     *            parses the font; may return null if the font couldn't be
+     *            loaded (nothing is cached then)
+     * @return a copy of the font, or null if the loader returned null
+     * @throws FOPException
+     *             if the loader fails to parse the font
+     * @throws IOException
+     *             if the loader fails to read the font
+     */
+    CustomFont getFont(final Object key, final Callable<CustomFont> loader)
+            throws FOPException, IOException {
+        FutureTask<CustomFont> task;
+        boolean owner = false;
+        synchronized (this) {
+            if (this.maxEntries == 0) {
+                task = null;
+            } else {
+                task = this.fonts.get(key);
+                if (task == null) {
+                    task = new FutureTask<CustomFont>(loader);
+                    this.fonts.put(key, task);
+                    owner = true;
+                    this.misses++;
+                } else {
+                    this.hits++;
+                }
+            }
+        }
+        if (task == null) {
+            return call(loader);
+        }
+        if (owner) {
+            task.run();
+        }
+        CustomFont font = null;
+        try {
+            font = task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading font "
+                    + key);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof FOPException) {
+                throw (FOPException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FOPException(cause.getMessage(), (Exception) cause);
+        } finally {
+            if (font == null) {
+                remove(key, task);
+            }
+        }
+        if (font == null) {
+            return null;
+        }
+        if (log.isDebugEnabled() && !owner) {
+            log.debug("Reusing metrics of font " + key);
+        }
+        return font.copy();
+    }
+
+    private synchronized void remove(final Object key,
+            final FutureTask<CustomFont> task) {
+        if (this.fonts.get(key) == task) {
+            this.fonts.remove(key);
+        }
+    }
+
+    private static CustomFont call(final Callable<CustomFont> loader)
+            throws FOPException, IOException {
+        try {
+            return loader.call();
+        } catch (final FOPException e) {
+            throw e;
+        } catch (final IOException e) {
+            throw e;
+        } catch (final RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new FOPException(e);
+        }
+    }
+
+    /** Identifies a parsed font: its location, version and loading options. */
+    private static final class FontKey {
+
+        private final String systemId;
+        private final long lastModified;
+        private final Object[] options;
+
+        FontKey(final String systemId, final long lastModified,
+                final Object[] options) {
+            this.systemId = systemId;
+            this.lastModified = lastModified;
+            this.options = options;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof FontKey)) {
+                return false;
+            }
+            final FontKey other = (FontKey) obj;
+            return this.lastModified == other.lastModified
+                    && this.systemId.equals(other.systemId)
+                    && Arrays.equals(this.options, other.options);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return 31 * this.systemId.hashCode() + Arrays.hashCode(this.options);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String toString() {
+            return this.systemId + Arrays.toString(this.options);
+        }
+    }
+}
@@ -146,7 +146,7 @@ public class FontReader extends DefaultHandler {
      * 
      * @return the font
      */
-    public Typeface getFont() {
+    public CustomFont getFont() {
         return this.returnFont;
     }
 
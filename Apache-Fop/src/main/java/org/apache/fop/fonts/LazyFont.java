@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.net.URL;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -51,12 +52,16 @@ Substitutable, Positionable {
     private boolean embedded = true;
     private final String subFontName;
 
-    private boolean isMetricsLoaded;
+    private volatile boolean isMetricsLoaded;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
     private final FontResolver resolver;
 
+    /** the key of the metrics in the repository, resolved once */
+    private Object metricsKey;
+    private boolean metricsKeyCreated;
+
     /**
      * Main constructor
      *
@@ -96,67 +101,32 @@ Substitutable, Positionable {
     }
 
     private void load(final boolean fail) {
+        if (!this.isMetricsLoaded) {
+            loadMetrics(fail);
+        }
+    }
+
+    private synchronized void loadMetrics(final boolean fail) {
         if (!this.isMetricsLoaded) {
             try {
-                if (this.metricsFileName != null) {
-                    /** @todo Possible thread problem here */
-                    FontReader reader = null;
-                    if (this.resolver != null) {
-                        final Source source = this.resolver
-                                .resolve(this.metricsFileName);
-                        if (source == null) {
-                            final String err = "Cannot load font: failed to create Source from metrics file "
-                                    + this.metricsFileName;
-                            if (fail) {
-                                throw new RuntimeException(err);
-                            } else {
-                                log.error(err);
-                            }
-                            return;
-                        }
-                        InputStream in = null;
-                        if (source instanceof StreamSource) {
-                            in = ((StreamSource) source).getInputStream();
-                        }
-                        if (in == null && source.getSystemId() != null) {
-                            in = new java.net.URL(source.getSystemId())
-                            .openStream();
-                        }
-                        if (in == null) {
-                            final String err = "Cannot load font: After URI resolution, the returned"
-                                    + " Source object does not contain an InputStream"
-                                    + " or a valid URL (system identifier) for metrics file: "
-                                    + this.metricsFileName;
-                            if (fail) {
-                                throw new RuntimeException(err);
-                            } else {
-                                log.error(err);
-                            }
-                            return;
-                        }
-                        final InputSource src = new InputSource(in);
-                        src.setSystemId(source.getSystemId());
-                        reader = new FontReader(src);
-                    } else {
-                        reader = new FontReader(new InputSource(new URL(
-                                this.metricsFileName).openStream()));
-                    }
-                    reader.setKerningEnabled(this.useKerning);
-                    reader.setAdvancedEnabled(this.useAdvanced);
-                    if (this.embedded) {
-                        reader.setFontEmbedPath(this.fontEmbedPath);
+                final Object key = getMetricsKey();
+                if (key != null) {
+                    this.realFont = FontMetricsRepository.getInstance()
+                            .getFont(key, new Callable<CustomFont>() {
+                                @Override
+                                public CustomFont call() throws FOPException,
+                                        IOException {
+                                    return readFont(fail);
+                                }
+                            });
+                    if (this.realFont != null) {
+                        ((CustomFont) this.realFont).setResolver(this.resolver);
                     }
-                    reader.setResolver(this.resolver);
-                    this.realFont = reader.getFont();
                 } else {
-                    if (this.fontEmbedPath == null) {
-                        throw new RuntimeException(
-                                "Cannot load font. No font URIs available.");
-                    }
-                    this.realFont = FontLoader.loadFont(this.fontEmbedPath,
-                            this.subFontName, this.embedded,
-                            this.embeddingMode, this.encodingMode,
-                            this.useKerning, this.useAdvanced, this.resolver);
+                    this.realFont = readFont(fail);
+                }
+                if (this.realFont == null) {
+                    return;
                 }
                 if (this.realFont instanceof FontDescriptor) {
                     this.realFontDescriptor = (FontDescriptor) this.realFont;
@@ -175,10 +145,109 @@ Substitutable, Positionable {
                 }
             }
             this.realFont.setEventListener(this.eventListener);
+            this.realFont.setConcurrentUse(isConcurrentUse());
             this.isMetricsLoaded = true;
         }
     }
 
+    /**
+     * Returns the key under which the parsed metrics of this font are shared
+     * in the {@link FontMetricsRepository}. Creating the key resolves the font
+     * URI and checks the modification time of the file, so it is only done
+     * once, even if loading the font has to be retried.
+     *
+     * @return the key or null if the metrics cannot be shared
+     */
+    private Object getMetricsKey() {
+        if (!this.metricsKeyCreated) {
+            final String uri = this.metricsFileName != null
+                    ? this.metricsFileName : this.fontEmbedPath;
+            if (uri != null) {
+                this.metricsKey = FontMetricsRepository.createKey(
+                        this.resolver, uri, this.metricsFileName != null,
+                        this.fontEmbedPath, this.subFontName, this.embedded,
+                        this.embeddingMode, this.encodingMode,
+                        this.useKerning, this.useAdvanced);
+            }
+            this.metricsKeyCreated = true;
+        }
+        return this.metricsKey;
+    }
+
+    /**
+     * Parses the font from the metrics file or the font file.
+     *
+     * @param fail
+     *            true to throw an exception if the font cannot be located
+     * @return the font or null if it couldn't be located and fail is false
+     * @throws FOPException
+     *             if the metrics file cannot be parsed
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private CustomFont readFont(final boolean fail) throws FOPException,
+            IOException {
+        if (this.metricsFileName != null) {
+            FontReader reader = null;
+            if (this.resolver != null) {
+                final Source source = this.resolver
+                        .resolve(this.metricsFileName);
+                if (source == null) {
+                    final String err = "Cannot load font: failed to create Source from metrics file "
+                            + this.metricsFileName;
+                    if (fail) {
+                        throw new RuntimeException(err);
+                    } else {
+                        log.error(err);
+                    }
+                    return null;
+                }
+                InputStream in = null;
+                if (source instanceof StreamSource) {
+                    in = ((StreamSource) source).getInputStream();
+                }
+                if (in == null && source.getSystemId() != null) {
+                    in = new java.net.URL(source.getSystemId())
+                    .openStream();
+                }
+                if (in == null) {
+                    final String err = "Cannot load font: After URI resolution, the returned"
+                            + " Source object does not contain an InputStream"
+                            + " or a valid URL (system identifier) for metrics file: "
+                            + this.metricsFileName;
+                    if (fail) {
+                        throw new RuntimeException(err);
+                    } else {
+                        log.error(err);
+                    }
+                    return null;
+                }
+                final InputSource src = new InputSource(in);
+                src.setSystemId(source.getSystemId());
+                reader = new FontReader(src);
+            } else {
+                reader = new FontReader(new InputSource(new URL(
+                        this.metricsFileName).openStream()));
+            }
+            reader.setKerningEnabled(this.useKerning);
+            reader.setAdvancedEnabled(this.useAdvanced);
+            if (this.embedded) {
+                reader.setFontEmbedPath(this.fontEmbedPath);
+            }
+            reader.setResolver(this.resolver);
+            return reader.getFont();
+        } else {
+            if (this.fontEmbedPath == null) {
+                throw new RuntimeException(
+                        "Cannot load font. No font URIs available.");
+            }
+            return FontLoader.loadFont(this.fontEmbedPath,
+                    this.subFontName, this.embedded,
+                    this.embeddingMode, this.encodingMode,
+                    this.useKerning, this.useAdvanced, this.resolver);
+        }
+    }
+
     /**
      * Gets the real font.
      *
@@ -189,6 +258,15 @@ Substitutable, Positionable {
         return this.realFont;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void setConcurrentUse(final boolean concurrentUse) {
+        super.setConcurrentUse(concurrentUse);
+        if (this.realFont != null) {
+            this.realFont.setConcurrentUse(concurrentUse);
+        }
+    }
+
     // ---- Font ----
     /** {@inheritDoc} */
     @Override
@@ -29,6 +29,7 @@ import org.apache.fop.complexscripts.fonts.GlyphDefinitionTable;
 import org.apache.fop.complexscripts.fonts.GlyphPositioningTable;
 import org.apache.fop.complexscripts.fonts.GlyphSubstitutionTable;
 import org.apache.fop.complexscripts.fonts.Positionable;
+import org.apache.fop.complexscripts.fonts.ShapingCache;
 import org.apache.fop.complexscripts.fonts.Substitutable;
 import org.apache.fop.complexscripts.util.GlyphSequence;
 import org.apache.fop.util.CharUtilities;
@@ -46,13 +47,30 @@ Positionable {
     private int defaultWidth = 0;
     private CIDFontType cidType = CIDFontType.CIDTYPE2;
 
-    private final CIDSubset subset = new CIDSubset();
+    private CIDSubset subset = new CIDSubset();
 
     /* advanced typographic support */
     private GlyphDefinitionTable gdef;
     private GlyphSubstitutionTable gsub;
     private GlyphPositioningTable gpos;
 
+    /* shaping results, shared with the copies of this font */
+    private final ShapingCache shapingCache = new ShapingCache();
+
+    /*
+     * Per-thread scratch buffers used by {@link #mapCharsToGlyphs}; the
+     * sequences built on them never outlive a single shaping call.
+     */
+    private static final ThreadLocal<IntBuffer[]> MAPPING_BUFFERS = new ThreadLocal<IntBuffer[]>() {
+        @Override
+        protected IntBuffer[] initialValue() {
+            return new IntBuffer[2];
+        }
+    };
+
+    /* minimum capacity of a mapping scratch buffer */
+    private static final int MIN_MAPPING_BUFFER_CAPACITY = 64;
+
     /* dynamic private use (character) mappings */
     private int numMapped;
     private int numUnmapped;
@@ -137,6 +155,14 @@ Positionable {
         return this.subset;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void resetUsageState() {
+        super.resetUsageState();
+        this.subset = new CIDSubset();
+        this.subset.setupFirstGlyph();
+    }
+
     /** {@inheritDoc} */
     @Override
     public String getEncodingName() {
@@ -147,7 +173,14 @@ Positionable {
     @Override
     public int getWidth(final int i, final int size) {
         if (isEmbeddable()) {
-            final int glyphIndex = this.subset.getGlyphIndexForSubsetIndex(i);
+            final int glyphIndex;
+            if (isConcurrentUse()) {
+                synchronized (this) {
+                    glyphIndex = this.subset.getGlyphIndexForSubsetIndex(i);
+                }
+            } else {
+                glyphIndex = this.subset.getGlyphIndexForSubsetIndex(i);
+            }
             return size * this.width[glyphIndex];
         } else {
             return size * this.width[i];
@@ -284,6 +317,16 @@ Positionable {
     /** {@inheritDoc} */
     @Override
     public char mapChar(final char c) {
+        if (isConcurrentUse()) {
+            synchronized (this) {
+                return mapCharToGlyph(c);
+            }
+        }
+        return mapCharToGlyph(c);
+    }
+
+    /* Mapping extends the subset, see isConcurrentUse() */
+    private char mapCharToGlyph(final char c) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(c);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -442,10 +485,20 @@ Positionable {
             final String script, final String language) {
         if (this.gsub != null) {
             final GlyphSequence igs = mapCharsToGlyphs(cs);
-            final GlyphSequence ogs = this.gsub.substitute(igs, script,
-                    language);
-            final CharSequence ocs = mapGlyphsToChars(ogs);
-            return ocs;
+            if (!ShapingCache.isCacheable(igs)) {
+                return mapGlyphsToChars(this.gsub.substitute(igs, script,
+                        language));
+            }
+            final ShapingCache.Key key = ShapingCache.makeSubstitutionKey(igs,
+                    script, language);
+            int[] glyphs = this.shapingCache.getSubstitution(key);
+            if (glyphs == null) {
+                final GlyphSequence ogs = this.gsub.substitute(igs, script,
+                        language);
+                glyphs = ogs.getGlyphArray(true);
+                this.shapingCache.putSubstitution(key, glyphs);
+            }
+            return mapGlyphsToChars(glyphs);
         } else {
             return cs;
         }
@@ -478,9 +531,24 @@ Positionable {
             final String script, final String language, final int fontSize) {
         if (this.gpos != null) {
             final GlyphSequence gs = mapCharsToGlyphs(cs);
-            final int[][] adjustments = new int[gs.getGlyphCount()][4];
-            if (this.gpos.position(gs, script, language, fontSize, this.width,
-                    adjustments)) {
+            final boolean cacheable = ShapingCache.isCacheable(gs);
+            final ShapingCache.Key key = cacheable ? ShapingCache
+                    .makePositioningKey(gs, script, language, fontSize) : null;
+            int[][] adjustments = cacheable ? this.shapingCache
+                    .getPositioning(key) : null;
+            if (adjustments == null) {
+                adjustments = new int[gs.getGlyphCount()][4];
+                if (!this.gpos.position(gs, script, language, fontSize,
+                        this.width, adjustments)) {
+                    adjustments = null;
+                }
+                if (cacheable) {
+                    this.shapingCache.putPositioning(key, adjustments);
+                }
+            } else if (adjustments.length == 0) {
+                adjustments = null;
+            }
+            if (adjustments != null) {
                 return scaleAdjustments(adjustments, fontSize);
             } else {
                 return null;
@@ -516,15 +584,16 @@ Positionable {
      * Map sequence CS, comprising a sequence of UTF-16 encoded Unicode Code
      * Points, to an output character sequence GS, comprising a sequence of
      * Glyph Indices. N.B. Unlike mapChar(), this method does not make use of
-     * embedded subset encodings.
+     * embedded subset encodings. The returned sequence is backed by per-thread
+     * scratch buffers, and so must not be retained beyond the current call.
      *
      * @param cs
      *            a CharSequence containing UTF-16 encoded Unicode characters
      * @returns a CharSequence containing glyph indices
      */
     private GlyphSequence mapCharsToGlyphs(final CharSequence cs) {
-        final IntBuffer cb = IntBuffer.allocate(cs.length());
-        final IntBuffer gb = IntBuffer.allocate(cs.length());
+        final IntBuffer cb = getMappingBuffer(0, cs.length());
+        final IntBuffer gb = getMappingBuffer(1, cs.length());
         int gi;
         final int giMissing = findGlyphIndex(Typeface.NOT_FOUND);
         for (int i = 0, n = cs.length(); i < n; i++) {
@@ -566,6 +635,19 @@ Positionable {
         return new GlyphSequence(cb, gb, null);
     }
 
+    private static IntBuffer getMappingBuffer(final int index,
+            final int capacity) {
+        final IntBuffer[] buffers = MAPPING_BUFFERS.get();
+        IntBuffer ib = buffers[index];
+        if (ib == null || ib.capacity() < capacity) {
+            ib = IntBuffer.allocate(Math.max(capacity,
+                    MIN_MAPPING_BUFFER_CAPACITY));
+            buffers[index] = ib;
+        }
+        ib.clear();
+        return ib;
+    }
+
     /**
      * Map sequence GS, comprising a sequence of Glyph Indices, to output
      * sequence CS, comprising a sequence of UTF-16 encoded Unicode Code Points.
@@ -575,11 +657,23 @@ Positionable {
      * @returns a CharSequence containing UTF-16 encoded Unicode characters
      */
     private CharSequence mapGlyphsToChars(final GlyphSequence gs) {
-        final int ng = gs.getGlyphCount();
+        return mapGlyphsToChars(gs.getGlyphArray(true));
+    }
+
+    /**
+     * Map a sequence of Glyph Indices to a sequence of UTF-16 encoded Unicode
+     * Code Points.
+     *
+     * @param glyphs
+     *            an array of glyph indices
+     * @returns a CharSequence containing UTF-16 encoded Unicode characters
+     */
+    private CharSequence mapGlyphsToChars(final int[] glyphs) {
+        final int ng = glyphs.length;
         final CharBuffer cb = CharBuffer.allocate(ng);
         final int ccMissing = Typeface.NOT_FOUND;
         for (int i = 0, n = ng; i < n; i++) {
-            final int gi = gs.getGlyph(i);
+            final int gi = glyphs[i];
             int cc = findCharacterFromGlyphIndex(gi);
             if (cc == 0 || cc > 0x10FFFF) {
                 cc = ccMissing;
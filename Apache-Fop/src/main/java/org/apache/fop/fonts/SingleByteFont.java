@@ -168,6 +168,19 @@ public class SingleByteFont extends CustomFont {
     /** {@inheritDoc} */
     @Override
     public char mapChar(final char c) {
+        if (isConcurrentUse()) {
+            synchronized (this) {
+                return mapCharToCode(c);
+            }
+        }
+        return mapCharToCode(c);
+    }
+
+    /*
+     * Mapping may extend the additional encodings and the alternatives cache,
+     * see isConcurrentUse()
+     */
+    private char mapCharToCode(final char c) {
         notifyMapOperation();
         char d = lookupChar(c);
         if (d != SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -221,6 +234,15 @@ public class SingleByteFont extends CustomFont {
     /** {@inheritDoc} */
     @Override
     public boolean hasChar(final char c) {
+        if (isConcurrentUse()) {
+            synchronized (this) {
+                return hasCharCode(c);
+            }
+        }
+        return hasCharCode(c);
+    }
+
+    private boolean hasCharCode(final char c) {
         char d = this.mapping.mapChar(c);
         if (d != SingleByteEncoding.NOT_FOUND_CODE_POINT) {
             return true;
@@ -463,4 +485,12 @@ public class SingleByteFont extends CustomFont {
         return this.ttPostScriptVersion;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected void resetUsageState() {
+        super.resetUsageState();
+        this.additionalEncodings = null;
+        this.alternativeCodes = null;
+    }
+
 }
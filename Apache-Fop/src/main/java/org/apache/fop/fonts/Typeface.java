@@ -53,6 +53,12 @@ public abstract class Typeface implements FontMetrics {
 
     private Set<Character> warnedChars;
 
+    /**
+     * Whether the font is used by several threads at the same time, in which
+     * case the operations that change its state are serialized.
+     */
+    private boolean concurrentUse;
+
     /**
      * Get the encoding of the font.
      *
@@ -88,6 +94,43 @@ public abstract class Typeface implements FontMetrics {
         return this.charMapOps > 0;
     }
 
+    /**
+     * Resets the state that records how this font was used by a document (the
+     * mapping operation counter, the missing glyph warnings, the event
+     * listener and the concurrent use). Subclasses that track further usage
+     * state must extend this.
+     */
+    protected void resetUsageState() {
+        this.charMapOps = 0;
+        this.concurrentUse = false;
+        this.warnedChars = null;
+        this.eventListener = null;
+    }
+
+    /**
+     * Declares whether this font is used by several threads at the same time,
+     * as with parallel page-sequence layout. Only then are the operations that
+     * change the font's state (character mapping, subsetting, warnings)
+     * serialized, sequential use pays no locking. Must be set before the font
+     * is handed to other threads.
+     *
+     * @param concurrentUse
+     *            true if the font is used by several threads
+     */
+    public void setConcurrentUse(final boolean concurrentUse) {
+        this.concurrentUse = concurrentUse;
+    }
+
+    /**
+     * Indicates whether this font is used by several threads at the same time.
+     *
+     * @return true if the font's state changes must be serialized
+     * @see #setConcurrentUse(boolean)
+     */
+    public boolean isConcurrentUse() {
+        return this.concurrentUse;
+    }
+
     /**
      * Determines whether this font contains a particular character/glyph.
      *
@@ -130,6 +173,16 @@ public abstract class Typeface implements FontMetrics {
      *            the character which is missing.
      */
     protected void warnMissingGlyph(final char c) {
+        if (this.concurrentUse) {
+            synchronized (this) {
+                warnMissingGlyphOnce(c);
+            }
+        } else {
+            warnMissingGlyphOnce(c);
+        }
+    }
+
+    private void warnMissingGlyphOnce(final char c) {
         // Give up, character is not available
         final Character ch = new Character(c);
         if (this.warnedChars == null) {
@@ -20,11 +20,18 @@
 package org.apache.fop.fonts.autodetect;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,6 +51,8 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
     /** default depth limit of recursion when searching for font files **/
     public static final int DEFAULT_DEPTH_LIMIT = -1;
     private final FontEventListener eventListener;
+    private final int depthLimit;
+    private Executor executor;
 
     /**
      * Default constructor
@@ -66,6 +75,19 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
     public FontFileFinder(final int depthLimit, final FontEventListener listener) {
         super(getDirectoryFilter(), getFileFilter(), depthLimit);
         this.eventListener = listener;
+        this.depthLimit = depthLimit;
+    }
+
+    /**
+     * Sets the executor used to list directories concurrently. The font files
+     * are returned in the same order as with a sequential walk.
+     *
+     * @param executor
+     *            the executor, or null to walk the directories on the calling
+     *            thread
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
     }
 
     /**
@@ -165,7 +187,7 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
         final List<File> fontDirs = fontDirFinder.find();
         final List<URL> results = new java.util.ArrayList<URL>();
         for (final File dir : fontDirs) {
-            super.walk(dir, results);
+            walk(dir, results);
         }
         return results;
     }
@@ -185,8 +207,110 @@ public class FontFileFinder extends DirectoryWalker implements FontFinder {
         if (!directory.isDirectory()) {
             this.eventListener.fontDirectoryNotFound(this, dir);
         } else {
-            super.walk(directory, results);
+            walk(directory, results);
         }
         return results;
     }
+
+    private void walk(final File directory, final List<URL> results)
+            throws IOException {
+        if (this.executor == null) {
+            super.walk(directory, results);
+            return;
+        }
+        // The directories are listed concurrently, the listings are put
+        // together on this thread only, so no task ever waits for another one
+        final CompletionService<DirectoryListing> listings = new ExecutorCompletionService<DirectoryListing>(
+                this.executor);
+        final DirectoryListing root = new DirectoryListing(directory, 0, null,
+                0);
+        listings.submit(root);
+        int pending = 1;
+        try {
+            while (pending > 0) {
+                final DirectoryListing listing = listings.take().get();
+                pending--;
+                if (listing.parent != null) {
+                    listing.parent.subdirectories[listing.index] = listing;
+                }
+                for (int i = 0; i < listing.children.length; i++) {
+                    if (listing.isDirectory[i]) {
+                        listings.submit(new DirectoryListing(
+                                listing.children[i], listing.depth + 1,
+                                listing, i));
+                        pending++;
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while searching for fonts in " + directory);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+        collect(root, results);
+    }
+
+    /** Adds the font files in the same order as {@link DirectoryWalker}. */
+    private void collect(final DirectoryListing listing,
+            final List<URL> results) {
+        for (int i = 0; i < listing.children.length; i++) {
+            if (listing.isDirectory[i]) {
+                collect(listing.subdirectories[i], results);
+            } else {
+                handleFile(listing.children[i], listing.depth + 1, results);
+            }
+        }
+        handleDirectoryEnd(listing.directory, listing.depth, results);
+    }
+
+    /** Lists the font files and subdirectories of a directory. */
+    private final class DirectoryListing implements Callable<DirectoryListing> {
+
+        private final File directory;
+        private final int depth;
+        private File[] children = new File[0];
+        private boolean[] isDirectory = new boolean[0];
+        private DirectoryListing[] subdirectories;
+
+        private final DirectoryListing parent;
+        private final int index;
+
+        DirectoryListing(final File directory, final int depth,
+                final DirectoryListing parent, final int index) {
+            this.directory = directory;
+            this.depth = depth;
+            this.parent = parent;
+            this.index = index;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DirectoryListing call() {
+            final int childDepth = this.depth + 1;
+            if (FontFileFinder.this.depthLimit < 0
+                    || childDepth <= FontFileFinder.this.depthLimit) {
+                final File[] files = this.directory.listFiles(FILTER);
+                if (files != null) {
+                    this.children = files;
+                    this.isDirectory = new boolean[files.length];
+                    for (int i = 0; i < files.length; i++) {
+                        this.isDirectory[i] = files[i].isDirectory();
+                    }
+                }
+            }
+            this.subdirectories = new DirectoryListing[this.children.length];
+            return this;
+        }
+    }
+
+    private static final FileFilter FILTER = FileFilterUtils.or(
+            getDirectoryFilter(), getFileFilter());
 }
@@ -19,7 +19,6 @@
 
 package org.apache.fop.fonts.autodetect;
 
-import java.io.InputStream;
 import java.net.URL;
 import java.util.Collection;
 import java.util.List;
@@ -28,7 +27,6 @@ import java.util.regex.Pattern;
 
 import lombok.extern.slf4j.Slf4j;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.EmbedFontInfo;
 import org.apache.fop.fonts.EmbeddingMode;
@@ -220,11 +218,10 @@ public class FontInfoFinder {
             // Get a list of the TTC Font names
             List<String> ttcNames = null;
             final String fontFileURL = fontURL.toExternalForm().trim();
-            InputStream in = null;
             try {
-                in = FontLoader.openFontUri(resolver, fontFileURL);
                 final TTFFile ttf = new TTFFile(false, false);
-                final FontFileReader reader = new FontFileReader(in);
+                final FontFileReader reader = FontLoader.openFontFile(resolver,
+                        fontFileURL);
                 ttcNames = ttf.getTTCnames(reader);
             } catch (final Exception e) {
                 if (this.eventListener != null) {
@@ -232,8 +229,6 @@ public class FontInfoFinder {
                                     fontFileURL, e);
                 }
                 return null;
-            } finally {
-                IOUtils.closeQuietly(in);
             }
 
             final List<EmbedFontInfo> embedFontInfoList = new java.util.ArrayList<EmbedFontInfo>();
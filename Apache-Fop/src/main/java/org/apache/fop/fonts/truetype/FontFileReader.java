@@ -22,18 +22,33 @@ package org.apache.fop.fonts.truetype;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 
 /**
- * Reads a TrueType font file into a byte array and provides file like functions
- * for array access.
+ * Provides file like functions for reading a TrueType font file. Font files
+ * read from a local file are memory-mapped, so they take no space on the heap
+ * however large they are, and the mapping is shared by all readers of the
+ * same file. Font files read from a stream are held in a byte array.
  */
 public class FontFileReader {
 
+    /** read-only mappings of the local font files, by file and version */
+    private static final Map<String, Reference<ByteBuffer>> MAPPED_FILES = new java.util.HashMap<String, Reference<ByteBuffer>>();
+
     private int fsize; // file size
     private int current; // current position in file
-    private byte[] file;
+    /** the font file, big-endian; read-only if it is shared */
+    private ByteBuffer file;
+    /** identifies the content of a shared, memory-mapped font file */
+    private String fileKey;
 
     /**
      * Initializes class and reads stream. Init does not close stream.
@@ -44,8 +59,12 @@ public class FontFileReader {
      *             In case of an I/O problem
      */
     private void init(final InputStream in) throws java.io.IOException {
-        this.file = IOUtils.toByteArray(in);
-        this.fsize = this.file.length;
+        init(ByteBuffer.wrap(IOUtils.toByteArray(in)));
+    }
+
+    private void init(final ByteBuffer buffer) {
+        this.file = buffer;
+        this.fsize = buffer.limit();
         this.current = 0;
     }
 
@@ -58,13 +77,21 @@ public class FontFileReader {
      *             In case of an I/O problem
      */
     public FontFileReader(final String fileName) throws IOException {
-        final File f = new File(fileName);
-        final InputStream in = new java.io.FileInputStream(f);
-        try {
-            init(in);
-        } finally {
-            in.close();
-        }
+        this(new File(fileName));
+    }
+
+    /**
+     * Constructor. The file is memory-mapped, and the mapping is shared with
+     * the other readers of the same file.
+     *
+     * @param file
+     *            the font file to read
+     * @throws IOException
+     *             In case of an I/O problem
+     */
+    public FontFileReader(final File file) throws IOException {
+        this.fileKey = getFileKey(file);
+        init(map(this.fileKey, file));
     }
 
     /**
@@ -79,6 +106,82 @@ public class FontFileReader {
         init(in);
     }
 
+    private FontFileReader(final ByteBuffer buffer, final String fileKey) {
+        this.fileKey = fileKey;
+        init(buffer);
+    }
+
+    /**
+     * Returns a new reader of the same font data, positioned at the start of
+     * the file. The data is shared, not copied, but the new reader has its own
+     * position, so both readers can be used independently.
+     *
+     * @return the new reader
+     */
+    public FontFileReader duplicate() {
+        return new FontFileReader(this.file.asReadOnlyBuffer(), this.fileKey);
+    }
+
+    /**
+     * Indicates whether the font data is memory-mapped rather than held on the
+     * heap, so keeping a reader of it costs no heap beyond the reader itself.
+     *
+     * @return true if the font was read from a local file
+     */
+    public boolean isMapped() {
+        return this.file.isDirect();
+    }
+
+    /**
+     * Returns a read-only mapping of the given file, shared with the other
+     * readers of the file as long as it has not been modified. The mappings
+     * are only softly referenced, so unused mappings are released by the
+     * garbage collector.
+     */
+    private static ByteBuffer map(final String key, final File file)
+            throws IOException {
+        synchronized (MAPPED_FILES) {
+            final Reference<ByteBuffer> ref = MAPPED_FILES.get(key);
+            ByteBuffer buffer = ref != null ? ref.get() : null;
+            if (buffer == null) {
+                final RandomAccessFile raf = new RandomAccessFile(file, "r");
+                try {
+                    // the mapping stays valid after the channel is closed
+                    buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                            0, raf.length());
+                } finally {
+                    raf.close();
+                }
+                final Iterator<Reference<ByteBuffer>> iter = MAPPED_FILES
+                        .values().iterator();
+                while (iter.hasNext()) {
+                    if (iter.next().get() == null) {
+                        iter.remove();
+                    }
+                }
+                MAPPED_FILES.put(key, new SoftReference<ByteBuffer>(buffer));
+            }
+            // all reads are absolute, so the readers can share the buffer
+            return buffer;
+        }
+    }
+
+    private static String getFileKey(final File file) throws IOException {
+        return file.getCanonicalPath() + '|' + file.length() + '|'
+                + file.lastModified();
+    }
+
+    /**
+     * Returns a key identifying the content of the font file, for caching data
+     * derived from it.
+     *
+     * @return the key, or null if the font file was read from a stream or has
+     *         been modified
+     */
+    String getFileKey() {
+        return this.fileKey;
+    }
+
     /**
      * Set current file position to offset
      *
@@ -126,20 +229,47 @@ public class FontFileReader {
     }
 
     /**
-     * Read 1 byte.
+     * Checks that the given number of bytes can be read at the current
+     * position.
      *
-     * @return One byte
+     * @param length
+     *            the number of bytes to read
      * @throws IOException
      *             If EOF is reached
      */
-    private byte read() throws IOException {
-        if (this.current >= this.fsize) {
+    private void checkAvailable(final int length) throws IOException {
+        if (this.current + length > this.fsize) {
             throw new java.io.EOFException("Reached EOF, file size="
                     + this.fsize);
         }
+    }
 
-        final byte ret = this.file[this.current++];
-        return ret;
+    /**
+     * Read 1 byte.
+     *
+     * @return One byte
+     * @throws IOException
+     *             If EOF is reached
+     */
+    private byte read() throws IOException {
+        checkAvailable(1);
+        return this.file.get(this.current++);
+    }
+
+    /**
+     * Copies bytes of the file into an array, without changing the current
+     * position.
+     */
+    private void copy(final int offset, final byte[] dest,
+            final int destOffset, final int length) {
+        if (this.file.hasArray()) {
+            System.arraycopy(this.file.array(), this.file.arrayOffset()
+                    + offset, dest, destOffset, length);
+        } else {
+            final ByteBuffer source = this.file.duplicate();
+            source.position(offset);
+            source.get(dest, destOffset, length);
+        }
     }
 
     /**
@@ -161,13 +291,7 @@ public class FontFileReader {
      *             If EOF is reached
      */
     public final int readTTFUByte() throws IOException {
-        final byte buf = read();
-
-        if (buf < 0) {
-            return 256 + buf;
-        } else {
-            return buf;
-        }
+        return read() & 0xff;
     }
 
     /**
@@ -178,9 +302,10 @@ public class FontFileReader {
      *             If EOF is reached
      */
     public final short readTTFShort() throws IOException {
-        final int ret = (readTTFUByte() << 8) + readTTFUByte();
-        final short sret = (short) ret;
-        return sret;
+        checkAvailable(2);
+        final short ret = this.file.getShort(this.current);
+        this.current += 2;
+        return ret;
     }
 
     /**
@@ -191,12 +316,30 @@ public class FontFileReader {
      *             If EOF is reached
      */
     public final int readTTFUShort() throws IOException {
-        final int ret = (readTTFUByte() << 8) + readTTFUByte();
-        return ret;
+        return readTTFShort() & 0xffff;
+    }
+
+    /**
+     * Read consecutive unsigned shorts into an array, filling it.
+     *
+     * @param values
+     *            the array to fill
+     * @throws IOException
+     *             If EOF is reached
+     */
+    public final void readTTFUShorts(final int[] values) throws IOException {
+        checkAvailable(values.length * 2);
+        int pos = this.current;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.file.getShort(pos) & 0xffff;
+            pos += 2;
+        }
+        this.current = pos;
     }
 
     /**
-     * Write a USHort at a given position.
+     * Write a USHort at a given position. A shared, memory-mapped font file is
+     * copied to the heap before it is modified.
      *
      * @param pos
      *            The absolute position to write to
@@ -210,11 +353,11 @@ public class FontFileReader {
         if (pos + 2 > this.fsize) {
             throw new java.io.EOFException("Reached EOF");
         }
-        final byte b1 = (byte) (val >> 8 & 0xff);
-        final byte b2 = (byte) (val & 0xff);
-        final int fileIndex = (int) pos;
-        this.file[fileIndex] = b1;
-        this.file[fileIndex + 1] = b2;
+        if (this.file.isReadOnly()) {
+            this.file = ByteBuffer.wrap(getAllBytes());
+            this.fileKey = null;
+        }
+        this.file.putShort((int) pos, (short) val);
     }
 
     /**
@@ -259,12 +402,10 @@ public class FontFileReader {
      *             If EOF is reached
      */
     public final int readTTFLong() throws IOException {
-        long ret = readTTFUByte(); // << 8;
-        ret = (ret << 8) + readTTFUByte();
-        ret = (ret << 8) + readTTFUByte();
-        ret = (ret << 8) + readTTFUByte();
-
-        return (int) ret;
+        checkAvailable(4);
+        final int ret = this.file.getInt(this.current);
+        this.current += 4;
+        return ret;
     }
 
     /**
@@ -275,12 +416,7 @@ public class FontFileReader {
      *             If EOF is reached
      */
     public final long readTTFULong() throws IOException {
-        long ret = readTTFUByte();
-        ret = (ret << 8) + readTTFUByte();
-        ret = (ret << 8) + readTTFUByte();
-        ret = (ret << 8) + readTTFUByte();
-
-        return ret;
+        return readTTFLong() & 0xffffffffL;
     }
 
     /**
@@ -292,7 +428,7 @@ public class FontFileReader {
      */
     public final String readTTFString() throws IOException {
         int i = this.current;
-        while (this.file[i++] != 0) {
+        while (this.file.get(i++) != 0) {
             if (i >= this.fsize) {
                 throw new java.io.EOFException("Reached EOF, file size="
                         + this.fsize);
@@ -300,7 +436,7 @@ public class FontFileReader {
         }
 
         final byte[] tmp = new byte[i - this.current - 1];
-        System.arraycopy(this.file, this.current, tmp, 0, i - this.current - 1);
+        copy(this.current, tmp, 0, tmp.length);
         return new String(tmp, "ISO-8859-1");
     }
 
@@ -314,13 +450,10 @@ public class FontFileReader {
      *             If EOF is reached
      */
     public final String readTTFString(final int len) throws IOException {
-        if (len + this.current > this.fsize) {
-            throw new java.io.EOFException("Reached EOF, file size="
-                    + this.fsize);
-        }
+        checkAvailable(len);
 
         final byte[] tmp = new byte[len];
-        System.arraycopy(this.file, this.current, tmp, 0, len);
+        copy(this.current, tmp, 0, len);
         this.current += len;
         final String encoding;
         if (tmp.length > 0 && tmp[0] == 0) {
@@ -345,13 +478,10 @@ public class FontFileReader {
      */
     public final String readTTFString(final int len, final int encodingID)
             throws IOException {
-        if (len + this.current > this.fsize) {
-            throw new java.io.EOFException("Reached EOF, file size="
-                    + this.fsize);
-        }
+        checkAvailable(len);
 
         final byte[] tmp = new byte[len];
-        System.arraycopy(this.file, this.current, tmp, 0, len);
+        copy(this.current, tmp, 0, len);
         this.current += len;
         final String encoding;
         encoding = "UTF-16BE"; // Use this for all known encoding IDs for now
@@ -376,16 +506,46 @@ public class FontFileReader {
         }
 
         final byte[] ret = new byte[length];
-        System.arraycopy(this.file, offset, ret, 0, length);
+        copy(offset, ret, 0, length);
         return ret;
     }
 
     /**
-     * Returns the full byte array representation of the file.
+     * Copies bytes of the file into the given array, without an intermediate
+     * copy.
+     *
+     * @param offset
+     *            The absolute offset to start reading from
+     * @param dest
+     *            the array to copy to
+     * @param destOffset
+     *            the offset in the array to copy to
+     * @param length
+     *            The number of bytes to read
+     * @throws IOException
+     *             if out of bounds
+     */
+    public void getBytes(final int offset, final byte[] dest,
+            final int destOffset, final int length) throws IOException {
+        if (offset + length > this.fsize) {
+            throw new java.io.IOException("Reached EOF");
+        }
+        copy(offset, dest, destOffset, length);
+    }
+
+    /**
+     * Returns the full byte array representation of the file. A memory-mapped
+     * font file is copied to the heap for this.
      *
      * @return byte array.
      */
     public byte[] getAllBytes() {
-        return this.file;
+        if (this.file.hasArray() && this.file.arrayOffset() == 0
+                && this.file.array().length == this.fsize) {
+            return this.file.array();
+        }
+        final byte[] bytes = new byte[this.fsize];
+        copy(0, bytes, 0, this.fsize);
+        return bytes;
     }
 }
@@ -20,42 +20,39 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
  * This "glyf" table in a TrueType font file contains information that describes
- * the glyphs. This class is responsible for creating a subset of the "glyf"
- * table given a set of glyph indices.
+ * the glyphs. This class locates the glyphs in the table and knows the glyphs
+ * composite glyphs are composed of, as needed for creating a subset of the
+ * "glyf" table given a set of glyph indices. It never modifies the font file,
+ * so an instance can be shared by all the subsets created from the same font
+ * file.
  */
 public class GlyfTable {
 
-    private final TTFMtxEntry[] mtxTab;
+    /** The components of a glyph that is not a composite glyph */
+    private static final int[] NO_COMPONENTS = new int[0];
 
     private final long tableOffset;
 
-    private final Set<Long> remappedComposites;
+    /** The offsets of the glyphs in the table, and of the end of the last one */
+    private final int[] locations;
 
-    private final Map<Integer, Integer> subset;
-
-    private final FontFileReader in;
-
-    /** All the composite glyphs that appear in the subset. */
-    private final Set<Integer> compositeGlyphs = new TreeSet<Integer>();
-
-    /** All the glyphs that are composed, but do not appear in the subset. */
-    private final Set<Integer> composedGlyphs = new TreeSet<Integer>();
+    /**
+     * The components of each glyph, read on first use: pairs of the index of
+     * the component glyph and of the position of that index in the glyph data
+     */
+    private final int[][] components;
 
-    GlyfTable(final FontFileReader in, final TTFMtxEntry[] metrics,
-            final TTFDirTabEntry dirTableEntry,
-            final Map<Integer, Integer> glyphs) {
-        this.mtxTab = metrics;
+    GlyfTable(final TTFDirTabEntry dirTableEntry, final int[] locations) {
         this.tableOffset = dirTableEntry.getOffset();
-        this.remappedComposites = new HashSet<Long>();
-        this.subset = glyphs;
-        this.in = in;
+        this.locations = locations;
+        this.components = new int[locations.length - 1][];
     }
 
     private static enum GlyfFlags {
@@ -64,6 +61,8 @@ public class GlyfTable {
                 2), RESERVED, MORE_COMPONENTS, WE_HAVE_AN_X_AND_Y_SCALE(4), WE_HAVE_A_TWO_BY_TWO(
                         8), WE_HAVE_INSTRUCTIONS, USE_MY_METRICS, OVERLAP_COMPOUND, SCALED_COMPONENT_OFFSET, UNSCALED_COMPONENT_OFFSET;
 
+        private static final GlyfFlags[] FLAGS = values();
+
         private final int bitMask;
         private final int argsCountIfSet;
         private final int argsCountIfNotSet;
@@ -91,7 +90,7 @@ public class GlyfTable {
          */
         static int getOffsetToNextComposedGlyf(final int flags) {
             int offset = 0;
-            for (final GlyfFlags flag : GlyfFlags.values()) {
+            for (final GlyfFlags flag : FLAGS) {
                 offset += (flags & flag.bitMask) > 0 ? flag.argsCountIfSet
                         : flag.argsCountIfNotSet;
             }
@@ -111,133 +110,133 @@ public class GlyfTable {
     }
 
     /**
-     * Populates the map of subset glyphs with all the glyphs that compose the
-     * glyphs in the subset. This also re-maps the indices of composed glyphs to
-     * their new index in the subset font.
+     * Returns the number of glyphs in the table.
      *
-     * @throws IOException
-     *             an I/O error
+     * @return the number of glyphs
      */
-    void populateGlyphsWithComposites() throws IOException {
-        for (final int indexInOriginal : this.subset.keySet()) {
-            scanGlyphsRecursively(indexInOriginal);
-        }
-
-        addAllComposedGlyphsToSubset();
-
-        for (final int compositeGlyph : this.compositeGlyphs) {
-            final long offset = this.tableOffset
-                    + this.mtxTab[compositeGlyph].getOffset() + 10;
-            if (!this.remappedComposites.contains(offset)) {
-                remapComposite(offset);
-            }
-        }
+    int getNumGlyphs() {
+        return this.components.length;
     }
 
     /**
-     * Scans each glyph for any composed glyphs. This populates
-     * <code>compositeGlyphs</code> with all the composite glyphs being used in
-     * the subset. This also populates <code>newGlyphs</code> with any new
-     * glyphs that are composed and do not appear in the subset of glyphs.
-     *
-     * For example the double quote mark (") is often composed of two
-     * apostrophes ('), if an apostrophe doesn't appear in the glyphs in the
-     * subset, it will be included and will be added to newGlyphs.
+     * Returns the position of a glyph's data in the font file.
      *
-     * @param indexInOriginal
-     *            the index of the glyph to test from the original font
-     * @throws IOException
-     *             an I/O error
+     * @param glyph
+     *            the glyph index
+     * @return the offset of the glyph data from the start of the font file
      */
-    private void scanGlyphsRecursively(final int indexInOriginal)
-            throws IOException {
-        if (!this.subset.containsKey(indexInOriginal)) {
-            this.composedGlyphs.add(indexInOriginal);
-        }
-
-        if (isComposite(indexInOriginal)) {
-            this.compositeGlyphs.add(indexInOriginal);
-            final Set<Integer> composedGlyphs = retrieveComposedGlyphs(indexInOriginal);
-            for (final Integer composedGlyph : composedGlyphs) {
-                scanGlyphsRecursively(composedGlyph);
-            }
-        }
+    int getGlyphOffset(final int glyph) {
+        return (int) this.tableOffset + this.locations[glyph];
     }
 
     /**
-     * Adds to the subset, all the glyphs that are composed by a glyph, but do
-     * not appear themselves in the subset.
+     * Returns the length of a glyph's data.
+     *
+     * @param glyph
+     *            the glyph index
+     * @return the number of bytes of the glyph data, 0 for an empty glyph
      */
-    private void addAllComposedGlyphsToSubset() {
-        int newIndex = this.subset.size();
-        for (final int composedGlyph : this.composedGlyphs) {
-            this.subset.put(composedGlyph, newIndex++);
+    int getGlyphLength(final int glyph) {
+        if (glyph >= getNumGlyphs()) {
+            return 0;
         }
+        return this.locations[glyph + 1] - this.locations[glyph];
     }
 
     /**
-     * Re-maps the index of composed glyphs in the original font to the index of
-     * the same glyph in the subset font.
+     * Populates the map of subset glyphs with all the glyphs that compose the
+     * glyphs in the subset. The composed glyphs that do not appear in the
+     * subset are added after the others, in the order of their index in the
+     * original font.
+     * <p>
+     * For example the double quote mark (") is often composed of two
+     * apostrophes ('), if an apostrophe doesn't appear in the glyphs in the
+     * subset, it will be added.
      *
-     * @param glyphOffset
-     *            the offset of the composite glyph
+     * @param in
+     *            the font file
+     * @param subset
+     *            maps the indices of the glyphs in the original font to their
+     *            index in the subset
      * @throws IOException
      *             an I/O error
      */
-    private void remapComposite(final long glyphOffset) throws IOException {
-        long currentGlyphOffset = glyphOffset;
-
-        this.remappedComposites.add(currentGlyphOffset);
-
-        int flags = 0;
-        do {
-            flags = this.in.readTTFUShort(currentGlyphOffset);
-            final int glyphIndex = this.in
-                    .readTTFUShort(currentGlyphOffset + 2);
-            final Integer indexInSubset = this.subset.get(glyphIndex);
-            assert indexInSubset != null;
-            /*
-             * TODO: this should not be done here!! We're writing to the stream
-             * we're reading from, this is asking for trouble! What should
-             * happen is when the glyph data is copied from subset, the
-             * remapping should be done there. So the original stream is left
-             * untouched.
-             */
-            this.in.writeTTFUShort(currentGlyphOffset + 2, indexInSubset);
-
-            currentGlyphOffset += 4 + GlyfFlags
-                    .getOffsetToNextComposedGlyf(flags);
-        } while (GlyfFlags.hasMoreComposites(flags));
+    void populateGlyphsWithComposites(final FontFileReader in,
+            final Map<Integer, Integer> subset) throws IOException {
+        final Set<Integer> composedGlyphs = new TreeSet<Integer>();
+        for (final int indexInOriginal : subset.keySet()) {
+            scanGlyphsRecursively(in, subset, indexInOriginal, composedGlyphs);
+        }
+        int newIndex = subset.size();
+        for (final int composedGlyph : composedGlyphs) {
+            subset.put(composedGlyph, newIndex++);
+        }
     }
 
-    private boolean isComposite(final int indexInOriginal) throws IOException {
-        final int numberOfContours = this.in.readTTFShort(this.tableOffset
-                + this.mtxTab[indexInOriginal].getOffset());
-        return numberOfContours < 0;
+    private void scanGlyphsRecursively(final FontFileReader in,
+            final Map<Integer, Integer> subset, final int indexInOriginal,
+            final Set<Integer> composedGlyphs) throws IOException {
+        final int[] glyphComponents = getComponents(in, indexInOriginal);
+        for (int i = 0; i < glyphComponents.length; i += 2) {
+            final int composedGlyph = glyphComponents[i];
+            if (!subset.containsKey(composedGlyph)
+                    && composedGlyphs.add(composedGlyph)) {
+                scanGlyphsRecursively(in, subset, composedGlyph,
+                        composedGlyphs);
+            }
+        }
     }
 
     /**
-     * Reads a composite glyph at a given index and retrieves all the glyph
-     * indices of contingent composed glyphs.
+     * Returns the components of a glyph. For a composite glyph, these are
+     * pairs of the index of a component glyph and of the position of that
+     * index relative to the start of the glyph data, which is where it is
+     * re-mapped to the index of the component in a subset.
      *
-     * @param indexInOriginal
-     *            the glyph index of the composite glyph
-     * @return the set of glyph indices this glyph composes
+     * @param in
+     *            the font file
+     * @param glyph
+     *            the glyph index
+     * @return the pairs of component glyph index and position; empty if the
+     *         glyph is not a composite glyph
      * @throws IOException
      *             an I/O error
      */
-    private Set<Integer> retrieveComposedGlyphs(final int indexInOriginal)
+    int[] getComponents(final FontFileReader in, final int glyph)
             throws IOException {
-        final Set<Integer> composedGlyphs = new HashSet<Integer>();
-        long offset = this.tableOffset
-                + this.mtxTab[indexInOriginal].getOffset() + 10;
+        if (getGlyphLength(glyph) == 0) {
+            return NO_COMPONENTS;
+        }
+        synchronized (this.components) {
+            int[] glyphComponents = this.components[glyph];
+            if (glyphComponents == null) {
+                glyphComponents = readComponents(in, glyph);
+                this.components[glyph] = glyphComponents;
+            }
+            return glyphComponents;
+        }
+    }
+
+    private int[] readComponents(final FontFileReader in, final int glyph)
+            throws IOException {
+        final long glyphOffset = getGlyphOffset(glyph);
+        final int numberOfContours = in.readTTFShort(glyphOffset);
+        if (numberOfContours >= 0) {
+            return NO_COMPONENTS;
+        }
+        int[] glyphComponents = new int[8];
+        int count = 0;
+        long offset = glyphOffset + 10;
         int flags = 0;
         do {
-            flags = this.in.readTTFUShort(offset);
-            composedGlyphs.add(this.in.readTTFUShort(offset + 2));
+            flags = in.readTTFUShort(offset);
+            if (count == glyphComponents.length) {
+                glyphComponents = Arrays.copyOf(glyphComponents, count * 2);
+            }
+            glyphComponents[count++] = in.readTTFUShort(offset + 2);
+            glyphComponents[count++] = (int) (offset + 2 - glyphOffset);
             offset += 4 + GlyfFlags.getOffsetToNextComposedGlyf(flags);
         } while (GlyfFlags.hasMoreComposites(flags));
-
-        return composedGlyphs;
+        return Arrays.copyOf(glyphComponents, count);
     }
 }
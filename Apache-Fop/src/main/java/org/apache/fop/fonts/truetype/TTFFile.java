@@ -363,19 +363,41 @@ public class TTFFile {
      * @return pdf unit
      */
     public int convertTTFUnit2PDFUnit(final int n) {
+        return convertTTFUnit2PDFUnit(n, this.upem);
+    }
+
+    /**
+     * Convert from truetype unit to pdf unit based on the given unitsPerEm
+     *
+     * @param n
+     *            truetype unit
+     * @param upem
+     *            the unitsPerEm field of the "head" table
+     * @return pdf unit
+     */
+    public static int convertTTFUnit2PDFUnit(final int n, final int upem) {
         int ret;
         if (n < 0) {
-            final long rest1 = n % this.upem;
+            final long rest1 = n % upem;
             final long storrest = 1000 * rest1;
             final long ledd2 = storrest != 0 ? rest1 / storrest : 0;
-            ret = -(-1000 * n / this.upem - (int) ledd2);
+            ret = -(-1000 * n / upem - (int) ledd2);
         } else {
-            ret = n / this.upem * 1000 + n % this.upem * 1000 / this.upem;
+            ret = n / upem * 1000 + n % upem * 1000 / upem;
         }
 
         return ret;
     }
 
+    /**
+     * Returns the unitsPerEm field of the "head" table.
+     *
+     * @return the number of font units per em
+     */
+    public int getUnitsPerEm() {
+        return this.upem;
+    }
+
     /**
      * Read the cmap table, return false if the table is not present or only
      * unsupported tables are present. Currently only unicode cmaps are
@@ -739,9 +761,11 @@ public class TTFFile {
         // Read advanced typographic tables.
         if (this.useAdvanced) {
             try {
+                // the lookups of mapped fonts are read on demand; fonts read
+                // from a stream are read at once, so their data can be freed
                 final OTFAdvancedTypographicTableReader atr = new OTFAdvancedTypographicTableReader(
                         this, in);
-                atr.readAll();
+                atr.readAll(in.isMapped());
                 this.advancedTableReader = atr;
             } catch (final AdvancedTypographicTableFormatException e) {
                 log.warn("Encountered format constraint violation in advanced (typographic) table (AT) "
@@ -1396,6 +1420,78 @@ public class TTFFile {
                 : this.fontFile.readTTFUShort() << 1;
     }
 
+    /**
+     * Returns the number of entries of the horizontal metrics: the larger of
+     * the number of glyphs and the number of horizontal metrics.
+     *
+     * @return the number of horizontal metrics entries
+     */
+    protected final int getMetricsCount() {
+        return Math.max(this.numberOfGlyphs, this.nhmtx);
+    }
+
+    /**
+     * Read the "hmtx" table into arrays, like
+     * {@link #readHorizontalMetrics()} but without creating an entry per glyph.
+     *
+     * @param advanceWidths
+     *            receives the advance widths, {@link #getMetricsCount()}
+     *            entries
+     * @param leftSideBearings
+     *            receives the left side bearings (unsigned),
+     *            {@link #getMetricsCount()} entries
+     * @throws IOException
+     *             in case of an I/O problem
+     */
+    protected final void readHorizontalMetrics(final int[] advanceWidths,
+            final int[] leftSideBearings) throws IOException {
+        seekTab(this.fontFile, TTFTableName.HMTX, 0);
+        final int[] longHorMetrics = new int[this.nhmtx * 2];
+        this.fontFile.readTTFUShorts(longHorMetrics);
+        for (int i = 0; i < this.nhmtx; i++) {
+            advanceWidths[i] = longHorMetrics[i * 2];
+            leftSideBearings[i] = longHorMetrics[i * 2 + 1];
+        }
+        final int mtxSize = getMetricsCount();
+        if (this.nhmtx < mtxSize) {
+            // Fill in the missing widths
+            final int lastWidth = advanceWidths[this.nhmtx - 1];
+            for (int i = this.nhmtx; i < mtxSize; i++) {
+                advanceWidths[i] = lastWidth;
+                leftSideBearings[i] = this.fontFile.readTTFUShort();
+            }
+        }
+    }
+
+    /**
+     * Read the "loca" table into an array, like {@link #readIndexToLocation()}
+     * but without creating an entry per glyph.
+     *
+     * @return the offsets of the glyphs in the "glyf" table, followed by the
+     *         offset of the end of the last glyph
+     * @throws IOException
+     *             In case of a I/O problem
+     */
+    protected final int[] readGlyphLocations() throws IOException {
+        if (!seekTab(this.fontFile, TTFTableName.LOCA, 0)) {
+            throw new IOException(
+                    "'loca' table not found, happens when the font file doesn't"
+                            + " contain TrueType outlines (trying to read an OpenType CFF font maybe?)");
+        }
+        final int[] locations = new int[this.numberOfGlyphs + 1];
+        if (this.locaFormat == 1) {
+            for (int i = 0; i < locations.length; i++) {
+                locations[i] = this.fontFile.readTTFLong();
+            }
+        } else {
+            this.fontFile.readTTFUShorts(locations);
+            for (int i = 0; i < locations.length; i++) {
+                locations[i] <<= 1;
+            }
+        }
+        return locations;
+    }
+
     /**
      * Read the "glyf" table to find the bounding boxes.
      *
@@ -20,11 +20,9 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.fop.fonts.CIDFontType;
 import org.apache.fop.fonts.CMapSegment;
 import org.apache.fop.fonts.EmbeddingMode;
@@ -118,20 +116,16 @@ public class TTFFontLoader extends FontLoader {
      *             if an I/O error occurs
      */
     private void read(final String ttcFontName) throws IOException {
-        final InputStream in = openFontUri(this.resolver, this.fontFileURI);
-        try {
-            final TTFFile ttf = new TTFFile(this.useKerning, this.useAdvanced);
-            final FontFileReader reader = new FontFileReader(in);
-            final boolean supported = ttf.readFont(reader, ttcFontName);
-            if (!supported) {
-                throw new IOException("TrueType font is not supported: "
-                        + this.fontFileURI);
-            }
-            buildFont(ttf, ttcFontName);
-            this.loaded = true;
-        } finally {
-            IOUtils.closeQuietly(in);
+        final FontFileReader reader = openFontFile(this.resolver,
+                this.fontFileURI);
+        final TTFFile ttf = new TTFFile(this.useKerning, this.useAdvanced);
+        final boolean supported = ttf.readFont(reader, ttcFontName);
+        if (!supported) {
+            throw new IOException("TrueType font is not supported: "
+                    + this.fontFileURI);
         }
+        buildFont(ttf, ttcFontName);
+        this.loaded = true;
     }
 
     private void buildFont(final TTFFile ttf, final String ttcFontName) {
@@ -20,7 +20,11 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.SortedSet;
 
@@ -32,10 +36,35 @@ import lombok.extern.slf4j.Slf4j;
  * "hhea", "loca", "maxp", "cvt ", "prep", "glyf", "hmtx" and "fpgm". The
  * TrueType spec can be found at the Microsoft Typography site:
  * http://www.microsoft.com/truetype/
+ * <p>
+ * The glyph locations, metrics and composite glyphs of a memory-mapped font
+ * file (see {@link FontFileReader#FontFileReader(java.io.File)}) are read once
+ * and shared by all the subsets of the font. The most recently created subsets
+ * are kept, so a subset with the same glyphs as one created before (for
+ * instance by another document) is not created again.
  */
 @Slf4j
 public class TTFSubSetFile extends TTFFile {
 
+    /** Maximum number of subsets kept for reuse */
+    private static final int MAX_CACHED_SUBSETS = 32;
+
+    /** The glyph data of the fonts subsetted, by font */
+    private static final Map<String, Reference<GlyphData>> GLYPH_DATA = new HashMap<String, Reference<GlyphData>>();
+
+    /** The subsets created most recently, by font and glyphs */
+    private static final Map<SubsetKey, Reference<Subset>> SUBSETS = new LinkedHashMap<SubsetKey, Reference<Subset>>(
+            16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+                final Map.Entry<SubsetKey, Reference<Subset>> eldest) {
+            return size() > MAX_CACHED_SUBSETS;
+        }
+    };
+
     private byte[] output = null;
     private int realSize = 0;
     private int currentPos = 0;
@@ -339,18 +368,18 @@ public class TTFSubSetFile extends TTFFile {
     }
 
     /**
-     * Create the glyf table and fill in loca table
+     * Create the glyf table and fill in loca table. The glyph data is copied
+     * from the original font, with the components of composite glyphs
+     * re-mapped to their index in the subset.
      */
     private void createGlyf(final FontFileReader in,
-            final Map<Integer, Integer> glyphs) throws IOException {
+            final GlyfTable glyfTable, final Map<Integer, Integer> glyphs)
+            throws IOException {
         final TTFTableName glyf = TTFTableName.GLYF;
         final TTFDirTabEntry entry = this.dirTabs.get(glyf);
-        int size = 0;
-        int startPos = 0;
-        int endOffset = 0; // Store this as the last loca
         if (entry != null) {
             pad4();
-            startPos = this.currentPos;
+            final int startPos = this.currentPos;
 
             /*
              * Loca table must be in order by glyph index, so build an array
@@ -360,48 +389,38 @@ public class TTFSubSetFile extends TTFFile {
             this.glyphOffsets = new int[origIndexes.length];
 
             for (int i = 0; i < origIndexes.length; i++) {
-                int nextOffset = 0;
                 final int origGlyphIndex = origIndexes[i];
-                if (origGlyphIndex >= this.mtxTab.length - 1) {
-                    nextOffset = (int) this.lastLoca;
-                } else {
-                    nextOffset = (int) this.mtxTab[origGlyphIndex + 1]
-                            .getOffset();
-                }
-                final int glyphOffset = (int) this.mtxTab[origGlyphIndex]
-                        .getOffset();
-                final int glyphLength = nextOffset - glyphOffset;
+                final int glyphLength = glyfTable
+                        .getGlyphLength(origGlyphIndex);
 
-                final byte[] glyphData = in.getBytes((int) entry.getOffset()
-                        + glyphOffset, glyphLength);
-                int endOffset1 = endOffset;
                 // Copy glyph
-                System.arraycopy(glyphData, 0, this.output, this.currentPos,
-                        glyphLength);
+                in.getBytes(glyfTable.getGlyphOffset(origGlyphIndex),
+                        this.output, this.currentPos, glyphLength);
+                final int[] components = glyfTable.getComponents(in,
+                        origGlyphIndex);
+                for (int c = 0; c < components.length; c += 2) {
+                    writeUShort(this.currentPos + components[c + 1],
+                            glyphs.get(components[c]));
+                }
 
                 // Update loca table
                 writeULong(this.locaOffset + i * 4, this.currentPos - startPos);
-                if (this.currentPos - startPos + glyphLength > endOffset1) {
-                    endOffset1 = this.currentPos - startPos + glyphLength;
-                }
 
                 // Store the glyph boundary positions relative to the start of
                 // the font
                 this.glyphOffsets[i] = this.currentPos;
                 this.currentPos += glyphLength;
                 this.realSize += glyphLength;
-
-                endOffset = endOffset1;
             }
 
-            size = this.currentPos - startPos;
+            final int size = this.currentPos - startPos;
 
             this.currentPos += 12;
             this.realSize += 12;
             updateCheckSum(startPos, size + 12, glyf);
 
             // Update loca checksum and last loca index
-            writeULong(this.locaOffset + glyphs.size() * 4, endOffset);
+            writeULong(this.locaOffset + glyphs.size() * 4, size);
             final int locaSize = glyphs.size() * 4 + 4;
             final int checksum = getCheckSum(this.output, this.locaOffset,
                     locaSize);
@@ -430,7 +449,7 @@ public class TTFSubSetFile extends TTFFile {
      * font. The glyphs Map contains an Integer key and Integer value that maps
      * the original metric (key) to the subset metric (value)
      */
-    private void createHmtx(final FontFileReader in,
+    private void createHmtx(final GlyphData glyphData,
             final Map<Integer, Integer> glyphs) throws IOException {
         final TTFTableName hmtx = TTFTableName.HMTX;
         final TTFDirTabEntry entry = this.dirTabs.get(hmtx);
@@ -443,13 +462,13 @@ public class TTFSubSetFile extends TTFFile {
             pad4();
             // int offset = (int)entry.offset;
             for (final Map.Entry<Integer, Integer> glyph : glyphs.entrySet()) {
-                final Integer origIndex = glyph.getKey();
-                final Integer subsetIndex = glyph.getValue();
+                final int origIndex = glyph.getKey();
+                final int subsetIndex = glyph.getValue();
 
-                writeUShort(this.currentPos + subsetIndex.intValue() * 4,
-                        this.mtxTab[origIndex.intValue()].getWx());
-                writeUShort(this.currentPos + subsetIndex.intValue() * 4 + 2,
-                        this.mtxTab[origIndex.intValue()].getLsb());
+                writeUShort(this.currentPos + subsetIndex * 4,
+                        glyphData.advanceWidths[origIndex]);
+                writeUShort(this.currentPos + subsetIndex * 4 + 2,
+                        glyphData.leftSideBearings[origIndex]);
             }
 
             updateCheckSum(this.currentPos, hmtxSize, hmtx);
@@ -483,20 +502,27 @@ public class TTFSubSetFile extends TTFFile {
             throw new IOException("Failed to read font");
         }
 
-        // Copy the Map as we're going to modify it
-        final Map<Integer, Integer> subsetGlyphs = new HashMap<Integer, Integer>(
-                glyphs);
-
-        this.output = new byte[in.getFileSize()];
-
         readDirTabs();
         readFontHeader();
         getNumGlyphs();
         readHorizontalHeader();
-        readHorizontalMetrics();
-        readIndexToLocation();
 
-        scanGlyphs(in, subsetGlyphs);
+        final String fontKey = in.getFileKey() != null ? in.getFileKey() + '|'
+                + name : null;
+        final SubsetKey subsetKey = fontKey != null ? new SubsetKey(fontKey,
+                buildSubsetIndexToOrigIndexMap(glyphs)) : null;
+        if (subsetKey != null && reuseSubset(subsetKey)) {
+            return;
+        }
+        final GlyphData glyphData = getGlyphData(fontKey);
+
+        // Copy the Map as we're going to modify it
+        final Map<Integer, Integer> subsetGlyphs = new HashMap<Integer, Integer>(
+                glyphs);
+        glyphData.glyfTable.populateGlyphsWithComposites(in, subsetGlyphs);
+
+        this.output = new byte[getMaxSubsetSize(glyphData.glyfTable,
+                subsetGlyphs)];
 
         createDirectory(); // Create the TrueType header and directory
 
@@ -513,12 +539,13 @@ public class TTFSubSetFile extends TTFFile {
             log.debug("TrueType: fpgm table not present. Skipped.");
         }
         createLoca(subsetGlyphs.size()); // create empty loca table
-        createGlyf(in, subsetGlyphs); // create glyf table and update loca table
+        createGlyf(in, glyphData.glyfTable, subsetGlyphs); // create glyf
+        // table and update loca table
 
         createOS2(in); // copy the OS/2 table
         createHead(in);
         createHhea(in, subsetGlyphs.size()); // Create the hhea table
-        createHmtx(in, subsetGlyphs); // Create hmtx table
+        createHmtx(glyphData, subsetGlyphs); // Create hmtx table
         createMaxp(in, subsetGlyphs.size()); // copy the maxp table
         createName(in); // copy the name table
         createPost(in); // copy the post table
@@ -531,6 +558,104 @@ public class TTFSubSetFile extends TTFFile {
 
         pad4();
         createCheckSumAdjustment();
+
+        if (subsetKey != null) {
+            synchronized (SUBSETS) {
+                SUBSETS.put(subsetKey, new SoftReference<Subset>(new Subset(
+                        getFontSubset(), this.glyphOffsets, this.newDirTabs)));
+            }
+        }
+    }
+
+    /**
+     * Takes over a subset created before.
+     *
+     * @return true if the subset was found
+     */
+    private boolean reuseSubset(final SubsetKey subsetKey) {
+        final Subset subset;
+        synchronized (SUBSETS) {
+            final Reference<Subset> ref = SUBSETS.get(subsetKey);
+            subset = ref != null ? ref.get() : null;
+        }
+        if (subset == null) {
+            return false;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("TrueType: reusing subset of " + subsetKey.glyphs.length
+                    + " glyphs");
+        }
+        this.output = subset.font;
+        this.realSize = subset.font.length;
+        this.glyphOffsets = subset.glyphOffsets;
+        this.newDirTabs.putAll(subset.dirTabs);
+        return true;
+    }
+
+    /**
+     * Returns the glyph data of the font being read, shared with the other
+     * subsets of the font file if it is memory-mapped.
+     *
+     * @param fontKey
+     *            identifies the font, null if it can't be shared
+     */
+    private GlyphData getGlyphData(final String fontKey) throws IOException {
+        if (fontKey == null) {
+            return readGlyphData();
+        }
+        synchronized (GLYPH_DATA) {
+            final Reference<GlyphData> ref = GLYPH_DATA.get(fontKey);
+            GlyphData glyphData = ref != null ? ref.get() : null;
+            if (glyphData == null) {
+                glyphData = readGlyphData();
+                GLYPH_DATA.put(fontKey, new SoftReference<GlyphData>(glyphData));
+            }
+            return glyphData;
+        }
+    }
+
+    private GlyphData readGlyphData() throws IOException {
+        final TTFDirTabEntry glyfTableInfo = this.dirTabs
+                .get(TTFTableName.GLYF);
+        if (glyfTableInfo == null) {
+            throw new IOException("Glyf table could not be found");
+        }
+        final int mtxSize = getMetricsCount();
+        final int[] advanceWidths = new int[mtxSize];
+        final int[] leftSideBearings = new int[mtxSize];
+        readHorizontalMetrics(advanceWidths, leftSideBearings);
+        return new GlyphData(new GlyfTable(glyfTableInfo, readGlyphLocations()),
+                advanceWidths, leftSideBearings);
+    }
+
+    /**
+     * Returns the maximum size of the subset: the tables copied from the
+     * original font, the new tables and the padding between them.
+     */
+    private int getMaxSubsetSize(final GlyfTable glyfTable,
+            final Map<Integer, Integer> glyphs) {
+        final int numTables = determineTableCount();
+        int size = 12 + numTables * 16;
+        final TTFTableName[] copiedTables = { TTFTableName.CVT,
+                TTFTableName.FPGM, TTFTableName.OS2, TTFTableName.HEAD,
+                TTFTableName.HHEA, TTFTableName.MAXP, TTFTableName.NAME,
+                TTFTableName.PREP };
+        for (final TTFTableName tableName : copiedTables) {
+            final TTFDirTabEntry entry = this.dirTabs.get(tableName);
+            if (entry != null) {
+                size += (int) entry.getLength();
+            }
+        }
+        size += 32; // post
+        size += glyphs.size() * 4 + 4; // loca
+        size += glyphs.size() * 4; // hmtx
+        for (final int glyph : glyphs.keySet()) {
+            size += glyfTable.getGlyphLength(glyph);
+        }
+        size += 12; // after glyf
+        // padding of each table, and the checksums read up to 6 bytes past the
+        // end of the tables
+        return size + (numTables + 1) * 4 + 8;
     }
 
     /**
@@ -582,19 +707,6 @@ public class TTFSubSetFile extends TTFFile {
         ttfOut.endFontStream();
     }
 
-    private void scanGlyphs(final FontFileReader in,
-            final Map<Integer, Integer> subsetGlyphs) throws IOException {
-        final TTFDirTabEntry glyfTableInfo = this.dirTabs
-                .get(TTFTableName.GLYF);
-        if (glyfTableInfo == null) {
-            throw new IOException("Glyf table could not be found");
-        }
-
-        final GlyfTable glyfTable = new GlyfTable(in, this.mtxTab,
-                glyfTableInfo, subsetGlyphs);
-        glyfTable.populateGlyphsWithComposites();
-    }
-
     /**
      * writes a ISO-8859-1 string at the currentPosition updates currentPosition
      * but not realSize
@@ -722,4 +834,68 @@ public class TTFSubSetFile extends TTFFile {
         final int checksum = (int) (0xb1b0afba - sum);
         writeULong(this.checkSumAdjustmentOffset, checksum);
     }
+
+    /** The glyph data of a font needed for subsetting */
+    private static final class GlyphData {
+
+        private final GlyfTable glyfTable;
+
+        private final int[] advanceWidths;
+
+        private final int[] leftSideBearings;
+
+        GlyphData(final GlyfTable glyfTable, final int[] advanceWidths,
+                final int[] leftSideBearings) {
+            this.glyfTable = glyfTable;
+            this.advanceWidths = advanceWidths;
+            this.leftSideBearings = leftSideBearings;
+        }
+    }
+
+    /** Identifies a subset by its font and its glyphs, in subset order */
+    private static final class SubsetKey {
+
+        private final String fontKey;
+
+        private final int[] glyphs;
+
+        SubsetKey(final String fontKey, final int[] glyphs) {
+            this.fontKey = fontKey;
+            this.glyphs = glyphs;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return this.fontKey.hashCode() * 31 + Arrays.hashCode(this.glyphs);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof SubsetKey)) {
+                return false;
+            }
+            final SubsetKey other = (SubsetKey) obj;
+            return this.fontKey.equals(other.fontKey)
+                    && Arrays.equals(this.glyphs, other.glyphs);
+        }
+    }
+
+    /** A subset created before */
+    private static final class Subset {
+
+        private final byte[] font;
+
+        private final int[] glyphOffsets;
+
+        private final Map<TTFTableName, TTFDirTabEntry> dirTabs;
+
+        Subset(final byte[] font, final int[] glyphOffsets,
+                final Map<TTFTableName, TTFDirTabEntry> dirTabs) {
+            this.font = font;
+            this.glyphOffsets = glyphOffsets;
+            this.dirTabs = new HashMap<TTFTableName, TTFDirTabEntry>(dirTabs);
+        }
+    }
 }
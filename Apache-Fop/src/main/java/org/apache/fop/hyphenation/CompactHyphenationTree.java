@@ -0,0 +1,613 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.InputSource;
+
+/**
+ * <p>
+ * A read-only hyphenation tree stored in a flat binary format, which is
+ * searched in place. Loaded from a file, the data is memory-mapped, so it is
+ * not copied onto the heap and the operating system shares it between the
+ * JVMs using the same file. Only the hyphenation exceptions, of which there
+ * are few, are read into a map.
+ * </p>
+ * <p>
+ * The format, in big-endian byte order, is made of:
+ * </p>
+ * <ul>
+ * <li>the magic number {@link #MAGIC} and the format {@link #VERSION};</li>
+ * <li>the pattern tree and the character class tree, each as its root, number
+ * of keys, number of nodes n, length m of the key tail space, the n low,
+ * high, equal and split characters of the nodes and the m characters of the
+ * key tail space;</li>
+ * <li>the length and the bytes of the packed interletter values;</li>
+ * <li>the number of exceptions and, for each, the word and the number of
+ * parts, each part being a string or a {@link Hyphen}.</li>
+ * </ul>
+ * <p>
+ * Files in this format are written by {@link #write} and, at build time, by
+ * {@link SerializeHyphPattern}.
+ * </p>
+ */
+@Slf4j
+public class CompactHyphenationTree extends HyphenationTree {
+
+    private static final long serialVersionUID = 1L;
+
+    /** file name extension of the binary format */
+    public static final String EXTENSION = ".hyb";
+
+    /** magic number at the start of the binary format: "FHYB" */
+    public static final int MAGIC = 0x46485942;
+
+    /** version of the binary format */
+    public static final int VERSION = 1;
+
+    private static final byte STRING_PART = 0;
+    private static final byte HYPHEN_PART = 1;
+
+    private final transient FlatTree patterns;
+
+    /** the packed interletter values */
+    private final transient ByteBuffer values;
+
+    /**
+     * Creates a tree searching the given data in place.
+     *
+     * @param data
+     *            the data in the binary format
+     * @throws IOException
+     *             if the data is not in the binary format
+     */
+    public CompactHyphenationTree(final ByteBuffer data) throws IOException {
+        final ByteBuffer buffer = data.duplicate();
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary hyphenation pattern file");
+            }
+            final int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException(
+                        "Unsupported binary hyphenation pattern version "
+                                + version);
+            }
+            this.patterns = new FlatTree(buffer);
+            this.classmap = new FlatTernaryTree(new FlatTree(buffer));
+            this.values = slice(buffer, buffer.getInt());
+            this.stoplist = readExceptions(buffer);
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Truncated binary hyphenation pattern file");
+        }
+        this.root = this.patterns.root;
+        this.length = this.patterns.length;
+        this.vspace = null;
+    }
+
+    /**
+     * Loads a tree from a file, which is memory-mapped.
+     *
+     * @param file
+     *            a file in the binary format
+     * @return the tree
+     * @throws IOException
+     *             if the file cannot be read or is not in the binary format
+     */
+    public static CompactHyphenationTree load(final File file)
+            throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // the mapping stays valid after the channel is closed
+            return new CompactHyphenationTree(raf.getChannel().map(
+                    FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Loads a tree from a stream, which is read into memory. Use
+     * {@link #load(File)} where possible.
+     *
+     * @param in
+     *            a stream of data in the binary format (not closed)
+     * @return the tree
+     * @throws IOException
+     *             if the stream cannot be read or is not in the binary format
+     */
+    public static CompactHyphenationTree load(final InputStream in)
+            throws IOException {
+        return new CompactHyphenationTree(ByteBuffer.wrap(IOUtils
+                .toByteArray(in)));
+    }
+
+    /**
+     * Writes a hyphenation tree in the binary format.
+     *
+     * @param tree
+     *            a tree loaded from patterns
+     * @param out
+     *            the stream to write to (flushed, not closed)
+     * @throws IOException
+     *             in case of an I/O problem
+     */
+    public static void write(final HyphenationTree tree, final OutputStream out)
+            throws IOException {
+        if (tree instanceof CompactHyphenationTree) {
+            throw new IllegalArgumentException(
+                    "The tree is already in the binary format");
+        }
+        final DataOutputStream data = new DataOutputStream(
+                new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        writeTree(data, tree);
+        writeTree(data, tree.classmap);
+        final int valuesLength = tree.vspace.length();
+        data.writeInt(valuesLength);
+        data.write(tree.vspace.getArray(), 0, valuesLength);
+        data.writeInt(tree.stoplist.size());
+        for (final Object o : tree.stoplist.entrySet()) {
+            final Map.Entry entry = (Map.Entry) o;
+            writeString(data, (String) entry.getKey());
+            final List parts = (List) entry.getValue();
+            data.writeInt(parts.size());
+            for (final Object part : parts) {
+                if (part instanceof Hyphen) {
+                    final Hyphen hyphen = (Hyphen) part;
+                    data.writeByte(HYPHEN_PART);
+                    writeString(data, hyphen.preBreak);
+                    writeString(data, hyphen.noBreak);
+                    writeString(data, hyphen.postBreak);
+                } else {
+                    data.writeByte(STRING_PART);
+                    writeString(data, (String) part);
+                }
+            }
+        }
+        data.flush();
+    }
+
+    private static void writeTree(final DataOutputStream data,
+            final TernaryTree tree) throws IOException {
+        final int nodeCount = tree.freenode;
+        final int kvLength = tree.kv.length();
+        data.writeInt(tree.root);
+        data.writeInt(tree.length);
+        data.writeInt(nodeCount);
+        data.writeInt(kvLength);
+        writeChars(data, tree.lo, nodeCount);
+        writeChars(data, tree.hi, nodeCount);
+        writeChars(data, tree.eq, nodeCount);
+        writeChars(data, tree.sc, nodeCount);
+        writeChars(data, tree.kv.getArray(), kvLength);
+    }
+
+    private static void writeChars(final DataOutputStream data,
+            final char[] chars, final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            data.writeChar(chars[i]);
+        }
+    }
+
+    private static void writeString(final DataOutputStream data,
+            final String s) throws IOException {
+        if (s == null) {
+            data.writeInt(-1);
+        } else {
+            data.writeInt(s.length());
+            data.writeChars(s);
+        }
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int len = buffer.getInt();
+        if (len == -1) {
+            return null;
+        }
+        checkRemaining(buffer, len, 2);
+        final char[] chars = new char[len];
+        buffer.asCharBuffer().get(chars);
+        buffer.position(buffer.position() + 2 * len);
+        return new String(chars);
+    }
+
+    private static HashMap readExceptions(final ByteBuffer buffer)
+            throws IOException {
+        final int count = buffer.getInt();
+        // a word length and a part count per exception
+        checkRemaining(buffer, count, 8);
+        final HashMap exceptions = new HashMap(Math.max(2 * count, 16));
+        for (int i = 0; i < count; i++) {
+            final String word = readString(buffer);
+            final int partCount = buffer.getInt();
+            // a type and a string length per part
+            checkRemaining(buffer, partCount, 5);
+            final ArrayList parts = new ArrayList(partCount);
+            for (int j = 0; j < partCount; j++) {
+                final byte type = buffer.get();
+                if (type == HYPHEN_PART) {
+                    final String pre = readString(buffer);
+                    final String no = readString(buffer);
+                    parts.add(new Hyphen(pre, no, readString(buffer)));
+                } else if (type == STRING_PART) {
+                    parts.add(readString(buffer));
+                } else {
+                    throw new IOException(
+                            "Corrupt binary hyphenation pattern file");
+                }
+            }
+            exceptions.put(word, parts);
+        }
+        return exceptions;
+    }
+
+    /**
+     * Checks that a count read from the data is not negative and that the
+     * remaining data can hold that many items, before anything is allocated
+     * for them.
+     */
+    private static void checkRemaining(final ByteBuffer buffer,
+            final int count, final int minItemSize) {
+        if (count < 0 || (long) count * minItemSize > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, final int size) {
+        checkRemaining(buffer, size, 1);
+        final ByteBuffer slice = buffer.slice();
+        slice.limit(size);
+        buffer.position(buffer.position() + size);
+        return slice;
+    }
+
+    /** The nodes are kept in the data, there are no node arrays. */
+    @Override
+    protected void init() {
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int find(final char[] key, final int start) {
+        return this.patterns.find(key, start);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected byte[] getValues(int k) {
+        final StringBuilder buf = new StringBuilder();
+        byte v = this.values.get(k++);
+        while (v != 0) {
+            char c = (char) ((v >>> 4) - 1);
+            buf.append(c);
+            c = (char) (v & 0x0f);
+            if (c == 0) {
+                break;
+            }
+            c = (char) (c - 1);
+            buf.append(c);
+            v = this.values.get(k++);
+        }
+        final byte[] res = new byte[buf.length()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = (byte) buf.charAt(i);
+        }
+        return res;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected String unpackValues(int k) {
+        final StringBuilder buf = new StringBuilder();
+        byte v = this.values.get(k++);
+        while (v != 0) {
+            char c = (char) ((v >>> 4) - 1 + '0');
+            buf.append(c);
+            c = (char) (v & 0x0f);
+            if (c == 0) {
+                break;
+            }
+            c = (char) (c - 1 + '0');
+            buf.append(c);
+            v = this.values.get(k++);
+        }
+        return buf.toString();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void searchPatterns(final char[] word, final int index,
+            final byte[] il) {
+        final FlatTree t = this.patterns;
+        int i = index;
+        char sp = word[i];
+        char p = t.root;
+
+        while (p > 0 && p < t.nodeCount) {
+            if (t.sc.get(p) == 0xFFFF) {
+                if (t.hstrcmp(word, i, t.lo.get(p)) == 0) {
+                    // data pointer is in eq[]
+                    applyValues(t.eq.get(p), index, il);
+                }
+                return;
+            }
+            final int d = sp - t.sc.get(p);
+            if (d == 0) {
+                if (sp == 0) {
+                    break;
+                }
+                sp = word[++i];
+                p = t.eq.get(p);
+                char q = p;
+
+                // look for a pattern ending at this position by searching for
+                // the null char ( splitchar == 0 )
+                while (q > 0 && q < t.nodeCount) {
+                    final char c = t.sc.get(q);
+                    if (c == 0xFFFF) { // stop at compressed branch
+                        break;
+                    }
+                    if (c == 0) {
+                        applyValues(t.eq.get(q), index, il);
+                        break;
+                    } else {
+                        q = t.lo.get(q);
+                    }
+                }
+            } else {
+                p = d < 0 ? t.lo.get(p) : t.hi.get(p);
+            }
+        }
+    }
+
+    private void applyValues(final int k, final int index, final byte[] il) {
+        final byte[] values = getValues(k);
+        int j = index;
+        for (final byte value : values) {
+            if (j < il.length && value > il[j]) {
+                il[j] = value;
+            }
+            j++;
+        }
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void insert(final String key, final char val) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void insert(final char[] key, final int start, final char val) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void balance() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void trimToSize() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void loadPatterns(final String filename) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void loadPatterns(final InputSource source) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void addClass(final String chargroup) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void addException(final String word, final ArrayList hyphenatedword) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, the tree is read-only */
+    @Override
+    public void addPattern(final String pattern, final String ivalue) {
+        throw new UnsupportedOperationException();
+    }
+
+    /** @throws UnsupportedOperationException always, keys are not enumerated */
+    @Override
+    public Enumeration keys() {
+        throw new UnsupportedOperationException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        throw new CloneNotSupportedException();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void printStats() {
+        log.info("Number of keys = " + Integer.toString(this.length));
+        log.info("Node count = " + Integer.toString(this.patterns.nodeCount));
+        log.info("Value space size = "
+                + Integer.toString(this.values.capacity()));
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        throw new NotSerializableException(
+                "Write the tree in the binary format instead");
+    }
+
+    /**
+     * The nodes of a ternary tree in the binary format. All reads are
+     * absolute, so a tree can be searched by several threads.
+     */
+    private static final class FlatTree {
+
+        private final char root;
+        private final int length;
+        private final int nodeCount;
+        private final CharBuffer lo;
+        private final CharBuffer hi;
+        private final CharBuffer eq;
+        private final CharBuffer sc;
+        private final CharBuffer kv;
+
+        private FlatTree(final ByteBuffer buffer) {
+            this.root = (char) buffer.getInt();
+            this.length = buffer.getInt();
+            this.nodeCount = buffer.getInt();
+            final int kvLength = buffer.getInt();
+            this.lo = slice(buffer, 2 * this.nodeCount).asCharBuffer();
+            this.hi = slice(buffer, 2 * this.nodeCount).asCharBuffer();
+            this.eq = slice(buffer, 2 * this.nodeCount).asCharBuffer();
+            this.sc = slice(buffer, 2 * this.nodeCount).asCharBuffer();
+            this.kv = slice(buffer, 2 * kvLength).asCharBuffer();
+        }
+
+        /** @see TernaryTree#find(char[], int) */
+        private int find(final char[] key, final int start) {
+            char p = this.root;
+            int i = start;
+
+            while (p != 0) {
+                final char s = this.sc.get(p);
+                if (s == 0xFFFF) {
+                    return strcmp(key, i, this.lo.get(p)) == 0 ? this.eq
+                            .get(p) : -1;
+                }
+                final char c = key[i];
+                final int d = c - s;
+                if (d == 0) {
+                    if (c == 0) {
+                        return this.eq.get(p);
+                    }
+                    i++;
+                    p = this.eq.get(p);
+                } else if (d < 0) {
+                    p = this.lo.get(p);
+                } else {
+                    p = this.hi.get(p);
+                }
+            }
+            return -1;
+        }
+
+        /** @see TernaryTree#strcmp(char[], int, char[], int) */
+        private int strcmp(final char[] a, int startA, int startB) {
+            for (; a[startA] == this.kv.get(startB); startA++, startB++) {
+                if (a[startA] == 0) {
+                    return 0;
+                }
+            }
+            return a[startA] - this.kv.get(startB);
+        }
+
+        /** @see HyphenationTree#hstrcmp(char[], int, char[], int) */
+        private int hstrcmp(final char[] s, int si, int ti) {
+            for (; s[si] == this.kv.get(ti); si++, ti++) {
+                if (s[si] == 0) {
+                    return 0;
+                }
+            }
+            final char t = this.kv.get(ti);
+            if (t == 0) {
+                return 0;
+            }
+            return s[si] - t;
+        }
+    }
+
+    /**
+     * A character class map in the binary format.
+     */
+    private static final class FlatTernaryTree extends TernaryTree {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient FlatTree tree;
+
+        private FlatTernaryTree(final FlatTree tree) {
+            this.tree = tree;
+            this.root = tree.root;
+            this.length = tree.length;
+        }
+
+        /** The nodes are kept in the data, there are no node arrays. */
+        @Override
+        protected void init() {
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int find(final char[] key, final int start) {
+            return this.tree.find(key, start);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void insert(final char[] key, final int start, final char val) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void trimToSize() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
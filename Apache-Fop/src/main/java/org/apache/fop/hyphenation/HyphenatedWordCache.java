@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Bounded cache of the hyphenation of words by one hyphenation tree, so that
+ * repeated words are hyphenated only once. The results also depend on the
+ * minimum number of characters before and after a hyphenation point, so they
+ * are kept apart for each pair of these values. Lookups and updates do not
+ * lock; once a pair holds more than the maximum number of words, its words are
+ * dropped and the cache fills up again.
+ * </p>
+ * <p>
+ * The cached {@link Hyphenation} instances are shared, so their hyphenation
+ * points must not be modified.
+ * </p>
+ */
+final class HyphenatedWordCache {
+
+    /** default maximum number of cached words per pair of minimums */
+    static final int DEFAULT_MAX_WORDS = 16384;
+
+    /** stands for a word without hyphenation points */
+    private static final Object NO_HYPHENATION = new Object();
+
+    private final int maxWords;
+
+    private final ConcurrentMap<Integer, Words> words = new ConcurrentHashMap<Integer, Words>();
+
+    /** the words for the pair of minimums looked up last */
+    private volatile Words lastWords;
+
+    /**
+     * Instantiate a cache holding up to {@link #DEFAULT_MAX_WORDS} words per
+     * pair of minimums.
+     */
+    HyphenatedWordCache() {
+        this(DEFAULT_MAX_WORDS);
+    }
+
+    /**
+     * Instantiate a cache.
+     *
+     * @param maxWords
+     *            the maximum number of cached words per pair of minimums
+     */
+    HyphenatedWordCache(final int maxWords) {
+        this.maxWords = maxWords;
+    }
+
+    /**
+     * Look up the hyphenation of a word.
+     *
+     * @param word
+     *            the word
+     * @param remainCharCount
+     *            minimum number of characters before a hyphenation point
+     * @param pushCharCount
+     *            minimum number of characters after a hyphenation point
+     * @return the hyphenation, {@link #NO_HYPHENATION} for a word without
+     *         hyphenation points, or null if the word is not cached
+     */
+    Object get(final String word, final int remainCharCount,
+            final int pushCharCount) {
+        final Words w = getWords(remainCharCount, pushCharCount, false);
+        return w != null ? w.map.get(word) : null;
+    }
+
+    /**
+     * Cache the hyphenation of a word.
+     *
+     * @param word
+     *            the word
+     * @param remainCharCount
+     *            minimum number of characters before a hyphenation point
+     * @param pushCharCount
+     *            minimum number of characters after a hyphenation point
+     * @param hyphenation
+     *            the hyphenation, or null if the word has no hyphenation
+     *            points
+     */
+    void put(final String word, final int remainCharCount,
+            final int pushCharCount, final Hyphenation hyphenation) {
+        final Words w = getWords(remainCharCount, pushCharCount, true);
+        if (w.size.incrementAndGet() > this.maxWords) {
+            w.map.clear();
+            w.size.set(1);
+        }
+        w.map.put(word, hyphenation != null ? hyphenation : NO_HYPHENATION);
+    }
+
+    /**
+     * Determine if a cached value stands for a word without hyphenation
+     * points.
+     *
+     * @param value
+     *            a value returned by {@link #get}
+     * @return the hyphenation, or null for a word without hyphenation points
+     */
+    static Hyphenation toHyphenation(final Object value) {
+        return value == NO_HYPHENATION ? null : (Hyphenation) value;
+    }
+
+    private Words getWords(final int remainCharCount, final int pushCharCount,
+            final boolean create) {
+        Words w = this.lastWords;
+        if (w != null && w.remainCharCount == remainCharCount
+                && w.pushCharCount == pushCharCount) {
+            return w;
+        }
+        final Integer key = Integer.valueOf(remainCharCount << 16
+                | pushCharCount & 0xFFFF);
+        w = this.words.get(key);
+        if (w == null) {
+            if (!create) {
+                return null;
+            }
+            final Words newWords = new Words(remainCharCount, pushCharCount);
+            w = this.words.putIfAbsent(key, newWords);
+            if (w == null) {
+                w = newWords;
+            }
+        }
+        this.lastWords = w;
+        return w;
+    }
+
+    /** The cached words for a pair of minimums. */
+    private static final class Words {
+
+        private final int remainCharCount;
+        private final int pushCharCount;
+        private final ConcurrentMap<String, Object> map = new ConcurrentHashMap<String, Object>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Words(final int remainCharCount, final int pushCharCount) {
+            this.remainCharCount = remainCharCount;
+            this.pushCharCount = pushCharCount;
+        }
+    }
+
+}
@@ -70,6 +70,12 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
      */
     private transient TernaryTree ivalues;
 
+    /**
+     * Hyphenations of the words hyphenated so far, created on first use and
+     * dropped whenever the patterns change.
+     */
+    private transient volatile HyphenatedWordCache wordCache;
+
     /** Default constructor. */
     public HyphenationTree() {
         this.stoplist = new HashMap(23); // usually a small table
@@ -353,8 +359,20 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
      */
     public Hyphenation hyphenate(final String word, final int remainCharCount,
             final int pushCharCount) {
+        HyphenatedWordCache cache = this.wordCache;
+        if (cache == null) {
+            cache = new HyphenatedWordCache();
+            this.wordCache = cache;
+        }
+        final Object cached = cache.get(word, remainCharCount, pushCharCount);
+        if (cached != null) {
+            return HyphenatedWordCache.toHyphenation(cached);
+        }
         final char[] w = word.toCharArray();
-        return hyphenate(w, 0, w.length, remainCharCount, pushCharCount);
+        final Hyphenation hyphenation = hyphenate(w, 0, w.length,
+                remainCharCount, pushCharCount);
+        cache.put(word, remainCharCount, pushCharCount, hyphenation);
+        return hyphenation;
     }
 
     /**
@@ -492,6 +510,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
      */
     @Override
     public void addClass(final String chargroup) {
+        this.wordCache = null;
         if (chargroup.length() > 0) {
             final char equivChar = chargroup.charAt(0);
             final char[] key = new char[2];
@@ -515,6 +534,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
      */
     @Override
     public void addException(final String word, final ArrayList hyphenatedword) {
+        this.wordCache = null;
         this.stoplist.put(word, hyphenatedword);
     }
 
@@ -531,6 +551,7 @@ public class HyphenationTree extends TernaryTree implements PatternConsumer {
      */
     @Override
     public void addPattern(final String pattern, final String ivalue) {
+        this.wordCache = null;
         int k = this.ivalues.find(ivalue);
         if (k <= 0) {
             k = packValues(ivalue);
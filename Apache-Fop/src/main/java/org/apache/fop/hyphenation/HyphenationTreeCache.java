@@ -19,24 +19,27 @@
 
 package org.apache.fop.hyphenation;
 
-import java.util.Hashtable;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
- * This is a cache for HyphenationTree instances.
+ * This is a cache for HyphenationTree instances. Lookups do not lock, so
+ * concurrent renderings do not serialize on the cache.
  * </p>
  */
 public class HyphenationTreeCache {
 
     /** Contains the cached hyphenation trees */
-    private final Hashtable hyphenTrees = new Hashtable();
+    private final Map<String, HyphenationTree> hyphenTrees = new ConcurrentHashMap<String, HyphenationTree>();
     /**
      * Used to avoid multiple error messages for the same language if a pattern
      * file is missing.
      */
-    private Set missingHyphenationTrees;
+    private final Set<String> missingHyphenationTrees = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /**
      * Looks in the cache if a hyphenation tree is available and returns it if
@@ -53,13 +56,8 @@ public class HyphenationTreeCache {
         final String key = constructLlccKey(lang, country);
 
         // first try to find it in the cache
-        if (this.hyphenTrees.containsKey(key)) {
-            return (HyphenationTree) this.hyphenTrees.get(key);
-        } else if (this.hyphenTrees.containsKey(lang)) {
-            return (HyphenationTree) this.hyphenTrees.get(lang);
-        } else {
-            return null;
-        }
+        final HyphenationTree hTree = this.hyphenTrees.get(key);
+        return hTree != null ? hTree : this.hyphenTrees.get(lang);
     }
 
     /**
@@ -124,9 +122,6 @@ public class HyphenationTreeCache {
      *            the key (ex. "de_CH" or "en")
      */
     public void noteMissing(final String key) {
-        if (this.missingHyphenationTrees == null) {
-            this.missingHyphenationTrees = new java.util.HashSet();
-        }
         this.missingHyphenationTrees.add(key);
     }
 
@@ -140,8 +135,7 @@ public class HyphenationTreeCache {
      * @return true if the hyphenation tree is unavailable
      */
     public boolean isMissing(final String key) {
-        return this.missingHyphenationTrees != null
-                && this.missingHyphenationTrees.contains(key);
+        return this.missingHyphenationTrees.contains(key);
     }
 
 }
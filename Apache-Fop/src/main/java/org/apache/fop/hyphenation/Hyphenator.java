@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.net.URL;
 import java.util.Map;
 
 import javax.xml.transform.Source;
@@ -31,6 +32,7 @@ import javax.xml.transform.stream.StreamSource;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.xml.sax.InputSource;
 
@@ -47,7 +49,7 @@ import org.xml.sax.InputSource;
 @Slf4j
 public final class Hyphenator {
 
-    private static HyphenationTreeCache hTreeCache = null;
+    private static final HyphenationTreeCache H_TREE_CACHE = new HyphenationTreeCache();
 
     /**
      * Enables a dump of statistics. Note: If activated content is sent to
@@ -62,11 +64,8 @@ public final class Hyphenator {
     }
 
     /** @return the default (static) hyphenation tree cache */
-    public static synchronized HyphenationTreeCache getHyphenationTreeCache() {
-        if (hTreeCache == null) {
-            hTreeCache = new HyphenationTreeCache();
-        }
-        return hTreeCache;
+    public static HyphenationTreeCache getHyphenationTreeCache() {
+        return H_TREE_CACHE;
     }
 
     /**
@@ -159,7 +158,7 @@ public final class Hyphenator {
 
         HyphenationTree hTree;
         // first try to find it in the cache
-        hTree = getHyphenationTreeCache().getHyphenationTree(lang, country);
+        hTree = cache.getHyphenationTree(lang, country);
         if (hTree != null) {
             return hTree;
         }
@@ -185,6 +184,25 @@ public final class Hyphenator {
         return hTree;
     }
 
+    private static URL getResource(final String name) {
+        URL url = null;
+        try {
+            final ClassLoader contextClassLoader = Thread.currentThread()
+                    .getContextClassLoader();
+            if (contextClassLoader != null) {
+                url = contextClassLoader.getResource("hyph/" + name);
+            }
+        } catch (final SecurityException e) {
+            // ignore, fallback further down
+        }
+
+        if (url == null) {
+            url = Hyphenator.class.getResource("/hyph/" + name);
+        }
+
+        return url;
+    }
+
     private static InputStream getResourceStream(final String key) {
         InputStream is = null;
         // Try to use Context Class Loader to load the properties file.
@@ -223,15 +241,48 @@ public final class Hyphenator {
         return hTree;
     }
 
+    /**
+     * Reads a tree in the binary format, memory-mapping it if it is a file.
+     */
+    private static HyphenationTree readCompactHyphenationTree(final URL url,
+            final InputStream stream) throws IOException {
+        final File file = url != null ? FileUtils.toFile(url) : null;
+        if (file != null) {
+            return CompactHyphenationTree.load(file);
+        }
+        InputStream in = stream;
+        if (in == null) {
+            if (url == null) {
+                return null;
+            }
+            in = url.openStream();
+        }
+        try {
+            return CompactHyphenationTree.load(in);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
     /**
      * Returns a hyphenation tree. This method looks in the resources
-     * (getResourceStream) for the hyphenation patterns.
+     * (getResourceStream) for the hyphenation patterns, preferring the binary
+     * format of {@link CompactHyphenationTree} to serialized trees.
      *
      * @param key
      *            the language/country key
      * @return the hyphenation tree or null if it wasn't found in the resources
      */
     public static HyphenationTree getFopHyphenationTree(final String key) {
+        final URL url = getResource(key + CompactHyphenationTree.EXTENSION);
+        if (url != null) {
+            try {
+                return readCompactHyphenationTree(url, null);
+            } catch (final IOException ioe) {
+                log.error("I/O error while loading binary hyphenation"
+                        + " pattern file " + url, ioe);
+            }
+        }
         HyphenationTree hTree = null;
         final ObjectInputStream ois = null;
         InputStream is = null;
@@ -287,12 +338,37 @@ public final class Hyphenator {
         HyphenationTree hTree = null;
         // I use here the following convention. The file name specified in
         // the configuration is taken as the base name. First we try
-        // name + ".hyp" assuming a serialized HyphenationTree. If that fails
-        // we try name + ".xml", assumming a raw hyphenation pattern file.
+        // name + ".hyb" assuming the binary format of CompactHyphenationTree,
+        // then name + ".hyp" assuming a serialized HyphenationTree. If that
+        // fails we try name + ".xml", assumming a raw hyphenation pattern file.
 
-        // first try serialized object
-        String name = key + ".hyp";
+        // first try the binary format
+        String name = key + CompactHyphenationTree.EXTENSION;
         Source source = resolver.resolve(name);
+        if (source != null) {
+            try {
+                InputStream in = null;
+                if (source instanceof StreamSource) {
+                    in = ((StreamSource) source).getInputStream();
+                }
+                URL url = null;
+                if (in == null && source.getSystemId() != null) {
+                    url = new URL(source.getSystemId());
+                }
+                hTree = readCompactHyphenationTree(url, in);
+                if (hTree != null) {
+                    return hTree;
+                }
+            } catch (final IOException ioe) {
+                if (log.isDebugEnabled()) {
+                    log.debug("I/O problem while trying to load " + name, ioe);
+                }
+            }
+        }
+
+        // then try serialized object
+        name = key + ".hyp";
+        source = resolver.resolve(name);
         if (source != null) {
             try {
                 InputStream in = null;
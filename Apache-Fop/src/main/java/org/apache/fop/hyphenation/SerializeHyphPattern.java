@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,7 +33,8 @@ import lombok.extern.slf4j.Slf4j;
  * </p>
  * <p>
  * For all xml files in the source directory a pattern file is built in the
- * target directory.
+ * target directory, both as a serialized object (.hyp) and in the binary
+ * format of {@link CompactHyphenationTree} (.hyb).
  * </p>
  * <p>
  * This class may be called from the ant build file in a java task.
@@ -54,8 +56,8 @@ public class SerializeHyphPattern {
     }
 
     /**
-     * Compile all xml files in sourceDir, and write output hyp files in
-     * targetDir
+     * Compile all xml files in sourceDir, and write output hyp and hyb files
+     * in targetDir
      *
      * @param sourceDir
      *            Directory with pattern xml files
@@ -73,11 +75,12 @@ public class SerializeHyphPattern {
         });
         for (final String sourceFile : sourceFiles) {
             final File infile = new File(sourceDir, sourceFile);
-            final String outfilename = sourceFile.substring(0,
-                    sourceFile.length() - extension.length())
-                    + ".hyp";
-            final File outfile = new File(targetDir, outfilename);
-            serializeFile(infile, outfile);
+            final String basename = sourceFile.substring(0,
+                    sourceFile.length() - extension.length());
+            final File outfile = new File(targetDir, basename + ".hyp");
+            final File binfile = new File(targetDir, basename
+                    + CompactHyphenationTree.EXTENSION);
+            serializeFile(infile, outfile, binfile);
         }
     }
 
@@ -85,11 +88,15 @@ public class SerializeHyphPattern {
      * checks whether input or output files exists or the latter is older than
      * input file and start build if necessary
      */
-    private void serializeFile(final File infile, final File outfile) {
-        boolean startProcess;
-        startProcess = rebuild(infile, outfile);
-        if (startProcess) {
-            final HyphenationTree hTree = buildPatternFile(infile);
+    private void serializeFile(final File infile, final File outfile,
+            final File binfile) {
+        final boolean serialize = rebuild(infile, outfile);
+        final boolean convert = rebuild(infile, binfile);
+        if (!serialize && !convert) {
+            return;
+        }
+        final HyphenationTree hTree = buildPatternFile(infile);
+        if (serialize) {
             // serialize class
             try {
                 final ObjectOutputStream out = new ObjectOutputStream(
@@ -103,6 +110,20 @@ public class SerializeHyphPattern {
                 System.err.println(ioe);
             }
         }
+        if (convert) {
+            try {
+                final OutputStream out = new java.io.FileOutputStream(binfile);
+                try {
+                    CompactHyphenationTree.write(hTree, out);
+                } finally {
+                    out.close();
+                }
+            } catch (final IOException ioe) {
+                System.err.println("Can't write binary pattern file: "
+                        + binfile);
+                System.err.println(ioe);
+            }
+        }
     }
 
     /*
@@ -50,6 +50,9 @@ AbstractLayoutManager implements TopLevelLayoutManager {
     /** ID tracker supplied by the AreaTreeHandler */
     protected IDTracker idTracker;
 
+    /** Area tree model receiving the pages, supplied by the AreaTreeHandler */
+    protected AreaTreeModel areaTreeModel;
+
     /** page sequence formatting object being processed by this class */
     protected AbstractPageSequence pageSeq;
 
@@ -74,9 +77,29 @@ AbstractLayoutManager implements TopLevelLayoutManager {
         super(pseq);
         this.areaTreeHandler = ath;
         this.idTracker = ath.getIDTracker();
+        this.areaTreeModel = ath.getAreaTreeModel();
         this.pageSeq = pseq;
     }
 
+    /**
+     * Redirects the pages and the ID references produced by this layout
+     * manager to the given model and tracker instead of the ones of the
+     * AreaTreeHandler. This allows a page-sequence to be laid out apart from
+     * the rest of the document; the caller is then responsible for handing
+     * the pages and IDs over to the AreaTreeHandler. Must be called before
+     * {@link #activateLayout()}.
+     *
+     * @param model
+     *            the area tree model receiving the pages
+     * @param tracker
+     *            the ID tracker receiving the ID references
+     */
+    public void setLayoutTarget(final AreaTreeModel model,
+            final IDTracker tracker) {
+        this.areaTreeModel = model;
+        this.idTracker = tracker;
+    }
+
     /**
      * @return the LayoutManagerMaker object associated to the areaTreeHandler
      */
@@ -238,8 +261,6 @@ AbstractLayoutManager implements TopLevelLayoutManager {
      *         found.
      */
     public RetrieveMarker resolveRetrieveMarker(final RetrieveMarker rm) {
-        final AreaTreeModel areaTreeModel = this.areaTreeHandler
-                .getAreaTreeModel();
         final String name = rm.getRetrieveClassName();
         final int pos = rm.getRetrievePosition();
         final int boundary = rm.getRetrieveBoundary();
@@ -250,14 +271,14 @@ AbstractLayoutManager implements TopLevelLayoutManager {
             // go back over pages until mark found
             // if document boundary then keep going
             final boolean doc = boundary == EN_DOCUMENT;
-            int seq = areaTreeModel.getPageSequenceCount();
-            int page = areaTreeModel.getPageCount(seq) - 1;
+            int seq = this.areaTreeModel.getPageSequenceCount();
+            int page = this.areaTreeModel.getPageCount(seq) - 1;
             while (page < 0 && doc && seq > 1) {
                 seq--;
-                page = areaTreeModel.getPageCount(seq) - 1;
+                page = this.areaTreeModel.getPageCount(seq) - 1;
             }
             while (page >= 0) {
-                final PageViewport pv = areaTreeModel.getPage(seq, page);
+                final PageViewport pv = this.areaTreeModel.getPage(seq, page);
                 mark = pv.getMarker(name, Constants.EN_LEWP);
                 if (mark != null) {
                     break;
@@ -265,7 +286,7 @@ AbstractLayoutManager implements TopLevelLayoutManager {
                 page--;
                 if (page < 0 && doc && seq > 1) {
                     seq--;
-                    page = areaTreeModel.getPageCount(seq) - 1;
+                    page = this.areaTreeModel.getPageCount(seq) - 1;
                 }
             }
         }
@@ -330,8 +351,7 @@ AbstractLayoutManager implements TopLevelLayoutManager {
         //
         this.idTracker.tryIDResolution(this.curPage.getPageViewport());
         // Queue for ID resolution and rendering
-        this.areaTreeHandler.getAreaTreeModel().addPage(
-                this.curPage.getPageViewport());
+        this.areaTreeModel.addPage(this.curPage.getPageViewport());
         if (log.isDebugEnabled()) {
             log.debug("page finished: "
                     + this.curPage.getPageViewport().getPageNumberString()
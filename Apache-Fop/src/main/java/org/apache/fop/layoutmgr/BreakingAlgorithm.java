@@ -19,6 +19,8 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.util.Arrays;
+
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.fo.Constants;
@@ -206,6 +208,12 @@ public abstract class BreakingAlgorithm {
     private boolean partOverflowRecoveryActivated = true;
     private KnuthNode lastRecovered;
 
+    /** The node pool of the thread running the current breaking run. */
+    private NodePool nodePool;
+    /** The pooled nodes handed out during the current breaking run. */
+    private KnuthNode[] runNodes = new KnuthNode[32];
+    private int runNodeCount;
+
     /**
      * Create a new instance.
      *
@@ -242,46 +250,49 @@ public abstract class BreakingAlgorithm {
 
     /**
      * Class recording all the informations of a feasible breaking point.
+     * Nodes created by the default {@link #createNode} implementations are
+     * recycled once the breaking run that created them has completed, which is
+     * why the fields describing the breakpoint are not final.
      */
-    public class KnuthNode {
+    public static class KnuthNode {
         /** index of the breakpoint represented by this node */
-        public final int position; // CSOK: VisibilityModifier
+        public int position; // CSOK: VisibilityModifier
 
         /** number of the line ending at this breakpoint */
-        public final int line; // CSOK: VisibilityModifier
+        public int line; // CSOK: VisibilityModifier
 
         /**
          * fitness class of the line ending at this breakpoint. One of 0, 1, 2,
          * 3.
          */
-        public final int fitness; // CSOK: VisibilityModifier
+        public int fitness; // CSOK: VisibilityModifier
 
         /** accumulated width of the KnuthElements up to after this breakpoint. */
-        public final int totalWidth; // CSOK: VisibilityModifier
+        public int totalWidth; // CSOK: VisibilityModifier
 
         /**
          * accumulated stretchability of the KnuthElements up to after this
          * breakpoint.
          */
-        public final int totalStretch; // CSOK: VisibilityModifier
+        public int totalStretch; // CSOK: VisibilityModifier
 
         /**
          * accumulated shrinkability of the KnuthElements up to after this
          * breakpoint.
          */
-        public final int totalShrink; // CSOK: VisibilityModifier
+        public int totalShrink; // CSOK: VisibilityModifier
 
         /** adjustment ratio if the line ends at this breakpoint */
-        public final double adjustRatio; // CSOK: VisibilityModifier
+        public double adjustRatio; // CSOK: VisibilityModifier
 
         /** available stretch of the line ending at this breakpoint */
-        public final int availableShrink; // CSOK: VisibilityModifier
+        public int availableShrink; // CSOK: VisibilityModifier
 
         /** available shrink of the line ending at this breakpoint */
-        public final int availableStretch; // CSOK: VisibilityModifier
+        public int availableStretch; // CSOK: VisibilityModifier
 
         /** difference between target and actual line width */
-        public final int difference; // CSOK: VisibilityModifier
+        public int difference; // CSOK: VisibilityModifier
 
         /** minimum total demerits up to this breakpoint */
         public double totalDemerits; // CSOK: VisibilityModifier
@@ -334,6 +345,19 @@ public abstract class BreakingAlgorithm {
                 final int availableShrink, final int availableStretch,
                 final int difference, final double totalDemerits,
                 final KnuthNode previous) {
+            init(position, line, fitness, totalWidth, totalStretch,
+                    totalShrink, adjustRatio, availableShrink,
+                    availableStretch, difference, totalDemerits, previous);
+        }
+
+        private void init(
+                // CSOK: ParameterNumber
+                final int position, final int line, final int fitness,
+                final int totalWidth, final int totalStretch,
+                final int totalShrink, final double adjustRatio,
+                final int availableShrink, final int availableStretch,
+                final int difference, final double totalDemerits,
+                final KnuthNode previous) {
             this.position = position;
             this.line = line;
             this.fitness = fitness;
@@ -346,6 +370,8 @@ public abstract class BreakingAlgorithm {
             this.difference = difference;
             this.totalDemerits = totalDemerits;
             this.previous = previous;
+            this.next = null;
+            this.fitRecoveryCounter = 0;
         }
 
         /** {@inheritDoc} */
@@ -360,6 +386,68 @@ public abstract class BreakingAlgorithm {
         }
     }
 
+    /**
+     * Per-thread store of the nodes and active line arrays released by
+     * completed breaking runs. Every paragraph creates its own breaking
+     * algorithm, so keeping the recycled objects per thread rather than per
+     * instance lets the paragraphs laid out by one thread share them.
+     */
+    private static final class NodePool {
+
+        /** Upper bound for the number of idle nodes kept per thread. */
+        private static final int MAX_POOLED_NODES = 4096;
+
+        private KnuthNode[] nodes = new KnuthNode[64];
+        private int nodeCount;
+        private KnuthNode[] activeLines;
+
+        private KnuthNode obtainNode() {
+            if (this.nodeCount == 0) {
+                return null;
+            }
+            final KnuthNode node = this.nodes[--this.nodeCount];
+            this.nodes[this.nodeCount] = null;
+            return node;
+        }
+
+        private void releaseNodes(final KnuthNode[] released, final int count) {
+            final int keep = Math.min(count, MAX_POOLED_NODES - this.nodeCount);
+            if (this.nodeCount + keep > this.nodes.length) {
+                this.nodes = Arrays.copyOf(this.nodes,
+                        Math.max(this.nodes.length * 2, this.nodeCount + keep));
+            }
+            for (int i = 0; i < keep; i++) {
+                final KnuthNode node = released[i];
+                // do not keep the previous paragraph reachable
+                node.previous = null;
+                node.next = null;
+                this.nodes[this.nodeCount++] = node;
+            }
+            Arrays.fill(released, 0, count, null);
+        }
+
+        private KnuthNode[] obtainActiveLines() {
+            final KnuthNode[] lines = this.activeLines;
+            if (lines == null) {
+                return new KnuthNode[20];
+            }
+            this.activeLines = null;
+            return lines;
+        }
+
+        private void releaseActiveLines(final KnuthNode[] lines) {
+            Arrays.fill(lines, null);
+            this.activeLines = lines;
+        }
+    }
+
+    private static final ThreadLocal<NodePool> NODE_POOL = new ThreadLocal<NodePool>() {
+        @Override
+        protected NodePool initialValue() {
+            return new NodePool();
+        }
+    };
+
     /**
      * Class that stores, for each fitness class, the best active node that
      * could start a line of the corresponding fitness ending at the current
@@ -651,6 +739,7 @@ public abstract class BreakingAlgorithm {
                 if (!force) {
                     log.debug("Could not find a set of breaking points "
                             + threshold);
+                    releaseNodes();
                     return 0;
                 }
 
@@ -691,6 +780,8 @@ public abstract class BreakingAlgorithm {
             }
         }
 
+        releaseNodes();
+        this.nodePool.releaseActiveLines(this.activeLines);
         this.activeLines = null;
         return line;
     }
@@ -754,7 +845,11 @@ public abstract class BreakingAlgorithm {
         this.lastTooLong = null;
         this.startLine = 0;
         this.endLine = 0;
-        this.activeLines = new KnuthNode[20];
+        // nodes left over by an interrupted run may still be referenced
+        Arrays.fill(this.runNodes, 0, this.runNodeCount, null);
+        this.runNodeCount = 0;
+        this.nodePool = NODE_POOL.get();
+        this.activeLines = this.nodePool.obtainActiveLines();
     }
 
     /**
@@ -799,7 +894,7 @@ public abstract class BreakingAlgorithm {
             final int availableShrink, final int availableStretch,
             final int difference, final double totalDemerits,
             final KnuthNode previous) {
-        return new KnuthNode(position, line, fitness, totalWidth, totalStretch,
+        return obtainNode(position, line, fitness, totalWidth, totalStretch,
                 totalShrink, adjustRatio, availableShrink, availableStretch,
                 difference, totalDemerits, previous);
     }
@@ -832,7 +927,7 @@ public abstract class BreakingAlgorithm {
     protected KnuthNode createNode(final int position, final int line,
             final int fitness, final int totalWidth, final int totalStretch,
             final int totalShrink) {
-        return new KnuthNode(position, line, fitness, totalWidth, totalStretch,
+        return obtainNode(position, line, fitness, totalWidth, totalStretch,
                 totalShrink, this.best.getAdjust(fitness),
                 this.best.getAvailableShrink(fitness),
                 this.best.getAvailableStretch(fitness),
@@ -840,6 +935,53 @@ public abstract class BreakingAlgorithm {
                 this.best.getDemerits(fitness), this.best.getNode(fitness));
     }
 
+    private KnuthNode obtainNode(
+            // CSOK: ParameterNumber
+            final int position, final int line, final int fitness,
+            final int totalWidth, final int totalStretch,
+            final int totalShrink, final double adjustRatio,
+            final int availableShrink, final int availableStretch,
+            final int difference, final double totalDemerits,
+            final KnuthNode previous) {
+        KnuthNode node = this.nodePool != null ? this.nodePool.obtainNode()
+                : null;
+        if (node == null) {
+            node = new KnuthNode(position, line, fitness, totalWidth,
+                    totalStretch, totalShrink, adjustRatio, availableShrink,
+                    availableStretch, difference, totalDemerits, previous);
+        } else {
+            node.init(position, line, fitness, totalWidth, totalStretch,
+                    totalShrink, adjustRatio, availableShrink,
+                    availableStretch, difference, totalDemerits, previous);
+        }
+        if (this.runNodeCount == this.runNodes.length) {
+            this.runNodes = Arrays.copyOf(this.runNodes,
+                    this.runNodes.length * 2);
+        }
+        this.runNodes[this.runNodeCount++] = node;
+        return node;
+    }
+
+    /**
+     * Hands the nodes created by the default {@link #createNode}
+     * implementations during the current run back to the thread's pool. Only
+     * called once the run is over and the breakpoints have been passed on
+     * through {@link #updateData2}; subclasses that keep nodes beyond a run
+     * create their own node types.
+     */
+    private void releaseNodes() {
+        if (this.runNodeCount > 0) {
+            // no recycled node may stay reachable from this instance
+            this.lastTooShort = null;
+            this.lastTooLong = null;
+            this.lastDeactivated = null;
+            this.lastRecovered = null;
+            Arrays.fill(this.best.bestNode, null);
+            this.nodePool.releaseNodes(this.runNodes, this.runNodeCount);
+            this.runNodeCount = 0;
+        }
+    }
+
     /**
      * Return the last node that yielded a too short line.
      *
@@ -118,8 +118,7 @@ public class ExternalDocumentLayoutManager extends
 
             final PageSequence pageSequence = new PageSequence(null);
             transferExtensions(pageSequence);
-            this.areaTreeHandler.getAreaTreeModel().startPageSequence(
-                    pageSequence);
+            this.areaTreeModel.startPageSequence(pageSequence);
             if (log.isDebugEnabled()) {
                 log.debug("Starting layout");
             }
@@ -24,6 +24,7 @@ import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.area.AreaTreeHandler;
+import org.apache.fop.area.PageViewport;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.pagination.PageSequence;
 import org.apache.fop.fo.pagination.SimplePageMaster;
@@ -57,6 +58,12 @@ public class PageProvider implements Constants {
     private boolean spanAllForCurrentElementList;
     private final List<Page> cachedPages = new java.util.ArrayList<Page>();
 
+    /**
+     * PageViewports with a provisional key, in the order the keys were
+     * handed out; null if keys are obtained from the AreaTreeHandler directly.
+     */
+    private List<PageViewport> provisionallyKeyedPages;
+
     private int lastPageIndex = -1;
     private int indexOfCachedLastPage = -1;
 
@@ -361,6 +368,32 @@ public class PageProvider implements Constants {
         return page;
     }
 
+    /**
+     * Makes this provider give its pages provisional keys instead of obtaining
+     * them from the AreaTreeHandler. Used when the page-sequence is laid out
+     * apart from the rest of the document, so the final keys do not depend on
+     * the order in which concurrent layouts create their pages.
+     * {@link #assignPageKeys()} has to be called once the layout is done.
+     */
+    public void useProvisionalPageKeys() {
+        this.provisionallyKeyedPages = new java.util.ArrayList<PageViewport>();
+    }
+
+    /**
+     * Replaces the provisional keys of all pages created so far by keys
+     * obtained from the AreaTreeHandler, in the order the pages were created.
+     * This yields the same keys as if the page-sequence had been laid out in
+     * sequence with the rest of the document.
+     */
+    public void assignPageKeys() {
+        if (this.provisionallyKeyedPages != null) {
+            for (final PageViewport pv : this.provisionallyKeyedPages) {
+                pv.setKey(this.areaTreeHandler.generatePageViewportKey());
+            }
+            this.provisionallyKeyedPages = null;
+        }
+    }
+
     private void discardCacheStartingWith(final int index) {
         while (index < this.cachedPages.size()) {
             this.cachedPages.remove(this.cachedPages.size() - 1);
@@ -379,9 +412,15 @@ public class PageProvider implements Constants {
                 index, isFirstPage, isLastPage, isBlank);
         final Page page = new Page(spm, index, pageNumberString, isBlank,
                 spanAll);
-        // Set unique key obtained from the AreaTreeHandler
-        page.getPageViewport().setKey(
-                this.areaTreeHandler.generatePageViewportKey());
+        if (this.provisionallyKeyedPages != null) {
+            this.provisionallyKeyedPages.add(page.getPageViewport());
+            page.getPageViewport().setProvisionalKey(
+                    "L" + this.provisionallyKeyedPages.size());
+        } else {
+            // Set unique key obtained from the AreaTreeHandler
+            page.getPageViewport().setKey(
+                    this.areaTreeHandler.generatePageViewportKey());
+        }
         page.getPageViewport().setForeignAttributes(spm.getForeignAttributes());
         page.getPageViewport().setWritingModeTraits(this.pageSeq);
         this.cachedPages.add(page);
@@ -22,7 +22,6 @@ package org.apache.fop.layoutmgr;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.area.AreaTreeHandler;
-import org.apache.fop.area.AreaTreeModel;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.complexscripts.bidi.BidiResolver;
 import org.apache.fop.fo.Constants;
@@ -100,14 +99,12 @@ public class PageSequenceLayoutManager extends
             }
         }
 
-        final AreaTreeModel areaTreeModel = this.areaTreeHandler
-                .getAreaTreeModel();
         final org.apache.fop.area.PageSequence pageSequenceAreaObject = new org.apache.fop.area.PageSequence(
                 title);
         transferExtensions(pageSequenceAreaObject);
         pageSequenceAreaObject.setLanguage(getPageSequence().getLanguage());
         pageSequenceAreaObject.setCountry(getPageSequence().getCountry());
-        areaTreeModel.startPageSequence(pageSequenceAreaObject);
+        this.areaTreeModel.startPageSequence(pageSequenceAreaObject);
         if (log.isDebugEnabled()) {
             log.debug("Starting layout");
         }
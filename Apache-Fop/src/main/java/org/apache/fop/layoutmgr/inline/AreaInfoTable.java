@@ -0,0 +1,401 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.fop.fo.FOText;
+import org.apache.fop.fonts.Font;
+import org.apache.fop.traits.MinOptMax;
+
+/**
+ * Stores the area information of a {@link TextLayoutManager}, one entry for
+ * each potential text area (a word, word fragment or sequence of spaces).
+ * Entries are held column by column in parallel primitive arrays rather than
+ * as one object per entry; fonts are recorded as indices into a table of the
+ * fonts used by the entries.
+ */
+final class AreaInfoTable {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final byte FLAG_HYPHENATED = 1;
+    private static final byte FLAG_SPACE = 2;
+    private static final byte FLAG_BREAK_OPP_AFTER = 4;
+
+    private final FOText foText;
+
+    private int size;
+
+    private int[] startIndex;
+    private int[] breakIndex;
+    private int[] wordCharLength;
+    private int[] wordSpaceCount;
+    private int[] letterSpaceCount;
+    private int[] ipdMin;
+    private int[] ipdOpt;
+    private int[] ipdMax;
+    private byte[] flags;
+    private int[] fontIndex;
+    private int[] level;
+    /* allocated when the first entry with adjustments is added */
+    private int[][][] gposAdjustments;
+
+    private final List<Font> fonts = new ArrayList<Font>(2);
+
+    /**
+     * Creates an empty table.
+     *
+     * @param foText
+     *            the text whose area information is stored
+     */
+    AreaInfoTable(final FOText foText) {
+        this.foText = foText;
+        this.startIndex = new int[INITIAL_CAPACITY];
+        this.breakIndex = new int[INITIAL_CAPACITY];
+        this.wordCharLength = new int[INITIAL_CAPACITY];
+        this.wordSpaceCount = new int[INITIAL_CAPACITY];
+        this.letterSpaceCount = new int[INITIAL_CAPACITY];
+        this.ipdMin = new int[INITIAL_CAPACITY];
+        this.ipdOpt = new int[INITIAL_CAPACITY];
+        this.ipdMax = new int[INITIAL_CAPACITY];
+        this.flags = new byte[INITIAL_CAPACITY];
+        this.fontIndex = new int[INITIAL_CAPACITY];
+        this.level = new int[INITIAL_CAPACITY];
+    }
+
+    /** @return the number of entries */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Inserts an entry, shifting the entry at <code>index</code> (if any) and
+     * all subsequent entries up by one.
+     *
+     * @param index
+     *            the index at which to insert
+     * @param startIndex
+     *            index of the first character of the area
+     * @param breakIndex
+     *            index following the last character of the area
+     * @param wordSpaceCount
+     *            number of word spaces
+     * @param letterSpaceCount
+     *            number of letter spaces
+     * @param areaIPD
+     *            the ipd of the area, including word and letter spaces
+     * @param isHyphenated
+     *            true if the area ends at a hyphenation point
+     * @param isSpace
+     *            true if the area holds spaces
+     * @param breakOppAfter
+     *            true if there is a break opportunity after the area
+     * @param font
+     *            the font of the area
+     * @param level
+     *            the bidi level of the area
+     * @param gposAdjustments
+     *            glyph position adjustments, or null
+     * @return the index of the inserted entry
+     */
+    int add // CSOK: ParameterNumber
+    (final int index, final int startIndex, final int breakIndex,
+            final int wordSpaceCount, final int letterSpaceCount,
+            final MinOptMax areaIPD, final boolean isHyphenated,
+            final boolean isSpace, final boolean breakOppAfter,
+            final Font font, final int level, final int[][] gposAdjustments) {
+        assert startIndex <= breakIndex;
+        if (index < 0 || index > this.size) {
+            throw new IndexOutOfBoundsException("attempting index at " + index);
+        }
+        if (this.size == this.startIndex.length) {
+            grow();
+        }
+        final int n = this.size - index;
+        if (n > 0) {
+            shift(index, index + 1, n);
+        }
+        this.startIndex[index] = startIndex;
+        this.breakIndex[index] = breakIndex;
+        this.wordCharLength[index] = -1;
+        this.wordSpaceCount[index] = wordSpaceCount;
+        this.letterSpaceCount[index] = letterSpaceCount;
+        this.ipdMin[index] = areaIPD.getMin();
+        this.ipdOpt[index] = areaIPD.getOpt();
+        this.ipdMax[index] = areaIPD.getMax();
+        this.flags[index] = (byte) ((isHyphenated ? FLAG_HYPHENATED : 0)
+                | (isSpace ? FLAG_SPACE : 0)
+                | (breakOppAfter ? FLAG_BREAK_OPP_AFTER : 0));
+        this.fontIndex[index] = getFontIndex(font);
+        this.level[index] = level;
+        if (gposAdjustments != null && this.gposAdjustments == null) {
+            this.gposAdjustments = new int[this.startIndex.length][][];
+        }
+        if (this.gposAdjustments != null) {
+            this.gposAdjustments[index] = gposAdjustments;
+        }
+        this.size++;
+        return index;
+    }
+
+    /**
+     * Removes the entry at <code>index</code>, shifting all subsequent entries
+     * down by one.
+     *
+     * @param index
+     *            the index of the entry to remove
+     */
+    void remove(final int index) {
+        checkIndex(index);
+        final int n = this.size - index - 1;
+        if (n > 0) {
+            shift(index + 1, index, n);
+        }
+        this.size--;
+        if (this.gposAdjustments != null) {
+            this.gposAdjustments[this.size] = null;
+        }
+    }
+
+    int getStartIndex(final int index) {
+        checkIndex(index);
+        return this.startIndex[index];
+    }
+
+    int getBreakIndex(final int index) {
+        checkIndex(index);
+        return this.breakIndex[index];
+    }
+
+    int getWordSpaceCount(final int index) {
+        checkIndex(index);
+        return this.wordSpaceCount[index];
+    }
+
+    int getLetterSpaceCount(final int index) {
+        checkIndex(index);
+        return this.letterSpaceCount[index];
+    }
+
+    /**
+     * Returns the ipd of an area as a (newly created) <code>MinOptMax</code>.
+     * Use {@link #getAreaIPDOpt} where only the optimum is needed.
+     *
+     * @param index
+     *            the index of the entry
+     * @return the ipd of the area
+     */
+    MinOptMax getAreaIPD(final int index) {
+        checkIndex(index);
+        return MinOptMax.getInstance(this.ipdMin[index], this.ipdOpt[index],
+                this.ipdMax[index]);
+    }
+
+    int getAreaIPDOpt(final int index) {
+        checkIndex(index);
+        return this.ipdOpt[index];
+    }
+
+    int getAreaIPDStretch(final int index) {
+        checkIndex(index);
+        return this.ipdMax[index] - this.ipdOpt[index];
+    }
+
+    int getAreaIPDShrink(final int index) {
+        checkIndex(index);
+        return this.ipdOpt[index] - this.ipdMin[index];
+    }
+
+    boolean isHyphenated(final int index) {
+        checkIndex(index);
+        return (this.flags[index] & FLAG_HYPHENATED) != 0;
+    }
+
+    boolean isSpace(final int index) {
+        checkIndex(index);
+        return (this.flags[index] & FLAG_SPACE) != 0;
+    }
+
+    boolean isBreakOppAfter(final int index) {
+        checkIndex(index);
+        return (this.flags[index] & FLAG_BREAK_OPP_AFTER) != 0;
+    }
+
+    void setBreakOppAfter(final int index, final boolean breakOppAfter) {
+        checkIndex(index);
+        if (breakOppAfter) {
+            this.flags[index] |= FLAG_BREAK_OPP_AFTER;
+        } else {
+            this.flags[index] &= ~FLAG_BREAK_OPP_AFTER;
+        }
+    }
+
+    Font getFont(final int index) {
+        checkIndex(index);
+        return this.fonts.get(this.fontIndex[index]);
+    }
+
+    /**
+     * Determines whether two entries use the same font. Fonts are compared by
+     * identity.
+     *
+     * @param index1
+     *            the index of the first entry
+     * @param index2
+     *            the index of the second entry
+     * @return true if both entries use the same font
+     */
+    boolean hasSameFont(final int index1, final int index2) {
+        checkIndex(index1);
+        checkIndex(index2);
+        return this.fontIndex[index1] == this.fontIndex[index2];
+    }
+
+    int getLevel(final int index) {
+        checkIndex(index);
+        return this.level[index];
+    }
+
+    int[][] getGposAdjustments(final int index) {
+        checkIndex(index);
+        return this.gposAdjustments != null ? this.gposAdjustments[index]
+                : null;
+    }
+
+    /**
+     * Adds one letter space to an entry, increasing its ipd accordingly.
+     *
+     * @param index
+     *            the index of the entry
+     * @param letterSpaceIPD
+     *            the ipd of a letter space
+     */
+    void addLetterSpace(final int index, final MinOptMax letterSpaceIPD) {
+        checkIndex(index);
+        this.letterSpaceCount[index]++;
+        this.ipdMin[index] += letterSpaceIPD.getMin();
+        this.ipdOpt[index] += letterSpaceIPD.getOpt();
+        this.ipdMax[index] += letterSpaceIPD.getMax();
+    }
+
+    /**
+     * Obtain number of 'characters' contained in word. If word is mapped, then
+     * this number may be less than or greater than the original length
+     * (breakIndex - startIndex). We compute and memoize this length upon first
+     * invocation of this method.
+     *
+     * @param index
+     *            the index of the entry
+     * @return the number of (possibly mapped) characters of the entry
+     */
+    int getWordLength(final int index) {
+        checkIndex(index);
+        if (this.wordCharLength[index] == -1) {
+            final int s = this.startIndex[index];
+            final int e = this.breakIndex[index];
+            if (this.foText.hasMapping(s, e)) {
+                this.wordCharLength[index] = this.foText.getMapping(s, e)
+                        .length();
+            } else {
+                assert e >= s;
+                this.wordCharLength[index] = e - s;
+            }
+        }
+        return this.wordCharLength[index];
+    }
+
+    /**
+     * Returns a description of an entry, for debugging.
+     *
+     * @param index
+     *            the index of the entry
+     * @return a description of the entry
+     */
+    String toString(final int index) {
+        return "{" + "interval = [" + getStartIndex(index) + ","
+                + getBreakIndex(index) + "]" + ", isSpace = "
+                + isSpace(index) + ", level = " + getLevel(index)
+                + ", areaIPD = " + getAreaIPD(index) + ", letterSpaceCount = "
+                + getLetterSpaceCount(index) + ", wordSpaceCount = "
+                + getWordSpaceCount(index) + ", isHyphenated = "
+                + isHyphenated(index) + ", font = " + getFont(index) + "}";
+    }
+
+    private int getFontIndex(final Font font) {
+        for (int i = 0, n = this.fonts.size(); i < n; i++) {
+            if (this.fonts.get(i) == font) {
+                return i;
+            }
+        }
+        this.fonts.add(font);
+        return this.fonts.size() - 1;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("attempting index at " + index);
+        }
+    }
+
+    private void shift(final int from, final int to, final int length) {
+        System.arraycopy(this.startIndex, from, this.startIndex, to, length);
+        System.arraycopy(this.breakIndex, from, this.breakIndex, to, length);
+        System.arraycopy(this.wordCharLength, from, this.wordCharLength, to,
+                length);
+        System.arraycopy(this.wordSpaceCount, from, this.wordSpaceCount, to,
+                length);
+        System.arraycopy(this.letterSpaceCount, from, this.letterSpaceCount,
+                to, length);
+        System.arraycopy(this.ipdMin, from, this.ipdMin, to, length);
+        System.arraycopy(this.ipdOpt, from, this.ipdOpt, to, length);
+        System.arraycopy(this.ipdMax, from, this.ipdMax, to, length);
+        System.arraycopy(this.flags, from, this.flags, to, length);
+        System.arraycopy(this.fontIndex, from, this.fontIndex, to, length);
+        System.arraycopy(this.level, from, this.level, to, length);
+        if (this.gposAdjustments != null) {
+            System.arraycopy(this.gposAdjustments, from, this.gposAdjustments,
+                    to, length);
+        }
+    }
+
+    private void grow() {
+        final int capacity = this.startIndex.length * 2;
+        this.startIndex = Arrays.copyOf(this.startIndex, capacity);
+        this.breakIndex = Arrays.copyOf(this.breakIndex, capacity);
+        this.wordCharLength = Arrays.copyOf(this.wordCharLength, capacity);
+        this.wordSpaceCount = Arrays.copyOf(this.wordSpaceCount, capacity);
+        this.letterSpaceCount = Arrays.copyOf(this.letterSpaceCount, capacity);
+        this.ipdMin = Arrays.copyOf(this.ipdMin, capacity);
+        this.ipdOpt = Arrays.copyOf(this.ipdOpt, capacity);
+        this.ipdMax = Arrays.copyOf(this.ipdMax, capacity);
+        this.flags = Arrays.copyOf(this.flags, capacity);
+        this.fontIndex = Arrays.copyOf(this.fontIndex, capacity);
+        this.level = Arrays.copyOf(this.level, capacity);
+        if (this.gposAdjustments != null) {
+            this.gposAdjustments = Arrays.copyOf(this.gposAdjustments,
+                    capacity);
+        }
+    }
+
+}
@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.fop.layoutmgr.BreakingAlgorithm.KnuthNode;
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+import org.apache.fop.layoutmgr.KnuthSequence;
+
+/**
+ * <p>
+ * Bounded cache of the line breaks computed for paragraphs, shared by the
+ * documents rendered with the same {@link org.apache.fop.apps.FopFactory}, so
+ * that a paragraph that reappears unchanged (boilerplate of a template
+ * rendered over and over) is broken into lines only once.
+ * </p>
+ * <p>
+ * A paragraph is identified by the widths, stretch, shrink and penalty values
+ * of its Knuth elements and by the parameters of the line breaking, such as
+ * the available IPD and the alignment; this is everything the breaking
+ * algorithm looks at. What is cached is not the line break positions, which
+ * refer to the layout managers of one document, but the sequence of results
+ * the breaking algorithm reported for the paragraph. Replaying this trace
+ * rebuilds the line layout possibilities of the new paragraph exactly as a
+ * fresh run of the algorithm would. The cache is thread safe. Its size is
+ * bounded by the approximate number of bytes its keys and traces occupy, and
+ * least recently used entries are evicted once it is full.
+ * </p>
+ */
+public final class LineBreakCache {
+
+    /** default maximum weight of the cache, in bytes */
+    public static final long DEFAULT_MAX_WEIGHT = 8 * 1024 * 1024;
+
+    /** maximum number of elements of a cached paragraph */
+    public static final int MAX_PARAGRAPH_LENGTH = 8192;
+
+    /** number of ints describing an element in a key */
+    private static final int ELEMENT_SIZE = 4;
+
+    private static final int BOX = 1;
+    private static final int GLUE = 2;
+    private static final int PENALTY = 3;
+    private static final int FLAGGED = 4;
+
+    /** approximate weight of the objects of an entry besides its arrays */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /** the traces by key, in access order (guarded by itself) */
+    private final Map<Key, Trace> traces = new LinkedHashMap<Key, Trace>(16,
+            0.75f, true);
+
+    private final long maxWeight;
+
+    private long weight;
+
+    /**
+     * Instantiate a cache holding up to {@link #DEFAULT_MAX_WEIGHT} bytes.
+     */
+    public LineBreakCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * Instantiate a cache.
+     *
+     * @param maxWeight
+     *            the maximum weight of the cached paragraphs, in bytes
+     */
+    public LineBreakCache(final long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Make the key of a paragraph. The key must be made once the paragraph is
+     * complete, including its hyphenation points.
+     *
+     * @param par
+     *            the paragraph
+     * @param parameters
+     *            the parameters of the line breaking
+     * @return the key, or null if the paragraph cannot be cached
+     */
+    static Key makeKey(final KnuthSequence par, final int[] parameters) {
+        final int size = par.size();
+        if (size > MAX_PARAGRAPH_LENGTH) {
+            return null;
+        }
+        final int[] elements = new int[size * ELEMENT_SIZE];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            final Object o = par.get(i);
+            if (!(o instanceof KnuthElement)) {
+                return null;
+            }
+            final KnuthElement element = (KnuthElement) o;
+            if (element.isBox()) {
+                elements[n++] = BOX;
+                elements[n++] = element.getWidth();
+                n += 2;
+            } else if (element.isGlue()) {
+                elements[n++] = GLUE;
+                elements[n++] = element.getWidth();
+                elements[n++] = element.getStretch();
+                elements[n++] = element.getShrink();
+            } else if (element.isPenalty()) {
+                elements[n++] = ((KnuthPenalty) element).isPenaltyFlagged() ? FLAGGED
+                        : PENALTY;
+                elements[n++] = element.getWidth();
+                elements[n++] = element.getPenalty();
+                n++;
+            } else {
+                return null;
+            }
+        }
+        return new Key(parameters.clone(), elements);
+    }
+
+    /**
+     * Obtain the trace of the line breaking of a paragraph.
+     *
+     * @param key
+     *            the key of the paragraph
+     * @return the trace, or null if not cached
+     */
+    Trace get(final Key key) {
+        synchronized (this.traces) {
+            return this.traces.get(key);
+        }
+    }
+
+    /**
+     * Cache the trace of the line breaking of a paragraph. The trace must not
+     * be modified afterwards.
+     *
+     * @param key
+     *            the key of the paragraph
+     * @param trace
+     *            the trace
+     */
+    void put(final Key key, final Trace trace) {
+        trace.trim();
+        final long entryWeight = getWeight(key, trace);
+        if (entryWeight > this.maxWeight) {
+            return;
+        }
+        synchronized (this.traces) {
+            final Trace old = this.traces.put(key, trace);
+            if (old != null) {
+                this.weight -= getWeight(key, old);
+            }
+            this.weight += entryWeight;
+            // evict the least recently used entries; the new one comes last
+            final Iterator<Map.Entry<Key, Trace>> iter = this.traces
+                    .entrySet().iterator();
+            while (this.weight > this.maxWeight) {
+                final Map.Entry<Key, Trace> eldest = iter.next();
+                iter.remove();
+                this.weight -= getWeight(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    /**
+     * Obtain the approximate number of bytes a cache entry occupies.
+     *
+     * @param key
+     *            the key of the paragraph
+     * @param trace
+     *            the trace
+     * @return the weight of the entry, in bytes
+     */
+    static long getWeight(final Key key, final Trace trace) {
+        return ENTRY_OVERHEAD + 4L
+                * (key.parameters.length + key.elements.length)
+                + trace.getWeight();
+    }
+
+    /**
+     * Obtain the number of cached paragraphs.
+     *
+     * @return the number of cached paragraphs
+     */
+    public int size() {
+        synchronized (this.traces) {
+            return this.traces.size();
+        }
+    }
+
+    /**
+     * Obtain the approximate number of bytes the cached paragraphs occupy.
+     *
+     * @return the weight of the cache, in bytes
+     */
+    public long getWeight() {
+        synchronized (this.traces) {
+            return this.weight;
+        }
+    }
+
+    /**
+     * The key of a cached paragraph.
+     */
+    static final class Key {
+
+        private final int[] parameters;
+        private final int[] elements;
+        private final int hashCode;
+
+        private Key(final int[] parameters, final int[] elements) {
+            this.parameters = parameters;
+            this.elements = elements;
+            this.hashCode = 31 * Arrays.hashCode(parameters)
+                    + Arrays.hashCode(elements);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object o) {
+            if (o instanceof Key) {
+                final Key k = (Key) o;
+                return k.hashCode == this.hashCode
+                        && Arrays.equals(k.parameters, this.parameters)
+                        && Arrays.equals(k.elements, this.elements);
+            } else {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The receiver of the results of the line breaking of a paragraph, which
+     * are either reported by the breaking algorithm or replayed from a trace.
+     */
+    interface Target {
+
+        /**
+         * Receive a layout possibility.
+         *
+         * @param lineCount
+         *            the number of lines
+         * @param demerits
+         *            the demerits of the layout
+         */
+        void updateData1(int lineCount, double demerits);
+
+        /**
+         * Receive a line break of the current layout possibility.
+         *
+         * @param bestActiveNode
+         *            the node of the line break
+         * @param par
+         *            the paragraph
+         * @param total
+         *            the number of lines of the layout
+         */
+        void updateData2(KnuthNode bestActiveNode, KnuthSequence par, int total);
+
+        /** Start over with the layout possibilities. */
+        void resetAlgorithm();
+
+        /**
+         * Save the layout possibilities found so far.
+         *
+         * @param saveOptLineCount
+         *            true if the optimum line count should be saved
+         */
+        void savePossibilities(boolean saveOptLineCount);
+
+        /** Restore the saved layout possibilities. */
+        void restorePossibilities();
+    }
+
+    /**
+     * The results of the line breaking of a paragraph, in the order the
+     * breaking algorithm reported them.
+     */
+    static final class Trace implements Target {
+
+        private static final byte UPDATE1 = 0;
+        private static final byte UPDATE2 = 1;
+        private static final byte RESET = 2;
+        private static final byte SAVE = 3;
+        private static final byte RESTORE = 4;
+
+        private static final int UPDATE2_INTS = 7;
+
+        private byte[] ops = new byte[16];
+        private int opCount;
+        private int[] ints = new int[64];
+        private int intCount;
+        private double[] doubles = new double[16];
+        private int doubleCount;
+
+        /** {@inheritDoc} */
+        @Override
+        public void updateData1(final int lineCount, final double demerits) {
+            addOp(UPDATE1);
+            addInt(lineCount);
+            addDouble(demerits);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void updateData2(final KnuthNode bestActiveNode,
+                final KnuthSequence par, final int total) {
+            addOp(UPDATE2);
+            addInt(bestActiveNode.position);
+            addInt(bestActiveNode.line);
+            addInt(bestActiveNode.previous != null ? bestActiveNode.previous.position
+                    : -1);
+            addInt(bestActiveNode.difference);
+            addInt(bestActiveNode.availableShrink);
+            addInt(bestActiveNode.availableStretch);
+            addInt(total);
+            addDouble(bestActiveNode.adjustRatio);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void resetAlgorithm() {
+            addOp(RESET);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void savePossibilities(final boolean saveOptLineCount) {
+            addOp(SAVE);
+            addInt(saveOptLineCount ? 1 : 0);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void restorePossibilities() {
+            addOp(RESTORE);
+        }
+
+        /**
+         * Replay the recorded results of the line breaking.
+         *
+         * @param target
+         *            the receiver of the results
+         * @param par
+         *            the paragraph, which must have the key of the trace
+         */
+        void replay(final Target target, final KnuthSequence par) {
+            int i = 0;
+            int d = 0;
+            for (int op = 0; op < this.opCount; op++) {
+                switch (this.ops[op]) {
+                case UPDATE1:
+                    target.updateData1(this.ints[i++], this.doubles[d++]);
+                    break;
+                case UPDATE2:
+                    final int position = this.ints[i];
+                    final int line = this.ints[i + 1];
+                    final int previousPosition = this.ints[i + 2];
+                    // only the position of the previous break is looked at
+                    final KnuthNode previous = previousPosition < 0 ? null
+                            : new KnuthNode(previousPosition, line - 1, 0, 0,
+                                    0, 0, 0, 0, 0, 0, 0, null);
+                    final KnuthNode node = new KnuthNode(position, line, 0, 0,
+                            0, 0, this.doubles[d++], this.ints[i + 4],
+                            this.ints[i + 5], this.ints[i + 3], 0, previous);
+                    target.updateData2(node, par, this.ints[i + 6]);
+                    i += UPDATE2_INTS;
+                    break;
+                case RESET:
+                    target.resetAlgorithm();
+                    break;
+                case SAVE:
+                    target.savePossibilities(this.ints[i++] != 0);
+                    break;
+                case RESTORE:
+                    target.restorePossibilities();
+                    break;
+                default:
+                    throw new IllegalStateException();
+                }
+            }
+        }
+
+        /** Release the unused capacity, once the trace is complete. */
+        void trim() {
+            this.ops = Arrays.copyOf(this.ops, this.opCount);
+            this.ints = Arrays.copyOf(this.ints, this.intCount);
+            this.doubles = Arrays.copyOf(this.doubles, this.doubleCount);
+        }
+
+        /** Obtain the approximate number of bytes of the recorded results. */
+        long getWeight() {
+            return this.ops.length + 4L * this.ints.length + 8L
+                    * this.doubles.length;
+        }
+
+        private void addOp(final byte op) {
+            if (this.opCount == this.ops.length) {
+                this.ops = Arrays.copyOf(this.ops, this.opCount * 2 + 1);
+            }
+            this.ops[this.opCount++] = op;
+        }
+
+        private void addInt(final int value) {
+            if (this.intCount == this.ints.length) {
+                this.ints = Arrays.copyOf(this.ints, this.intCount * 2 + 1);
+            }
+            this.ints[this.intCount++] = value;
+        }
+
+        private void addDouble(final double value) {
+            if (this.doubleCount == this.doubles.length) {
+                this.doubles = Arrays.copyOf(this.doubles,
+                        this.doubleCount * 2 + 1);
+            }
+            this.doubles[this.doubleCount++] = value;
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import java.util.ListIterator;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.area.Trait;
@@ -295,7 +296,8 @@ BlockLevelLayoutManager {
         }
     }
 
-    private class LineBreakingAlgorithm extends BreakingAlgorithm {
+    private class LineBreakingAlgorithm extends BreakingAlgorithm implements
+    LineBreakCache.Target {
         private final LineLayoutManager thisLLM;
         private final int pageAlignment;
         private int activePossibility;
@@ -305,6 +307,8 @@ BlockLevelLayoutManager {
         private final int lead;
         private final int follow;
         private static final double MAX_DEMERITS = 10e6;
+        /** records the results for the line break cache, if not null */
+        private LineBreakCache.Trace trace;
 
         public LineBreakingAlgorithm(
                 // CSOK: ParameterNumber
@@ -325,6 +329,9 @@ BlockLevelLayoutManager {
 
         @Override
         public void updateData1(final int lineCount, final double demerits) {
+            if (this.trace != null) {
+                this.trace.updateData1(lineCount, demerits);
+            }
             LineLayoutManager.this.lineLayouts.addPossibility(lineCount,
                     demerits);
             if (log.isTraceEnabled()) {
@@ -336,6 +343,9 @@ BlockLevelLayoutManager {
         @Override
         public void updateData2(final KnuthNode bestActiveNode,
                 final KnuthSequence par, final int total) {
+            if (this.trace != null) {
+                this.trace.updateData2(bestActiveNode, par, total);
+            }
             // compute indent and adjustment ratio, according to
             // the value of text-align and text-align-last
             int startIndent;
@@ -432,10 +442,41 @@ BlockLevelLayoutManager {
         /*
          * reset activePossibility, as if breakpoints have not yet been computed
          */
+        @Override
         public void resetAlgorithm() {
+            if (this.trace != null) {
+                this.trace.resetAlgorithm();
+            }
             this.activePossibility = -1;
         }
 
+        @Override
+        public void savePossibilities(final boolean saveOptLineCount) {
+            if (this.trace != null) {
+                this.trace.savePossibilities(saveOptLineCount);
+            }
+            LineLayoutManager.this.lineLayouts
+            .savePossibilities(saveOptLineCount);
+        }
+
+        @Override
+        public void restorePossibilities() {
+            if (this.trace != null) {
+                this.trace.restorePossibilities();
+            }
+            LineLayoutManager.this.lineLayouts.restorePossibilities();
+        }
+
+        /**
+         * Record the results of the next runs in the given trace.
+         *
+         * @param trace
+         *            the trace, or null to stop recording
+         */
+        public void setTrace(final LineBreakCache.Trace trace) {
+            this.trace = trace;
+        }
+
         private LineBreakPosition makeLineBreakPosition(
                 // CSOK: ParameterNumber
                 final KnuthSequence par, final int firstElementIndex,
@@ -921,6 +962,29 @@ BlockLevelLayoutManager {
             findHyphenationPoints(currPar);
         }
 
+        // reuse the line breaks of an identical paragraph, if memoized
+        final LineBreakCache cache = getLineBreakCache();
+        LineBreakCache.Key key = null;
+        if (cache != null) {
+            key = LineBreakCache.makeKey(currPar, new int[] { alignment,
+                    this.textAlignment, this.textAlignmentLast,
+                    this.textIndent.getValue(this), currPar.lineFiller.getOpt(),
+                    this.lineHeight.getValue(this), this.lead, this.follow,
+                    this.knuthParagraphs.indexOf(currPar) == 0 ? 1 : 0,
+                    this.hyphenationLadderCount.getEnum() == EN_NO_LIMIT ? 0
+                            : this.hyphenationLadderCount.getValue(),
+                    this.ipd, canWrap ? 1 : 0, canHyphenate ? 1 : 0 });
+            if (key != null) {
+                final LineBreakCache.Trace trace = cache.get(key);
+                if (trace != null) {
+                    trace.replay(alg, currPar);
+                    return this.lineLayouts;
+                }
+                alg.setTrace(new LineBreakCache.Trace());
+            }
+        }
+        final int parSize = currPar.size();
+
         // first try: do not consider hyphenation points as legal breaks
         int allowedBreaks = canWrap ? BreakingAlgorithm.NO_FLAGGED_PENALTIES
                 : BreakingAlgorithm.ONLY_FORCED_BREAKS;
@@ -931,7 +995,7 @@ BlockLevelLayoutManager {
             // if the first try found a set of breaking points, save them
             if (breakingPoints > 0) {
                 alg.resetAlgorithm();
-                this.lineLayouts.savePossibilities(false);
+                alg.savePossibilities(false);
             } else {
                 // the first try failed
                 log.debug("No set of breaking points found with maxAdjustment = "
@@ -968,12 +1032,30 @@ BlockLevelLayoutManager {
             }
 
             // use non-hyphenated breaks, when possible
-            this.lineLayouts.restorePossibilities();
+            alg.restorePossibilities();
         }
 
+        // the algorithm may have inserted an element to recover from an
+        // overflow, in which case the paragraph no longer matches the key
+        if (key != null && currPar.size() == parSize) {
+            cache.put(key, alg.trace);
+        }
         return this.lineLayouts;
     }
 
+    /**
+     * Returns the cache of line breaks shared by the documents of the
+     * {@link org.apache.fop.apps.FopFactory}, if line break memoization is
+     * enabled for the current document.
+     *
+     * @return the cache, or null if line breaks are not memoized
+     */
+    private LineBreakCache getLineBreakCache() {
+        final FOUserAgent userAgent = this.fobj.getUserAgent();
+        return userAgent.isLineBreakMemoizationEnabled() ? userAgent
+                .getFactory().getLineBreakCache() : null;
+    }
+
     /**
      * Creates the element list in BP direction for the broken lines.
      *
@@ -63,100 +63,34 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
     private static final int SOFT_HYPHEN_PENALTY = 1;
 
     /**
-     * Store information about each potential text area. Index of character
-     * which ends the area, IPD of area, including any word-space and
-     * letter-space. Number of word-spaces?
+     * this class stores information about changes in vecAreaInfo which are not
+     * yet applied
      */
-    private class AreaInfo {
+    private static final class PendingChange {
 
         private final int startIndex;
         private final int breakIndex;
-        private int wordCharLength;
-        private final int wordSpaceCount;
-        private int letterSpaceCount;
-        private MinOptMax areaIPD;
+        private final int letterSpaceCount;
+        private final MinOptMax areaIPD;
         private final boolean isHyphenated;
-        private final boolean isSpace;
-        private boolean breakOppAfter;
         private final Font font;
-        private final int level;
-        private final int[][] gposAdjustments;
+        private final int index;
 
-        AreaInfo // CSOK: ParameterNumber
-        (final int startIndex, final int breakIndex, final int wordSpaceCount,
+        private PendingChange(final int startIndex, final int breakIndex,
                 final int letterSpaceCount, final MinOptMax areaIPD,
-                final boolean isHyphenated, final boolean isSpace,
-                final boolean breakOppAfter, final Font font, final int level,
-                final int[][] gposAdjustments) {
-            assert startIndex <= breakIndex;
+                final boolean isHyphenated, final Font font, final int index) {
             this.startIndex = startIndex;
             this.breakIndex = breakIndex;
-            this.wordCharLength = -1;
-            this.wordSpaceCount = wordSpaceCount;
             this.letterSpaceCount = letterSpaceCount;
             this.areaIPD = areaIPD;
             this.isHyphenated = isHyphenated;
-            this.isSpace = isSpace;
-            this.breakOppAfter = breakOppAfter;
             this.font = font;
-            this.level = level;
-            this.gposAdjustments = gposAdjustments;
-        }
-
-        /**
-         * Obtain number of 'characters' contained in word. If word is mapped,
-         * then this number may be less than or greater than the original length
-         * (breakIndex - startIndex). We compute and memoize thius length upon
-         * first invocation of this method.
-         */
-        private int getWordLength() {
-            if (this.wordCharLength == -1) {
-                if (TextLayoutManager.this.foText.hasMapping(this.startIndex,
-                        this.breakIndex)) {
-                    this.wordCharLength = TextLayoutManager.this.foText
-                            .getMapping(this.startIndex, this.breakIndex)
-                            .length();
-                } else {
-                    assert this.breakIndex >= this.startIndex;
-                    this.wordCharLength = this.breakIndex - this.startIndex;
-                }
-            }
-            return this.wordCharLength;
-        }
-
-        private void addToAreaIPD(final MinOptMax idp) {
-            this.areaIPD = this.areaIPD.plus(idp);
-        }
-
-        @Override
-        public String toString() {
-            return super.toString() + "{" + "interval = [" + this.startIndex
-                    + "," + this.breakIndex + "]" + ", isSpace = "
-                    + this.isSpace + ", level = " + this.level + ", areaIPD = "
-                    + this.areaIPD + ", letterSpaceCount = "
-                    + this.letterSpaceCount + ", wordSpaceCount = "
-                    + this.wordSpaceCount + ", isHyphenated = "
-                    + this.isHyphenated + ", font = " + this.font + "}";
-        }
-    }
-
-    /**
-     * this class stores information about changes in vecAreaInfo which are not
-     * yet applied
-     */
-    private final class PendingChange {
-
-        private final AreaInfo areaInfo;
-        private final int index;
-
-        private PendingChange(final AreaInfo areaInfo, final int index) {
-            this.areaInfo = areaInfo;
             this.index = index;
         }
     }
 
     // Hold all possible breaks for the text in this LM's FO.
-    private final List<AreaInfo> areaInfos;
+    private final AreaInfoTable areaInfos;
 
     /** Non-space characters on which we can end a line. */
     private static final String BREAK_CHARS = "-/";
@@ -215,7 +149,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
     public TextLayoutManager(final FOText node) {
         this.foText = node;
         this.letterSpaceAdjustArray = new MinOptMax[node.length() + 1];
-        this.areaInfos = new ArrayList();
+        this.areaInfos = new AreaInfoTable(node);
     }
 
     private KnuthPenalty makeZeroWidthPenalty(final int penaltyValue) {
@@ -286,7 +220,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             final LayoutContext context) {
 
         // Add word areas
-        AreaInfo areaInfo;
+        int areaInfo;
         int wordSpaceCount = 0;
         int letterSpaceCount = 0;
         int firstAreaInfoIndex = -1;
@@ -297,17 +231,19 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
          * On first area created, add any leading space. Calculate word-space
          * stretch value.
          */
-        AreaInfo lastAreaInfo = null;
+        int lastAreaInfo = -1;
         while (posIter.hasNext()) {
             final LeafPosition tbpNext = (LeafPosition) posIter.next();
             if (tbpNext == null) {
                 continue; // Ignore elements without Positions
             }
             if (tbpNext.getLeafPos() != -1) {
-                areaInfo = this.areaInfos.get(tbpNext.getLeafPos());
-                if (lastAreaInfo == null || areaInfo.font != lastAreaInfo.font
-                        || areaInfo.level != lastAreaInfo.level) {
-                    if (lastAreaInfo != null) {
+                areaInfo = tbpNext.getLeafPos();
+                if (lastAreaInfo == -1
+                        || !this.areaInfos.hasSameFont(areaInfo, lastAreaInfo)
+                        || this.areaInfos.getLevel(areaInfo) != this.areaInfos
+                        .getLevel(lastAreaInfo)) {
+                    if (lastAreaInfo != -1) {
                         addAreaInfoAreas(lastAreaInfo, wordSpaceCount,
                                 letterSpaceCount, firstAreaInfoIndex,
                                 lastAreaInfoIndex, realWidth, context);
@@ -317,21 +253,23 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                     letterSpaceCount = 0;
                     realWidth = MinOptMax.ZERO;
                 }
-                wordSpaceCount += areaInfo.wordSpaceCount;
-                letterSpaceCount += areaInfo.letterSpaceCount;
-                realWidth = realWidth.plus(areaInfo.areaIPD);
+                wordSpaceCount += this.areaInfos.getWordSpaceCount(areaInfo);
+                letterSpaceCount += this.areaInfos
+                        .getLetterSpaceCount(areaInfo);
+                realWidth = realWidth.plus(this.areaInfos
+                        .getAreaIPD(areaInfo));
                 lastAreaInfoIndex = tbpNext.getLeafPos();
                 lastAreaInfo = areaInfo;
             }
         }
-        if (lastAreaInfo != null) {
+        if (lastAreaInfo != -1) {
             addAreaInfoAreas(lastAreaInfo, wordSpaceCount, letterSpaceCount,
                     firstAreaInfoIndex, lastAreaInfoIndex, realWidth, context);
         }
 
     }
 
-    private void addAreaInfoAreas(final AreaInfo areaInfo,
+    private void addAreaInfoAreas(final int areaInfo,
             final int wordSpaceCount, int letterSpaceCount,
             final int firstAreaInfoIndex, final int lastAreaInfoIndex,
             MinOptMax realWidth, final LayoutContext context) {
@@ -341,8 +279,9 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         // firstAreaInfoIndex.. lastAreaInfoIndex rather than just the last
         // areaInfo.
         // This needs to be checked.
-        final int textLength = areaInfo.getWordLength();
-        if (areaInfo.letterSpaceCount == textLength && !areaInfo.isHyphenated
+        final int textLength = this.areaInfos.getWordLength(areaInfo);
+        if (this.areaInfos.getLetterSpaceCount(areaInfo) == textLength
+                && !this.areaInfos.isHyphenated(areaInfo)
                 && context.isLastArea()) {
             // the line ends at a character like "/" or "-";
             // remove the letter space after the last character
@@ -350,7 +289,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             --letterSpaceCount;
         }
 
-        for (int i = areaInfo.startIndex; i < areaInfo.breakIndex; ++i) {
+        for (int i = this.areaInfos.getStartIndex(areaInfo), n = this.areaInfos
+                .getBreakIndex(areaInfo); i < n; ++i) {
             final MinOptMax letterSpaceAdjustment = this.letterSpaceAdjustArray[i + 1];
             if (letterSpaceAdjustment != null
                     && letterSpaceAdjustment.isElastic()) {
@@ -359,7 +299,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         }
 
         // add hyphenation character if the last word is hyphenated
-        if (context.isLastArea() && areaInfo.isHyphenated) {
+        if (context.isLastArea() && this.areaInfos.isHyphenated(areaInfo)) {
             realWidth = realWidth.plus(this.hyphIPD);
         }
 
@@ -404,7 +344,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
         final TextArea textArea = new TextAreaBuilder(realWidth, totalAdjust,
                 context, firstAreaInfoIndex, lastAreaInfoIndex,
-                context.isLastArea(), areaInfo.font).build();
+                context.isLastArea(), this.areaInfos.getFont(areaInfo)).build();
 
         // wordSpaceDim is computed in relation to wordSpaceIPD.opt
         // but the renderer needs to know the adjustment in relation
@@ -445,7 +385,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         // other, non-constructor state
         private TextArea textArea; // text area being constructed
         private int blockProgressionDimension; // calculated bpd
-        private AreaInfo areaInfo; // current area info when iterating over
+        private int areaInfo; // index of current area info when iterating over
         // words
         private StringBuilder wordChars; // current word's character buffer
         private int[] letterSpaceAdjust; // current word's letter space
@@ -559,8 +499,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             int areaInfoIndex = -1;
             int wordCharLength = 0;
             for (int wordIndex = this.firstIndex; wordIndex <= this.lastIndex; wordIndex++) {
-                this.areaInfo = getAreaInfo(wordIndex);
-                if (this.areaInfo.isSpace) {
+                this.areaInfo = wordIndex;
+                if (TextLayoutManager.this.areaInfos.isSpace(wordIndex)) {
                     addSpaces();
                 } else {
                     // areaInfo stores information about a word fragment
@@ -569,7 +509,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                         areaInfoIndex = wordIndex;
                         wordCharLength = 0;
                     }
-                    wordCharLength += this.areaInfo.getWordLength();
+                    wordCharLength += TextLayoutManager.this.areaInfos
+                            .getWordLength(wordIndex);
                     if (isWordEnd(wordIndex)) {
                         addWord(areaInfoIndex, wordIndex, wordCharLength);
                         areaInfoIndex = -1;
@@ -580,7 +521,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
         private boolean isWordEnd(final int areaInfoIndex) {
             return areaInfoIndex == this.lastIndex
-                    || getAreaInfo(areaInfoIndex + 1).isSpace;
+                    || TextLayoutManager.this.areaInfos
+                    .isSpace(areaInfoIndex + 1);
         }
 
         /**
@@ -609,10 +551,9 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             // iterate over word's fragments, adding word chars (with bidi
             // levels), letter space adjustments, and glyph position adjustments
             for (int i = startIndex; i <= endIndex; i++) {
-                final AreaInfo wordAreaInfo = getAreaInfo(i);
-                addWordChars(wordAreaInfo);
-                addLetterAdjust(wordAreaInfo);
-                if (addGlyphPositionAdjustments(wordAreaInfo)) {
+                addWordChars(i);
+                addLetterAdjust(i);
+                if (addGlyphPositionAdjustments(i)) {
                     gposAdjusted = true;
                 }
             }
@@ -666,7 +607,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
         private boolean isHyphenated(final int endIndex) {
             return this.isLastArea && endIndex == this.lastIndex
-                    && this.areaInfo.isHyphenated;
+                    && TextLayoutManager.this.areaInfos
+                    .isHyphenated(this.areaInfo);
         }
 
         private void addHyphenationChar() {
@@ -684,11 +626,13 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
          * buffer; (3) update word's IPD with optimal IPD of fragment.
          *
          * @param wordAreaInfo
-         *            fragment info
+         *            index of fragment info
          */
-        private void addWordChars(final AreaInfo wordAreaInfo) {
-            final int s = wordAreaInfo.startIndex;
-            final int e = wordAreaInfo.breakIndex;
+        private void addWordChars(final int wordAreaInfo) {
+            final int s = TextLayoutManager.this.areaInfos
+                    .getStartIndex(wordAreaInfo);
+            final int e = TextLayoutManager.this.areaInfos
+                    .getBreakIndex(wordAreaInfo);
             if (TextLayoutManager.this.foText.hasMapping(s, e)) {
                 this.wordChars.append(TextLayoutManager.this.foText.getMapping(
                         s, e));
@@ -701,7 +645,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                 }
                 addWordLevels(TextLayoutManager.this.foText.getBidiLevels(s, e));
             }
-            this.wordIPD += wordAreaInfo.areaIPD.getOpt();
+            this.wordIPD += TextLayoutManager.this.areaInfos
+                    .getAreaIPDOpt(wordAreaInfo);
         }
 
         /**
@@ -734,16 +679,20 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
          * letter space adjustments for each (possibly mapped) character.
          *
          * @param wordAreaInfo
-         *            fragment info
+         *            index of fragment info
          */
-        private void addLetterAdjust(final AreaInfo wordAreaInfo) {
-            int letterSpaceCount = wordAreaInfo.letterSpaceCount;
-            final int wordLength = wordAreaInfo.getWordLength();
+        private void addLetterAdjust(final int wordAreaInfo) {
+            int letterSpaceCount = TextLayoutManager.this.areaInfos
+                    .getLetterSpaceCount(wordAreaInfo);
+            final int wordLength = TextLayoutManager.this.areaInfos
+                    .getWordLength(wordAreaInfo);
+            final int wordStart = TextLayoutManager.this.areaInfos
+                    .getStartIndex(wordAreaInfo);
             final int taAdjust = this.textArea.getTextLetterSpaceAdjust();
             for (int i = 0, n = wordLength; i < n; i++) {
                 final int j = this.letterSpaceAdjustIndex + i;
                 if (j > 0) {
-                    final int k = wordAreaInfo.startIndex + i;
+                    final int k = wordStart + i;
                     final MinOptMax adj = k < TextLayoutManager.this.letterSpaceAdjustArray.length ? TextLayoutManager.this.letterSpaceAdjustArray[k]
                             : null;
                     this.letterSpaceAdjust[j] = adj == null ? 0 : adj.getOpt();
@@ -761,14 +710,16 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
          * glyph position adjustments for each (possibly mapped) character.
          *
          * @param wordAreaInfo
-         *            fragment info
+         *            index of fragment info
          * @return true if an adjustment was non-zero
          */
-        private boolean addGlyphPositionAdjustments(final AreaInfo wordAreaInfo) {
+        private boolean addGlyphPositionAdjustments(final int wordAreaInfo) {
             boolean adjusted = false;
-            final int[][] gpa = wordAreaInfo.gposAdjustments;
+            final int[][] gpa = TextLayoutManager.this.areaInfos
+                    .getGposAdjustments(wordAreaInfo);
             final int numAdjusts = gpa != null ? gpa.length : 0;
-            final int wordLength = wordAreaInfo.getWordLength();
+            final int wordLength = TextLayoutManager.this.areaInfos
+                    .getWordLength(wordAreaInfo);
             if (numAdjusts > 0) {
                 final int need = this.gposAdjustmentsIndex + numAdjusts;
                 if (need <= this.gposAdjustments.length) {
@@ -807,20 +758,24 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             // [TBD] need to better handling of spaceIPD assignment, for now,
             // divide the area info's allocated IPD evenly among the
             // non-zero-width space characters
+            final int startIndex = TextLayoutManager.this.areaInfos
+                    .getStartIndex(this.areaInfo);
+            final int breakIndex = TextLayoutManager.this.areaInfos
+                    .getBreakIndex(this.areaInfo);
             int numZeroWidthSpaces = 0;
-            for (int i = this.areaInfo.startIndex; i < this.areaInfo.breakIndex; i++) {
+            for (int i = startIndex; i < breakIndex; i++) {
                 final char spaceChar = TextLayoutManager.this.foText.charAt(i);
                 if (CharUtilities.isZeroWidthSpace(spaceChar)) {
                     numZeroWidthSpaces++;
                 }
             }
-            final int numSpaces = this.areaInfo.breakIndex
-                    - this.areaInfo.startIndex - numZeroWidthSpaces;
-            final int spaceIPD = this.areaInfo.areaIPD.getOpt()
+            final int numSpaces = breakIndex - startIndex - numZeroWidthSpaces;
+            final int spaceIPD = TextLayoutManager.this.areaInfos
+                    .getAreaIPDOpt(this.areaInfo)
                     / (numSpaces > 0 ? numSpaces : 1);
             // add space area children, one for each non-zero-width space
             // character
-            for (int i = this.areaInfo.startIndex; i < this.areaInfo.breakIndex; i++) {
+            for (int i = startIndex; i < breakIndex; i++) {
                 final char spaceChar = TextLayoutManager.this.foText.charAt(i);
                 final int level = TextLayoutManager.this.foText.bidiLevelAt(i);
                 if (!CharUtilities.isZeroWidthSpace(spaceChar)) {
@@ -833,22 +788,28 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
     }
 
-    private void addAreaInfo(final AreaInfo ai) {
-        addAreaInfo(this.areaInfos.size(), ai);
+    private int addAreaInfo // CSOK: ParameterNumber
+    (final int startIndex, final int breakIndex, final int wordSpaceCount,
+            final int letterSpaceCount, final MinOptMax areaIPD,
+            final boolean isHyphenated, final boolean isSpace,
+            final boolean breakOppAfter, final Font font, final int level,
+            final int[][] gposAdjustments) {
+        return this.areaInfos.add(this.areaInfos.size(), startIndex,
+                breakIndex, wordSpaceCount, letterSpaceCount, areaIPD,
+                isHyphenated, isSpace, breakOppAfter, font, level,
+                gposAdjustments);
     }
 
-    private void addAreaInfo(final int index, final AreaInfo ai) {
-        this.areaInfos.add(index, ai);
+    private void addAreaInfo(final int index, final PendingChange change) {
+        this.areaInfos.add(index, change.startIndex, change.breakIndex, 0,
+                change.letterSpaceCount, change.areaIPD, change.isHyphenated,
+                false, false, change.font, -1, null);
     }
 
     private void removeAreaInfo(final int index) {
         this.areaInfos.remove(index);
     }
 
-    private AreaInfo getAreaInfo(final int index) {
-        return this.areaInfos.get(index);
-    }
-
     private void addToLetterAdjust(final int index, final int width) {
         if (this.letterSpaceAdjustArray[index] == null) {
             this.letterSpaceAdjustArray[index] = MinOptMax.getInstance(width);
@@ -882,8 +843,8 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
         final List returnList = new LinkedList();
         KnuthSequence sequence = new InlineKnuthSequence();
-        AreaInfo areaInfo = null;
-        AreaInfo prevAreaInfo = null;
+        int areaInfo = -1;
+        int prevAreaInfo = -1;
         returnList.add(sequence);
 
         if (log.isDebugEnabled()) {
@@ -937,11 +898,11 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                             breakOpportunity, prevLevel);
                 }
             } else {
-                if (areaInfo != null) {
+                if (areaInfo != -1) {
                     prevAreaInfo = areaInfo;
                     processLeftoverAreaInfo(alignment, sequence, areaInfo,
                             ch == CharUtilities.SPACE || breakOpportunity);
-                    areaInfo = null;
+                    areaInfo = -1;
                 }
                 if (breakAction == LineBreakStatus.EXPLICIT_BREAK) {
                     sequence = processLinebreak(returnList, sequence);
@@ -952,19 +913,20 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                     && this.foText.getWhitespaceTreatment() == Constants.EN_PRESERVE
                     || ch == CharUtilities.NBSPACE) {
                 // preserved space or non-breaking space:
-                // create the AreaInfo object
-                areaInfo = new AreaInfo(this.nextStart, this.nextStart + 1, 1,
+                // add the area info; its elements are created once the
+                // break opportunity after it is known
+                areaInfo = addAreaInfo(this.nextStart, this.nextStart + 1, 1,
                         0, this.wordSpaceIPD, false, true, breakOpportunity,
                         this.spaceFont, level, null);
                 this.thisStart = this.nextStart + 1;
             } else if (CharUtilities.isFixedWidthSpace(ch)
                     || CharUtilities.isZeroWidthSpace(ch)) {
-                // create the AreaInfo object
+                // add the area info
                 final Font font = FontSelector.selectFontForCharacterInText(ch,
                         this.foText, this);
                 final MinOptMax ipd = MinOptMax.getInstance(font
                         .getCharWidth(ch));
-                areaInfo = new AreaInfo(this.nextStart, this.nextStart + 1, 0,
+                areaInfo = addAreaInfo(this.nextStart, this.nextStart + 1, 0,
                         0, ipd, false, true, breakOpportunity, font, level,
                         null);
                 this.thisStart = this.nextStart + 1;
@@ -988,7 +950,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         } else if (inWhitespace) {
             processWhitespace(alignment, sequence, !this.keepTogether,
                     prevLevel);
-        } else if (areaInfo != null) {
+        } else if (areaInfo != -1) {
             processLeftoverAreaInfo(alignment, sequence, areaInfo,
                     ch == CharUtilities.ZERO_WIDTH_SPACE);
         } else if (CharUtilities.isExplicitBreak(ch)) {
@@ -1022,15 +984,13 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
     }
 
     private void processLeftoverAreaInfo(final int alignment,
-            final KnuthSequence sequence, final AreaInfo areaInfo,
+            final KnuthSequence sequence, final int areaInfo,
             final boolean breakOpportunityAfter) {
-        addAreaInfo(areaInfo);
-        areaInfo.breakOppAfter = breakOpportunityAfter;
-        addElementsForASpace(sequence, alignment, areaInfo,
-                this.areaInfos.size() - 1);
+        this.areaInfos.setBreakOppAfter(areaInfo, breakOpportunityAfter);
+        addElementsForASpace(sequence, alignment, areaInfo);
     }
 
-    private AreaInfo processWhitespace(final int alignment,
+    private int processWhitespace(final int alignment,
             final KnuthSequence sequence, final boolean breakOpportunity,
             final int level) {
 
@@ -1039,25 +999,22 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         }
 
         // End of whitespace
-        // create the AreaInfo object
+        // add the area info
         assert this.nextStart >= this.thisStart;
-        final AreaInfo areaInfo = new AreaInfo(this.thisStart, this.nextStart,
+        final int areaInfo = addAreaInfo(this.thisStart, this.nextStart,
                 this.nextStart - this.thisStart, 0,
                 this.wordSpaceIPD.mult(this.nextStart - this.thisStart), false,
                 true, breakOpportunity, this.spaceFont, level, null);
 
-        addAreaInfo(areaInfo);
-
         // create the elements
-        addElementsForASpace(sequence, alignment, areaInfo,
-                this.areaInfos.size() - 1);
+        addElementsForASpace(sequence, alignment, areaInfo);
 
         this.thisStart = this.nextStart;
         return areaInfo;
     }
 
-    private AreaInfo processWordMapping(final int lastIndex, final Font font,
-            final AreaInfo prevAreaInfo, final char breakOpportunityChar,
+    private int processWordMapping(final int lastIndex, final Font font,
+            final int prevAreaInfo, final char breakOpportunityChar,
             final boolean endsWithHyphen, final int level) {
         final int s = this.thisStart; // start index of word in FOText character
         // buffer
@@ -1113,7 +1070,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         }
 
         // 7. compute word ipd based on final position adjustments
-        MinOptMax ipd = MinOptMax.ZERO;
+        int width = 0;
         for (int i = 0, n = mcs.length(); i < n; i++) {
             final int c = mcs.charAt(i);
             // TODO !BMP
@@ -1124,12 +1081,13 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             if (gpa != null) {
                 w += gpa[i][GlyphPositioningTable.Value.IDX_X_ADVANCE];
             }
-            ipd = ipd.plus(w);
+            width += w;
         }
+        final MinOptMax ipd = MinOptMax.getInstance(width);
 
         // [TBD] - handle letter spacing
 
-        return new AreaInfo(s, e, 0, nLS, ipd, endsWithHyphen, false,
+        return addAreaInfo(s, e, 0, nLS, ipd, endsWithHyphen, false,
                 breakOpportunityChar != 0, font, level, gpa);
     }
 
@@ -1179,11 +1137,11 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         }
     }
 
-    private AreaInfo processWordNoMapping(final int lastIndex, final Font font,
-            final AreaInfo prevAreaInfo, final char breakOpportunityChar,
+    private int processWordNoMapping(final int lastIndex, final Font font,
+            final int prevAreaInfo, final char breakOpportunityChar,
             final boolean endsWithHyphen, final int level) {
         final boolean kerning = font.hasKerning();
-        MinOptMax wordIPD = MinOptMax.ZERO;
+        int wordWidth = 0;
 
         if (log.isDebugEnabled()) {
             log.debug("PW: [" + this.thisStart + "," + lastIndex + "]: {"
@@ -1195,7 +1153,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
             // character width
             final int charWidth = font.getCharWidth(currentChar);
-            wordIPD = wordIPD.plus(charWidth);
+            wordWidth += charWidth;
 
             // kerning
             if (kerning) {
@@ -1203,15 +1161,16 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                 if (i > this.thisStart) {
                     final char previousChar = this.foText.charAt(i - 1);
                     kern = font.getKernValue(previousChar, currentChar);
-                } else if (prevAreaInfo != null && !prevAreaInfo.isSpace
-                        && prevAreaInfo.breakIndex > 0) {
+                } else if (prevAreaInfo != -1
+                        && !this.areaInfos.isSpace(prevAreaInfo)
+                        && this.areaInfos.getBreakIndex(prevAreaInfo) > 0) {
                     final char previousChar = this.foText
-                            .charAt(prevAreaInfo.breakIndex - 1);
+                            .charAt(this.areaInfos.getBreakIndex(prevAreaInfo) - 1);
                     kern = font.getKernValue(previousChar, currentChar);
                 }
                 if (kern != 0) {
                     addToLetterAdjust(i, kern);
-                    wordIPD = wordIPD.plus(kern);
+                    wordWidth += kern;
                 }
             }
         }
@@ -1241,16 +1200,17 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             }
         }
         assert letterSpaces >= 0;
-        wordIPD = wordIPD.plus(this.letterSpaceIPD.mult(letterSpaces));
+        final MinOptMax wordIPD = MinOptMax.getInstance(wordWidth).plus(
+                this.letterSpaceIPD.mult(letterSpaces));
 
-        // create and return the AreaInfo object
-        return new AreaInfo(this.thisStart, lastIndex, 0, letterSpaces,
+        // add the area info and return its index
+        return addAreaInfo(this.thisStart, lastIndex, 0, letterSpaces,
                 wordIPD, endsWithHyphen, false, breakOpportunityChar != 0,
                 font, level, null);
     }
 
-    private AreaInfo processWord(final int alignment,
-            final KnuthSequence sequence, AreaInfo prevAreaInfo, final char ch,
+    private int processWord(final int alignment,
+            final KnuthSequence sequence, int prevAreaInfo, final char ch,
             final boolean breakOpportunity, final boolean checkEndsWithHyphen,
             final int level) {
 
@@ -1264,7 +1224,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                 && this.foText.charAt(lastIndex) == CharUtilities.SOFT_HYPHEN;
         final Font font = FontSelector.selectFontForCharactersInText(
                 this.foText, this.thisStart, lastIndex, this.foText, this);
-        AreaInfo areaInfo;
+        int areaInfo;
         if (font.performsSubstitution() || font.performsPositioning()) {
             areaInfo = processWordMapping(lastIndex, font, prevAreaInfo,
                     breakOpportunity ? ch : 0, endsWithHyphen, level);
@@ -1273,12 +1233,10 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                     breakOpportunity ? ch : 0, endsWithHyphen, level);
         }
         prevAreaInfo = areaInfo;
-        addAreaInfo(areaInfo);
         this.tempStart = this.nextStart;
 
         // add the elements
-        addElementsForAWordFragment(sequence, alignment, areaInfo,
-                this.areaInfos.size() - 1);
+        addElementsForAWordFragment(sequence, alignment, areaInfo);
         this.thisStart = this.nextStart;
 
         return prevAreaInfo;
@@ -1303,9 +1261,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         final int index = leafPos.getLeafPos();
         // element could refer to '-1' position, for non-collapsed spaces (?)
         if (index > -1) {
-            final AreaInfo areaInfo = getAreaInfo(index);
-            areaInfo.letterSpaceCount++;
-            areaInfo.addToAreaIPD(this.letterSpaceIPD);
+            this.areaInfos.addLetterSpace(index, this.letterSpaceIPD);
             if (TextLayoutManager.BREAK_CHARS.indexOf(this.foText
                     .charAt(this.tempStart - 1)) >= 0) {
                 // the last character could be used as a line break
@@ -1319,14 +1275,15 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             } else if (this.letterSpaceIPD.isStiff()) {
                 // constant letter space: replace the box
                 // give it the unwrapped position of the replaced element
-                oldListIterator.set(new KnuthInlineBox(areaInfo.areaIPD
-                        .getOpt(), this.alignmentContext, pos, false));
+                oldListIterator.set(new KnuthInlineBox(this.areaInfos
+                        .getAreaIPDOpt(index), this.alignmentContext, pos,
+                        false));
             } else {
                 // adjustable letter space: replace the glue
                 oldListIterator.next(); // this would return the penalty element
                 oldListIterator.next(); // this would return the glue element
                 oldListIterator.set(new KnuthGlue(this.letterSpaceIPD
-                        .mult(areaInfo.letterSpaceCount),
+                        .mult(this.areaInfos.getLetterSpaceCount(index)),
                         this.auxiliaryPosition, true));
             }
         }
@@ -1336,28 +1293,28 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
     /** {@inheritDoc} */
     @Override
     public void hyphenate(final Position pos, final HyphContext hyphContext) {
-        final AreaInfo areaInfo = getAreaInfo(((LeafPosition) pos).getLeafPos()
-                + this.changeOffset);
-        int startIndex = areaInfo.startIndex;
+        final int areaInfo = ((LeafPosition) pos).getLeafPos()
+                + this.changeOffset;
+        int startIndex = this.areaInfos.getStartIndex(areaInfo);
+        final int breakIndex = this.areaInfos.getBreakIndex(areaInfo);
         int stopIndex;
         boolean nothingChanged = true;
-        final Font font = areaInfo.font;
+        final Font font = this.areaInfos.getFont(areaInfo);
 
-        while (startIndex < areaInfo.breakIndex) {
+        while (startIndex < breakIndex) {
             MinOptMax newIPD = MinOptMax.ZERO;
             boolean hyphenFollows;
 
             stopIndex = startIndex + hyphContext.getNextHyphPoint();
-            if (hyphContext.hasMoreHyphPoints()
-                    && stopIndex <= areaInfo.breakIndex) {
+            if (hyphContext.hasMoreHyphPoints() && stopIndex <= breakIndex) {
                 // stopIndex is the index of the first character
                 // after a hyphenation point
                 hyphenFollows = true;
             } else {
                 // there are no more hyphenation points,
-                // or the next one is after areaInfo.breakIndex
+                // or the next one is after the area info's break index
                 hyphenFollows = false;
-                stopIndex = areaInfo.breakIndex;
+                stopIndex = breakIndex;
             }
 
             hyphContext.updateOffset(stopIndex - startIndex);
@@ -1384,20 +1341,20 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             }
 
             // add letter spaces
-            final boolean isWordEnd = stopIndex == areaInfo.breakIndex
-                    && areaInfo.letterSpaceCount < areaInfo.getWordLength();
+            final boolean isWordEnd = stopIndex == breakIndex
+                    && this.areaInfos.getLetterSpaceCount(areaInfo) < this.areaInfos
+                    .getWordLength(areaInfo);
             final int letterSpaceCount = isWordEnd ? stopIndex - startIndex - 1
                     : stopIndex - startIndex;
 
             assert letterSpaceCount >= 0;
             newIPD = newIPD.plus(this.letterSpaceIPD.mult(letterSpaceCount));
 
-            if (!(nothingChanged && stopIndex == areaInfo.breakIndex && !hyphenFollows)) {
-                // the new AreaInfo object is not equal to the old one
-                this.changeList.add(new PendingChange(new AreaInfo(startIndex,
-                        stopIndex, 0, letterSpaceCount, newIPD, hyphenFollows,
-                        false, false, font, -1, null), ((LeafPosition) pos)
-                        .getLeafPos() + this.changeOffset));
+            if (!(nothingChanged && stopIndex == breakIndex && !hyphenFollows)) {
+                // the new area info is not equal to the old one
+                this.changeList.add(new PendingChange(startIndex, stopIndex,
+                        letterSpaceCount, newIPD, hyphenFollows, font,
+                        areaInfo));
                 nothingChanged = false;
             }
             startIndex = stopIndex;
@@ -1477,7 +1434,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                             - areaInfosRemoved;
                     removeAreaInfo(changeIndex);
                 }
-                addAreaInfo(changeIndex, currChange.areaInfo);
+                addAreaInfo(changeIndex, currChange);
             }
             this.changeList.clear();
         }
@@ -1500,15 +1457,13 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         final LinkedList returnList = new LinkedList();
 
         for (; this.returnedIndices[0] <= this.returnedIndices[1]; this.returnedIndices[0]++) {
-            final AreaInfo areaInfo = getAreaInfo(this.returnedIndices[0]);
-            if (areaInfo.wordSpaceCount == 0) {
+            final int areaInfo = this.returnedIndices[0];
+            if (this.areaInfos.getWordSpaceCount(areaInfo) == 0) {
                 // areaInfo refers either to a word or a word fragment
-                addElementsForAWordFragment(returnList, alignment, areaInfo,
-                        this.returnedIndices[0]);
+                addElementsForAWordFragment(returnList, alignment, areaInfo);
             } else {
                 // areaInfo refers to a space
-                addElementsForASpace(returnList, alignment, areaInfo,
-                        this.returnedIndices[0]);
+                addElementsForASpace(returnList, alignment, areaInfo);
             }
         }
         setFinished(this.returnedIndices[0] == this.areaInfos.size() - 1);
@@ -1522,10 +1477,10 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         final int leafValue = ((LeafPosition) pos).getLeafPos()
                 + this.changeOffset;
         if (leafValue != -1) {
-            final AreaInfo areaInfo = getAreaInfo(leafValue);
             final StringBuilder buffer = new StringBuilder(
-                    areaInfo.getWordLength());
-            for (int i = areaInfo.startIndex; i < areaInfo.breakIndex; i++) {
+                    this.areaInfos.getWordLength(leafValue));
+            for (int i = this.areaInfos.getStartIndex(leafValue), n = this.areaInfos
+                    .getBreakIndex(leafValue); i < n; i++) {
                 buffer.append(this.foText.charAt(i));
             }
             return buffer.toString();
@@ -1535,42 +1490,44 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
     }
 
     private void addElementsForASpace(final List baseList, final int alignment,
-            final AreaInfo areaInfo, final int leafValue) {
-        final LeafPosition mainPosition = new LeafPosition(this, leafValue);
+            final int areaInfo) {
+        final LeafPosition mainPosition = new LeafPosition(this, areaInfo);
+        final int areaIPD = this.areaInfos.getAreaIPDOpt(areaInfo);
 
-        if (!areaInfo.breakOppAfter) {
+        if (!this.areaInfos.isBreakOppAfter(areaInfo)) {
             // a non-breaking space
             if (alignment == Constants.EN_JUSTIFY) {
                 // the space can stretch and shrink, and must be preserved
                 // when starting a line
                 baseList.add(makeAuxiliaryZeroWidthBox());
                 baseList.add(makeZeroWidthPenalty(KnuthElement.INFINITE));
-                baseList.add(new KnuthGlue(areaInfo.areaIPD, mainPosition,
-                        false));
+                baseList.add(new KnuthGlue(areaIPD, this.areaInfos
+                        .getAreaIPDStretch(areaInfo), this.areaInfos
+                        .getAreaIPDShrink(areaInfo), mainPosition, false));
             } else {
                 // the space does not need to stretch or shrink, and must be
                 // preserved when starting a line
-                baseList.add(new KnuthInlineBox(areaInfo.areaIPD.getOpt(),
-                        null, mainPosition, true));
+                baseList.add(new KnuthInlineBox(areaIPD, null, mainPosition,
+                        true));
             }
         } else {
-            if (this.foText.charAt(areaInfo.startIndex) != CharUtilities.SPACE
+            if (this.foText.charAt(this.areaInfos.getStartIndex(areaInfo)) != CharUtilities.SPACE
                     || this.foText.getWhitespaceTreatment() == Constants.EN_PRESERVE) {
                 // a breaking space that needs to be preserved
                 baseList.addAll(getElementsForBreakingSpace(alignment,
                         areaInfo, this.auxiliaryPosition, 0, mainPosition,
-                        areaInfo.areaIPD.getOpt(), true));
+                        areaIPD, true));
             } else {
                 // a (possible block) of breaking spaces
                 baseList.addAll(getElementsForBreakingSpace(alignment,
-                        areaInfo, mainPosition, areaInfo.areaIPD.getOpt(),
+                        areaInfo, mainPosition, areaIPD,
                         this.auxiliaryPosition, 0, false));
             }
         }
     }
 
     private List getElementsForBreakingSpace(final int alignment,
-            final AreaInfo areaInfo, final Position pos2,
+            final int areaInfo, final Position pos2,
             final int p2WidthOffset, final Position pos3,
             final int p3WidthOffset, final boolean skipZeroCheck) {
         final List elements = new ArrayList();
@@ -1621,7 +1578,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
                         0, this.auxiliaryPosition, false);
                 elements.add(g);
                 elements.add(makeZeroWidthPenalty(0));
-                g = new KnuthGlue(areaInfo.areaIPD.getOpt(), -3
+                g = new KnuthGlue(this.areaInfos.getAreaIPDOpt(areaInfo), -3
                         * LineLayoutManager.DEFAULT_SPACE_WIDTH, 0, pos2, false);
                 elements.add(g);
             }
@@ -1632,7 +1589,7 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             // the stretch and shrink depends on the space width
             elements.addAll(getElementsForJustifiedText(areaInfo, pos2,
                     p2WidthOffset, pos3, p3WidthOffset, skipZeroCheck,
-                    areaInfo.areaIPD.getShrink()));
+                    this.areaInfos.getAreaIPDShrink(areaInfo)));
             break;
 
         default:
@@ -1644,12 +1601,12 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
         return elements;
     }
 
-    private List getElementsForJustifiedText(final AreaInfo areaInfo,
+    private List getElementsForJustifiedText(final int areaInfo,
             final Position pos2, final int p2WidthOffset, final Position pos3,
             final int p3WidthOffset, final boolean skipZeroCheck,
             final int shrinkability) {
 
-        final int stretchability = areaInfo.areaIPD.getStretch();
+        final int stretchability = this.areaInfos.getAreaIPDStretch(areaInfo);
 
         final List elements = new ArrayList();
         if (skipZeroCheck || this.lineStartBAP != 0 || this.lineEndBAP != 0) {
@@ -1664,35 +1621,39 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
             elements.add(new KnuthGlue(this.lineStartBAP + p3WidthOffset, 0, 0,
                     pos3, false));
         } else {
-            elements.add(new KnuthGlue(areaInfo.areaIPD.getOpt(),
+            elements.add(new KnuthGlue(this.areaInfos.getAreaIPDOpt(areaInfo),
                     stretchability, shrinkability, pos2, false));
         }
         return elements;
     }
 
     private void addElementsForAWordFragment(final List baseList,
-            final int alignment, final AreaInfo areaInfo, final int leafValue) {
-        final LeafPosition mainPosition = new LeafPosition(this, leafValue);
+            final int alignment, final int areaInfo) {
+        final LeafPosition mainPosition = new LeafPosition(this, areaInfo);
+        final int areaIPD = this.areaInfos.getAreaIPDOpt(areaInfo);
+        final int letterSpaceCount = this.areaInfos
+                .getLetterSpaceCount(areaInfo);
+        final boolean isHyphenated = this.areaInfos.isHyphenated(areaInfo);
+        final boolean breakOppAfter = this.areaInfos.isBreakOppAfter(areaInfo);
 
         // if the last character of the word fragment is '-' or '/',
         // the fragment could end a line; in this case, it loses one
         // of its letter spaces;
-        final boolean suppressibleLetterSpace = areaInfo.breakOppAfter
-                && !areaInfo.isHyphenated;
+        final boolean suppressibleLetterSpace = breakOppAfter && !isHyphenated;
 
         if (this.letterSpaceIPD.isStiff()) {
             // constant letter spacing
             baseList.add(new KnuthInlineBox(
-                    suppressibleLetterSpace ? areaInfo.areaIPD.getOpt()
-                            - this.letterSpaceIPD.getOpt() : areaInfo.areaIPD
-                            .getOpt(), this.alignmentContext,
-                            notifyPos(mainPosition), false));
+                    suppressibleLetterSpace ? areaIPD
+                            - this.letterSpaceIPD.getOpt() : areaIPD,
+                            this.alignmentContext, notifyPos(mainPosition),
+                            false));
         } else {
             // adjustable letter spacing
-            final int unsuppressibleLetterSpaces = suppressibleLetterSpace ? areaInfo.letterSpaceCount - 1
-                    : areaInfo.letterSpaceCount;
-            baseList.add(new KnuthInlineBox(areaInfo.areaIPD.getOpt()
-                    - areaInfo.letterSpaceCount * this.letterSpaceIPD.getOpt(),
+            final int unsuppressibleLetterSpaces = suppressibleLetterSpace ? letterSpaceCount - 1
+                    : letterSpaceCount;
+            baseList.add(new KnuthInlineBox(areaIPD
+                    - letterSpaceCount * this.letterSpaceIPD.getOpt(),
                     this.alignmentContext, notifyPos(mainPosition), false));
             baseList.add(makeZeroWidthPenalty(KnuthElement.INFINITE));
             baseList.add(new KnuthGlue(this.letterSpaceIPD
@@ -1703,20 +1664,19 @@ public class TextLayoutManager extends LeafNodeLayoutManager {
 
         // extra-elements if the word fragment is the end of a syllable,
         // or it ends with a character that can be used as a line break
-        if (areaInfo.isHyphenated) {
+        if (isHyphenated) {
+            final int breakIndex = this.areaInfos.getBreakIndex(areaInfo);
             MinOptMax widthIfNoBreakOccurs = null;
-            if (areaInfo.breakIndex < this.foText.length()) {
+            if (breakIndex < this.foText.length()) {
                 // Add in kerning in no-break condition
-                widthIfNoBreakOccurs = this.letterSpaceAdjustArray[areaInfo.breakIndex];
+                widthIfNoBreakOccurs = this.letterSpaceAdjustArray[breakIndex];
             }
-            // if (areaInfo.breakIndex)
 
             // the word fragment ends at the end of a syllable:
             // if a break occurs the content width increases,
             // otherwise nothing happens
             addElementsForAHyphen(baseList, alignment, this.hyphIPD,
-                    widthIfNoBreakOccurs, areaInfo.breakOppAfter
-                    && areaInfo.isHyphenated);
+                    widthIfNoBreakOccurs, breakOppAfter && isHyphenated);
         } else if (suppressibleLetterSpace) {
             // the word fragment ends with a character that acts as a hyphen
             // if a break occurs the width does not increase,
@@ -31,6 +31,12 @@ public abstract class AbstractPDFFontStream extends AbstractPDFStream {
         super();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isEncodingAheadAllowed() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected String getDefaultFilterName() {
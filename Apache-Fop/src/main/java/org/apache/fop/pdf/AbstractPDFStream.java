@@ -20,7 +20,12 @@
 package org.apache.fop.pdf;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.fop.util.CloseBlockerOutputStream;
@@ -37,6 +42,9 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private final boolean encodeOnTheFly;
 
+    /** the stream encoded ahead of its output, null if not started */
+    private FutureTask<StreamCache> encodedAhead;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -188,6 +196,19 @@ public abstract class AbstractPDFStream extends PDFObject {
         return encodedStream;
     }
 
+    /**
+     * Returns the encoded stream if this stream manages it itself, for example
+     * through a cache. This is called once the filters have been set up, on
+     * an encoder thread if the stream is encoded ahead of its output.
+     *
+     * @return the encoded stream or null if the stream has to be encoded
+     * @throws IOException
+     *             in case of an I/O problem
+     */
+    protected StreamCache getReusableEncodedStream() throws IOException {
+        return null;
+    }
+
     /**
      * Encodes and writes a stream directly to an OutputStream. The length of
      * the stream, in this case, is set on a PDFNumber object that has to be
@@ -226,21 +247,121 @@ public abstract class AbstractPDFStream extends PDFObject {
         return bytesWritten;
     }
 
+    /**
+     * Indicates whether this stream may be encoded on another thread once it
+     * has been queued for output. This requires the raw stream data to be
+     * complete at that time and {@link #outputRawStreamData(OutputStream)} not
+     * to access other objects of the document.
+     *
+     * @return true if the stream may be encoded ahead of its output
+     */
+    protected boolean isEncodingAheadAllowed() {
+        return false;
+    }
+
+    /**
+     * Starts encoding the stream with the given executor. The filters are set
+     * up on the calling thread.
+     *
+     * @param executor
+     *            the executor running the encoding
+     * @param onCompletion
+     *            run once the encoding is done
+     */
+    void encodeAhead(final Executor executor, final Runnable onCompletion) {
+        setupFilterList();
+        this.encodedAhead = new FutureTask<StreamCache>(
+                new Callable<StreamCache>() {
+                    @Override
+                    public StreamCache call() throws IOException {
+                        try {
+                            final StreamCache reusable = getReusableEncodedStream();
+                            return reusable != null ? reusable
+                                    : encodeStream();
+                        } finally {
+                            onCompletion.run();
+                        }
+                    }
+                });
+        executor.execute(this.encodedAhead);
+    }
+
+    /**
+     * Indicates whether the document encodes streams like this one ahead of
+     * their output. Such streams are written with a direct /Length even when
+     * the back-pressure of the encoder left them to the rendering thread, so
+     * the output doesn't depend on the timing of the worker threads.
+     */
+    private boolean isEncodedAheadByDocument() {
+        return isEncodingAheadAllowed()
+                && getDocumentSafely().isEncodingStreamsAhead();
+    }
+
+    /**
+     * Indicates whether {@link #encodeAhead(Executor, Runnable)} has been
+     * called.
+     *
+     * @return true if the stream is or has been encoded ahead of its output
+     */
+    boolean isEncodingAheadStarted() {
+        return this.encodedAhead != null;
+    }
+
+    /**
+     * Indicates whether the stream is being encoded ahead of its output.
+     *
+     * @return true until the encoding started by
+     *         {@link #encodeAhead(Executor, Runnable)} is done
+     */
+    boolean isEncodingAheadPending() {
+        return this.encodedAhead != null && !this.encodedAhead.isDone();
+    }
+
+    private StreamCache getEncodedAhead() throws IOException {
+        try {
+            return this.encodedAhead.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while waiting for the encoding of a stream");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause.getMessage());
+        } finally {
+            this.encodedAhead = null;
+        }
+    }
+
     /**
      * Overload the base object method so we don't have to copy byte arrays
      * around so much {@inheritDoc}
      */
     @Override
     public int output(final OutputStream stream) throws IOException {
-        setupFilterList();
+        StreamCache encodedStream = null;
+        if (this.encodedAhead != null) {
+            // the filters have been set up by encodeAhead()
+            encodedStream = getEncodedAhead();
+        } else {
+            setupFilterList();
+            encodedStream = getReusableEncodedStream();
+        }
 
         final CountingOutputStream cout = new CountingOutputStream(stream);
         final StringBuilder textBuffer = new StringBuilder(64);
 
-        StreamCache encodedStream = null;
         PDFNumber refLength = null;
         final Object lengthEntry;
-        if (this.encodeOnTheFly) {
+        if (encodedStream != null) {
+            lengthEntry = Integer.valueOf(encodedStream.getSize() + 1);
+        } else if (this.encodeOnTheFly && !isEncodedAheadByDocument()) {
             refLength = new PDFNumber();
             getDocumentSafely().registerObject(refLength);
             lengthEntry = refLength;
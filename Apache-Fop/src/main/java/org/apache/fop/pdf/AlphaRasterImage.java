@@ -32,12 +32,13 @@ import org.apache.xmlgraphics.image.GraphicsUtil;
 /**
  * PDFImage implementation for alpha channel "images".
  */
-public class AlphaRasterImage implements PDFImage {
+public class AlphaRasterImage implements CacheablePDFImage {
 
     private final int bitsPerComponent;
     private final PDFDeviceColorSpace colorSpace;
     private final Raster alpha;
     private final String key;
+    private String contentKey;
 
     /**
      * Create a alpha channel image. Creates a new bitmap image with the given
@@ -76,6 +77,23 @@ public class AlphaRasterImage implements PDFImage {
         this(k, GraphicsUtil.getAlphaRaster(image));
     }
 
+    /**
+     * Sets the key identifying the content of the alpha channel, allowing its
+     * encoded data to be cached.
+     *
+     * @param contentKey
+     *            the content key or null if the data should not be cached
+     */
+    public void setContentKey(final String contentKey) {
+        this.contentKey = contentKey;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getContentKey() {
+        return this.contentKey;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void setup(final PDFDocument doc) {
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+/**
+ * A {@link PDFImage} whose encoded stream may be kept in an
+ * {@link EncodedImageCache} and reused by later documents.
+ */
+public interface CacheablePDFImage extends PDFImage {
+
+    /**
+     * Returns a key identifying the content of the image, i.e. everything the
+     * data written by {@link #outputContents(java.io.OutputStream)} depends on.
+     * Images with the same key must produce the same data.
+     *
+     * @return the content key or null if the image should not be cached
+     */
+    String getContentKey();
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A content-addressed cache of encoded image streams on disk. Each entry holds
+ * the filtered data of an image XObject, so documents using the same image
+ * can copy the data instead of converting and compressing the image again.
+ * <p>
+ * Entries are written to a temporary file first and then renamed, so several
+ * processes may share the cache directory.
+ */
+@Slf4j
+public class EncodedImageCache {
+
+    private static final String SUFFIX = ".xobj";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+
+    /**
+     * Creates a new cache.
+     *
+     * @param directory
+     *            the directory holding the entries (created if necessary)
+     */
+    public EncodedImageCache(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the directory holding the entries.
+     *
+     * @return the cache directory
+     */
+    public File getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Creates a new message digest for computing content keys.
+     *
+     * @return a new SHA-1 message digest
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    /**
+     * Returns the hexadecimal representation of a digest.
+     *
+     * @param digest
+     *            the digest
+     * @return the digest as a string of hexadecimal digits
+     */
+    public static String toHex(final byte[] digest) {
+        final char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[2 * i] = HEX[digest[i] >> 4 & 0xF];
+            chars[2 * i + 1] = HEX[digest[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Creates the key of an entry.
+     *
+     * @param contentKey
+     *            the content key of the image
+     * @param filters
+     *            a description of the filters applied to the image's data
+     * @return the key
+     */
+    public static String createKey(final String contentKey,
+            final String filters) {
+        final MessageDigest digest = newDigest();
+        try {
+            digest.update(contentKey.getBytes("UTF-8"));
+            digest.update((byte) 0);
+            digest.update(filters.getBytes("UTF-8"));
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+        return toHex(digest.digest());
+    }
+
+    private File getFile(final String key) {
+        return new File(this.directory, key + SUFFIX);
+    }
+
+    /**
+     * Returns the encoded data stored for a key.
+     *
+     * @param key
+     *            the key
+     * @return the encoded data or null if there's no such entry
+     */
+    public StreamCache get(final String key) {
+        final File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            final StreamCache data = StreamCacheFactory.getInstance()
+                    .createStreamCache((int) file.length());
+            final OutputStream out = data.getOutputStream();
+            IOUtils.copy(in, out);
+            out.close();
+            return data;
+        } catch (final IOException e) {
+            log.warn("Could not read cached image " + file + ": "
+                    + e.getMessage());
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Stores encoded data. Failures are logged but don't affect the caller.
+     *
+     * @param key
+     *            the key
+     * @param data
+     *            the encoded data
+     */
+    public void put(final String key, final StreamCache data) {
+        final File file = getFile(key);
+        File temp = null;
+        OutputStream out = null;
+        try {
+            if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+                throw new IOException("Could not create " + this.directory);
+            }
+            temp = File.createTempFile(key, ".tmp", this.directory);
+            out = new FileOutputStream(temp);
+            data.outputContents(out);
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                // Another process may have stored the same entry meanwhile
+                if (!file.isFile()) {
+                    throw new IOException("Could not rename " + temp + " to "
+                            + file);
+                }
+            } else {
+                temp = null;
+            }
+        } catch (final IOException e) {
+            log.warn("Could not cache image " + file + ": " + e.getMessage());
+        } finally {
+            IOUtils.closeQuietly(out);
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+    }
+
+}
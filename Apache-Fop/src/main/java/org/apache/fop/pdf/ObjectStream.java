@@ -57,6 +57,12 @@ public class ObjectStream extends PDFStream {
         return reference;
     }
 
+    /** The compressed objects are serialized while encoding the stream. */
+    @Override
+    protected boolean isEncodingAheadAllowed() {
+        return false;
+    }
+
     @Override
     protected void outputRawStreamData(final OutputStream out)
             throws IOException {
@@ -221,17 +221,45 @@ public class PDFArray extends PDFObject {
     public int output(final OutputStream stream) throws IOException {
         final CountingOutputStream cout = new CountingOutputStream(stream);
         final StringBuilder textBuffer = new StringBuilder(64);
+        writeArray(cout, textBuffer);
+        PDFDocument.flushTextBuffer(textBuffer, cout);
+        return cout.getCount();
+    }
+
+    /**
+     * {@inheritDoc} A direct array is written into the caller's text buffer
+     * instead of being flushed and serialized through its own buffer.
+     */
+    @Override
+    public void outputInline(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
+        if (hasObjectNumber()) {
+            super.outputInline(out, textBuffer);
+        } else {
+            writeArray(out, textBuffer);
+        }
+    }
+
+    /**
+     * Writes the contents of the array to a StringBuilder.
+     *
+     * @param out
+     *            the OutputStream (for binary content)
+     * @param textBuffer
+     *            the text buffer for text output
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    protected void writeArray(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
         textBuffer.append('[');
         for (int i = 0; i < this.values.size(); i++) {
             if (i > 0) {
                 textBuffer.append(' ');
             }
-            final Object obj = this.values.get(i);
-            formatObject(obj, cout, textBuffer);
+            formatObject(this.values.get(i), out, textBuffer);
         }
         textBuffer.append(']');
-        PDFDocument.flushTextBuffer(textBuffer, cout);
-        return cout.getCount();
     }
 
 }
@@ -431,6 +431,12 @@ public class PDFCMap extends PDFStream {
         return new CMapBuilder(writer, this.name);
     }
 
+    /** The CMap is only written to the stream in output(). */
+    @Override
+    protected boolean isEncodingAheadAllowed() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     public int output(final OutputStream stream) throws IOException {
@@ -116,6 +116,20 @@ public class PDFDictionary extends PDFObject {
         return cout.getCount();
     }
 
+    /**
+     * {@inheritDoc} A direct dictionary is written into the caller's text
+     * buffer so nested dictionaries share a single buffer and output stream.
+     */
+    @Override
+    public void outputInline(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
+        if (hasObjectNumber()) {
+            super.outputInline(out, textBuffer);
+        } else {
+            writeDictionary(out, textBuffer);
+        }
+    }
+
     /**
      * Writes the contents of the dictionary to a StringBuilder.
      * 
@@ -136,7 +150,7 @@ public class PDFDictionary extends PDFObject {
             } else {
                 textBuffer.append("\n  ");
             }
-            textBuffer.append(PDFName.escapeName(key));
+            PDFName.escapeName(key, textBuffer);
             textBuffer.append(' ');
             final Object obj = this.entries.get(key);
             formatObject(obj, out, textBuffer);
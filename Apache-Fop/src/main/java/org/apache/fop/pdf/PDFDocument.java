@@ -39,6 +39,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.pdf.xref.CrossReferenceStream;
 import org.apache.fop.pdf.xref.CrossReferenceTable;
+import org.apache.fop.pdf.xref.ObjectOffsets;
 import org.apache.fop.pdf.xref.TrailerDictionary;
 
 /* image support modified from work of BoBoGi */
@@ -77,7 +78,7 @@ public class PDFDocument {
     private long position;
 
     /** the character position of each object */
-    private final List<Long> indirectObjectOffsets = new ArrayList<Long>();
+    private final ObjectOffsets indirectObjectOffsets = new ObjectOffsets();
 
     private Collection<PDFStructElem> structureTreeElements;
 
@@ -157,6 +158,12 @@ public class PDFDocument {
 
     private boolean accessibilityEnabled;
 
+    /** encodes streams on worker threads, null to encode them on output */
+    private ParallelStreamEncoder streamEncoder;
+
+    /** holds the encoded images of previous documents, may be null */
+    private EncodedImageCache encodedImageCache;
+
     /**
      * Creates an empty PDF document.
      *
@@ -278,10 +285,44 @@ public class PDFDocument {
      */
     public static void flushTextBuffer(final StringBuilder textBuffer,
             final OutputStream out) throws IOException {
-        out.write(encode(textBuffer.toString()));
+        final int length = textBuffer.length();
+        if (length == 0) {
+            return;
+        }
+        // Encodes ISO-8859-1 straight from the buffer's chars, avoiding the
+        // intermediate String and byte[] copies of String.getBytes()
+        final byte[] bytes = FLUSH_BUFFER.get();
+        int pos = 0;
+        for (int i = 0; i < length; i++) {
+            final char ch = textBuffer.charAt(i);
+            if (ch < 256) {
+                bytes[pos++] = (byte) ch;
+            } else {
+                bytes[pos++] = (byte) '?';
+                if (Character.isHighSurrogate(ch) && i + 1 < length
+                        && Character.isLowSurrogate(textBuffer.charAt(i + 1))) {
+                    i++;
+                }
+            }
+            if (pos == bytes.length) {
+                out.write(bytes, 0, pos);
+                pos = 0;
+            }
+        }
+        if (pos > 0) {
+            out.write(bytes, 0, pos);
+        }
         textBuffer.setLength(0);
     }
 
+    /** Per-thread scratch buffer used by {@link #flushTextBuffer}. */
+    private static final ThreadLocal<byte[]> FLUSH_BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[4096];
+        }
+    };
+
     /**
      * Sets the producer of the document.
      *
@@ -322,6 +363,57 @@ public class PDFDocument {
         this.filterMap = map;
     }
 
+    /**
+     * Sets the number of worker threads encoding (compressing) the streams
+     * queued for output. With 0, the default, streams are encoded by the
+     * thread writing the document. Otherwise the streams queued at the end of
+     * a page are encoded while the next page is rendered; the objects are
+     * still written in the order they were queued.
+     *
+     * @param threads
+     *            the number of worker threads
+     */
+    public void setStreamEncodingThreads(final int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException(
+                    "The number of threads must not be negative");
+        }
+        if (this.streamEncoder != null) {
+            this.streamEncoder.shutdown();
+        }
+        this.streamEncoder = threads > 0 ? new ParallelStreamEncoder(threads)
+                : null;
+    }
+
+    /**
+     * Indicates whether streams are encoded on worker threads.
+     *
+     * @return true if the number of stream encoding threads is not 0
+     */
+    boolean isEncodingStreamsAhead() {
+        return this.streamEncoder != null;
+    }
+
+    /**
+     * Sets the cache from which the encoded data of images is taken if the
+     * same image has been encoded before.
+     *
+     * @param cache
+     *            the cache or null to encode all images
+     */
+    public void setEncodedImageCache(final EncodedImageCache cache) {
+        this.encodedImageCache = cache;
+    }
+
+    /**
+     * Returns the cache holding the encoded data of images.
+     *
+     * @return the cache or null if none is used
+     */
+    public EncodedImageCache getEncodedImageCache() {
+        return this.encodedImageCache;
+    }
+
     /**
      * Returns the {@link PDFFilter}s map used for filters in this document.
      *
@@ -526,8 +618,21 @@ public class PDFDocument {
      *            The encryption parameters for the pdf file
      */
     public void setEncryption(final PDFEncryptionParams params) {
+        setEncryption(params, FileIDGenerator.getRandomFileIDGenerator());
+    }
+
+    /**
+     * Enables PDF encryption with the given file identifier.
+     *
+     * @param params
+     *            The encryption parameters for the pdf file
+     * @param fileIDGenerator
+     *            provides the file identifier the encryption key depends on
+     */
+    void setEncryption(final PDFEncryptionParams params,
+            final FileIDGenerator fileIDGenerator) {
         getProfile().verifyEncryptionAllowed();
-        this.fileIDGenerator = FileIDGenerator.getRandomFileIDGenerator();
+        this.fileIDGenerator = fileIDGenerator;
         this.encryption = PDFEncryptionManager.newInstance(++this.objectcount,
                 params, this);
         if (this.encryption != null) {
@@ -941,11 +1046,56 @@ public class PDFDocument {
      *             if there is an exception writing to the output stream
      */
     public void output(final OutputStream stream) throws IOException {
+        outputQueuedObjects(stream, true);
+    }
+
+    /**
+     * Writes out the pending objects once a page is complete and forgets the
+     * objects which can only be used by that page, so that the memory needed
+     * doesn't grow with the number of pages. Link annotations belong to a
+     * single page, so they are no longer considered for reuse. Streams still
+     * being encoded by worker threads, and the objects queued after them, are
+     * written with a later page.
+     *
+     * @param stream
+     *            the OutputStream to output the objects to
+     * @throws IOException
+     *             if there is an exception writing to the output stream
+     */
+    public void outputPage(final OutputStream stream) throws IOException {
+        outputReady(stream);
+        this.links.clear();
+    }
+
+    /**
+     * Writes out the pending objects without waiting for the streams still
+     * being encoded by worker threads. Those streams, and the objects queued
+     * after them, are written by a later call.
+     *
+     * @param stream
+     *            the OutputStream to output the objects to
+     * @throws IOException
+     *             if there is an exception writing to the output stream
+     */
+    public void outputReady(final OutputStream stream) throws IOException {
+        outputQueuedObjects(stream, false);
+    }
+
+    private void outputQueuedObjects(final OutputStream stream,
+            final boolean waitForEncoding) throws IOException {
+        if (this.streamEncoder != null) {
+            this.streamEncoder.submit(this.objects);
+        }
         // Write out objects until the list is empty. This approach (used with a
         // LinkedList) allows for output() methods to create and register
         // objects
         // on the fly even during serialization.
         while (this.objects.size() > 0) {
+            if (!waitForEncoding && this.streamEncoder != null
+                    && !this.streamEncoder.isReadyForOutput(this.objects.get(0))) {
+                // written with the next page, the order is preserved
+                break;
+            }
             final PDFObject object = this.objects.remove(0);
             streamIndirectObject(object, stream);
         }
@@ -966,11 +1116,8 @@ public class PDFDocument {
     }
 
     private void recordObjectOffset(final PDFObject object) {
-        final int index = object.getObjectNumber() - 1;
-        while (this.indirectObjectOffsets.size() <= index) {
-            this.indirectObjectOffsets.add(null);
-        }
-        this.indirectObjectOffsets.set(index, this.position);
+        this.indirectObjectOffsets.set(object.getObjectNumber() - 1,
+                this.position);
     }
 
     /**
@@ -1034,6 +1181,10 @@ public class PDFDocument {
     public void outputTrailer(final OutputStream stream) throws IOException {
         createDestinations();
         output(stream);
+        if (this.streamEncoder != null) {
+            this.streamEncoder.shutdown();
+            this.streamEncoder = null;
+        }
         outputTrailerObjectsAndXref(stream);
     }
 
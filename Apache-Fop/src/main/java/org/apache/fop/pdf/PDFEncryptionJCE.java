@@ -549,7 +549,9 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
     }
 
     /**
-     * Applies Algorithm 3.1 from the PDF 1.4 Reference.
+     * Applies Algorithm 3.1 from the PDF 1.4 Reference. Synchronized, since
+     * streams may be encrypted by several encoder threads while the rendering
+     * thread encrypts strings, and they all share the digest.
      *
      * @param objectNumber
      *            the object number
@@ -557,7 +559,7 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
      *            the generation number
      * @return the key to use for encryption
      */
-    private byte[] createEncryptionKey(final int objectNumber,
+    private synchronized byte[] createEncryptionKey(final int objectNumber,
             final int generationNumber) {
         // Step 1 passed in
         // Step 2
@@ -23,6 +23,7 @@ package org.apache.fop.pdf;
 import java.awt.Color;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -47,6 +48,7 @@ import org.apache.fop.fonts.CIDSubset;
 import org.apache.fop.fonts.CodePointMapping;
 import org.apache.fop.fonts.CustomFont;
 import org.apache.fop.fonts.FontDescriptor;
+import org.apache.fop.fonts.FontLoader;
 import org.apache.fop.fonts.FontMetrics;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.LazyFont;
@@ -1821,7 +1823,10 @@ public class PDFFactory {
                 AbstractPDFStream embeddedFont;
                 if (desc.getFontType() == FontType.TYPE0) {
                     final MultiByteFont mbfont = (MultiByteFont) font;
-                    final FontFileReader reader = new FontFileReader(in);
+                    final File fontFile = FontLoader.toLocalFile(source
+                            .getSystemId());
+                    final FontFileReader reader = fontFile != null ? new FontFileReader(
+                            fontFile) : new FontFileReader(in);
 
                     final TTFSubSetFile subset = new TTFSubSetFile();
                     subset.readFont(reader, mbfont.getTTCName(),
@@ -189,9 +189,10 @@ public class PDFFont extends PDFDictionary {
 
     /** {@inheritDoc} */
     @Override
-    public int output(final OutputStream stream) throws IOException {
+    protected void writeDictionary(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
         validate();
-        return super.output(stream);
+        super.writeDictionary(out, textBuffer);
     }
 
 }
@@ -20,6 +20,7 @@
 package org.apache.fop.pdf;
 
 // Java
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -154,6 +155,49 @@ public class PDFImageXObject extends PDFXObject {
         this.pdfimage.outputContents(out);
     }
 
+    /**
+     * {@inheritDoc} The encoded data of cacheable images is taken from the
+     * document's {@link EncodedImageCache} or stored there after encoding,
+     * also when the image is encoded ahead of its output.
+     */
+    @Override
+    protected StreamCache getReusableEncodedStream() throws IOException {
+        final PDFDocument doc = getDocumentSafely();
+        final EncodedImageCache cache = doc.getEncodedImageCache();
+        // Encrypted streams depend on the object number
+        if (cache == null || doc.isEncryptionActive()
+                || !(this.pdfimage instanceof CacheablePDFImage)) {
+            return null;
+        }
+        final String contentKey = ((CacheablePDFImage) this.pdfimage)
+                .getContentKey();
+        if (contentKey == null) {
+            return null;
+        }
+        final String key = EncodedImageCache.createKey(contentKey,
+                describeFilters());
+        StreamCache encodedStream = cache.get(key);
+        if (encodedStream == null) {
+            encodedStream = encodeStream();
+            cache.put(key, encodedStream);
+        }
+        return encodedStream;
+    }
+
+    /** Returns the filter entries of the stream dictionary as a string. */
+    private String describeFilters() throws IOException {
+        if (getFilterList().isDisableAllFilters()) {
+            return "";
+        }
+        final PDFDictionary filterEntries = new PDFDictionary();
+        getFilterList().putFilterDictEntries(filterEntries);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final StringBuilder textBuffer = new StringBuilder();
+        filterEntries.writeDictionary(out, textBuffer);
+        PDFDocument.flushTextBuffer(textBuffer, out);
+        return out.toString("ISO-8859-1");
+    }
+
     /** {@inheritDoc} */
     @Override
     protected int getSizeHint() throws IOException {
@@ -105,6 +105,12 @@ public class PDFMetadata extends PDFStream {
         }
     }
 
+    /** The XMP packet is small and serialized from a shared DOM. */
+    @Override
+    protected boolean isEncodingAheadAllowed() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void populateStreamDict(final Object lengthEntry) {
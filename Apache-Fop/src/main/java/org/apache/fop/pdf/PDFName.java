@@ -55,12 +55,23 @@ public class PDFName extends PDFObject {
     static String escapeName(final String name) {
         final StringBuilder sb = new StringBuilder(Math.min(16,
                 name.length() + 4));
-        boolean skipFirst = false;
+        escapeName(name, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Escapes a PDF name and appends it to the given buffer. It adds the
+     * leading slash and escapes characters as necessary.
+     * 
+     * @param name
+     *            the name
+     * @param sb
+     *            the buffer the escaped name is appended to
+     */
+    static void escapeName(final String name, final StringBuilder sb) {
         sb.append('/');
-        if (name.startsWith("/")) {
-            skipFirst = true;
-        }
-        for (int i = skipFirst ? 1 : 0, c = name.length(); i < c; i++) {
+        final int start = name.startsWith("/") ? 1 : 0;
+        for (int i = start, c = name.length(); i < c; i++) {
             final char ch = name.charAt(i);
 
             if (ch < 33 || ch > 126 || ESCAPED_NAME_CHARS.indexOf(ch) >= 0) {
@@ -70,7 +81,6 @@ public class PDFName extends PDFObject {
                 sb.append(ch);
             }
         }
-        return sb.toString();
     }
 
     private static final char[] DIGITS = { '0', '1', '2', '3', '4', '5', '6',
@@ -129,9 +139,10 @@ public class PDFName extends PDFObject {
     public void outputInline(final OutputStream out,
             final StringBuilder textBuffer) throws IOException {
         if (hasObjectNumber()) {
-            textBuffer.append(referencePDF());
+            PDFReference.outputReference(getObjectNumber(), getGeneration(),
+                    textBuffer);
         } else {
-            textBuffer.append(toString());
+            textBuffer.append(this.name);
         }
     }
 
@@ -19,6 +19,9 @@
 
 package org.apache.fop.pdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import org.apache.xmlgraphics.util.DoubleFormatUtil;
 
 /**
@@ -81,13 +84,29 @@ public class PDFNumber extends PDFObject {
      * @return the value as a string
      */
     public static String doubleOut(final double doubleDown, final int dec) {
+        final StringBuilder buf = new StringBuilder();
+        doubleOut(doubleDown, dec, buf);
+        return buf.toString();
+    }
+
+    /**
+     * Appends a double value to a buffer in a form suitable for PDF, without
+     * creating an intermediate string.
+     *
+     * @param doubleDown
+     *            the double value
+     * @param dec
+     *            the number of decimal places to output
+     * @param buf
+     *            the buffer the value is appended to
+     */
+    public static void doubleOut(final double doubleDown, final int dec,
+            final StringBuilder buf) {
         if (dec < 0 || dec > 16) {
             throw new IllegalArgumentException(
                     "Parameter dec must be between 1 and 16");
         }
-        final StringBuilder buf = new StringBuilder();
         DoubleFormatUtil.formatDouble(doubleDown, dec, dec, buf);
-        return buf.toString();
     }
 
     /** {@inheritDoc} */
@@ -97,9 +116,20 @@ public class PDFNumber extends PDFObject {
             throw new IllegalArgumentException(
                     "The number of this PDFNumber must not be empty");
         }
-        final StringBuilder sb = new StringBuilder(64);
-        sb.append(doubleOut(getNumber().doubleValue(), 10));
+        final StringBuilder sb = new StringBuilder(32);
+        doubleOut(getNumber().doubleValue(), 10, sb);
         return sb.toString();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void outputInline(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
+        if (hasObjectNumber() || getNumber() == null) {
+            super.outputInline(out, textBuffer);
+        } else {
+            doubleOut(getNumber().doubleValue(), 10, textBuffer);
+        }
+    }
+
 }
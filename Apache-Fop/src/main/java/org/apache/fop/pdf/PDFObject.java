@@ -204,8 +204,9 @@ public abstract class PDFObject implements PDFWritable {
             throw new IllegalArgumentException(
                     "Cannot reference this object. It doesn't have an object number");
         }
-        final String ref = getObjectNumber() + " " + getGeneration() + " R";
-        return ref;
+        final StringBuilder ref = new StringBuilder(16);
+        PDFReference.outputReference(getObjectNumber(), getGeneration(), ref);
+        return ref.toString();
     }
 
     /**
@@ -237,7 +238,8 @@ public abstract class PDFObject implements PDFWritable {
     public void outputInline(final OutputStream out,
             final StringBuilder textBuffer) throws IOException {
         if (hasObjectNumber()) {
-            textBuffer.append(referencePDF());
+            PDFReference.outputReference(getObjectNumber(), getGeneration(),
+                    textBuffer);
         } else {
             PDFDocument.flushTextBuffer(textBuffer, out);
             output(out);
@@ -354,13 +356,17 @@ public abstract class PDFObject implements PDFWritable {
             ((PDFWritable) obj).outputInline(out, textBuffer);
         } else if (obj instanceof Number) {
             if (obj instanceof Double || obj instanceof Float) {
-                textBuffer.append(PDFNumber.doubleOut(((Number) obj)
-                        .doubleValue()));
+                PDFNumber.doubleOut(((Number) obj).doubleValue(), 6,
+                        textBuffer);
+            } else if (obj instanceof Integer) {
+                textBuffer.append(((Integer) obj).intValue());
+            } else if (obj instanceof Long) {
+                textBuffer.append(((Long) obj).longValue());
             } else {
                 textBuffer.append(obj.toString());
             }
         } else if (obj instanceof Boolean) {
-            textBuffer.append(obj.toString());
+            textBuffer.append(((Boolean) obj).booleanValue());
         } else if (obj instanceof byte[]) {
             PDFDocument.flushTextBuffer(textBuffer, out);
             encodeBinaryToHexString((byte[]) obj, out);
@@ -19,9 +19,6 @@
 
 package org.apache.fop.pdf;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * class representing a /Pages object.
  *
@@ -32,9 +29,13 @@ import java.util.List;
 public class PDFPages extends PDFObject {
 
     /**
-     * the /Page objects
+     * the references to the /Page objects, by page index (null for a gap).
+     * The references don't keep the pages reachable.
      */
-    protected List kids = new ArrayList();
+    private PDFReference[] kids = new PDFReference[16];
+
+    /** the number of entries used in kids */
+    private int kidCount;
 
     /**
      * the number of /Page objects
@@ -75,20 +76,22 @@ public class PDFPages extends PDFObject {
      *            the child page
      */
     public void notifyKidRegistered(final PDFPage page) {
-        final int idx = page.getPageIndex();
-        if (idx >= 0) {
-            while (idx > this.kids.size() - 1) {
-                this.kids.add(null);
-            }
-            if (this.kids.get(idx) != null) {
-                throw new IllegalStateException(
-                        "A page already exists at index " + idx
-                                + " (zero-based).");
-            }
-            this.kids.set(idx, page.referencePDF());
-        } else {
-            this.kids.add(page.referencePDF());
+        int idx = page.getPageIndex();
+        if (idx < 0) {
+            idx = this.kidCount;
+        }
+        if (idx >= this.kids.length) {
+            final PDFReference[] newKids = new PDFReference[Math.max(
+                    idx + 1, this.kids.length * 2)];
+            System.arraycopy(this.kids, 0, newKids, 0, this.kidCount);
+            this.kids = newKids;
+        }
+        if (this.kids[idx] != null) {
+            throw new IllegalStateException("A page already exists at index "
+                    + idx + " (zero-based).");
         }
+        this.kids[idx] = new PDFReference(page.referencePDF());
+        this.kidCount = Math.max(this.kidCount, idx + 1);
     }
 
     /**
@@ -116,8 +119,8 @@ public class PDFPages extends PDFObject {
         final StringBuilder sb = new StringBuilder(64);
         sb.append("<< /Type /Pages\n/Count ").append(getCount())
         .append("\n/Kids [");
-        for (int i = 0; i < this.kids.size(); i++) {
-            final Object kid = this.kids.get(i);
+        for (int i = 0; i < this.kidCount; i++) {
+            final PDFReference kid = this.kids[i];
             if (kid == null) {
                 throw new IllegalStateException("Gap in the kids list!");
             }
@@ -59,11 +59,13 @@ public class PDFReference implements PDFWritable {
         if (ref == null) {
             throw new NullPointerException("ref must not be null");
         }
-        final String[] parts = ref.split(" ");
-        assert parts.length == 3;
-        this.objectNumber = Integer.parseInt(parts[0]);
-        this.generation = Integer.parseInt(parts[1]);
-        assert "R".equals(parts[2]);
+        final int space = ref.indexOf(' ');
+        final int secondSpace = ref.indexOf(' ', space + 1);
+        assert space > 0 && secondSpace > space;
+        this.objectNumber = Integer.parseInt(ref.substring(0, space));
+        this.generation = Integer.parseInt(ref.substring(space + 1,
+                secondSpace));
+        assert "R".equals(ref.substring(secondSpace + 1));
     }
 
     /**
@@ -113,8 +115,23 @@ public class PDFReference implements PDFWritable {
     @Override
     public void outputInline(final OutputStream out,
             final StringBuilder textBuffer) {
-        textBuffer.append(getObjectNumber()).append(' ')
-                .append(getGeneration()).append(" R");
+        outputReference(getObjectNumber(), getGeneration(), textBuffer);
+    }
+
+    /**
+     * Appends an indirect reference to the given buffer.
+     *
+     * @param objectNumber
+     *            the object number
+     * @param generation
+     *            the generation
+     * @param textBuffer
+     *            the buffer the reference is appended to
+     */
+    static void outputReference(final int objectNumber, final int generation,
+            final StringBuilder textBuffer) {
+        textBuffer.append(objectNumber).append(' ').append(generation)
+                .append(" R");
     }
 
 }
@@ -207,9 +207,10 @@ public class PDFResources extends PDFDictionary {
     }
 
     @Override
-    public int output(final OutputStream stream) throws IOException {
+    protected void writeDictionary(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
         populateDictionary();
-        return super.output(stream);
+        super.writeDictionary(out, textBuffer);
     }
 
     private void populateDictionary() {
@@ -75,9 +75,10 @@ public class PDFRoot extends PDFDictionary {
 
     /** {@inheritDoc} */
     @Override
-    public int output(final OutputStream stream) throws IOException {
+    protected void writeDictionary(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
         getDocument().getProfile().verifyTaggedPDF();
-        return super.output(stream);
+        super.writeDictionary(out, textBuffer);
     }
 
     /**
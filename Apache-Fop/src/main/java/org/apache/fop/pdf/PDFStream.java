@@ -147,6 +147,12 @@ public class PDFStream extends AbstractPDFStream {
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isEncodingAheadAllowed() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected int getSizeHint() throws IOException {
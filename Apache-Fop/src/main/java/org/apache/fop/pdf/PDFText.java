@@ -20,6 +20,8 @@
 package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import org.apache.avalon.framework.CascadingRuntimeException;
 
@@ -64,11 +66,24 @@ public class PDFText extends PDFObject {
         }
         final StringBuilder sb = new StringBuilder(64);
         sb.append("(");
-        sb.append(escapeText(getText()));
+        escapeText(getText(), false, sb);
         sb.append(")");
         return sb.toString();
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public void outputInline(final OutputStream out,
+            final StringBuilder textBuffer) throws IOException {
+        if (hasObjectNumber() || getText() == null) {
+            super.outputInline(out, textBuffer);
+        } else {
+            textBuffer.append("(");
+            escapeText(getText(), false, textBuffer);
+            textBuffer.append(")");
+        }
+    }
+
     /**
      * Escape text (see 4.4.1 in PDF 1.3 specs)
      * 
@@ -91,6 +106,25 @@ public class PDFText extends PDFObject {
      */
     public static final String escapeText(final String text,
             final boolean forceHexMode) {
+        final StringBuilder result = new StringBuilder(
+                text != null ? text.length() * 2 + 2 : 2);
+        escapeText(text, forceHexMode, result);
+        return result.toString();
+    }
+
+    /**
+     * Escape text (see 4.4.1 in PDF 1.3 specs) and appends it to the given
+     * buffer.
+     * 
+     * @param text
+     *            the text to encode
+     * @param forceHexMode
+     *            true if the output should follow the hex encoding rules
+     * @param result
+     *            the buffer the encoded text is appended to
+     */
+    public static final void escapeText(final String text,
+            final boolean forceHexMode, final StringBuilder result) {
         if (text != null && text.length() > 0) {
             boolean unicode = false;
             boolean hexMode = false;
@@ -113,9 +147,8 @@ public class PDFText extends PDFObject {
                 } catch (final java.io.UnsupportedEncodingException uee) {
                     throw new CascadingRuntimeException("Incompatible VM", uee);
                 }
-                return toHex(uniBytes);
+                toHex(uniBytes, true, result);
             } else {
-                final StringBuilder result = new StringBuilder(text.length() * 2);
                 result.append("(");
                 final int l = text.length();
 
@@ -144,10 +177,10 @@ public class PDFText extends PDFObject {
                     }
                 }
                 result.append(")");
-                return result.toString();
             }
+        } else {
+            result.append("()");
         }
-        return "()";
     }
 
     /**
@@ -160,7 +193,24 @@ public class PDFText extends PDFObject {
      * @return String the resulting string
      */
     public static final String toHex(final byte[] data, final boolean brackets) {
-        final StringBuilder sb = new StringBuilder(data.length * 2);
+        final StringBuilder sb = new StringBuilder(data.length * 2 + 2);
+        toHex(data, brackets, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Converts a byte array to a Hexadecimal String (3.2.3 in PDF 1.4 specs)
+     * and appends it to the given buffer.
+     * 
+     * @param data
+     *            the data to encode
+     * @param brackets
+     *            true if enclosing brackets should be included
+     * @param sb
+     *            the buffer the hexadecimal string is appended to
+     */
+    public static final void toHex(final byte[] data, final boolean brackets,
+            final StringBuilder sb) {
         if (brackets) {
             sb.append("<");
         }
@@ -171,7 +221,6 @@ public class PDFText extends PDFObject {
         if (brackets) {
             sb.append(">");
         }
-        return sb.toString();
     }
 
     /**
@@ -236,14 +285,28 @@ public class PDFText extends PDFObject {
             return "()";
         } else {
             final StringBuilder sb = new StringBuilder(64);
-            sb.append("(");
+            escapeString(s, sb);
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Escapes a String as described in section 4.4 in the PDF 1.3 specs and
+     * appends it to the given buffer.
+     * 
+     * @param s
+     *            String to escape
+     * @param sb
+     *            the buffer the escaped String is appended to
+     */
+    public static final void escapeString(final String s, final StringBuilder sb) {
+        sb.append("(");
+        if (s != null) {
             for (int i = 0; i < s.length(); i++) {
-                final char c = s.charAt(i);
-                escapeStringChar(c, sb);
+                escapeStringChar(s.charAt(i), sb);
             }
-            sb.append(")");
-            return sb.toString();
         }
+        sb.append(")");
     }
 
     /**
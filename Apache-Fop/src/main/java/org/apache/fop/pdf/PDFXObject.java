@@ -60,6 +60,12 @@ public abstract class PDFXObject extends AbstractPDFStream {
         super.populateStreamDict(lengthEntry);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected boolean isEncodingAheadAllowed() {
+        return true;
+    }
+
     /** {@inheritDoc} */
     @Override
     protected int getSizeHint() throws IOException {
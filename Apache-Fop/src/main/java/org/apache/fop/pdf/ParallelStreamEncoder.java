@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.fop.util.DaemonThreadFactory;
+
+/**
+ * Encodes (compresses, encrypts) the streams queued for output on a pool of
+ * worker threads, so the rendering thread can go on with the next page while
+ * the streams of the previous pages are compressed. The streams are still
+ * written by {@link PDFDocument} in the order they were queued.
+ */
+final class ParallelStreamEncoder {
+
+    private final ThreadPoolExecutor executor;
+
+    /** the number of streams submitted and not encoded yet */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /** bounds the memory used by streams waiting for their encoding */
+    private final int maxPending;
+
+    /**
+     * Creates a new encoder.
+     *
+     * @param threads
+     *            the number of worker threads
+     */
+    ParallelStreamEncoder(final int threads) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 1,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("fop-pdf-encoder"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maxPending = threads * 4;
+    }
+
+    /**
+     * Submits the streams of the given output queue which may be encoded
+     * ahead of their output and which haven't been submitted yet.
+     *
+     * @param queue
+     *            the objects queued for output
+     */
+    void submit(final List<PDFObject> queue) {
+        for (final PDFObject object : queue) {
+            if (this.pendingCount.get() >= this.maxPending) {
+                // the remaining streams are encoded when they are written
+                return;
+            }
+            if (object instanceof AbstractPDFStream) {
+                final AbstractPDFStream stream = (AbstractPDFStream) object;
+                if (stream.isEncodingAheadAllowed()
+                        && !stream.isEncodingAheadStarted()) {
+                    this.pendingCount.incrementAndGet();
+                    stream.encodeAhead(this.executor, new Runnable() {
+                        @Override
+                        public void run() {
+                            ParallelStreamEncoder.this.pendingCount
+                                    .decrementAndGet();
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Indicates whether an object can be written without waiting for its
+     * encoding. If too many streams are waiting for their encoding, the caller
+     * has to wait in order to limit the memory in use.
+     *
+     * @param object
+     *            the next object to write
+     * @return true if the object can be written right away
+     */
+    boolean isReadyForOutput(final PDFObject object) {
+        if (object instanceof AbstractPDFStream
+                && ((AbstractPDFStream) object).isEncodingAheadPending()) {
+            return this.pendingCount.get() >= this.maxPending;
+        }
+        return true;
+    }
+
+    /**
+     * Stops the worker threads once the submitted streams are encoded.
+     */
+    void shutdown() {
+        this.executor.shutdown();
+    }
+}
@@ -23,7 +23,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.fop.pdf.PDFArray;
@@ -45,24 +44,41 @@ public class CrossReferenceStream extends CrossReferenceObject {
 
     private final int objectNumber;
 
-    private final List<ObjectReference> objectReferences;
+    /** the length of an entry, see the /W entry */
+    private static final int ENTRY_LENGTH = 11;
+
+    private final ObjectOffsets uncompressedObjectReferences;
+
+    /** the compressed objects by object number minus one, null if none */
+    private final CompressedObjectReference[] compressedObjectReferences;
 
     public CrossReferenceStream(final PDFDocument document,
             final int objectNumber, final TrailerDictionary trailerDictionary,
             final long startxref,
             final List<Long> uncompressedObjectReferences,
             final List<CompressedObjectReference> compressedObjectReferences) {
+        this(document, objectNumber, trailerDictionary, startxref,
+                new ObjectOffsets(uncompressedObjectReferences),
+                compressedObjectReferences);
+    }
+
+    public CrossReferenceStream(final PDFDocument document,
+            final int objectNumber, final TrailerDictionary trailerDictionary,
+            final long startxref,
+            final ObjectOffsets uncompressedObjectReferences,
+            final List<CompressedObjectReference> compressedObjectReferences) {
         super(trailerDictionary, startxref);
         this.document = document;
         this.objectNumber = objectNumber;
-        this.objectReferences = new ArrayList<ObjectReference>(
-                uncompressedObjectReferences.size());
-        for (final Long offset : uncompressedObjectReferences) {
-            this.objectReferences.add(offset == null ? null
-                    : new UncompressedObjectReference(offset));
-        }
-        for (final CompressedObjectReference ref : compressedObjectReferences) {
-            this.objectReferences.set(ref.getObjectNumber() - 1, ref);
+        this.uncompressedObjectReferences = uncompressedObjectReferences;
+        if (compressedObjectReferences.isEmpty()) {
+            this.compressedObjectReferences = null;
+        } else {
+            this.compressedObjectReferences = new CompressedObjectReference[uncompressedObjectReferences
+                    .size()];
+            for (final CompressedObjectReference ref : compressedObjectReferences) {
+                this.compressedObjectReferences[ref.getObjectNumber() - 1] = ref;
+            }
         }
     }
 
@@ -85,28 +101,48 @@ public class CrossReferenceStream extends CrossReferenceObject {
         };
         helperStream.setObjectNumber(this.objectNumber);
         helperStream.setDocument(this.document);
-        final ByteArrayOutputStream byteArray = new ByteArrayOutputStream();
+        final int count = this.uncompressedObjectReferences.size();
+        final ByteArrayOutputStream byteArray = new ByteArrayOutputStream(
+                (count + 2) * ENTRY_LENGTH);
         final DataOutputStream data = new DataOutputStream(byteArray);
-        addFreeEntryForObject0(data);
-        for (final ObjectReference objectReference : this.objectReferences) {
-            assert objectReference != null;
-            objectReference.output(data);
+        // object 0 is always free
+        addFreeEntry(data);
+        for (int i = 0; i < count; i++) {
+            if (this.compressedObjectReferences != null
+                    && this.compressedObjectReferences[i] != null) {
+                this.compressedObjectReferences[i].output(data);
+            } else if (this.uncompressedObjectReferences.hasOffset(i)) {
+                outputUncompressedEntry(data,
+                        this.uncompressedObjectReferences.get(i));
+            } else {
+                // an object number that was assigned but never written
+                addFreeEntry(data);
+            }
         }
-        new UncompressedObjectReference(this.startxref).output(data);
+        outputUncompressedEntry(data, this.startxref);
         data.close();
         helperStream.setData(byteArray.toByteArray());
         PDFDocument.outputIndirectObject(helperStream, stream);
     }
 
+    /** Same as {@link UncompressedObjectReference#output(DataOutputStream)} */
+    private static void outputUncompressedEntry(final DataOutputStream data,
+            final long offset) throws IOException {
+        data.write(1);
+        data.writeLong(offset);
+        data.write(0);
+        data.write(0);
+    }
+
     private void populateDictionary() {
-        final int objectCount = this.objectReferences.size() + 1;
+        final int objectCount = this.uncompressedObjectReferences.size() + 1;
         final PDFDictionary dictionary = this.trailerDictionary.getDictionary();
         dictionary.put("/Type", XREF);
         dictionary.put("/Size", objectCount + 1);
         dictionary.put("/W", new PDFArray(1, 8, 2));
     }
 
-    private void addFreeEntryForObject0(final DataOutputStream data)
+    private void addFreeEntry(final DataOutputStream data)
             throws IOException {
         data.write(new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) 0xff,
                 (byte) 0xff });
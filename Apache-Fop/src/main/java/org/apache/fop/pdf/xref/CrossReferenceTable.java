@@ -32,41 +32,76 @@ import org.apache.fop.pdf.PDFDocument;
  */
 public class CrossReferenceTable extends CrossReferenceObject {
 
-    private final List<Long> objectReferences;
+    /** the length of an entry: "nnnnnnnnnn ggggg n \n" */
+    private static final int ENTRY_LENGTH = 20;
 
-    private final StringBuilder pdf = new StringBuilder(256);
+    /** the number of entries written at a time */
+    private static final int ENTRIES_PER_CHUNK = 512;
+
+    private static final byte[] IN_USE_ENTRY = PDFDocument
+            .encode("0000000000 00000 n \n");
+
+    /** for objects numbers that were assigned but never written */
+    private static final byte[] FREE_ENTRY = PDFDocument
+            .encode("0000000000 65535 f \n");
+
+    private final ObjectOffsets objectReferences;
 
     public CrossReferenceTable(final TrailerDictionary trailerDictionary,
             final long startxref, final List<Long> location) {
+        this(trailerDictionary, startxref, new ObjectOffsets(location));
+    }
+
+    public CrossReferenceTable(final TrailerDictionary trailerDictionary,
+            final long startxref, final ObjectOffsets location) {
         super(trailerDictionary, startxref);
         this.objectReferences = location;
     }
 
     @Override
     public void output(final OutputStream stream) throws IOException {
-        outputXref();
+        outputXref(stream);
         writeTrailer(stream);
     }
 
-    private void outputXref() throws IOException {
-        this.pdf.append("xref\n0 ");
-        this.pdf.append(this.objectReferences.size() + 1);
-        this.pdf.append("\n0000000000 65535 f \n");
-        for (final Long objectReference : this.objectReferences) {
-            final String padding = "0000000000";
-            final String s = String.valueOf(objectReference);
-            if (s.length() > 10) {
-                throw new IOException("PDF file too large."
-                        + " PDF 1.4 cannot grow beyond approx. 9.3GB.");
+    private void outputXref(final OutputStream stream) throws IOException {
+        final int count = this.objectReferences.size();
+        stream.write(PDFDocument.encode("xref\n0 " + (count + 1)
+                + "\n0000000000 65535 f \n"));
+        // The entries are formatted in place, a chunk at a time
+        final byte[] chunk = new byte[ENTRY_LENGTH * ENTRIES_PER_CHUNK];
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            if (this.objectReferences.hasOffset(i)) {
+                System.arraycopy(IN_USE_ENTRY, 0, chunk, used, ENTRY_LENGTH);
+                formatOffset(this.objectReferences.get(i), chunk, used);
+            } else {
+                System.arraycopy(FREE_ENTRY, 0, chunk, used, ENTRY_LENGTH);
             }
-            final String loc = padding.substring(s.length()) + s;
-            this.pdf.append(loc).append(" 00000 n \n");
+            used += ENTRY_LENGTH;
+            if (used == chunk.length) {
+                stream.write(chunk);
+                used = 0;
+            }
+        }
+        stream.write(chunk, 0, used);
+    }
+
+    /** Writes the offset as 10 zero-padded digits */
+    private static void formatOffset(long offset, final byte[] buf,
+            final int pos) throws IOException {
+        if (offset > 9999999999L) {
+            throw new IOException("PDF file too large."
+                    + " PDF 1.4 cannot grow beyond approx. 9.3GB.");
+        }
+        for (int i = pos + 9; i >= pos; i--) {
+            buf[i] = (byte) ('0' + offset % 10);
+            offset /= 10;
         }
     }
 
     private void writeTrailer(final OutputStream stream) throws IOException {
-        this.pdf.append("trailer\n");
-        stream.write(PDFDocument.encode(this.pdf.toString()));
+        stream.write(PDFDocument.encode("trailer\n"));
         final PDFDictionary dictionary = this.trailerDictionary.getDictionary();
         dictionary.put("/Size", this.objectReferences.size() + 1);
         dictionary.output(stream);
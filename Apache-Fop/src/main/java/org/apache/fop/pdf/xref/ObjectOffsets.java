@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf.xref;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The offsets of the indirect objects of a PDF file, indexed by object number
+ * minus one. The offsets are kept in a growable array of primitive longs, so
+ * no object is allocated per indirect object. Entries without an offset (such
+ * as objects compressed in an object stream) are allowed.
+ */
+public final class ObjectOffsets {
+
+    /** marks entries that have no offset */
+    private static final long NO_OFFSET = Long.MIN_VALUE;
+
+    private long[] offsets;
+
+    private int size;
+
+    /**
+     * Creates a new, empty, instance.
+     */
+    public ObjectOffsets() {
+        this.offsets = new long[256];
+    }
+
+    /**
+     * Creates a new instance holding the given offsets.
+     *
+     * @param offsets
+     *            the offsets, null for entries that have no offset
+     */
+    public ObjectOffsets(final List<Long> offsets) {
+        this.offsets = new long[Math.max(offsets.size(), 16)];
+        for (final Long offset : offsets) {
+            this.offsets[this.size++] = offset == null ? NO_OFFSET : offset;
+        }
+    }
+
+    /**
+     * Records the offset of an object. The store grows as necessary; the
+     * entries skipped are left without an offset.
+     *
+     * @param index
+     *            the object number minus one
+     * @param offset
+     *            the offset of the object from the beginning of the file
+     */
+    public void set(final int index, final long offset) {
+        if (index >= this.offsets.length) {
+            final int oldLength = this.offsets.length;
+            this.offsets = Arrays.copyOf(this.offsets,
+                    Math.max(index + 1, oldLength * 2));
+        }
+        if (index >= this.size) {
+            Arrays.fill(this.offsets, this.size, index, NO_OFFSET);
+            this.size = index + 1;
+        }
+        this.offsets[index] = offset;
+    }
+
+    /**
+     * Returns the number of entries, that is the highest object number
+     * recorded.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Indicates whether an offset has been recorded for the given entry.
+     *
+     * @param index
+     *            the object number minus one
+     * @return true if the entry has an offset
+     */
+    public boolean hasOffset(final int index) {
+        return index < this.size && this.offsets[index] != NO_OFFSET;
+    }
+
+    /**
+     * Returns the offset of the given entry.
+     *
+     * @param index
+     *            the object number minus one
+     * @return the offset of the object from the beginning of the file
+     * @throws IllegalArgumentException
+     *             if the entry has no offset
+     */
+    public long get(final int index) {
+        if (!hasOffset(index)) {
+            throw new IllegalArgumentException("No offset for object "
+                    + (index + 1));
+        }
+        return this.offsets[index];
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.color.ColorSpace;
+import java.awt.color.ICC_ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.DirectColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.fop.pdf.EncodedImageCache;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+
+/**
+ * Computes the content keys identifying images in an
+ * {@link EncodedImageCache}. A key is a digest of the image data and of the
+ * parameters its conversion depends on.
+ */
+final class ImageContentKey {
+
+    private final MessageDigest digest = EncodedImageCache.newDigest();
+
+    private final byte[] buffer = new byte[8192];
+    private int length;
+
+    /**
+     * Creates a new key.
+     *
+     * @param kind
+     *            identifies the conversion the image data is subject to
+     */
+    ImageContentKey(final String kind) {
+        add(kind);
+    }
+
+    /**
+     * Creates the content key of a rendered image.
+     *
+     * @param image
+     *            the image
+     * @return the key or null if the layout of the pixels is not supported
+     */
+    static String forRenderedImage(final RenderedImage image) {
+        final Raster raster = image instanceof BufferedImage ? ((BufferedImage) image)
+                .getRaster() : image.getData();
+        final ImageContentKey key = new ImageContentKey("rendered");
+        if (!key.addColorModel(image.getColorModel())
+                || !key.addRaster(raster)) {
+            return null;
+        }
+        return key.finish();
+    }
+
+    /**
+     * Creates the content key of a raw image.
+     *
+     * @param image
+     *            the image (must be cacheable so its data can be read again)
+     * @param params
+     *            the parameters of the conversion
+     * @return the key
+     * @throws IOException
+     *             if the image data cannot be read
+     */
+    static String forRawStream(final ImageRawStream image, final String params)
+            throws IOException {
+        final ImageContentKey key = new ImageContentKey(image.getMimeType());
+        key.add(params);
+        final InputStream in = image.createInputStream();
+        try {
+            int n;
+            while ((n = in.read(key.buffer)) > 0) {
+                key.digest.update(key.buffer, 0, n);
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+        return key.finish();
+    }
+
+    private void add(final String value) {
+        try {
+            this.digest.update(String.valueOf(value).getBytes("UTF-8"));
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not available", e);
+        }
+        this.digest.update((byte) 0);
+    }
+
+    private void add(final int value) {
+        if (this.length + 4 > this.buffer.length) {
+            flush();
+        }
+        this.buffer[this.length++] = (byte) (value >>> 24);
+        this.buffer[this.length++] = (byte) (value >>> 16);
+        this.buffer[this.length++] = (byte) (value >>> 8);
+        this.buffer[this.length++] = (byte) value;
+    }
+
+    private void add(final int[] values) {
+        add(values.length);
+        for (final int value : values) {
+            add(value);
+        }
+    }
+
+    private void flush() {
+        this.digest.update(this.buffer, 0, this.length);
+        this.length = 0;
+    }
+
+    private String finish() {
+        flush();
+        return EncodedImageCache.toHex(this.digest.digest());
+    }
+
+    private boolean addColorModel(final ColorModel cm) {
+        add(cm.getClass().getName());
+        add(cm.getPixelSize());
+        add(cm.getNumComponents());
+        add(cm.hasAlpha() ? 1 : 0);
+        add(cm.isAlphaPremultiplied() ? 1 : 0);
+        add(cm.getTransparency());
+        add(cm.getTransferType());
+        add(cm.getComponentSize());
+        final ColorSpace cs = cm.getColorSpace();
+        add(cs.getType());
+        if (cs instanceof ICC_ColorSpace) {
+            flush();
+            this.digest.update(((ICC_ColorSpace) cs).getProfile().getData());
+        } else {
+            // A custom color space whose conversion can't be identified
+            return false;
+        }
+        if (cm instanceof IndexColorModel) {
+            final IndexColorModel icm = (IndexColorModel) cm;
+            final int[] rgbs = new int[icm.getMapSize()];
+            icm.getRGBs(rgbs);
+            add(rgbs);
+            add(icm.getTransparentPixel());
+        } else if (cm instanceof DirectColorModel) {
+            final DirectColorModel dcm = (DirectColorModel) cm;
+            add(dcm.getRedMask());
+            add(dcm.getGreenMask());
+            add(dcm.getBlueMask());
+            add(dcm.getAlphaMask());
+        }
+        return true;
+    }
+
+    private boolean addRaster(final Raster raster) {
+        final SampleModel sm = raster.getSampleModel();
+        add(sm.getClass().getName());
+        add(raster.getMinX());
+        add(raster.getMinY());
+        add(raster.getWidth());
+        add(raster.getHeight());
+        add(raster.getSampleModelTranslateX());
+        add(raster.getSampleModelTranslateY());
+        add(sm.getWidth());
+        add(sm.getHeight());
+        add(sm.getDataType());
+        add(sm.getSampleSize());
+        if (sm instanceof ComponentSampleModel) {
+            final ComponentSampleModel csm = (ComponentSampleModel) sm;
+            add(csm.getScanlineStride());
+            add(csm.getPixelStride());
+            add(csm.getBandOffsets());
+            add(csm.getBankIndices());
+        } else if (sm instanceof SinglePixelPackedSampleModel) {
+            final SinglePixelPackedSampleModel sppsm = (SinglePixelPackedSampleModel) sm;
+            add(sppsm.getScanlineStride());
+            add(sppsm.getBitMasks());
+        } else if (sm instanceof MultiPixelPackedSampleModel) {
+            final MultiPixelPackedSampleModel mppsm = (MultiPixelPackedSampleModel) sm;
+            add(mppsm.getScanlineStride());
+            add(mppsm.getPixelBitStride());
+            add(mppsm.getDataBitOffset());
+        } else {
+            return false;
+        }
+        final DataBuffer db = raster.getDataBuffer();
+        add(db.getNumBanks());
+        add(db.getOffsets());
+        for (int bank = 0; bank < db.getNumBanks(); bank++) {
+            add(db.getSize());
+            if (db instanceof DataBufferByte) {
+                flush();
+                this.digest.update(((DataBufferByte) db).getData(bank));
+            } else if (db instanceof DataBufferInt) {
+                for (final int value : ((DataBufferInt) db).getData(bank)) {
+                    add(value);
+                }
+            } else if (db instanceof DataBufferUShort) {
+                addShorts(((DataBufferUShort) db).getData(bank));
+            } else if (db instanceof DataBufferShort) {
+                addShorts(((DataBufferShort) db).getData(bank));
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addShorts(final short[] values) {
+        for (int i = 0; i < values.length; i += 2) {
+            add(values[i] << 16
+                    | (i + 1 < values.length ? values[i + 1] & 0xFFFF : 0));
+        }
+    }
+
+}
@@ -34,8 +34,8 @@ import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.fop.pdf.BitmapImage;
+import org.apache.fop.pdf.CacheablePDFImage;
 import org.apache.fop.pdf.FlateFilter;
 import org.apache.fop.pdf.PDFColor;
 import org.apache.fop.pdf.PDFDeviceColorSpace;
@@ -49,13 +49,16 @@ import org.apache.fop.pdf.PDFReference;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
 
-public class ImageRawPNGAdapter extends AbstractImageAdapter {
+public class ImageRawPNGAdapter extends AbstractImageAdapter implements
+        CacheablePDFImage {
 
     private PDFICCStream pdfICCStream;
     private PDFFilter pdfFilter;
     private String maskRef;
     private PDFReference softMask;
     private int numberOfInterleavedComponents;
+    private String contentKey;
+    private boolean contentKeyComputed;
 
     /**
      * Creates a new PDFImage from an Image instance.
@@ -113,45 +116,6 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
                     this.image.getInfo().getOriginalURI());
             // TODO: Implement code to combine image with background color if
             // transparency is not allowed
-            // here we need to inflate the PNG pixel data, which includes alpha,
-            // separate the alpha channel
-            // and then deflate it back again
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            final DeflaterOutputStream dos = new DeflaterOutputStream(baos,
-                    new Deflater());
-            final InputStream in = ((ImageRawStream) this.image)
-                    .createInputStream();
-            try {
-                final InflaterInputStream infStream = new InflaterInputStream(
-                        in, new Inflater());
-                final DataInputStream dataStream = new DataInputStream(
-                        infStream);
-                // offset is the byte offset of the alpha component
-                int offset = this.numberOfInterleavedComponents - 1; // 1 for
-                // GA, 3
-                // for RGBA
-                final int numColumns = this.image.getSize().getWidthPx();
-                final int bytesPerRow = this.numberOfInterleavedComponents
-                        * numColumns;
-                int filter;
-                // read line by line; the first byte holds the filter
-                while ((filter = dataStream.read()) != -1) {
-                    final byte[] bytes = new byte[bytesPerRow];
-                    dataStream.readFully(bytes, 0, bytesPerRow);
-                    dos.write((byte) filter);
-                    for (int j = 0; j < numColumns; j++) {
-                        dos.write(bytes, offset, 1);
-                        offset += this.numberOfInterleavedComponents;
-                    }
-                    offset = this.numberOfInterleavedComponents - 1;
-                }
-                dos.close();
-            } catch (final IOException e) {
-                throw new RuntimeException(
-                        "Error processing transparency channel:", e);
-            } finally {
-                IOUtils.closeQuietly(in);
-            }
             // set up alpha channel compression
             FlateFilter transFlate;
             try {
@@ -164,9 +128,9 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
             } catch (final PDFFilterException e) {
                 throw new RuntimeException("FlateFilter configuration error", e);
             }
-            final BitmapImage alphaMask = new BitmapImage("Mask:" + getKey(),
-                    this.image.getSize().getWidthPx(), this.image.getSize()
-                    .getHeightPx(), baos.toByteArray(), null);
+            final BitmapImage alphaMask = new AlphaChannelImage("Mask:"
+                    + getKey(), this.image.getSize().getWidthPx(), this.image
+                    .getSize().getHeightPx());
             alphaMask.setPDFFilter(transFlate);
             alphaMask.disallowMultipleFilters();
             alphaMask.setColorSpace(new PDFDeviceColorSpace(
@@ -175,6 +139,80 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
         }
     }
 
+    /**
+     * Writes the alpha channel of the image, deflated.
+     *
+     * @param out
+     *            the stream to write to
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    private void writeAlphaChannel(final OutputStream out) throws IOException {
+        // here we need to inflate the PNG pixel data, which includes alpha,
+        // separate the alpha channel and then deflate it back again
+        final Deflater deflater = new Deflater();
+        final DeflaterOutputStream dos = new DeflaterOutputStream(out,
+                deflater);
+        final InputStream in = ((ImageRawStream) this.image)
+                .createInputStream();
+        try {
+            final InflaterInputStream infStream = new InflaterInputStream(in,
+                    new Inflater());
+            final DataInputStream dataStream = new DataInputStream(infStream);
+            // offset is the byte offset of the alpha component
+            int offset = this.numberOfInterleavedComponents - 1; // 1 for
+            // GA, 3
+            // for RGBA
+            final int numColumns = this.image.getSize().getWidthPx();
+            final int bytesPerRow = this.numberOfInterleavedComponents
+                    * numColumns;
+            int filter;
+            // read line by line; the first byte holds the filter
+            while ((filter = dataStream.read()) != -1) {
+                final byte[] bytes = new byte[bytesPerRow];
+                dataStream.readFully(bytes, 0, bytesPerRow);
+                dos.write((byte) filter);
+                for (int j = 0; j < numColumns; j++) {
+                    dos.write(bytes, offset, 1);
+                    offset += this.numberOfInterleavedComponents;
+                }
+                offset = this.numberOfInterleavedComponents - 1;
+            }
+            dos.finish();
+        } finally {
+            deflater.end();
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * {@inheritDoc} Synchronized, since the key of the image and that of its
+     * alpha channel may be requested by different encoder threads.
+     */
+    @Override
+    public synchronized String getContentKey() {
+        if (!this.contentKeyComputed) {
+            this.contentKeyComputed = true;
+            // Only images with an alpha channel are converted, the others are
+            // copied as they are
+            if ((this.numberOfInterleavedComponents == 2 || this.numberOfInterleavedComponents == 4)
+                    && this.image.isCacheable()) {
+                try {
+                    this.contentKey = ImageContentKey.forRawStream(
+                            (ImageRawStream) this.image,
+                            this.numberOfInterleavedComponents + ";"
+                                    + this.image.getSize().getWidthPx() + ";"
+                                    + getBitsPerComponent());
+                } catch (final IOException e) {
+                    // The image is not cached, the error will show when its
+                    // data is written
+                    this.contentKey = null;
+                }
+            }
+        }
+        return this.contentKey;
+    }
+
     /** {@inheritDoc} */
     @Override
     public PDFDeviceColorSpace getColorSpace() {
@@ -296,4 +334,27 @@ public class ImageRawPNGAdapter extends AbstractImageAdapter {
             super.populateXObjectDictionaryForIndexColorModel(dict, icm);
         }
     }
+
+    /** The alpha channel of the image, extracted when it is written. */
+    private class AlphaChannelImage extends BitmapImage implements
+            CacheablePDFImage {
+
+        AlphaChannelImage(final String key, final int width,
+                final int height) {
+            super(key, width, height, null, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getContentKey() {
+            final String key = ImageRawPNGAdapter.this.getContentKey();
+            return key != null ? "alpha:" + key : null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void outputContents(final OutputStream out) throws IOException {
+            writeAlphaChannel(out);
+        }
+    }
 }
@@ -32,6 +32,7 @@ import java.io.OutputStream;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.fop.pdf.AlphaRasterImage;
+import org.apache.fop.pdf.CacheablePDFImage;
 import org.apache.fop.pdf.PDFColor;
 import org.apache.fop.pdf.PDFDeviceColorSpace;
 import org.apache.fop.pdf.PDFDictionary;
@@ -46,13 +47,16 @@ import org.apache.xmlgraphics.ps.ImageEncodingHelper;
  * PDFImage implementation for the PDF renderer which handles RenderedImages.
  */
 @Slf4j
-public class ImageRenderedAdapter extends AbstractImageAdapter {
+public class ImageRenderedAdapter extends AbstractImageAdapter implements
+        CacheablePDFImage {
 
     private final ImageEncodingHelper encodingHelper;
 
     private final PDFFilter pdfFilter = null;
     private String maskRef;
     private PDFReference softMask;
+    private String contentKey;
+    private boolean contentKeyComputed;
 
     /**
      * Creates a new PDFImage from an Image instance.
@@ -132,10 +136,24 @@ public class ImageRenderedAdapter extends AbstractImageAdapter {
 
             final AlphaRasterImage alphaImage = new AlphaRasterImage("Mask:"
                     + getKey(), ri);
+            if (doc.getEncodedImageCache() != null && getContentKey() != null) {
+                alphaImage.setContentKey("alpha:" + getContentKey());
+            }
             this.softMask = doc.addImage(null, alphaImage).makeReference();
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public String getContentKey() {
+        if (!this.contentKeyComputed) {
+            this.contentKey = ImageContentKey.forRenderedImage(getImage()
+                    .getRenderedImage());
+            this.contentKeyComputed = true;
+        }
+        return this.contentKey;
+    }
+
     /** {@inheritDoc} */
     @Override
     public PDFDeviceColorSpace getColorSpace() {
@@ -99,4 +99,15 @@ public interface PDFConfigurationConstants {
      * if no PDF/A or PDF/X profile is active).
      */
     String KEY_DISABLE_SRGB_COLORSPACE = "disable-srgb-colorspace";
+    /**
+     * Rendering Options key for the number of threads compressing the PDF
+     * streams (0 to compress them on the rendering thread), datatype: Integer
+     * or String.
+     */
+    String KEY_COMPRESSION_THREADS = "compression-threads";
+    /**
+     * Rendering Options key for the directory caching the encoded data of
+     * images across documents, datatype: File or String.
+     */
+    String KEY_IMAGE_CACHE_DIRECTORY = "image-cache-directory";
 }
@@ -146,12 +146,13 @@ public class PDFContentGenerator {
 
     /**
      * Flushes all queued PDF objects ready to be written to the output stream.
+     * Streams still being encoded by worker threads are written later.
      * 
      * @throws IOException
      *             if an error occurs while flushing the PDF objects
      */
     public void flushPDFDoc() throws IOException {
-        this.document.output(this.outputStream);
+        this.document.outputReady(this.outputStream);
     }
 
     /**
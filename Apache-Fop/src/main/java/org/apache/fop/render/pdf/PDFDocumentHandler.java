@@ -25,9 +25,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -36,6 +34,7 @@ import org.apache.fop.fo.extensions.xmp.XMPMetadata;
 import org.apache.fop.pdf.PDFAnnotList;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFPage;
+import org.apache.fop.pdf.PDFReference;
 import org.apache.fop.pdf.PDFResourceContext;
 import org.apache.fop.pdf.PDFResources;
 import org.apache.fop.render.extensions.prepress.PageBoundaries;
@@ -87,7 +86,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     protected PageReference currentPageRef;
 
     /** Used for bookmarks/outlines. */
-    protected Map<Integer, PageReference> pageReferences = new HashMap<Integer, PageReference>();
+    private final PageReferences pageReferences = new PageReferences();
 
     private final PDFDocumentNavigationHandler documentNavigationHandler = new PDFDocumentNavigationHandler(
             this);
@@ -244,7 +243,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         this.pdfUtil.generatePageLabel(index, name);
 
         this.currentPageRef = new PageReference(this.currentPage, size);
-        this.pageReferences.put(Integer.valueOf(index), this.currentPageRef);
+        this.pageReferences.put(index, this.currentPage, size);
 
         this.generator = new PDFContentGenerator(this.pdfDoc,
                 this.outputStream, this.currentPage);
@@ -290,7 +289,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
                 this.pdfDoc.addObject(annots);
             }
             this.pdfDoc.addObject(this.currentPage);
-            this.generator.flushPDFDoc();
+            this.pdfDoc.outputPage(this.outputStream);
             this.generator = null;
         } catch (final IOException ioe) {
             throw new IFException("I/O error in endPage()", ioe);
@@ -327,7 +326,7 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     }
 
     PageReference getPageReference(final int pageIndex) {
-        return this.pageReferences.get(Integer.valueOf(pageIndex));
+        return this.pageReferences.get(pageIndex);
     }
 
     static final class PageReference {
@@ -338,7 +337,11 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         private PageReference(final PDFPage page, final Dimension dim) {
             // Avoid keeping references to PDFPage as memory usage is
             // considerably increased when handling thousands of pages.
-            this.pageRef = page.makeReference().toString();
+            this(new PDFReference(page.referencePDF()), dim);
+        }
+
+        private PageReference(final PDFReference pageRef, final Dimension dim) {
+            this.pageRef = pageRef.toString();
             this.pageDimension = new Dimension(dim);
         }
 
@@ -351,6 +354,50 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         }
     }
 
+    /**
+     * Keeps the reference and size of every page in arrays indexed by page
+     * index, so the references needed for links and bookmarks to any page of
+     * the document cost a few bytes per page.
+     */
+    static final class PageReferences {
+
+        private PDFReference[] references = new PDFReference[64];
+        private int[] widths = new int[64];
+        private int[] heights = new int[64];
+
+        void put(final int pageIndex, final PDFPage page, final Dimension dim) {
+            if (pageIndex >= this.references.length) {
+                final int newLength = Math.max(pageIndex + 1,
+                        this.references.length * 2);
+                final PDFReference[] newReferences = new PDFReference[newLength];
+                System.arraycopy(this.references, 0, newReferences, 0,
+                        this.references.length);
+                this.references = newReferences;
+                this.widths = grow(this.widths, newLength);
+                this.heights = grow(this.heights, newLength);
+            }
+            this.references[pageIndex] = new PDFReference(page.referencePDF());
+            this.widths[pageIndex] = dim.width;
+            this.heights[pageIndex] = dim.height;
+        }
+
+        private static int[] grow(final int[] array, final int newLength) {
+            final int[] newArray = new int[newLength];
+            System.arraycopy(array, 0, newArray, 0, array.length);
+            return newArray;
+        }
+
+        PageReference get(final int pageIndex) {
+            if (pageIndex < 0 || pageIndex >= this.references.length
+                    || this.references[pageIndex] == null) {
+                return null;
+            }
+            return new PageReference(this.references[pageIndex],
+                    new Dimension(this.widths[pageIndex],
+                            this.heights[pageIndex]));
+        }
+    }
+
     @Override
     public StructureTreeEventHandler getStructureTreeEventHandler() {
         if (this.structureTreeBuilder == null) {
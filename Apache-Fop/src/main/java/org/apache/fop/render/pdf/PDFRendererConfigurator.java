@@ -19,6 +19,7 @@
 
 package org.apache.fop.render.pdf;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
@@ -169,6 +170,18 @@ public class PDFRendererConfigurator extends PrintRendererConfigurator {
                     .getValueAsBoolean(false));
         }
 
+        final Configuration compressionThreadsConfig = cfg.getChild(
+                PDFConfigurationConstants.KEY_COMPRESSION_THREADS, false);
+        if (compressionThreadsConfig != null) {
+            pdfUtil.setCompressionThreads(compressionThreadsConfig
+                    .getValueAsInteger(0));
+        }
+        s = cfg.getChild(PDFConfigurationConstants.KEY_IMAGE_CACHE_DIRECTORY,
+                true).getValue(null);
+        if (s != null) {
+            pdfUtil.setImageCacheDirectory(new File(s));
+        }
+
         setPDFDocVersion(cfg, pdfUtil);
     }
 
@@ -20,6 +20,7 @@
 package org.apache.fop.render.pdf;
 
 import java.awt.color.ICC_Profile;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,6 +41,7 @@ import org.apache.fop.pdf.PDFAMode;
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFConformanceException;
 import org.apache.fop.pdf.PDFDictionary;
+import org.apache.fop.pdf.EncodedImageCache;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFEmbeddedFile;
 import org.apache.fop.pdf.PDFEmbeddedFiles;
@@ -105,6 +107,12 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
 
     protected Version maxPDFVersion;
 
+    /** the number of threads compressing the PDF streams (0: none) */
+    protected int compressionThreads = 0;
+
+    /** the cache holding encoded images across documents, may be null */
+    protected EncodedImageCache encodedImageCache;
+
     PDFRenderingUtil(final FOUserAgent userAgent) {
         this.userAgent = userAgent;
         initialize();
@@ -121,6 +129,22 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         }
     }
 
+    private static int intValueOf(final String key, final Object obj) {
+        if (obj instanceof Number) {
+            return ((Number) obj).intValue();
+        } else if (obj instanceof String) {
+            try {
+                return Integer.parseInt(((String) obj).trim());
+            } catch (final NumberFormatException nfe) {
+                throw new IllegalArgumentException("Integer expected for \""
+                        + key + "\": " + obj);
+            }
+        } else {
+            throw new IllegalArgumentException("Integer expected for \""
+                    + key + "\".");
+        }
+    }
+
     private void initialize() {
         final PDFEncryptionParams params = (PDFEncryptionParams) this.userAgent
                 .getRendererOptions().get(ENCRYPTION_PARAMS);
@@ -207,6 +231,19 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         if (disableSRGBColorSpace != null) {
             this.disableSRGBColorSpace = booleanValueOf(disableSRGBColorSpace);
         }
+        final Object compressionThreads = this.userAgent.getRendererOptions()
+                .get(KEY_COMPRESSION_THREADS);
+        if (compressionThreads != null) {
+            setCompressionThreads(intValueOf(KEY_COMPRESSION_THREADS,
+                    compressionThreads));
+        }
+        final Object imageCacheDirectory = this.userAgent.getRendererOptions()
+                .get(KEY_IMAGE_CACHE_DIRECTORY);
+        if (imageCacheDirectory instanceof File) {
+            setImageCacheDirectory((File) imageCacheDirectory);
+        } else if (imageCacheDirectory != null) {
+            setImageCacheDirectory(new File(imageCacheDirectory.toString()));
+        }
     }
 
     public FOUserAgent getUserAgent() {
@@ -254,6 +291,34 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
         this.disableSRGBColorSpace = disable;
     }
 
+    /**
+     * Sets the number of threads compressing the PDF streams.
+     *
+     * @param threads
+     *            the number of threads, 0 to compress the streams on the
+     *            rendering thread
+     */
+    public void setCompressionThreads(final int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException(
+                    "The number of compression threads must not be negative");
+        }
+        this.compressionThreads = threads;
+    }
+
+    /**
+     * Sets the directory in which the encoded data of images is cached, so
+     * images used by several documents are converted and compressed only
+     * once.
+     *
+     * @param directory
+     *            the cache directory or null to disable the cache
+     */
+    public void setImageCacheDirectory(final File directory) {
+        this.encodedImageCache = directory != null ? new EncodedImageCache(
+                directory) : null;
+    }
+
     /**
      * Sets the filter map to be used by the PDF renderer.
      *
@@ -442,6 +507,8 @@ class PDFRenderingUtil implements PDFConfigurationConstants {
                 updateInfo();
                 updatePDFProfiles();
                 this.pdfDoc.setFilterMap(this.filterMap);
+                this.pdfDoc.setStreamEncodingThreads(this.compressionThreads);
+                this.pdfDoc.setEncodedImageCache(this.encodedImageCache);
                 this.pdfDoc.outputHeader(out);
 
                 // Setup encryption if necessary
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the named daemon threads of FOP's worker pools. The threads are
+ * named after the pool and numbered, e.g. "fop-layout-2-1" for the first
+ * thread of the second layout pool. Being daemon threads, they cannot keep the
+ * VM alive when a run fails without shutting its pool down.
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private final String namePrefix;
+
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    /**
+     * Creates a factory for a new pool.
+     *
+     * @param poolName
+     *            the name of the pool, e.g. "fop-layout"
+     */
+    public DaemonThreadFactory(final String poolName) {
+        this.namePrefix = poolName + "-" + POOL_COUNT.incrementAndGet() + "-";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Thread newThread(final Runnable r) {
+        final Thread thread = new Thread(r, this.namePrefix
+                + this.threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
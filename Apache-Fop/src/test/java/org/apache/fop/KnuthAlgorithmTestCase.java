@@ -85,6 +85,36 @@ public class KnuthAlgorithmTestCase {
         assertEquals(5000, parts[1].difference);
     }
 
+    /**
+     * Tests that consecutive runs on the same thread, which reuse the nodes
+     * released by the previous run, find the same breaks.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testRepeatedRuns() throws Exception {
+        Part[] expected = null;
+        for (int run = 0; run < 3; run++) {
+            final MyBreakingAlgorithm algo = new MyBreakingAlgorithm(0, 0,
+                    true, true, 0);
+            algo.setConstantLineWidth(30000);
+            algo.findBreakingPoints(getKnuthSequence1(), 1, true,
+                    BreakingAlgorithm.ALL_BREAKS);
+            final Part[] parts = algo.getParts();
+            if (expected == null) {
+                expected = parts;
+            } else {
+                assertEquals(expected.length, parts.length);
+                for (int i = 0; i < parts.length; i++) {
+                    assertEquals(expected[i].position, parts[i].position);
+                    assertEquals(expected[i].difference, parts[i].difference);
+                    assertEquals(expected[i].ratio, parts[i].ratio, 0.0);
+                }
+            }
+        }
+    }
+
     private class Part {
         private int difference;
         private double ratio;
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the {@linkplain IDTracker} class.
+ */
+public class IDTrackerTestCase {
+
+    private static PageViewport createPageViewport(final int pageNumber) {
+        return new PageViewport(new Rectangle(0, 0, 100, 100), pageNumber,
+                String.valueOf(pageNumber), "spm", false);
+    }
+
+    private static final class TestResolvable implements Resolvable {
+
+        private final String idref;
+
+        private List<PageViewport> pages;
+
+        TestResolvable(final String idref) {
+            this.idref = idref;
+        }
+
+        @Override
+        public boolean isResolved() {
+            return this.pages != null;
+        }
+
+        @Override
+        public String[] getIDRefs() {
+            return new String[] { this.idref };
+        }
+
+        @Override
+        public void resolveIDRef(final String id, final List<PageViewport> pvs) {
+            this.pages = pvs;
+        }
+    }
+
+    @Test
+    public void testImportResolvesPendingReferences() {
+        final IDTracker tracker = new IDTracker();
+        final TestResolvable forwardRef = new TestResolvable("later");
+        tracker.addUnresolvedIDRef("later", forwardRef);
+
+        final IDTracker other = new IDTracker();
+        final PageViewport pv = createPageViewport(5);
+        other.signalPendingID("later");
+        other.associateIDWithPageViewport("later", pv);
+        other.signalIDProcessed("later");
+
+        assertFalse(forwardRef.isResolved());
+        tracker.importIDs(other);
+        assertTrue(forwardRef.isResolved());
+        assertSame(pv, tracker.getFirstPageViewportContaining("later"));
+        assertTrue(tracker.alreadyResolvedID("later"));
+    }
+
+    @Test
+    public void testImportRegistersUnresolvedReferences() {
+        final IDTracker tracker = new IDTracker();
+        final PageViewport pv = createPageViewport(1);
+        tracker.signalPendingID("earlier");
+        tracker.associateIDWithPageViewport("earlier", pv);
+        tracker.signalIDProcessed("earlier");
+
+        final IDTracker other = new IDTracker();
+        final TestResolvable backwardRef = new TestResolvable("earlier");
+        final TestResolvable unknownRef = new TestResolvable("unknown");
+        other.addUnresolvedIDRef("earlier", backwardRef);
+        other.addUnresolvedIDRef("unknown", unknownRef);
+
+        tracker.importIDs(other);
+        assertTrue(backwardRef.isResolved());
+        assertFalse(unknownRef.isResolved());
+    }
+}
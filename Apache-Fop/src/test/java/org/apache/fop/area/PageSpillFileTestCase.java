@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.area.inline.BasicLinkArea;
+import org.apache.fop.area.inline.InlineArea;
+import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+import org.apache.fop.area.inline.WordArea;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fonts.FontTriplet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests saving pages to and loading them from a {@link PageSpillFile}.
+ */
+public class PageSpillFileTestCase {
+
+    private static final FontTriplet FONT = new FontTriplet("Helvetica",
+            "normal", 400);
+
+    private PageViewport createPage() {
+        final PageViewport pv = new PageViewport(new Rectangle(0, 0, 200000,
+                300000), 1, "1", "page", false);
+        pv.setKey("P1");
+        final Page page = new Page();
+        final RegionViewport rv = new RegionViewport(new Rectangle(0, 0,
+                200000, 300000));
+        final BodyRegion body = new BodyRegion(Constants.FO_REGION_BODY,
+                "xsl-region-body", rv, 2, 12000);
+        body.setIPD(200000);
+        body.setCTM(new CTM(1, 0, 0, 1, 10000, 20000));
+        rv.setRegionReference(body);
+        page.setRegionViewport(Constants.FO_REGION_BODY, rv);
+        final Span span = body.getMainReference().createSpan(false);
+
+        final Block block = new Block();
+        block.addTrait(Trait.SPACE_BEFORE, 6000);
+        final LineArea line = new LineArea(Constants.EN_JUSTIFY, 3000, 2000,
+                1000);
+        final TextArea text = new TextArea(2000, 1000, 0);
+        text.addTrait(Trait.FONT, FONT);
+        text.addWord("Hello", 25000, null, null, null, 0);
+        text.addSpace(' ', 3000, true, 0, -1);
+        text.addWord("wörld", 30000, new int[] { 0, -500, 0, 0, 0 },
+                null, null, 0);
+        text.addSpace(' ', 3000, true, 0, -1);
+        text.addWord("Hello", 25000, null, null, null, 0);
+        line.addChildArea(text);
+        final UnresolvedPageNumber pageNumber = new UnresolvedPageNumber(
+                "target", null);
+        line.addChildArea(pageNumber);
+        final BasicLinkArea link = new BasicLinkArea();
+        final LinkResolver resolver = new LinkResolver("target", link);
+        link.setResolver(resolver);
+        final TextArea linkText = new TextArea();
+        linkText.addWord("link", 20000, null, null, null, 0);
+        link.addChildArea(linkText);
+        line.addChildArea(link);
+        block.addLineArea(line);
+        span.getCurrentFlow().addBlock(block);
+
+        pv.setPage(page);
+        pv.addUnresolvedIDRef("target", pageNumber);
+        pv.addUnresolvedIDRef("target", resolver);
+        return pv;
+    }
+
+    private static LineArea getLine(final PageViewport pv) {
+        final BodyRegion body = (BodyRegion) pv.getPage()
+                .getRegionViewport(Constants.FO_REGION_BODY)
+                .getRegionReference();
+        final Span span = (Span) body.getMainReference().getSpans().get(0);
+        final Block block = (Block) span.getNormalFlow(0).getChildAreas()
+                .get(0);
+        return (LineArea) block.getChildAreas().get(0);
+    }
+
+    /**
+     * Saves a page and loads it again.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final PageViewport pv = createPage();
+        final PageSpillFile spillFile = new PageSpillFile(new File(
+                System.getProperty("java.io.tmpdir")));
+        try {
+            spillFile.savePage(pv);
+            assertNull(pv.getPage());
+            assertTrue(spillFile.contains(pv));
+            spillFile.loadPage(pv);
+            assertFalse(spillFile.contains(pv));
+        } finally {
+            final File file = spillFile.getFile();
+            assertTrue(spillFile.close());
+            assertFalse(file.exists());
+        }
+
+        final RegionViewport rv = pv.getPage().getRegionViewport(
+                Constants.FO_REGION_BODY);
+        assertEquals(new Rectangle(0, 0, 200000, 300000), rv.getViewArea());
+        final BodyRegion body = (BodyRegion) rv.getRegionReference();
+        assertSame(rv, body.getRegionViewport());
+        assertEquals(2, body.getColumnCount());
+        assertEquals(12000, body.getColumnGap());
+        assertEquals(new CTM(1, 0, 0, 1, 10000, 20000).toString(), body
+                .getCTM().toString());
+        final Span span = (Span) body.getMainReference().getSpans().get(0);
+        assertEquals(2, span.getColumnCount());
+        assertEquals(94000, span.getColumnWidth());
+
+        final LineArea line = getLine(pv);
+        assertEquals(6000, ((Block) span.getNormalFlow(0).getChildAreas()
+                .get(0)).getSpaceBefore());
+        final List<InlineArea> inlines = line.getInlineAreas();
+        assertEquals(3, inlines.size());
+        final TextArea text = (TextArea) inlines.get(0);
+        assertSame(line, text.getParentArea());
+        assertSame(FONT, text.getTrait(Trait.FONT));
+        assertEquals("Hello wörld Hello", text.getText());
+        final WordArea word = (WordArea) text.getChildAreas().get(2);
+        assertSame(text, word.getParentArea());
+        assertEquals(30000, word.getIPD());
+        assertEquals(-500, word.getLetterAdjustArray()[1]);
+
+        // the resolvables of the page are the areas in the page
+        final UnresolvedPageNumber pageNumber = (UnresolvedPageNumber) inlines
+                .get(1);
+        final BasicLinkArea link = (BasicLinkArea) inlines.get(2);
+        assertSame(link, link.getChildAreas().get(0).getParentArea());
+        assertFalse(pv.isResolved());
+        final PageViewport target = new PageViewport(new Rectangle(0, 0,
+                200000, 300000), 7, "vii", "page", false);
+        target.setKey("P7");
+        pv.resolveIDRef("target", Collections.singletonList(target));
+        assertTrue(pv.isResolved());
+        assertTrue(pageNumber.isResolved());
+        assertEquals("vii", pageNumber.getText());
+        assertTrue(link.getResolver().isResolved());
+        assertEquals("P7", ((Trait.InternalLink) link
+                .getTrait(Trait.INTERNAL_LINK)).getPVKey());
+    }
+
+    /**
+     * Tests that corrupt page data is reported as an IOException.
+     */
+    @Test
+    public void testCorruptData() {
+        final AreaEncoder encoder = new AreaEncoder();
+        encoder.writePage(createPage().getPage());
+        final ByteBuffer data = encoder.toByteBuffer();
+        final ByteBuffer truncated = data.duplicate();
+        truncated.limit(truncated.limit() / 2);
+        try {
+            new AreaDecoder(truncated, encoder.getHeapObjects()).readPage();
+            fail("IOException expected");
+        } catch (final IOException e) {
+            // expected
+        }
+        final ByteBuffer garbage = ByteBuffer.allocate(64);
+        for (int i = 0; i < 64; i++) {
+            garbage.put((byte) 0x7F);
+        }
+        garbage.flip();
+        try {
+            new AreaDecoder(garbage, new Object[0]).readPage();
+            fail("IOException expected");
+        } catch (final IOException e) {
+            // expected
+        }
+    }
+
+    private static String createDocument() {
+        final StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name=\"page\""
+                + " page-width=\"210mm\" page-height=\"120mm\" margin=\"10mm\">"
+                + "<fo:region-body margin-bottom=\"10mm\" column-count=\"2\"/>"
+                + "<fo:region-after extent=\"8mm\"/>"
+                + "</fo:simple-page-master>"
+                + "</fo:layout-master-set>"
+                + "<fo:page-sequence master-reference=\"page\">"
+                + "<fo:static-content flow-name=\"xsl-region-after\">"
+                + "<fo:block text-align=\"end\">Page <fo:page-number/> of"
+                + " <fo:page-number-citation-last ref-id=\"doc\"/></fo:block>"
+                + "</fo:static-content>"
+                + "<fo:flow flow-name=\"xsl-region-body\"><fo:block id=\"doc\">");
+        for (int i = 0; i < 40; i++) {
+            fo.append("<fo:block text-align=\"justify\" space-before=\"3pt\">"
+                    + "Paragraph " + i + " refers to <fo:basic-link"
+                    + " internal-destination=\"p" + (39 - i) + "\">paragraph "
+                    + (39 - i) + "</fo:basic-link> on page <fo:page-number-citation"
+                    + " ref-id=\"p" + (39 - i) + "\"/>.<fo:footnote>"
+                    + "<fo:inline>*</fo:inline><fo:footnote-body><fo:block"
+                    + " font-size=\"8pt\">Note " + i + "</fo:block>"
+                    + "</fo:footnote-body></fo:footnote> Lorem ipsum dolor sit"
+                    + " amet, consectetur adipiscing elit, sed do eiusmod tempor"
+                    + " incididunt ut labore.<fo:leader leader-pattern=\"dots\""
+                    + " leader-length=\"3cm\"/><fo:inline id=\"p" + i
+                    + "\" font-weight=\"bold\">end</fo:inline></fo:block>");
+            if (i % 10 == 0) {
+                fo.append("<fo:block-container height=\"1cm\" overflow=\"hidden\""
+                        + " border=\"1pt solid red\"><fo:block>Box " + i
+                        + "</fo:block></fo:block-container>");
+            }
+        }
+        fo.append("</fo:block></fo:flow></fo:page-sequence></fo:root>");
+        return fo.toString();
+    }
+
+    private static String render(final FopFactory fopFactory,
+            final String fo, final boolean conserveMemory) throws Exception {
+        final FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setConserveMemoryPolicy(conserveMemory);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE,
+                userAgent, out);
+        final Transformer transformer = TransformerFactory.newInstance()
+                .newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * Renders a document whose pages are all deferred until the last page is
+     * known, with and without saving the deferred pages.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testSameAreaTreeWithSavedPages() throws Exception {
+        final FopFactory fopFactory = FopFactory.newInstance();
+        final String fo = createDocument();
+        final String expected = render(fopFactory, fo, false);
+        assertTrue(expected.contains("internal-link=\""));
+        assertEquals(expected, render(fopFactory, fo, true));
+    }
+}
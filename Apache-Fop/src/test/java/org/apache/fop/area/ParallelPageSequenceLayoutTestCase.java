@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that parallel page-sequence layout produces the same area tree as
+ * sequential layout.
+ */
+public class ParallelPageSequenceLayoutTestCase {
+
+    private static final String WORDS = "Lorem ipsum dolor sit amet,"
+            + " consectetur adipiscing elit, sed do eiusmod tempor incididunt"
+            + " ut labore et dolore magna aliqua. ";
+
+    private final FopFactory fopFactory = FopFactory.newInstance();
+
+    private static String createDocument() {
+        final StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name=\"page\""
+                + " page-width=\"210mm\" page-height=\"120mm\" margin=\"10mm\">"
+                + "<fo:region-body margin-bottom=\"10mm\"/>"
+                + "<fo:region-after extent=\"8mm\"/>"
+                + "</fo:simple-page-master>"
+                + "</fo:layout-master-set>");
+        for (int s = 0; s < 8; s++) {
+            fo.append("<fo:page-sequence master-reference=\"page\"");
+            // every third page-sequence depends on the preceding ones and is
+            // laid out sequentially
+            if (s % 3 != 2) {
+                fo.append(" initial-page-number=\"" + (1 + 100 * s) + "\"");
+            }
+            fo.append("><fo:static-content flow-name=\"xsl-region-after\">"
+                    + "<fo:block>Page <fo:page-number/></fo:block>"
+                    + "</fo:static-content>"
+                    + "<fo:flow flow-name=\"xsl-region-body\">");
+            fo.append("<fo:block id=\"seq" + s + "\" font-weight=\"bold\">"
+                    + "Section " + s + ", see also page"
+                    + " <fo:page-number-citation ref-id=\"seq" + (7 - s)
+                    + "\"/>, <fo:basic-link internal-destination=\"end" + s
+                    + "\">end</fo:basic-link>, <fo:basic-link"
+                    + " internal-destination=\"end" + (7 - s)
+                    + "\">other</fo:basic-link></fo:block>");
+            for (int p = 0; p < 6 + s; p++) {
+                fo.append("<fo:block space-before=\"4pt\" text-align=\"justify\""
+                        + " hyphenate=\"false\">");
+                for (int w = 0; w <= p % 4; w++) {
+                    fo.append(WORDS);
+                }
+                fo.append("</fo:block>");
+            }
+            fo.append("<fo:block id=\"end" + s + "\">End of section " + s
+                    + " on page <fo:page-number/></fo:block>"
+                    + "</fo:flow></fo:page-sequence>");
+        }
+        fo.append("</fo:root>");
+        return fo.toString();
+    }
+
+    private String render(final String fo, final boolean parallel)
+            throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        userAgent.setParallelPageSequenceLayout(parallel);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Fop fop = this.fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE,
+                userAgent, out);
+        final Transformer transformer = TransformerFactory.newInstance()
+                .newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)),
+                new SAXResult(fop.getDefaultHandler()));
+        return out.toString("UTF-8");
+    }
+
+    /**
+     * Lays out a document with independent and dependent page-sequences and
+     * cross references and links between them both ways.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testSameAreaTree() throws Exception {
+        final String fo = createDocument();
+        final String sequential = render(fo, false);
+        assertTrue(sequential.contains("pageViewport"));
+        assertTrue(sequential.contains("internal-link=\""));
+        for (int run = 0; run < 3; run++) {
+            assertEquals(sequential, render(fo, true));
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import org.junit.runners.Suite.SuiteClasses;
  */
 @RunWith(Suite.class)
 @SuiteClasses({ TTXFileTestCase.class, GDEFTestCase.class, GSUBTestCase.class,
-        GPOSTestCase.class })
+        GPOSTestCase.class, GlyphMappingTableTestCase.class,
+        ShapingCacheTestCase.class })
 public class FontsTestSuite {
 }
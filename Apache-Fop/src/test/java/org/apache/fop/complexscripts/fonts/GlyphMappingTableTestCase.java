@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.complexscripts.fonts.GlyphMappingTable.MappingRange;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the glyph coverage and class tables, whose lookups use indices built
+ * from their entries.
+ */
+public class GlyphMappingTableTestCase {
+
+    @Test
+    public void testMappedCoverage() {
+        final List<Integer> entries = new ArrayList<Integer>();
+        for (int gid = 10; gid < 1000; gid += 3) {
+            entries.add(gid);
+        }
+        final GlyphCoverageTable ct = GlyphCoverageTable
+                .createCoverageTable(entries);
+        assertEquals(entries.size(), ct.getCoverageSize());
+        for (int gid = 0; gid < 1100; gid++) {
+            final int expected = gid >= 10 && gid < 1000 && (gid - 10) % 3 == 0 ? (gid - 10) / 3
+                    : -1;
+            assertEquals(expected, ct.getCoverageIndex(gid));
+        }
+    }
+
+    @Test
+    public void testSparseMappedCoverage() {
+        final List<Integer> entries = new ArrayList<Integer>();
+        entries.add(5);
+        entries.add(40000);
+        entries.add(40000); // duplicate, ignored
+        entries.add(65535);
+        final GlyphCoverageTable ct = GlyphCoverageTable
+                .createCoverageTable(entries);
+        assertEquals(3, ct.getCoverageSize());
+        assertEquals(0, ct.getCoverageIndex(5));
+        assertEquals(1, ct.getCoverageIndex(40000));
+        assertEquals(2, ct.getCoverageIndex(65535));
+        assertEquals(-1, ct.getCoverageIndex(0));
+        assertEquals(-1, ct.getCoverageIndex(6));
+        assertEquals(-1, ct.getCoverageIndex(65536));
+    }
+
+    @Test
+    public void testRangeCoverage() {
+        final List<MappingRange> entries = new ArrayList<MappingRange>();
+        entries.add(new MappingRange(3, 9, 0));
+        entries.add(new MappingRange(70, 200, 7));
+        entries.add(new MappingRange(201, 201, 138));
+        final GlyphCoverageTable ct = GlyphCoverageTable
+                .createCoverageTable(entries);
+        assertEquals(139, ct.getCoverageSize());
+        assertEquals(-1, ct.getCoverageIndex(2));
+        assertEquals(0, ct.getCoverageIndex(3));
+        assertEquals(6, ct.getCoverageIndex(9));
+        assertEquals(-1, ct.getCoverageIndex(10));
+        assertEquals(-1, ct.getCoverageIndex(69));
+        assertEquals(7, ct.getCoverageIndex(70));
+        assertEquals(137, ct.getCoverageIndex(200));
+        assertEquals(138, ct.getCoverageIndex(201));
+        assertEquals(-1, ct.getCoverageIndex(202));
+    }
+
+    @Test
+    public void testUnorderedRangeCoverage() {
+        // coverage indices not in glyph order are looked up in the ranges
+        final List<MappingRange> entries = new ArrayList<MappingRange>();
+        entries.add(new MappingRange(10, 11, 2));
+        entries.add(new MappingRange(20, 21, 0));
+        final GlyphCoverageTable ct = GlyphCoverageTable
+                .createCoverageTable(entries);
+        assertEquals(2, ct.getCoverageIndex(10));
+        assertEquals(3, ct.getCoverageIndex(11));
+        assertEquals(0, ct.getCoverageIndex(20));
+        assertEquals(1, ct.getCoverageIndex(21));
+        assertEquals(-1, ct.getCoverageIndex(15));
+    }
+
+    @Test
+    public void testRangeClass() {
+        final List<MappingRange> dense = new ArrayList<MappingRange>();
+        final List<MappingRange> sparse = new ArrayList<MappingRange>();
+        dense.add(new MappingRange(10, 19, 1));
+        dense.add(new MappingRange(25, 30, 2));
+        sparse.add(new MappingRange(10, 19, 1));
+        sparse.add(new MappingRange(25, 30, 2));
+        sparse.add(new MappingRange(60000, 60001, 3));
+        final GlyphClassTable dct = GlyphClassTable.createClassTable(dense);
+        final GlyphClassTable sct = GlyphClassTable.createClassTable(sparse);
+        for (int gid = 0; gid < 40; gid++) {
+            final int expected = gid >= 10 && gid <= 19 ? 1
+                    : gid >= 25 && gid <= 30 ? 2 : -1;
+            assertEquals(expected, dct.getClassIndex(gid, 0));
+            assertEquals(expected, sct.getClassIndex(gid, 0));
+        }
+        assertEquals(3, sct.getClassIndex(60001, 0));
+        assertEquals(-1, sct.getClassIndex(60002, 0));
+        assertEquals(-1, dct.getClassIndex(60001, 0));
+    }
+}
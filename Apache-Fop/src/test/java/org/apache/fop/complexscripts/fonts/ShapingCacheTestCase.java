@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.nio.IntBuffer;
+
+import org.apache.fop.complexscripts.util.GlyphSequence;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the cache of glyph substitution and positioning results.
+ */
+public class ShapingCacheTestCase {
+
+    private static GlyphSequence makeSequence(final int[] chars,
+            final int[] glyphs) {
+        return new GlyphSequence(IntBuffer.wrap(chars.clone()),
+                IntBuffer.wrap(glyphs.clone()), null);
+    }
+
+    @Test
+    public void testSubstitution() {
+        final ShapingCache cache = new ShapingCache();
+        final GlyphSequence gs = makeSequence(new int[] { 'f', 'i' },
+                new int[] { 70, 71 });
+        final ShapingCache.Key key = ShapingCache.makeSubstitutionKey(gs,
+                "latn", "dflt");
+        assertNull(cache.getSubstitution(key));
+        final int[] ligature = new int[] { 300 };
+        cache.putSubstitution(key, ligature);
+        ligature[0] = 0;
+
+        // an equal run is found, and gets its own copy of the result
+        final GlyphSequence same = makeSequence(new int[] { 'f', 'i' },
+                new int[] { 70, 71 });
+        final int[] glyphs = cache.getSubstitution(ShapingCache
+                .makeSubstitutionKey(same, "latn", "dflt"));
+        assertArrayEquals(new int[] { 300 }, glyphs);
+        glyphs[0] = 1;
+        assertArrayEquals(new int[] { 300 }, cache.getSubstitution(key));
+
+        // other languages, characters and glyphs are distinct
+        assertNull(cache.getSubstitution(ShapingCache.makeSubstitutionKey(
+                same, "latn", "TRK")));
+        assertNull(cache.getSubstitution(ShapingCache.makeSubstitutionKey(
+                makeSequence(new int[] { 'f', 'l' }, new int[] { 70, 71 }),
+                "latn", "dflt")));
+        assertNull(cache.getSubstitution(ShapingCache.makeSubstitutionKey(
+                makeSequence(new int[] { 'f', 'i' }, new int[] { 70, 72 }),
+                "latn", "dflt")));
+    }
+
+    @Test
+    public void testPositioning() {
+        final ShapingCache cache = new ShapingCache();
+        final GlyphSequence gs = makeSequence(new int[] { 'A', 'V' },
+                new int[] { 36, 57 });
+        final ShapingCache.Key key = ShapingCache.makePositioningKey(gs,
+                "latn", "dflt", 12000);
+        assertNull(cache.getPositioning(ShapingCache.makeSubstitutionKey(gs,
+                "latn", "dflt")));
+        cache.putPositioning(key, new int[][] { { 0, 0, -80, 0 },
+                { 0, 0, 0, 0 } });
+        final int[][] adjustments = cache.getPositioning(key);
+        assertEquals(-80, adjustments[0][2]);
+        adjustments[0][2] = 0;
+        assertEquals(-80, cache.getPositioning(key)[0][2]);
+        assertNull(cache.getPositioning(ShapingCache.makePositioningKey(gs,
+                "latn", "dflt", 10000)));
+
+        // runs without adjustment are cached as such
+        final ShapingCache.Key other = ShapingCache.makePositioningKey(gs,
+                "cyrl", "dflt", 12000);
+        cache.putPositioning(other, null);
+        assertEquals(0, cache.getPositioning(other).length);
+    }
+
+    @Test
+    public void testEviction() {
+        final ShapingCache cache = new ShapingCache(2);
+        final ShapingCache.Key[] keys = new ShapingCache.Key[3];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ShapingCache.makeSubstitutionKey(
+                    makeSequence(new int[] { 'a' + i }, new int[] { i }),
+                    "latn", "dflt");
+        }
+        cache.putSubstitution(keys[0], new int[] { 0 });
+        cache.putSubstitution(keys[1], new int[] { 1 });
+        cache.getSubstitution(keys[0]);
+        cache.putSubstitution(keys[2], new int[] { 2 });
+        assertEquals(2, cache.size());
+        assertNull(cache.getSubstitution(keys[1]));
+        assertArrayEquals(new int[] { 0 }, cache.getSubstitution(keys[0]));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.util;
+
+import java.nio.IntBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests glyph sequences and their character associations.
+ */
+public class GlyphSequenceTestCase {
+
+    private static GlyphSequence makeSequence(final int[] chars,
+            final int[] glyphs) {
+        return new GlyphSequence(IntBuffer.wrap(chars), IntBuffer.wrap(glyphs),
+                null);
+    }
+
+    @Test
+    public void testIdentityAssociations() {
+        final GlyphSequence gs = makeSequence(new int[] { 'a', 'b' },
+                new int[] { 10, 11, 12 });
+        assertEquals(3, gs.getAssociations().size());
+        for (int i = 0; i < 2; i++) {
+            final GlyphSequence.CharAssociation a = gs.getAssociation(i);
+            assertEquals(i, a.getOffset());
+            assertEquals(1, a.getCount());
+            assertTrue(a.isShared());
+        }
+        // glyphs beyond the last character have empty associations
+        assertEquals(2, gs.getAssociation(2).getOffset());
+        assertEquals(0, gs.getAssociation(2).getCount());
+        // equal identity associations are shared between sequences
+        final GlyphSequence other = makeSequence(new int[] { 'c' },
+                new int[] { 20 });
+        assertSame(gs.getAssociation(0), other.getAssociation(0));
+    }
+
+    @Test
+    public void testPredicationsDoNotLeak() {
+        final GlyphSequence gs = makeSequence(new int[] { 'a', 'b' },
+                new int[] { 10, 11 });
+        gs.setPredications(true);
+        gs.setPredication(0, "half", Boolean.TRUE);
+        assertEquals(Boolean.TRUE, gs.getPredication(0, "half"));
+        assertFalse(gs.getAssociation(0).isShared());
+        // a fresh sequence still sees unpredicated identity associations
+        final GlyphSequence other = makeSequence(new int[] { 'a', 'b' },
+                new int[] { 10, 11 });
+        assertNull(other.getAssociation(0).getPredication("half"));
+        assertNotSame(gs.getAssociation(0), other.getAssociation(0));
+    }
+
+    @Test
+    public void testCopiesAreIndependent() {
+        final GlyphSequence gs = makeSequence(new int[] { 'a', 'b', 'c' },
+                new int[] { 10, 11, 12 });
+        final GlyphSequence copy = new GlyphSequence(gs);
+        copy.setGlyph(1, 99);
+        assertEquals(11, gs.getGlyph(1));
+        assertEquals(99, copy.getGlyph(1));
+        assertEquals(3, copy.getGlyphCount());
+        final GlyphSequence reordered = GlyphSequence.reorder(gs, 2, 1, 0);
+        assertEquals(12, reordered.getGlyph(0));
+        assertEquals(2, reordered.getAssociation(0).getOffset());
+        assertEquals(0, reordered.getAssociation(1).getOffset());
+    }
+
+}
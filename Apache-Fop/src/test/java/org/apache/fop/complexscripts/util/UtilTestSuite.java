@@ -27,6 +27,6 @@ import org.junit.runners.Suite.SuiteClasses;
  * Test suite for bidirectional functionality.
  */
 @RunWith(Suite.class)
-@SuiteClasses({ NumberConverterTestCase.class })
+@SuiteClasses({ GlyphSequenceTestCase.class, NumberConverterTestCase.class })
 public class UtilTestSuite {
 }
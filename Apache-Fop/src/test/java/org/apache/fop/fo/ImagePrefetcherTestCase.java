@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fo;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.fop.ResourceEventProducer;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.events.Event;
+import org.apache.fop.events.EventListener;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.Locator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests preloading the images of fo:external-graphic elements with
+ * {@link ImagePrefetcher}.
+ */
+public class ImagePrefetcherTestCase {
+
+    private final FopFactory fopFactory = FopFactory.newInstance();
+
+    private File image1;
+
+    private File image2;
+
+    private String missing;
+
+    @Before
+    public void setUp() throws IOException {
+        this.image1 = createImage(10, 20);
+        this.image2 = createImage(30, 15);
+        this.missing = new File(this.image1.getParentFile(), "missing-"
+                + this.image1.getName()).toURI().toString();
+    }
+
+    @After
+    public void tearDown() {
+        this.image1.delete();
+        this.image2.delete();
+    }
+
+    private static File createImage(final int width, final int height)
+            throws IOException {
+        final File file = File.createTempFile("fop-prefetch", ".png");
+        ImageIO.write(new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_RGB), "png", file);
+        return file;
+    }
+
+    /** Collects the IDs, URIs and line numbers of the events */
+    private static class EventCollector implements EventListener {
+
+        private final List<String> events = new java.util.ArrayList<String>();
+
+        @Override
+        public void processEvent(final Event event) {
+            final Locator loc = (Locator) event.getParam("loc");
+            this.events.add(event.getEventID() + " " + event.getParam("uri")
+                    + " " + (loc != null ? loc.getLineNumber() : -1));
+        }
+    }
+
+    private String createDocument() {
+        final String[] srcs = { this.image1.toURI().toString(), this.missing,
+                this.image2.toURI().toString(), this.image1.toURI().toString() };
+        final StringBuilder fo = new StringBuilder();
+        fo.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">\n");
+        fo.append("<fo:layout-master-set>\n");
+        fo.append("<fo:simple-page-master master-name=\"page\"");
+        fo.append(" page-width=\"210mm\" page-height=\"297mm\">\n");
+        fo.append("<fo:region-body/>\n");
+        fo.append("</fo:simple-page-master>\n");
+        fo.append("</fo:layout-master-set>\n");
+        for (int i = 0; i < 2; i++) {
+            fo.append("<fo:page-sequence master-reference=\"page\">\n");
+            fo.append("<fo:flow flow-name=\"xsl-region-body\">\n");
+            for (final String src : srcs) {
+                fo.append("<fo:block><fo:external-graphic src=\"url(");
+                fo.append(src).append(")\"/></fo:block>\n");
+            }
+            fo.append("</fo:flow>\n");
+            fo.append("</fo:page-sequence>\n");
+        }
+        fo.append("</fo:root>\n");
+        return fo.toString();
+    }
+
+    private byte[] render(final int threads, final EventCollector events)
+            throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        userAgent.setImagePrefetchThreads(threads);
+        userAgent.getEventBroadcaster().addEventListener(events);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Fop fop = this.fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE,
+                userAgent, out);
+        final Transformer transformer = TransformerFactory.newInstance()
+                .newTransformer();
+        final Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(new StreamSource(new StringReader(
+                createDocument())), res);
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests that the images are laid out with the same sizes, in the same
+     * order, as when they are loaded on the parsing thread.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testSameLayout() throws Exception {
+        assertEquals(0, this.fopFactory.newFOUserAgent()
+                .getImagePrefetchThreads());
+        final byte[] expected = render(0, new EventCollector());
+        assertArrayEquals(expected, render(1, new EventCollector()));
+        assertArrayEquals(expected, render(4, new EventCollector()));
+    }
+
+    /**
+     * Tests that a missing image is reported by its fo:external-graphic, in
+     * document order, like without preloading.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testErrorReporting() throws Exception {
+        final String event = ResourceEventProducer.class.getName()
+                + ".imageNotFound " + this.missing + " ";
+        final EventCollector serial = new EventCollector();
+        render(0, serial);
+        assertEquals(2, serial.events.size());
+        assertEquals(event + 10, serial.events.get(0));
+        assertEquals(event + 18, serial.events.get(1));
+
+        final EventCollector prefetched = new EventCollector();
+        render(4, prefetched);
+        assertEquals(serial.events, prefetched.events);
+    }
+
+    /**
+     * Tests that each image is preloaded once and that its Source is handed
+     * over to the user agent's session, so the image is not fetched again.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    @Test
+    public void testPrefetch() throws Exception {
+        final FOUserAgent userAgent = this.fopFactory.newFOUserAgent();
+        final ImagePrefetcher prefetcher = new ImagePrefetcher(userAgent, 2);
+        final String uri = this.image1.toURI().toString();
+        final Future<ImageInfo> preload = prefetcher.prefetch(uri);
+        assertSame(preload, prefetcher.prefetch(uri));
+        final ImageInfo info = preload.get();
+        assertEquals(10, info.getSize().getWidthPx());
+        assertEquals(20, info.getSize().getHeightPx());
+        assertNotNull(userAgent.getImageSessionContext().getSource(uri));
+        // handed over once only
+        preload.get();
+        assertNull(userAgent.getImageSessionContext().getSource(uri));
+        prefetcher.shutdown();
+    }
+}
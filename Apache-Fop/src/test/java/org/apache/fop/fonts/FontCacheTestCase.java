@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the persistence of {@link FontCache}.
+ */
+public class FontCacheTestCase {
+
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        this.cacheFile = File.createTempFile("fop-fonts", ".cache");
+        this.cacheFile.delete();
+    }
+
+    @After
+    public void tearDown() {
+        this.cacheFile.delete();
+    }
+
+    private static EmbedFontInfo createFontInfo(final String url,
+            final String psName) {
+        final List<FontTriplet> triplets = new ArrayList<FontTriplet>();
+        triplets.add(new FontTriplet(psName, "italic", 700, 1));
+        final EmbedFontInfo info = new EmbedFontInfo(null, true, false,
+                triplets, url, null);
+        info.setPostScriptName(psName);
+        info.setEncodingMode(EncodingMode.CID);
+        return info;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final FontCache cache = new FontCache();
+        cache.addFont(createFontInfo("file:/fonts/a.ttf", "A"));
+        cache.addFont(createFontInfo("file:/fonts/b.ttc", "B1"));
+        cache.addFont(createFontInfo("file:/fonts/b.ttc", "B2"));
+        cache.registerFailedFont("file:/fonts/broken.ttf", 42);
+        cache.saveTo(this.cacheFile);
+        assertFalse(cache.hasChanged());
+
+        final FontCache loaded = FontCache.loadFrom(this.cacheFile);
+        assertNotNull(loaded);
+        assertTrue(loaded.containsFont("file:/fonts/a.ttf"));
+        assertEquals(2, loaded.getFontInfos("file:/fonts/b.ttc", -1).length);
+        final EmbedFontInfo info = loaded.getFontInfos("file:/fonts/a.ttf",
+                -1)[0];
+        assertEquals("A", info.getPostScriptName());
+        assertEquals("file:/fonts/a.ttf", info.getEmbedFile());
+        assertEquals(EncodingMode.CID, info.getEncodingMode());
+        assertTrue(info.getKerning());
+        assertFalse(info.getAdvanced());
+        final FontTriplet triplet = info.getFontTriplets().get(0);
+        assertEquals("italic", triplet.getStyle());
+        assertEquals(700, triplet.getWeight());
+        assertEquals(1, triplet.getPriority());
+        assertTrue(loaded.isFailedFont("file:/fonts/broken.ttf", 42));
+    }
+
+    @Test
+    public void testChangesAreAppended() throws Exception {
+        final FontCache cache = new FontCache();
+        cache.addFont(createFontInfo("file:/fonts/a.ttf", "A"));
+        cache.addFont(createFontInfo("file:/fonts/b.ttf", "B"));
+        cache.saveTo(this.cacheFile);
+        final long length = this.cacheFile.length();
+
+        final FontCache loaded = FontCache.loadFrom(this.cacheFile);
+        loaded.removeFont("file:/fonts/a.ttf");
+        loaded.addFont(createFontInfo("file:/fonts/c.ttf", "C"));
+        loaded.saveTo(this.cacheFile);
+        assertTrue(this.cacheFile.length() > length);
+
+        final FontCache reloaded = FontCache.loadFrom(this.cacheFile);
+        assertFalse(reloaded.containsFont("file:/fonts/a.ttf"));
+        assertTrue(reloaded.containsFont("file:/fonts/b.ttf"));
+        assertTrue(reloaded.containsFont("file:/fonts/c.ttf"));
+        assertEquals("B",
+                reloaded.getFontInfos("file:/fonts/b.ttf", -1)[0]
+                        .getPostScriptName());
+    }
+
+    @Test
+    public void testTruncatedRecordIsIgnored() throws Exception {
+        final FontCache cache = new FontCache();
+        cache.addFont(createFontInfo("file:/fonts/a.ttf", "A"));
+        cache.saveTo(this.cacheFile);
+        final FileOutputStream out = new FileOutputStream(this.cacheFile, true);
+        try {
+            out.write(new byte[] { FontCacheFile.FONT_FILE, 0, 0, 1, 0, 1 });
+        } finally {
+            out.close();
+        }
+        final FontCache loaded = FontCache.loadFrom(this.cacheFile);
+        assertTrue(loaded.containsFont("file:/fonts/a.ttf"));
+    }
+
+    @Test
+    public void testInvalidFileIsDiscarded() throws Exception {
+        final FileOutputStream out = new FileOutputStream(this.cacheFile);
+        try {
+            out.write("not a font cache".getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        assertNull(FontCache.loadFrom(this.cacheFile));
+        assertFalse(this.cacheFile.exists());
+    }
+
+    private void writeCacheFile(final byte type, final String url,
+            final int stringLength, final int infoCount) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new FileOutputStream(
+                this.cacheFile));
+        try {
+            out.write(FontCacheFile.createHeader());
+            final byte[] urlBytes = url.getBytes("UTF-8");
+            out.writeByte(type);
+            out.writeInt(4 + urlBytes.length + 8 + 4);
+            out.writeInt(stringLength);
+            out.write(urlBytes);
+            out.writeLong(-1);
+            out.writeInt(infoCount);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void testCorruptStringLengthDiscardsFile() throws Exception {
+        writeCacheFile(FontCacheFile.FONT_FILE, "file:/fonts/a.ttf",
+                Integer.MAX_VALUE, 0);
+        assertNull(FontCache.loadFrom(this.cacheFile));
+        assertFalse(this.cacheFile.exists());
+
+        writeCacheFile(FontCacheFile.FAILED_FONT, "file:/fonts/a.ttf", -2, 0);
+        assertNull(FontCache.loadFrom(this.cacheFile));
+        assertFalse(this.cacheFile.exists());
+    }
+
+    @Test
+    public void testCorruptFontInfosAreIgnored() throws Exception {
+        writeCacheFile(FontCacheFile.FONT_FILE, "file:/fonts/a.ttf", 17,
+                Integer.MAX_VALUE);
+        final FontCache loaded = FontCache.loadFrom(this.cacheFile);
+        assertNotNull(loaded);
+        assertTrue(loaded.containsFont("file:/fonts/a.ttf"));
+        assertEquals(0, loaded.getFontInfos("file:/fonts/a.ttf", -1).length);
+    }
+
+    @Test
+    public void testRewriteReplacesLoadedFile() throws Exception {
+        final FontCache cache = new FontCache();
+        cache.addFont(createFontInfo("file:/fonts/a.ttf", "A"));
+        cache.saveTo(this.cacheFile);
+        final FontCache loaded = FontCache.loadFrom(this.cacheFile);
+        // appending to a file that was changed by someone else isn't safe, so
+        // the whole file is written again and replaces the one that was read
+        final FileOutputStream out = new FileOutputStream(this.cacheFile, true);
+        try {
+            out.write(new byte[] { FontCacheFile.FONT_FILE, 0, 0 });
+        } finally {
+            out.close();
+        }
+        loaded.addFont(createFontInfo("file:/fonts/b.ttf", "B"));
+        loaded.saveTo(this.cacheFile);
+        final FontCache reloaded = FontCache.loadFrom(this.cacheFile);
+        assertEquals("A", reloaded.getFontInfos("file:/fonts/a.ttf", -1)[0]
+                .getPostScriptName());
+        assertTrue(reloaded.containsFont("file:/fonts/b.ttf"));
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.transform.Source;
+
+import org.apache.fop.apps.FOPException;
+import org.junit.Test;
+
+/**
+ * Tests {@link FontMetricsRepository}.
+ */
+public class FontMetricsRepositoryTestCase {
+
+    private static final class CountingLoader implements Callable<CustomFont> {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public CustomFont call() {
+            this.calls.incrementAndGet();
+            final MultiByteFont font = new MultiByteFont();
+            font.setFontName("Test");
+            font.setEmbedFileName("file:/fonts/test.ttf");
+            font.setCMap(new CMapSegment[] { new CMapSegment('A', 'Z', 1) });
+            return font;
+        }
+    }
+
+    @Test
+    public void testFontIsParsedOnce() throws Exception {
+        final FontMetricsRepository repository = new FontMetricsRepository(4);
+        final CountingLoader loader = new CountingLoader();
+        final Object key = FontMetricsRepository.createKey(null,
+                "file:/fonts/test.ttf", Boolean.TRUE);
+        final CustomFont first = repository.getFont(key, loader);
+        final CustomFont second = repository.getFont(FontMetricsRepository
+                .createKey(null, "file:/fonts/test.ttf", Boolean.TRUE), loader);
+        assertEquals(1, loader.calls.get());
+        assertNotSame(first, second);
+        assertEquals("Test", second.getFontName());
+        assertEquals(1, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+
+        repository.getFont(FontMetricsRepository.createKey(null,
+                "file:/fonts/test.ttf", Boolean.FALSE), loader);
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    public void testCopiesDoNotShareUsage() throws Exception {
+        final FontMetricsRepository repository = new FontMetricsRepository(4);
+        final Object key = FontMetricsRepository.createKey(null,
+                "file:/fonts/test.ttf");
+        final MultiByteFont first = (MultiByteFont) repository.getFont(key,
+                new CountingLoader());
+        final MultiByteFont second = (MultiByteFont) repository.getFont(key,
+                new CountingLoader());
+        first.mapChar('B');
+        assertTrue(first.hadMappingOperations());
+        assertEquals(2, first.getCIDSubset().getSubsetSize());
+        assertTrue(!second.hadMappingOperations());
+        assertEquals(1, second.getCIDSubset().getSubsetSize());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        final FontMetricsRepository repository = new FontMetricsRepository(4);
+        final Object key = FontMetricsRepository.createKey(null,
+                "file:/fonts/broken.ttf");
+        try {
+            repository.getFont(key, new Callable<CustomFont>() {
+                @Override
+                public CustomFont call() throws IOException {
+                    throw new IOException("broken");
+                }
+            });
+            fail("IOException expected");
+        } catch (final IOException e) {
+            assertEquals("broken", e.getMessage());
+        }
+        assertNull(repository.getFont(key, new Callable<CustomFont>() {
+            @Override
+            public CustomFont call() {
+                return null;
+            }
+        }));
+        assertEquals(0, repository.size());
+        assertNotNull(repository.getFont(key, new CountingLoader()));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    public void testBounded() throws FOPException, IOException {
+        final FontMetricsRepository repository = new FontMetricsRepository(2);
+        final CountingLoader loader = new CountingLoader();
+        for (int i = 0; i < 5; i++) {
+            repository.getFont(FontMetricsRepository.createKey(null,
+                    "file:/fonts/font" + i + ".ttf"), loader);
+        }
+        assertEquals(2, repository.size());
+        repository.setMaxEntries(0);
+        repository.getFont(FontMetricsRepository.createKey(null,
+                "file:/fonts/font4.ttf"), loader);
+        assertEquals(6, loader.calls.get());
+        assertEquals(0, repository.size());
+    }
+
+    /**
+     * Tests that a LazyFont resolves the key of its metrics once, even if
+     * loading the font is retried.
+     */
+    @Test
+    public void testLazyFontCreatesKeyOnce() {
+        final AtomicInteger resolved = new AtomicInteger();
+        final FontResolver resolver = new FontResolver() {
+            @Override
+            public Source resolve(final String href) {
+                resolved.incrementAndGet();
+                return null;
+            }
+
+            @Override
+            public boolean isComplexScriptFeaturesEnabled() {
+                return false;
+            }
+        };
+        final LazyFont font = new LazyFont(new EmbedFontInfo(
+                "missing-metrics.xml", true, false,
+                Collections.<FontTriplet> emptyList(), null, null), resolver);
+        for (int i = 0; i < 3; i++) {
+            assertNull(font.getRealFont());
+        }
+        // the key once, then one attempt to read the metrics per call
+        assertEquals(1 + 3, resolved.get());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.fonts.autodetect;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link FontFileFinder}.
+ */
+public class FontFileFinderTestCase {
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        this.root = File.createTempFile("fonts", "");
+        this.root.delete();
+        for (int i = 0; i < 4; i++) {
+            final File dir = new File(this.root, "dir" + i);
+            final File subDir = new File(dir, "sub");
+            subDir.mkdirs();
+            new File(dir, "font" + i + ".ttf").createNewFile();
+            new File(dir, "font" + i + ".TTC").createNewFile();
+            new File(dir, "readme.txt").createNewFile();
+            new File(subDir, "font" + i + ".pfb").createNewFile();
+        }
+        new File(this.root, ".hidden").mkdir();
+        new File(new File(this.root, ".hidden"), "hidden.otf").createNewFile();
+        new File(this.root, "top.otf").createNewFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.root);
+    }
+
+    @Test
+    public void testParallelWalkMatchesSequentialWalk() throws IOException {
+        final List<URL> expected = new FontFileFinder(null).find(this.root
+                .getPath());
+        assertEquals(13, expected.size());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final FontFileFinder finder = new FontFileFinder(null);
+            finder.setExecutor(executor);
+            assertEquals(expected, finder.find(this.root.getPath()));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDepthLimit() throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final FontFileFinder finder = new FontFileFinder(1, null);
+            finder.setExecutor(executor);
+            final List<URL> fonts = finder.find(this.root.getPath());
+            assertEquals(new FontFileFinder(1, null).find(this.root.getPath()),
+                    fonts);
+            assertEquals(1, fonts.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -21,10 +21,12 @@ package org.apache.fop.fonts.truetype;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -339,4 +341,57 @@ public class FontFileReaderTestCase {
         final byte[] retrievedBytes = this.fontReader.getBytes(0, 256);
         assertTrue(Arrays.equals(this.byteArray, retrievedBytes));
     }
+
+    /**
+     * Test readTTFUShorts()
+     *
+     * @throws IOException
+     *             exception
+     */
+    @Test
+    public void testReadTTFUShorts() throws IOException {
+        final int[] values = new int[3];
+        this.fontReader.seekSet(250);
+        this.fontReader.readTTFUShorts(values);
+        assertEquals(0xfafb, values[0]);
+        assertEquals(0xfcfd, values[1]);
+        assertEquals(0xfeff, values[2]);
+        assertEquals(256, this.fontReader.getCurrentPos());
+        try {
+            this.fontReader.seekSet(252);
+            this.fontReader.readTTFUShorts(values);
+            fail("FileFontReaderTest testReadTTFUShorts: Expected EOFException not thrown");
+        } catch (final EOFException e) {
+            // Expected
+        }
+    }
+
+    /**
+     * Test reading a memory-mapped font file, and that modifying it doesn't
+     * affect the other readers of the file.
+     *
+     * @throws IOException
+     *             exception
+     */
+    @Test
+    public void testMappedFile() throws IOException {
+        final File file = File.createTempFile("fop", ".ttf");
+        try {
+            FileUtils.writeByteArrayToFile(file, this.byteArray);
+            final FontFileReader mapped = new FontFileReader(file);
+            final FontFileReader other = new FontFileReader(file);
+            assertEquals(256, mapped.getFileSize());
+            assertEquals(0x0001, mapped.readTTFUShort());
+            assertEquals(0x02030405, mapped.readTTFLong());
+            mapped.seekSet(252);
+            assertEquals(0xfcfdfeffL, mapped.readTTFULong());
+            assertTrue(Arrays.equals(this.byteArray, mapped.getAllBytes()));
+
+            mapped.writeTTFUShort(0, 0xabcd);
+            assertEquals(0xabcd, mapped.readTTFUShort(0));
+            assertEquals(0x0001, other.readTTFUShort(0));
+        } finally {
+            file.delete();
+        }
+    }
 }
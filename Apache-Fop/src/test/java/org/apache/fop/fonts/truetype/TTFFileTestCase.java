@@ -19,13 +19,23 @@
 
 package org.apache.fop.fonts.truetype;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.apache.fop.complexscripts.fonts.GlyphTable;
+import org.apache.fop.complexscripts.fonts.OTFAdvancedTypographicTableReader;
 import org.apache.fop.fonts.truetype.TTFFile.PostScriptVersion;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -457,6 +467,123 @@ public class TTFFileTestCase {
         assertEquals(true, this.droidmonoTTFFile.isEmbeddable());
     }
 
+    /**
+     * Test that the lookups of the advanced typographic tables, which are read
+     * on demand, match those read up front.
+     *
+     * @throws IOException
+     *             exception
+     */
+    @Test
+    public void testDeferredLookups() throws IOException {
+        final String fileName = "test/resources/fonts/ttf/DejaVuLGCSerif.ttf";
+        final TTFFile ttfFile = new TTFFile(true, true);
+        ttfFile.readFont(new FontFileReader(fileName));
+        final OTFAdvancedTypographicTableReader eager = new OTFAdvancedTypographicTableReader(
+                ttfFile, new FontFileReader(fileName));
+        eager.readAll();
+
+        // only the lookups of the matched features are read
+        final GlyphTable gsub = ttfFile.getGSUB();
+        final Map<?, ?> ligatures = gsub.matchLookups("latn", "dflt",
+                new String[] { "liga" });
+        assertEquals(eager.getGSUB().matchLookups("latn", "dflt", "liga")
+                .keySet(), ligatures.keySet());
+        assertTrue(ligatures.size() > 0);
+
+        assertSameLookups(eager.getGSUB(), gsub);
+        assertSameLookups(eager.getGPOS(), ttfFile.getGPOS());
+    }
+
+    private void assertSameLookups(final GlyphTable expected,
+            final GlyphTable actual) {
+        final List<?> expectedTables = expected.getLookupTables();
+        final List<?> actualTables = actual.getLookupTables();
+        assertEquals(expectedTables.size(), actualTables.size());
+        for (int i = 0; i < expectedTables.size(); i++) {
+            final GlyphTable.LookupTable e = (GlyphTable.LookupTable) expectedTables
+                    .get(i);
+            final GlyphTable.LookupTable a = (GlyphTable.LookupTable) actualTables
+                    .get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getSubtables().length, a.getSubtables().length);
+        }
+        assertEquals(expected.getLookups(), actual.getLookups());
+    }
+
+    /**
+     * Test that the lookups of a font read from a stream, whose data is on the
+     * heap, are read up front and match those of the mapped font file.
+     *
+     * @throws IOException
+     *             exception
+     */
+    @Test
+    public void testStreamFontLookups() throws IOException {
+        final String fileName = "test/resources/fonts/ttf/DejaVuLGCSerif.ttf";
+        final FontFileReader mapped = new FontFileReader(fileName);
+        assertTrue(mapped.isMapped());
+        final TTFFile deferred = new TTFFile(true, true);
+        deferred.readFont(mapped);
+
+        final InputStream in = new FileInputStream(fileName);
+        final FontFileReader stream;
+        try {
+            stream = new FontFileReader(in);
+        } finally {
+            in.close();
+        }
+        assertFalse(stream.isMapped());
+        final TTFFile eager = new TTFFile(true, true);
+        eager.readFont(stream);
+
+        assertSameLookups(eager.getGSUB(), deferred.getGSUB());
+        assertSameLookups(eager.getGPOS(), deferred.getGPOS());
+    }
+
+    /**
+     * Test that lookups read on demand by several threads at once match those
+     * read up front.
+     *
+     * @throws Exception
+     *             exception
+     */
+    @Test
+    public void testConcurrentDeferredLookups() throws Exception {
+        final String fileName = "test/resources/fonts/ttf/DejaVuLGCSerif.ttf";
+        final TTFFile base = new TTFFile(true, true);
+        base.readFont(new FontFileReader(fileName));
+        final OTFAdvancedTypographicTableReader eager = new OTFAdvancedTypographicTableReader(
+                base, new FontFileReader(fileName));
+        eager.readAll();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int run = 0; run < 5; run++) {
+                final TTFFile ttfFile = new TTFFile(true, true);
+                ttfFile.readFont(new FontFileReader(fileName));
+                final List<Future<GlyphTable>> results = new java.util.ArrayList<Future<GlyphTable>>();
+                for (int i = 0; i < 8; i++) {
+                    final boolean gsub = i % 2 == 0;
+                    results.add(executor.submit(new Callable<GlyphTable>() {
+                        @Override
+                        public GlyphTable call() {
+                            final GlyphTable table = gsub ? ttfFile.getGSUB()
+                                    : ttfFile.getGPOS();
+                            table.getLookupTables();
+                            return table;
+                        }
+                    }));
+                }
+                for (int i = 0; i < results.size(); i++) {
+                    assertSameLookups(i % 2 == 0 ? eager.getGSUB() : eager
+                            .getGPOS(), results.get(i).get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Test readFont() - Add implementation if necessary.
      */
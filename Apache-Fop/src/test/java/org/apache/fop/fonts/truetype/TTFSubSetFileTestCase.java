@@ -20,13 +20,16 @@
 package org.apache.fop.fonts.truetype;
 
 import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -55,12 +58,16 @@ public class TTFSubSetFileTestCase extends TTFFileTestCase {
     @Before
     public void setUp() throws IOException {
         this.ttfSubset = new TTFSubSetFile();
+        this.ttfSubset.readFont(this.dejavuReader, "DejaVu", createGlyphs());
+        this.subset = this.ttfSubset.getFontSubset();
+    }
+
+    private Map<Integer, Integer> createGlyphs() {
         final Map<Integer, Integer> glyphs = new HashMap<Integer, Integer>();
         for (int i = 0; i < 255; i++) {
             glyphs.put(i, i);
         }
-        this.ttfSubset.readFont(this.dejavuReader, "DejaVu", glyphs);
-        this.subset = this.ttfSubset.getFontSubset();
+        return glyphs;
     }
 
     /**
@@ -83,4 +90,32 @@ public class TTFSubSetFileTestCase extends TTFFileTestCase {
                 this.dejavuTTFFile.getFontBBox()[0]);
         assertEquals(this.dejavuTTFFile.getFullName(), "DejaVu LGC Serif");
     }
+
+    /**
+     * Tests that a subset reused from another subsetting of the same font file
+     * and a subset of a font read from a stream are the same as the original
+     * subset.
+     *
+     * @throws IOException
+     *             exception
+     */
+    @Test
+    public void testReuseSubset() throws IOException {
+        final TTFSubSetFile reused = new TTFSubSetFile();
+        reused.readFont(new FontFileReader(
+                "test/resources/fonts/ttf/DejaVuLGCSerif.ttf"), "DejaVu",
+                createGlyphs());
+        assertArrayEquals(this.subset, reused.getFontSubset());
+
+        final TTFSubSetFile fromStream = new TTFSubSetFile();
+        final InputStream in = new FileInputStream(
+                "test/resources/fonts/ttf/DejaVuLGCSerif.ttf");
+        try {
+            fromStream.readFont(new FontFileReader(in), "DejaVu",
+                    createGlyphs());
+        } finally {
+            in.close();
+        }
+        assertArrayEquals(this.subset, fromStream.getFontSubset());
+    }
 }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the binary format of hyphenation trees.
+ */
+public class CompactHyphenationTreeTestCase {
+
+    private static final String PATTERNS = "<hyphenation-info>"
+            + "<classes>aA bB cC dD eE</classes>"
+            + "<exceptions>ab-ba</exceptions>"
+            + "<patterns>a1b c1d b1e 2e1c .e1 1dc</patterns>"
+            + "</hyphenation-info>";
+
+    private static final String[] WORDS = { "abecde", "ABECDE", "abba",
+            "Abba", "eecdc", "bebebe", "eeee", "cdcdcdcdcd" };
+
+    private HyphenationTree tree;
+
+    private byte[] data;
+
+    @Before
+    public void setUp() throws HyphenationException, IOException {
+        this.tree = new HyphenationTree();
+        this.tree.loadPatterns(new InputSource(new StringReader(PATTERNS)));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompactHyphenationTree.write(this.tree, out);
+        this.data = out.toByteArray();
+    }
+
+    private void assertSameHyphenation(final HyphenationTree compact) {
+        assertEquals(this.tree.size(), compact.size());
+        for (final String word : WORDS) {
+            for (int min = 1; min <= 2; min++) {
+                final Hyphenation expected = this.tree.hyphenate(word, min, min);
+                final Hyphenation actual = compact.hyphenate(word, min, min);
+                if (expected == null) {
+                    assertNull(word, actual);
+                } else {
+                    assertEquals(word, expected.toString(), actual.toString());
+                    assertArrayEquals(word, expected.getHyphenationPoints(),
+                            actual.getHyphenationPoints());
+                }
+            }
+        }
+        assertEquals(this.tree.findPattern("ab"), compact.findPattern("ab"));
+        assertEquals(this.tree.findPattern("ec"), compact.findPattern("ec"));
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        assertSameHyphenation(CompactHyphenationTree
+                .load(new ByteArrayInputStream(this.data)));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        final File file = File.createTempFile("fop", ".hyb");
+        try {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(this.data);
+            } finally {
+                out.close();
+            }
+            assertSameHyphenation(CompactHyphenationTree.load(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadOnly() throws IOException {
+        final HyphenationTree compact = new CompactHyphenationTree(
+                ByteBuffer.wrap(this.data));
+        try {
+            compact.addPattern("d1e", "010");
+            fail("The tree must be read-only");
+        } catch (final UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testBadMagic() throws IOException {
+        this.data[0] = 0;
+        new CompactHyphenationTree(ByteBuffer.wrap(this.data));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptCount() throws HyphenationException, IOException {
+        final HyphenationTree noExceptions = new HyphenationTree();
+        noExceptions.loadPatterns(new InputSource(new StringReader(
+                "<hyphenation-info><patterns>a1b</patterns></hyphenation-info>")));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CompactHyphenationTree.write(noExceptions, out);
+        final ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        // the count of exceptions ends the data
+        buffer.putInt(buffer.capacity() - 4, Integer.MAX_VALUE);
+        new CompactHyphenationTree(buffer);
+    }
+
+    @Test(expected = IOException.class)
+    public void testCorruptStringLength() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(this.data);
+        // the length of the exception word "abba"
+        final int word = indexOf("abba");
+        assertEquals(4, buffer.getInt(word - 4));
+        buffer.putInt(word - 4, Integer.MAX_VALUE - 1);
+        new CompactHyphenationTree(buffer);
+    }
+
+    private int indexOf(final String s) throws IOException {
+        final byte[] chars = s.getBytes("UTF-16BE");
+        for (int i = this.data.length - chars.length; i >= 0; i--) {
+            int j = 0;
+            while (j < chars.length && this.data[i + j] == chars[j]) {
+                j++;
+            }
+            if (j == chars.length) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(s);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(this.data);
+        buffer.limit(this.data.length / 2);
+        new CompactHyphenationTree(buffer);
+    }
+
+}
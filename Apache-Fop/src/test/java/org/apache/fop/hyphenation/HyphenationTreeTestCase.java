@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.hyphenation;
+
+import java.io.StringReader;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the hyphenation of words by a hyphenation tree and the caching of the
+ * results.
+ */
+public class HyphenationTreeTestCase {
+
+    private static final String PATTERNS = "<hyphenation-info>"
+            + "<classes>aA bB cC dD eE</classes>"
+            + "<patterns>a1b c1d</patterns>" + "</hyphenation-info>";
+
+    private HyphenationTree tree;
+
+    @Before
+    public void setUp() throws HyphenationException {
+        this.tree = new HyphenationTree();
+        this.tree.loadPatterns(new InputSource(new StringReader(PATTERNS)));
+    }
+
+    @Test
+    public void testHyphenate() {
+        final Hyphenation h = this.tree.hyphenate("abecde", 1, 1);
+        assertArrayEquals(new int[] { 1, 4 }, h.getHyphenationPoints());
+        assertArrayEquals(new int[] { 4 }, this.tree.hyphenate("abecde", 2, 2)
+                .getHyphenationPoints());
+        assertNull(this.tree.hyphenate("eeee", 1, 1));
+    }
+
+    @Test
+    public void testCachedResults() {
+        final Hyphenation h = this.tree.hyphenate("abecde", 1, 1);
+        assertSame(h, this.tree.hyphenate(new String("abecde"), 1, 1));
+        assertNotSame(h, this.tree.hyphenate("abecde", 2, 1));
+        assertNull(this.tree.hyphenate("eeee", 1, 1));
+        assertNull(this.tree.hyphenate("eeee", 1, 1));
+        // a new pattern invalidates the cached results
+        this.tree.addClass("fF");
+        assertNotSame(h, this.tree.hyphenate("abecde", 1, 1));
+    }
+
+    @Test
+    public void testBoundedCache() {
+        final HyphenatedWordCache cache = new HyphenatedWordCache(2);
+        final Hyphenation h = this.tree.hyphenate("abecde", 1, 1);
+        cache.put("abecde", 1, 1, h);
+        cache.put("eeee", 1, 1, null);
+        assertSame(h, HyphenatedWordCache.toHyphenation(cache.get("abecde",
+                1, 1)));
+        assertNull(HyphenatedWordCache.toHyphenation(cache.get("eeee", 1, 1)));
+        assertNull(cache.get("abecde", 2, 1));
+        // exceeding the maximum drops the words cached so far
+        cache.put("cd", 1, 1, null);
+        assertNull(cache.get("abecde", 1, 1));
+    }
+
+}
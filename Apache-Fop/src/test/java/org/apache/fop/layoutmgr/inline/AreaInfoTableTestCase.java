@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import org.apache.fop.fonts.Font;
+import org.apache.fop.traits.MinOptMax;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the column-oriented store of text area information.
+ */
+public class AreaInfoTableTestCase {
+
+    private final Font font1 = new Font("F1", null, null, 12000);
+    private final Font font2 = new Font("F2", null, null, 12000);
+
+    private static int addWord(final AreaInfoTable table, final int index,
+            final int start, final int end, final Font font) {
+        return table.add(index, start, end, 0, end - start - 1,
+                MinOptMax.getInstance(1000 * (end - start)), false, false,
+                false, font, 0, null);
+    }
+
+    @Test
+    public void testAddAndGet() {
+        final AreaInfoTable table = new AreaInfoTable(null);
+        final int[][] gpa = new int[][] { { 0, 0, -50, 0 } };
+        assertEquals(0, addWord(table, 0, 0, 3, this.font1));
+        assertEquals(1, table.add(1, 3, 4, 1, 0,
+                MinOptMax.getInstance(200, 250, 400), false, true, true,
+                this.font1, 1, null));
+        assertEquals(2, table.add(2, 4, 5, 0, 0, MinOptMax.getInstance(500),
+                true, false, false, this.font2, 0, gpa));
+        assertEquals(3, table.size());
+
+        assertEquals(3, table.getStartIndex(1));
+        assertEquals(4, table.getBreakIndex(1));
+        assertEquals(1, table.getWordSpaceCount(1));
+        assertEquals(MinOptMax.getInstance(200, 250, 400), table.getAreaIPD(1));
+        assertEquals(150, table.getAreaIPDStretch(1));
+        assertEquals(50, table.getAreaIPDShrink(1));
+        assertTrue(table.isSpace(1));
+        assertTrue(table.isBreakOppAfter(1));
+        assertFalse(table.isHyphenated(1));
+        assertEquals(1, table.getLevel(1));
+
+        assertTrue(table.isHyphenated(2));
+        assertSame(this.font2, table.getFont(2));
+        assertSame(gpa, table.getGposAdjustments(2));
+        assertNull(table.getGposAdjustments(0));
+        assertTrue(table.hasSameFont(0, 1));
+        assertFalse(table.hasSameFont(0, 2));
+
+        table.setBreakOppAfter(1, false);
+        assertFalse(table.isBreakOppAfter(1));
+        assertTrue(table.isSpace(1));
+
+        table.addLetterSpace(0, MinOptMax.getInstance(0, 100, 200));
+        assertEquals(3, table.getLetterSpaceCount(0));
+        assertEquals(MinOptMax.getInstance(3000, 3100, 3200),
+                table.getAreaIPD(0));
+    }
+
+    @Test
+    public void testInsertAndRemove() {
+        final AreaInfoTable table = new AreaInfoTable(null);
+        // enough entries to grow the table
+        for (int i = 0; i < 40; i++) {
+            addWord(table, table.size(), 2 * i, 2 * i + 2, i % 2 == 0 ? this.font1
+                    : this.font2);
+        }
+        // replace entry 10 by two fragments, as hyphenation does
+        table.remove(10);
+        addWord(table, 10, 20, 21, this.font1);
+        addWord(table, 11, 21, 22, this.font1);
+        assertEquals(41, table.size());
+        assertEquals(18, table.getStartIndex(9));
+        assertEquals(20, table.getStartIndex(10));
+        assertEquals(21, table.getStartIndex(11));
+        assertEquals(22, table.getStartIndex(12));
+        assertSame(this.font2, table.getFont(12));
+        assertEquals(78, table.getStartIndex(40));
+        table.remove(40);
+        assertEquals(40, table.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        final AreaInfoTable table = new AreaInfoTable(null);
+        addWord(table, 0, 0, 1, this.font1);
+        table.getStartIndex(1);
+    }
+
+}
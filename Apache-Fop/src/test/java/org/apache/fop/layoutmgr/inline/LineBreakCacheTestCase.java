@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.inline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.fop.layoutmgr.BlockKnuthSequence;
+import org.apache.fop.layoutmgr.BreakingAlgorithm.KnuthNode;
+import org.apache.fop.layoutmgr.KnuthBox;
+import org.apache.fop.layoutmgr.KnuthElement;
+import org.apache.fop.layoutmgr.KnuthGlue;
+import org.apache.fop.layoutmgr.KnuthPenalty;
+import org.apache.fop.layoutmgr.KnuthSequence;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests the cache of line breaks.
+ */
+public class LineBreakCacheTestCase {
+
+    private static final int[] PARAMETERS = new int[] { 1, 2, 3, 100000 };
+
+    private static KnuthSequence makeParagraph(final int wordWidth) {
+        final KnuthSequence par = new BlockKnuthSequence();
+        for (int i = 0; i < 3; i++) {
+            par.add(new KnuthBox(wordWidth, null, false));
+            par.add(new KnuthGlue(3000, 1500, 1000, null, false));
+        }
+        par.add(new KnuthPenalty(500, 50, true, null, false));
+        par.add(new KnuthBox(wordWidth, null, false));
+        par.add(new KnuthPenalty(0, -KnuthElement.INFINITE, false, null, false));
+        return par;
+    }
+
+    @Test
+    public void testKey() {
+        final LineBreakCache.Key key = LineBreakCache.makeKey(
+                makeParagraph(10000), PARAMETERS);
+        assertEquals(key, LineBreakCache.makeKey(makeParagraph(10000),
+                PARAMETERS));
+        assertEquals(key.hashCode(),
+                LineBreakCache.makeKey(makeParagraph(10000), PARAMETERS)
+                .hashCode());
+        assertFalse(key.equals(LineBreakCache.makeKey(makeParagraph(10001),
+                PARAMETERS)));
+        assertFalse(key.equals(LineBreakCache.makeKey(makeParagraph(10000),
+                new int[] { 1, 2, 3, 90000 })));
+    }
+
+    @Test
+    public void testGetAndPut() {
+        final LineBreakCache.Key key1 = LineBreakCache.makeKey(
+                makeParagraph(1000), PARAMETERS);
+        final LineBreakCache.Key key2 = LineBreakCache.makeKey(
+                makeParagraph(2000), PARAMETERS);
+        final LineBreakCache.Key key3 = LineBreakCache.makeKey(
+                makeParagraph(3000), PARAMETERS);
+        final LineBreakCache.Trace trace1 = new LineBreakCache.Trace();
+        final LineBreakCache.Trace trace2 = new LineBreakCache.Trace();
+        final LineBreakCache.Trace trace3 = new LineBreakCache.Trace();
+        trace1.trim();
+        // room for two of the equally heavy entries
+        final long weight = LineBreakCache.getWeight(key1, trace1);
+        final LineBreakCache cache = new LineBreakCache(2 * weight + weight
+                / 2);
+        assertNull(cache.get(key1));
+        cache.put(key1, trace1);
+        cache.put(key2, trace2);
+        assertSame(trace1, cache.get(LineBreakCache.makeKey(makeParagraph(1000),
+                PARAMETERS)));
+        // key2 is now the least recently used
+        cache.put(key3, trace3);
+        assertEquals(2, cache.size());
+        assertSame(trace1, cache.get(key1));
+        assertNull(cache.get(key2));
+        assertSame(trace3, cache.get(key3));
+        assertEquals(2 * weight, cache.getWeight());
+        cache.put(key3, new LineBreakCache.Trace());
+        assertEquals(2 * weight, cache.getWeight());
+    }
+
+    @Test
+    public void testWeight() {
+        final LineBreakCache.Key key = LineBreakCache.makeKey(
+                makeParagraph(1000), PARAMETERS);
+        final LineBreakCache.Trace trace = new LineBreakCache.Trace();
+        trace.updateData1(2, 20);
+        trace.restorePossibilities();
+        trace.trim();
+        final long weight = LineBreakCache.getWeight(key, trace);
+        final LineBreakCache.Trace empty = new LineBreakCache.Trace();
+        empty.trim();
+        assertEquals(LineBreakCache.getWeight(key, empty) + 2 + 4 + 8, weight);
+
+        // a paragraph heavier than the whole cache is not cached
+        final LineBreakCache small = new LineBreakCache(weight - 1);
+        small.put(key, trace);
+        assertEquals(0, small.size());
+        assertEquals(0, small.getWeight());
+
+        final LineBreakCache cache = new LineBreakCache(weight);
+        cache.put(key, trace);
+        assertSame(trace, cache.get(key));
+        assertEquals(weight, cache.getWeight());
+    }
+
+    @Test
+    public void testReplay() {
+        final KnuthSequence par = makeParagraph(10000);
+        final LineBreakCache.Trace trace = new LineBreakCache.Trace();
+        final KnuthNode first = new KnuthNode(4, 1, 1, 0, 0, 0, 0.5, 100, 200,
+                300, 10, null);
+        final KnuthNode second = new KnuthNode(9, 2, 1, 0, 0, 0, -0.25, 400,
+                500, -600, 20, first);
+        trace.updateData1(2, 20);
+        trace.updateData2(second, par, 2);
+        trace.updateData2(first, par, 2);
+        trace.resetAlgorithm();
+        trace.savePossibilities(true);
+        trace.restorePossibilities();
+
+        final Recorder recorder = new Recorder();
+        trace.replay(recorder, par);
+        final List<String> expected = new ArrayList<String>();
+        expected.add("1 2 20.0");
+        expected.add("2 9 2 4 -0.25 400 500 -600 2");
+        expected.add("2 4 1 -1 0.5 100 200 300 2");
+        expected.add("reset");
+        expected.add("save true");
+        expected.add("restore");
+        assertEquals(expected, recorder.calls);
+        assertSame(par, recorder.par);
+    }
+
+    private static final class Recorder implements LineBreakCache.Target {
+
+        private final List<String> calls = new ArrayList<String>();
+        private KnuthSequence par;
+
+        public void updateData1(final int lineCount, final double demerits) {
+            this.calls.add("1 " + lineCount + " " + demerits);
+        }
+
+        public void updateData2(final KnuthNode node, final KnuthSequence par,
+                final int total) {
+            this.par = par;
+            this.calls.add("2 " + node.position + " " + node.line + " "
+                    + (node.previous != null ? node.previous.position : -1)
+                    + " " + node.adjustRatio + " " + node.availableShrink + " "
+                    + node.availableStretch + " " + node.difference + " "
+                    + total);
+        }
+
+        public void resetAlgorithm() {
+            this.calls.add("reset");
+        }
+
+        public void savePossibilities(final boolean saveOptLineCount) {
+            this.calls.add("save " + saveOptLineCount);
+        }
+
+        public void restorePossibilities() {
+            this.calls.add("restore");
+        }
+    }
+
+}
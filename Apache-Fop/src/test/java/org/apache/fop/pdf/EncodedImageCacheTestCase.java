@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.Transparency;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.fop.render.RawPNGTestUtil;
+import org.apache.fop.render.pdf.ImageRawPNGAdapter;
+import org.apache.fop.render.pdf.ImageRenderedAdapter;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawPNG;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Tests {@link EncodedImageCache}.
+ */
+public class EncodedImageCacheTestCase {
+
+    private File directory;
+
+    private EncodedImageCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        this.directory = File.createTempFile("fop-image-cache", "");
+        this.directory.delete();
+        this.cache = new EncodedImageCache(this.directory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.directory);
+    }
+
+    private static class CountingImage extends BitmapImage implements
+            CacheablePDFImage {
+
+        private final String contentKey;
+        private int outputCount;
+
+        CountingImage(final String contentKey, final byte[] data) {
+            super("test", 4, 4, data, null);
+            this.contentKey = contentKey;
+        }
+
+        @Override
+        public String getContentKey() {
+            return this.contentKey;
+        }
+
+        @Override
+        public void outputContents(final OutputStream out) throws IOException {
+            this.outputCount++;
+            super.outputContents(out);
+        }
+    }
+
+    private static byte[] createData(final int seed) {
+        final byte[] data = new byte[48];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (seed + i);
+        }
+        return data;
+    }
+
+    private byte[] output(final CountingImage image) throws IOException {
+        final PDFDocument doc = new PDFDocument("Apache FOP");
+        doc.setEncodedImageCache(this.cache);
+        final PDFImageXObject xobject = doc.addImage(null, image);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xobject.output(out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testReuseAcrossDocuments() throws IOException {
+        final CountingImage first = new CountingImage("key1", createData(0));
+        final byte[] expected = output(first);
+        assertEquals(1, first.outputCount);
+
+        final CountingImage second = new CountingImage("key1", createData(0));
+        assertArrayEquals(expected, output(second));
+        assertEquals(0, second.outputCount);
+
+        final CountingImage other = new CountingImage("key2", createData(1));
+        assertFalse(new String(expected, "ISO-8859-1").equals(new String(
+                output(other), "ISO-8859-1")));
+        assertEquals(1, other.outputCount);
+    }
+
+    @Test
+    public void testNoContentKey() throws IOException {
+        final CountingImage first = new CountingImage(null, createData(0));
+        output(first);
+        final CountingImage second = new CountingImage(null, createData(0));
+        output(second);
+        assertEquals(1, second.outputCount);
+        assertFalse(this.directory.exists());
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        final String key = EncodedImageCache.createKey("content", "/Filter");
+        assertEquals(40, key.length());
+        assertEquals(null, this.cache.get(key));
+        final StreamCache data = StreamCacheFactory.getInstance()
+                .createStreamCache(0);
+        data.write(createData(5));
+        this.cache.put(key, data);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.cache.get(key).outputContents(out);
+        assertArrayEquals(createData(5), out.toByteArray());
+    }
+
+    /** Writes a complete document holding the given image. */
+    private byte[] outputDocument(final PDFImage image, final int threads)
+            throws IOException {
+        final PDFDocument doc = new PDFDocument("Apache FOP");
+        doc.getInfo().setCreationDate(new Date(0));
+        doc.setEncodedImageCache(this.cache);
+        doc.setStreamEncodingThreads(threads);
+        doc.addImage(null, image);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doc.outputPage(out);
+        doc.output(out);
+        doc.setStreamEncodingThreads(0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests that images encoded by the encoder threads of a document use the
+     * cache as well.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Test
+    public void testEncodingThreads() throws IOException {
+        final CountingImage first = new CountingImage("key1", createData(0));
+        final byte[] expected = outputDocument(first, 2);
+        assertEquals(1, first.outputCount);
+        assertEquals(1, this.directory.list().length);
+
+        final CountingImage second = new CountingImage("key1", createData(0));
+        assertArrayEquals(expected, outputDocument(second, 2));
+        assertEquals(0, second.outputCount);
+        // The serial output path reads the same entry
+        final CountingImage third = new CountingImage("key1", createData(0));
+        outputDocument(third, 0);
+        assertEquals(0, third.outputCount);
+    }
+
+    private static ImageRenderedAdapter createRenderedAdapter() {
+        final BufferedImage bi = new BufferedImage(8, 8,
+                BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                bi.setRGB(x, y, x * 0x10203040 + y);
+            }
+        }
+        return new ImageRenderedAdapter(new ImageRendered(new ImageInfo(
+                "rendered.png", "image/png"), bi, null), "rendered.png");
+    }
+
+    private static ImageRawPNGAdapter createRawPNGAdapter() throws IOException {
+        final ImageInfo info = new ImageInfo("raw.png", "image/png");
+        info.setSize(RawPNGTestUtil.getImageSize());
+        final ComponentColorModel cm = new ComponentColorModel(
+                ColorSpace.getInstance(ColorSpace.CS_sRGB), true, false,
+                Transparency.TRANSLUCENT, DataBuffer.TYPE_BYTE);
+        final ImageRawPNG png = new ImageRawPNG(info, null, cm, 8, null);
+        png.setInputStreamFactory(new ImageRawStream.ByteArrayStreamFactory(
+                RawPNGTestUtil.buildGRGBAData(-1, 128, 64, 32, 100)));
+        return new ImageRawPNGAdapter(png, "raw.png");
+    }
+
+    /**
+     * Tests the cache with the content keys of the image adapters, including
+     * their alpha channels.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Test
+    public void testImageAdapters() throws IOException {
+        for (int threads = 0; threads <= 2; threads += 2) {
+            FileUtils.deleteDirectory(this.directory);
+            final byte[] rendered = outputDocument(createRenderedAdapter(),
+                    threads);
+            final byte[] png = outputDocument(createRawPNGAdapter(), threads);
+            // Each image and its soft mask
+            assertEquals(4, this.directory.list().length);
+            assertArrayEquals(rendered, outputDocument(createRenderedAdapter(),
+                    threads));
+            assertArrayEquals(png, outputDocument(createRawPNGAdapter(),
+                    threads));
+            assertEquals(4, this.directory.list().length);
+            assertNotNull(createRenderedAdapter().getContentKey());
+        }
+    }
+}
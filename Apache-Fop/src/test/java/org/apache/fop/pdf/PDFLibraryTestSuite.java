@@ -31,7 +31,8 @@ import org.junit.runners.Suite.SuiteClasses;
     PDFNumberTestCase.class, PDFObjectTestCase.class,
     PDFNameTestCase.class, AbstractPDFStreamTestCase.class,
     PDFDestsTestCase.class, PDFDocumentTestCase.class,
-    PDFNullTestCase.class, PDFNumsArrayTestCase.class,
+    PDFObjectOutputTestCase.class,
+    PDFNullTestCase.class, PDFNumsArrayTestCase.class, PDFPagesTestCase.class,
     PDFRectangleTestCase.class, PDFReferenceTestCase.class,
     VersionTestCase.class, VersionControllerTestCase.class })
 public class PDFLibraryTestSuite {
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the PDF objects written in place into the text buffer produce the
+ * same bytes as their String representations did.
+ */
+public class PDFObjectOutputTestCase {
+
+    private static String output(final PDFObject object) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        object.output(out);
+        return out.toString("ISO-8859-1");
+    }
+
+    /**
+     * Tests a direct dictionary holding every kind of value.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Test
+    public void testDictionary() throws IOException {
+        final PDFDocument doc = new PDFDocument("Apache FOP");
+        final PDFDictionary indirect = new PDFDictionary();
+        doc.registerObject(indirect);
+        final PDFDictionary dict = new PDFDictionary();
+        dict.setDocument(doc);
+        dict.put("Type", new PDFName("Test"));
+        dict.put("Name", new PDFName("A name/with #special (chars)"));
+        dict.put("Int", 42);
+        dict.put("Long", Long.valueOf(12345678901L));
+        dict.put("Double", 1.0 / 3);
+        dict.put("Float", Float.valueOf(2.5f));
+        dict.put("Bool", Boolean.TRUE);
+        dict.put("Null", (Object) null);
+        dict.put("String", "Text (with) \\ parens\n");
+        final PDFNumber number = new PDFNumber();
+        number.setNumber(Double.valueOf(-0.000012345));
+        dict.put("Number", number);
+        final PDFText text = new PDFText();
+        text.setText("Plain (text) with \\ and \t tab");
+        dict.put("Text", text);
+        final PDFText unicode = new PDFText();
+        unicode.setText("Grüße €");
+        dict.put("Unicode", unicode);
+        dict.put("Ref", indirect);
+        dict.put("RefObj", indirect.makeReference());
+        dict.put("RefString", new PDFReference("17 3 R"));
+        final PDFArray array = new PDFArray();
+        array.add(1);
+        array.add(2.75);
+        array.add(new PDFName("N"));
+        array.add(indirect);
+        final PDFDictionary nested = new PDFDictionary();
+        nested.put("Inner", new PDFArray(new Object[] { 0, 0.5, "s" }));
+        array.add(nested);
+        dict.put("Array", array);
+
+        assertEquals("<<\n  /Type /Test\n"
+                + "  /Name /A#20name#2Fwith#20#23special#20#28chars#29\n"
+                + "  /Int 42\n  /Long 12345678901\n  /Double 0.333333\n"
+                + "  /Float 2.5\n  /Bool true\n  /Null null\n"
+                + "  /String (Text \\(with\\) \\\\ parens\\n)\n"
+                + "  /Number -0.000012345\n"
+                + "  /Text ((Plain \\(text\\) with \\\\ and \\t tab))\n"
+                + "  /Unicode (<FEFF0047007200FC00DF0065002020AC>)\n"
+                + "  /Ref 5 0 R\n  /RefObj 5 0 R\n  /RefString 17 3 R\n"
+                + "  /Array [1 2.75 /N 5 0 R << /Inner [0 0.5 (s)] >>\n]\n>>\n",
+                output(dict));
+        assertEquals("((Plain \\(text\\) with \\\\ and \\t tab))", output(text));
+        assertEquals("5 0 R", indirect.referencePDF());
+        assertEquals("5 0 R", indirect.makeReference().toString());
+    }
+
+    /**
+     * Tests the text escaping helpers.
+     */
+    @Test
+    public void testEscapeText() {
+        assertEquals("(a\\(b\\))", PDFText.escapeText("a(b)"));
+        assertEquals("<FEFF00E9007400E9>", PDFText.escapeText("été"));
+        assertEquals("()", PDFText.escapeText("", true));
+        assertEquals("<FEFF006800650078>", PDFText.escapeText("hex", true));
+        assertEquals("()", PDFText.escapeText(null));
+        assertEquals("000FFF", PDFText.toHex(new byte[] { 0, 15, (byte) 255 },
+                false));
+        assertEquals("(x\\\\y)", PDFText.escapeString("x\\y"));
+        assertEquals("()", PDFText.escapeString(""));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test case for {@link PDFPages}.
+ */
+public class PDFPagesTestCase {
+
+    private static PDFPage createPage(final int objectNumber,
+            final int pageIndex) {
+        final Rectangle box = new Rectangle(0, 0, 595, 842);
+        final PDFPage page = new PDFPage(new PDFResources(1), pageIndex, box,
+                box, box, box);
+        page.setObjectNumber(objectNumber);
+        return page;
+    }
+
+    /**
+     * Tests that the kids are written in page index order as references.
+     */
+    @Test
+    public void testKids() {
+        final PDFPages pages = new PDFPages(2);
+        final StringBuilder expected = new StringBuilder(
+                "<< /Type /Pages\n/Count 40\n/Kids [");
+        for (int i = 0; i < 40; i++) {
+            expected.append(10 + i).append(" 0 R ");
+        }
+        expected.append("] >>");
+        // register the pages in an order different from their index
+        for (int i = 39; i >= 0; i--) {
+            final PDFPage page = createPage(10 + i, i);
+            pages.addPage(page);
+            pages.notifyKidRegistered(page);
+        }
+        assertEquals(expected.toString(), pages.toPDFString());
+    }
+
+    /**
+     * Tests that pages without an index are appended.
+     */
+    @Test
+    public void testKidsWithoutIndex() {
+        final PDFPages pages = new PDFPages(2);
+        for (int i = 0; i < 3; i++) {
+            final PDFPage page = createPage(5 + i, -1);
+            pages.addPage(page);
+            pages.notifyKidRegistered(page);
+        }
+        assertEquals("<< /Type /Pages\n/Count 3\n/Kids [5 0 R 6 0 R 7 0 R ] >>",
+                pages.toPDFString());
+    }
+
+    /**
+     * Tests that a page index cannot be used twice or left out.
+     */
+    @Test
+    public void testInvalidKids() {
+        final PDFPages pages = new PDFPages(2);
+        pages.notifyKidRegistered(createPage(5, 0));
+        try {
+            pages.notifyKidRegistered(createPage(6, 0));
+            fail("IllegalStateException expected");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        pages.notifyKidRegistered(createPage(7, 2));
+        try {
+            pages.toPDFString();
+            fail("IllegalStateException expected");
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        try {
+            pages.notifyKidRegistered(new PDFPage(new PDFResources(1), 3,
+                    new Rectangle(), new Rectangle(), new Rectangle(),
+                    new Rectangle()));
+            fail("IllegalArgumentException expected");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
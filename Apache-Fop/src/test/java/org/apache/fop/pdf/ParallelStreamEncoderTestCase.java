@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests encoding the PDF streams on worker threads.
+ */
+public class ParallelStreamEncoderTestCase {
+
+    private static final int STREAM_COUNT = 60;
+
+    private static byte[] createDocument(final int threads,
+            final boolean flushBetweenStreams) throws IOException {
+        return createDocument(threads, flushBetweenStreams, false);
+    }
+
+    private static byte[] createDocument(final int threads,
+            final boolean flushBetweenStreams, final boolean encrypted)
+                    throws IOException {
+        final PDFDocument doc = new PDFDocument("Apache FOP");
+        doc.getInfo().setCreationDate(new Date(0));
+        if (encrypted) {
+            // a fixed file ID, so the encryption keys are the same each time
+            final byte[] fileID = new byte[16];
+            doc.setEncryption(new PDFEncryptionParams("user", "owner", true,
+                    true, true, true), new FileIDGenerator() {
+                @Override
+                byte[] getOriginalFileID() {
+                    return fileID;
+                }
+
+                @Override
+                byte[] getUpdatedFileID() {
+                    return fileID;
+                }
+            });
+        }
+        doc.setStreamEncodingThreads(threads);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Random random = new Random(42);
+        for (int i = 0; i < STREAM_COUNT; i++) {
+            final PDFStream stream = new PDFStream();
+            final StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 2000; j++) {
+                content.append(random.nextInt(100)).append(" 0 m\n");
+            }
+            stream.add(content.toString());
+            doc.registerObject(stream);
+            final PDFDictionary dict = new PDFDictionary();
+            dict.put("Index", i);
+            // strings are encrypted by the rendering thread meanwhile
+            final PDFText title = new PDFText();
+            title.setText("Stream " + i);
+            dict.put("Title", title);
+            doc.registerObject(dict);
+            if (flushBetweenStreams) {
+                doc.outputReady(out);
+            }
+            if (i % 5 == 4) {
+                doc.outputPage(out);
+            }
+        }
+        doc.output(out);
+        doc.setStreamEncodingThreads(0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Tests that the output doesn't depend on the number of threads or on the
+     * timing of the worker threads.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Test
+    public void testSameOutput() throws IOException {
+        final byte[] expected = createDocument(1, false);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(expected, createDocument(1, true));
+            assertArrayEquals(expected, createDocument(3, false));
+            assertArrayEquals(expected, createDocument(8, true));
+        }
+    }
+
+    /**
+     * Tests that encrypted output doesn't depend on the number of threads,
+     * while the encoder threads and the rendering thread derive the keys of
+     * the objects at the same time.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Test
+    public void testSameEncryptedOutput() throws IOException {
+        final byte[] expected = createDocument(1, false, true);
+        for (int i = 0; i < 3; i++) {
+            assertArrayEquals(expected, createDocument(4, false, true));
+            assertArrayEquals(expected, createDocument(8, true, true));
+        }
+    }
+
+    /**
+     * Tests that the objects are written once each, in the order they were
+     * queued, while streams are encoded ahead.
+     *
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    @Test
+    public void testObjectOrder() throws IOException {
+        final String pdf = new String(createDocument(4, true), "ISO-8859-1");
+        final Matcher matcher = Pattern.compile("(\\d+) 0 obj").matcher(pdf);
+        assertTrue(matcher.find());
+        final int first = Integer.parseInt(matcher.group(1));
+        int count = 1;
+        while (matcher.find()) {
+            assertEquals(first + count++, Integer.parseInt(matcher.group(1)));
+        }
+        // the info dictionary, the streams and the dictionaries
+        assertEquals(1 + STREAM_COUNT * 2, count);
+        // no indirect /Length objects are needed
+        assertFalse(Pattern.compile("/Length \\d+ 0 R").matcher(pdf).find());
+        assertTrue(pdf.contains("/Filter /FlateDecode"));
+    }
+
+    /**
+     * Tests that a negative number of threads is rejected.
+     */
+    @Test
+    public void testNegativeThreads() {
+        try {
+            new PDFDocument("Apache FOP").setStreamEncodingThreads(-1);
+            fail("IllegalArgumentException expected");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
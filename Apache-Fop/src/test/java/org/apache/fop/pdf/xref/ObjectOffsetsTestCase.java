@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf.xref;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ObjectOffsetsTestCase {
+
+    @Test
+    public void testGrowsAndLeavesGaps() {
+        final ObjectOffsets offsets = new ObjectOffsets();
+        offsets.set(0, 15L);
+        offsets.set(1000, 0x1ffffffffL);
+        assertEquals(1001, offsets.size());
+        assertEquals(15L, offsets.get(0));
+        assertEquals(0x1ffffffffL, offsets.get(1000));
+        assertFalse(offsets.hasOffset(1));
+        assertFalse(offsets.hasOffset(999));
+        assertFalse(offsets.hasOffset(1001));
+    }
+
+    @Test
+    public void testOverwrite() {
+        final ObjectOffsets offsets = new ObjectOffsets();
+        offsets.set(2, 30L);
+        offsets.set(0, 10L);
+        offsets.set(2, 35L);
+        assertEquals(3, offsets.size());
+        assertEquals(35L, offsets.get(2));
+        assertFalse(offsets.hasOffset(1));
+    }
+
+    @Test
+    public void testFromList() {
+        final ObjectOffsets offsets = new ObjectOffsets(Arrays.asList(0L,
+                null, -1L));
+        assertEquals(3, offsets.size());
+        assertTrue(offsets.hasOffset(0));
+        assertFalse(offsets.hasOffset(1));
+        assertEquals(-1L, offsets.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingOffset() {
+        final ObjectOffsets offsets = new ObjectOffsets();
+        offsets.set(1, 10L);
+        offsets.get(0);
+    }
+}
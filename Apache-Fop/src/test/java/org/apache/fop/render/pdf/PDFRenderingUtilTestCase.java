@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.FopFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the renderer options read by {@link PDFRenderingUtil}.
+ */
+public class PDFRenderingUtilTestCase {
+
+    private static PDFRenderingUtil createUtil(final Object compressionThreads) {
+        final FOUserAgent userAgent = FopFactory.newInstance()
+                .newFOUserAgent();
+        userAgent.getRendererOptions().put(
+                PDFConfigurationConstants.KEY_COMPRESSION_THREADS,
+                compressionThreads);
+        return new PDFRenderingUtil(userAgent);
+    }
+
+    /**
+     * Tests the compression threads given as renderer option.
+     */
+    @Test
+    public void testCompressionThreads() {
+        assertEquals(2, createUtil("2").compressionThreads);
+        assertEquals(3, createUtil(" 3 ").compressionThreads);
+        assertEquals(4, createUtil(Integer.valueOf(4)).compressionThreads);
+    }
+
+    /**
+     * Tests that invalid compression threads are rejected with a clear error.
+     */
+    @Test
+    public void testInvalidCompressionThreads() {
+        for (final Object value : new Object[] { "two", "", "-1", Boolean.TRUE }) {
+            try {
+                createUtil(value);
+                fail("IllegalArgumentException expected for " + value);
+            } catch (final IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("compression"));
+            }
+        }
+    }
+}
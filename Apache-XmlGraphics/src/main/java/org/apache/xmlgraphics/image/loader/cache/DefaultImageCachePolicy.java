@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.xmlgraphics.image.loader.cache;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
+import org.apache.xmlgraphics.image.loader.impl.ImageRendered;
+
+/**
+ * Implements the default cache policy for the image cache. Bitmaps are weighed
+ * by the size of their pixel buffers, raw images held in memory by the size of
+ * their data. The memory used by all other images, for example DOM documents
+ * or Graphics2D images, is unknown; the cache only holds them softly.
+ */
+public class DefaultImageCachePolicy implements ImageCachePolicy {
+
+    /** Evicts the least recently used image first. */
+    public static final int EVICTION_LRU = 0;
+    /** Evicts the least frequently used image first. */
+    public static final int EVICTION_LFU = 1;
+
+    private final long maxWeight;
+    private final int eviction;
+    private final Map<ImageFlavor, Long> flavorLimits = new ConcurrentHashMap<ImageFlavor, Long>();
+
+    /**
+     * Creates a new policy with default settings (least recently used images
+     * are evicted when the images occupy an eighth of the maximum heap).
+     */
+    public DefaultImageCachePolicy() {
+        this(Runtime.getRuntime().maxMemory() / 8);
+    }
+
+    /**
+     * Creates a new policy evicting the least recently used images first.
+     *
+     * @param maxWeight
+     *            the maximum weight of all images in bytes (a negative value
+     *            means: no limit)
+     */
+    public DefaultImageCachePolicy(final long maxWeight) {
+        this(maxWeight, EVICTION_LRU);
+    }
+
+    /**
+     * Creates a new policy.
+     *
+     * @param maxWeight
+     *            the maximum weight of all images in bytes (a negative value
+     *            means: no limit)
+     * @param eviction
+     *            the eviction strategy ({@link #EVICTION_LRU} or
+     *            {@link #EVICTION_LFU})
+     */
+    public DefaultImageCachePolicy(final long maxWeight, final int eviction) {
+        if (eviction != EVICTION_LRU && eviction != EVICTION_LFU) {
+            throw new IllegalArgumentException("Invalid eviction strategy: "
+                    + eviction);
+        }
+        this.maxWeight = maxWeight;
+        this.eviction = eviction;
+    }
+
+    /**
+     * Limits the weight of the cached images of a particular flavor.
+     *
+     * @param flavor
+     *            the image flavor
+     * @param limit
+     *            the maximum weight in bytes (a negative value means: no limit)
+     */
+    public void setMaxWeight(final ImageFlavor flavor, final long limit) {
+        if (limit < 0) {
+            this.flavorLimits.remove(flavor);
+        } else {
+            this.flavorLimits.put(flavor, Long.valueOf(limit));
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMaxWeight() {
+        return this.maxWeight;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMaxWeight(final ImageFlavor flavor) {
+        final Long limit = this.flavorLimits.get(flavor);
+        return limit != null ? limit.longValue() : -1;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getWeight(final Image image) {
+        if (image instanceof ImageRendered) {
+            return getWeight(((ImageRendered) image).getRenderedImage());
+        } else if (image instanceof ImageRawStream) {
+            final ImageRawStream.InputStreamFactory factory = ((ImageRawStream) image)
+                    .getInputStreamFactory();
+            if (factory instanceof ImageRawStream.ByteArrayStreamFactory) {
+                return ((ImageRawStream.ByteArrayStreamFactory) factory)
+                        .getLength();
+            }
+        }
+        return UNKNOWN_WEIGHT;
+    }
+
+    private static long getWeight(final RenderedImage image) {
+        if (image instanceof BufferedImage) {
+            final DataBuffer buffer = ((BufferedImage) image).getRaster()
+                    .getDataBuffer();
+            return (long) buffer.getSize() * buffer.getNumBanks()
+                    * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+        }
+        final SampleModel sampleModel = image.getSampleModel();
+        long bitsPerPixel = 0;
+        for (final int sampleSize : sampleModel.getSampleSize()) {
+            bitsPerPixel += sampleSize;
+        }
+        return (long) image.getWidth() * image.getHeight() * bitsPerPixel / 8;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ImageCacheEntry selectVictim(final Iterator<ImageCacheEntry> entries) {
+        ImageCacheEntry victim = entries.next();
+        if (this.eviction == EVICTION_LFU) {
+            while (entries.hasNext() && victim.getHitCount() > 0) {
+                final ImageCacheEntry entry = entries.next();
+                if (entry.getHitCount() < victim.getHitCount()) {
+                    victim = entry;
+                }
+            }
+        }
+        return victim;
+    }
+
+}
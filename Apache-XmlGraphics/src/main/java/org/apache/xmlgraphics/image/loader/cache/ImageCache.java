@@ -21,10 +21,15 @@ package org.apache.xmlgraphics.image.loader.cache;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import javax.xml.transform.Source;
@@ -50,6 +55,11 @@ import org.apache.xmlgraphics.image.loader.util.SoftMapCache;
  * are discarded after 60 seconds (which causes a retry next time the same URI
  * is requested). This allows to counteract performance loss when accessing
  * invalid or temporarily unavailable images over slow connections.
+ * <p>
+ * The decoded images are held until the limits of the {@link ImageCachePolicy}
+ * are reached, at which point the policy chooses the images to evict. By
+ * default, the least recently used images are evicted once the images occupy
+ * an eighth of the maximum heap.
  */
 @Slf4j
 public class ImageCache {
@@ -61,7 +71,19 @@ public class ImageCache {
 
     // Actual image cache
     private final SoftMapCache imageInfos = new SoftMapCache(true);
-    private final SoftMapCache images = new SoftMapCache(true);
+    /** The cached images, least recently used first (guarded by itself) */
+    private final LinkedHashMap<ImageKey, ImageCacheEntry> images = new LinkedHashMap<ImageKey, ImageCacheEntry>(
+            16, 0.75f, true);
+    private final Map<ImageFlavor, Long> flavorWeights = new java.util.HashMap<ImageFlavor, Long>();
+    /** Receives the soft references of images freed by the garbage collector */
+    private final ReferenceQueue<Image> clearedImages = new ReferenceQueue<Image>();
+    private volatile ImageCachePolicy cachePolicy;
+
+    // Statistics, guarded by the image map
+    private long imageWeight;
+    private long evictionCount;
+    private long loadCount;
+    private long loadTime;
 
     private ImageCacheListener cacheListener;
     private final TimeStampProvider timeStampProvider;
@@ -71,7 +93,18 @@ public class ImageCache {
      * Default constructor with default settings.
      */
     public ImageCache() {
-        this(new TimeStampProvider(), new DefaultExpirationPolicy());
+        this(new DefaultImageCachePolicy());
+    }
+
+    /**
+     * Constructor with a customized cache policy.
+     *
+     * @param cachePolicy
+     *            the policy limiting the cached images
+     */
+    public ImageCache(final ImageCachePolicy cachePolicy) {
+        this(new TimeStampProvider(), new DefaultExpirationPolicy(),
+                cachePolicy);
     }
 
     /**
@@ -84,11 +117,52 @@ public class ImageCache {
      */
     public ImageCache(final TimeStampProvider timeStampProvider,
             final ExpirationPolicy invalidURIExpirationPolicy) {
+        this(timeStampProvider, invalidURIExpirationPolicy,
+                new DefaultImageCachePolicy());
+    }
+
+    /**
+     * Constructor for customized behaviour and testing.
+     *
+     * @param timeStampProvider
+     *            the time stamp provider to use
+     * @param invalidURIExpirationPolicy
+     *            the expiration policy for invalid URIs
+     * @param cachePolicy
+     *            the policy limiting the cached images
+     */
+    public ImageCache(final TimeStampProvider timeStampProvider,
+            final ExpirationPolicy invalidURIExpirationPolicy,
+            final ImageCachePolicy cachePolicy) {
         this.timeStampProvider = timeStampProvider;
         this.invalidURIExpirationPolicy = invalidURIExpirationPolicy;
+        this.cachePolicy = cachePolicy;
         this.lastHouseKeeping = this.timeStampProvider.getTimeStamp();
     }
 
+    /**
+     * Sets the policy limiting the cached images. Images exceeding the limits
+     * of the new policy are evicted immediately.
+     *
+     * @param cachePolicy
+     *            the cache policy
+     */
+    public void setCachePolicy(final ImageCachePolicy cachePolicy) {
+        synchronized (this.images) {
+            this.cachePolicy = cachePolicy;
+            trim(cachePolicy);
+        }
+    }
+
+    /**
+     * Returns the policy limiting the cached images.
+     *
+     * @return the cache policy
+     */
+    public ImageCachePolicy getCachePolicy() {
+        return this.cachePolicy;
+    }
+
     /**
      * Sets an ImageCacheListener instance so the events in the image cache can
      * be observed.
@@ -260,7 +334,19 @@ public class ImageCache {
             return null;
         }
         final ImageKey key = new ImageKey(uri, flavor);
-        final Image img = (Image) this.images.get(key);
+        Image img = null;
+        synchronized (this.images) {
+            removeClearedImages();
+            final ImageCacheEntry entry = this.images.get(key);
+            if (entry != null) {
+                img = entry.getImage();
+                if (img != null) {
+                    entry.hit();
+                } else {
+                    this.images.remove(key);
+                }
+            }
+        }
         if (this.cacheListener != null) {
             if (img != null) {
                 this.cacheListener.cacheHitImage(key);
@@ -288,7 +374,162 @@ public class ImageCache {
                     "Image is not cacheable! (Flavor: " + img.getFlavor() + ")");
         }
         final ImageKey key = new ImageKey(originalURI, img.getFlavor());
-        this.images.put(key, img);
+        final ImageCachePolicy policy = this.cachePolicy;
+        final ImageCacheEntry entry = new ImageCacheEntry(key, img,
+                policy.getWeight(img), this.clearedImages);
+        synchronized (this.images) {
+            removeClearedImages();
+            removeEntry(this.images.remove(key));
+            if (exceedsLimit(entry.getWeight(), policy.getMaxWeight())
+                    || exceedsLimit(entry.getWeight(),
+                            policy.getMaxWeight(img.getFlavor()))) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Image too large to be cached: " + entry);
+                }
+                return;
+            }
+            this.images.put(key, entry);
+            this.imageWeight += entry.getWeight();
+            this.flavorWeights.put(img.getFlavor(), Long
+                    .valueOf(getFlavorWeight(img.getFlavor())
+                            + entry.getWeight()));
+            trim(policy);
+        }
+    }
+
+    /** Removes the entries whose images have been garbage collected. */
+    private void removeClearedImages() {
+        Reference<? extends Image> ref;
+        while ((ref = this.clearedImages.poll()) != null) {
+            final ImageCacheEntry.SoftImage softImage = (ImageCacheEntry.SoftImage) ref;
+            final ImageCacheEntry entry = this.images.get(softImage.getKey());
+            if (entry != null && entry.holds(softImage)) {
+                this.images.remove(softImage.getKey());
+            }
+        }
+    }
+
+    private static boolean exceedsLimit(final long weight, final long limit) {
+        return limit >= 0 && weight > limit;
+    }
+
+    private long getFlavorWeight(final ImageFlavor flavor) {
+        final Long weight = this.flavorWeights.get(flavor);
+        return weight != null ? weight.longValue() : 0;
+    }
+
+    private void removeEntry(final ImageCacheEntry entry) {
+        if (entry != null) {
+            this.imageWeight -= entry.getWeight();
+            final long flavorWeight = getFlavorWeight(entry.getFlavor())
+                    - entry.getWeight();
+            if (flavorWeight > 0) {
+                this.flavorWeights.put(entry.getFlavor(),
+                        Long.valueOf(flavorWeight));
+            } else {
+                this.flavorWeights.remove(entry.getFlavor());
+            }
+        }
+    }
+
+    /** Evicts images until the limits of the policy are met. */
+    private void trim(final ImageCachePolicy policy) {
+        final Iterator<ImageFlavor> flavors = new ArrayList<ImageFlavor>(
+                this.flavorWeights.keySet()).iterator();
+        while (flavors.hasNext()) {
+            final ImageFlavor flavor = flavors.next();
+            final long limit = policy.getMaxWeight(flavor);
+            while (exceedsLimit(getFlavorWeight(flavor), limit)) {
+                evict(policy.selectVictim(new EvictableIterator(this.images
+                        .values().iterator(), flavor)));
+            }
+        }
+        final long limit = policy.getMaxWeight();
+        while (exceedsLimit(this.imageWeight, limit)) {
+            evict(policy.selectVictim(new EvictableIterator(this.images
+                    .values().iterator(), null)));
+        }
+    }
+
+    private void evict(final ImageCacheEntry victim) {
+        if (log.isTraceEnabled()) {
+            log.trace("Evicting image: " + victim);
+        }
+        removeEntry(this.images.remove(victim.getKey()));
+        this.evictionCount++;
+    }
+
+    /**
+     * Registers the time it took to load and convert an image that was not
+     * found in the cache.
+     *
+     * @param duration
+     *            the duration in milliseconds
+     */
+    public void registerLoadTime(final long duration) {
+        synchronized (this.images) {
+            this.loadCount++;
+            this.loadTime += duration;
+        }
+    }
+
+    /**
+     * Returns the number of images currently held by the cache.
+     *
+     * @return the number of images
+     */
+    public int getImageCount() {
+        synchronized (this.images) {
+            removeClearedImages();
+            return this.images.size();
+        }
+    }
+
+    /**
+     * Returns the total weight of the images currently held by the cache.
+     *
+     * @return the weight in bytes, as determined by the cache policy
+     */
+    public long getImageWeight() {
+        synchronized (this.images) {
+            return this.imageWeight;
+        }
+    }
+
+    /**
+     * Returns the number of images evicted to meet the limits of the cache
+     * policy.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        synchronized (this.images) {
+            return this.evictionCount;
+        }
+    }
+
+    /**
+     * Returns the number of images loaded because they were not found in the
+     * cache.
+     *
+     * @return the number of loaded images
+     */
+    public long getLoadCount() {
+        synchronized (this.images) {
+            return this.loadCount;
+        }
+    }
+
+    /**
+     * Returns the total time spent on loading and converting images which were
+     * not found in the cache.
+     *
+     * @return the load time in milliseconds
+     */
+    public long getLoadTime() {
+        synchronized (this.images) {
+            return this.loadTime;
+        }
     }
 
     /**
@@ -297,7 +538,11 @@ public class ImageCache {
     public void clearCache() {
         this.invalidURIs.clear();
         this.imageInfos.clear();
-        this.images.clear();
+        synchronized (this.images) {
+            this.images.clear();
+            this.flavorWeights.clear();
+            this.imageWeight = 0;
+        }
         doHouseKeeping();
     }
 
@@ -322,7 +567,6 @@ public class ImageCache {
      */
     public void doHouseKeeping() {
         this.imageInfos.doHouseKeeping();
-        this.images.doHouseKeeping();
         doInvalidURIHouseKeeping();
     }
 
@@ -335,4 +579,52 @@ public class ImageCache {
         }
     }
 
+    /**
+     * Iterates over the strongly held images, which are the candidates for
+     * eviction, optionally only those of a particular flavor.
+     */
+    private static class EvictableIterator implements Iterator<ImageCacheEntry> {
+
+        private final Iterator<ImageCacheEntry> entries;
+        private final ImageFlavor flavor;
+        private ImageCacheEntry next;
+
+        EvictableIterator(final Iterator<ImageCacheEntry> entries,
+                final ImageFlavor flavor) {
+            this.entries = entries;
+            this.flavor = flavor;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean hasNext() {
+            while (this.next == null && this.entries.hasNext()) {
+                final ImageCacheEntry entry = this.entries.next();
+                if (!entry.isSoft()
+                        && (this.flavor == null || this.flavor.equals(entry
+                                .getFlavor()))) {
+                    this.next = entry;
+                }
+            }
+            return this.next != null;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ImageCacheEntry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final ImageCacheEntry entry = this.next;
+            this.next = null;
+            return entry;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
 }
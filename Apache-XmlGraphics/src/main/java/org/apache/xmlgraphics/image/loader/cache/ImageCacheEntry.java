@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.xmlgraphics.image.loader.cache;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+
+/**
+ * An image held by the {@link ImageCache}, together with the information an
+ * {@link ImageCachePolicy} needs to decide on its eviction. An image of
+ * unknown weight is only held softly.
+ */
+public final class ImageCacheEntry {
+
+    private final ImageKey key;
+    private final ImageFlavor flavor;
+    private final Image image;
+    private final SoftImage softImage;
+    private final long weight;
+    private int hitCount;
+
+    ImageCacheEntry(final ImageKey key, final Image image, final long weight,
+            final ReferenceQueue<Image> queue) {
+        this.key = key;
+        this.flavor = image.getFlavor();
+        if (weight < 0) {
+            this.image = null;
+            this.softImage = new SoftImage(image, key, queue);
+            this.weight = 0;
+        } else {
+            this.image = image;
+            this.softImage = null;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Returns the key of the image.
+     *
+     * @return the image key
+     */
+    public ImageKey getKey() {
+        return this.key;
+    }
+
+    /**
+     * Returns the flavor of the image.
+     *
+     * @return the image flavor
+     */
+    public ImageFlavor getFlavor() {
+        return this.flavor;
+    }
+
+    /**
+     * Returns the weight of the image as determined by the cache policy.
+     *
+     * @return the weight in bytes (0 if the image is only held softly)
+     */
+    public long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Returns the number of times the image was found in the cache.
+     *
+     * @return the number of cache hits
+     */
+    public int getHitCount() {
+        return this.hitCount;
+    }
+
+    /**
+     * Indicates whether the image is only held softly, because its weight is
+     * unknown. Such an image is never chosen for eviction.
+     *
+     * @return true if the garbage collector may free the image
+     */
+    public boolean isSoft() {
+        return this.softImage != null;
+    }
+
+    Image getImage() {
+        return this.softImage != null ? this.softImage.get() : this.image;
+    }
+
+    boolean holds(final SoftImage reference) {
+        return this.softImage == reference;
+    }
+
+    void hit() {
+        this.hitCount++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return this.key + " (" + (isSoft() ? "soft" : this.weight + " bytes")
+                + ", " + this.hitCount + " hits)";
+    }
+
+    /** A soft reference to an image which knows the image's key. */
+    static final class SoftImage extends SoftReference<Image> {
+
+        private final ImageKey key;
+
+        SoftImage(final Image image, final ImageKey key,
+                final ReferenceQueue<Image> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+
+        ImageKey getKey() {
+            return this.key;
+        }
+    }
+
+}
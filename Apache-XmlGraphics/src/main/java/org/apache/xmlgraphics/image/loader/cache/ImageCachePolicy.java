@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.xmlgraphics.image.loader.cache;
+
+import java.util.Iterator;
+
+import org.apache.xmlgraphics.image.loader.Image;
+import org.apache.xmlgraphics.image.loader.ImageFlavor;
+
+/**
+ * Decides how many decoded images the {@link ImageCache} may hold and which of
+ * them are given up first when the limits are reached.
+ */
+public interface ImageCachePolicy {
+
+    /**
+     * The weight of an image whose memory use can't be determined. Such
+     * images are only held softly by the cache and don't count towards its
+     * limits, so the garbage collector frees them when memory runs low.
+     */
+    long UNKNOWN_WEIGHT = -1;
+
+    /**
+     * Returns the weight of an image, i.e. the approximate number of bytes of
+     * heap it occupies.
+     *
+     * @param image
+     *            the image
+     * @return the weight in bytes or {@link #UNKNOWN_WEIGHT}
+     */
+    long getWeight(final Image image);
+
+    /**
+     * Returns the maximum total weight of all cached images.
+     *
+     * @return the maximum weight in bytes (a negative value means: no limit)
+     */
+    long getMaxWeight();
+
+    /**
+     * Returns the maximum total weight of the cached images of a particular
+     * flavor.
+     *
+     * @param flavor
+     *            the image flavor
+     * @return the maximum weight in bytes (a negative value means: no limit)
+     */
+    long getMaxWeight(final ImageFlavor flavor);
+
+    /**
+     * Chooses the image to be evicted next.
+     *
+     * @param entries
+     *            the candidates, least recently used first
+     * @return the entry to evict (one of the candidates)
+     */
+    ImageCacheEntry selectVictim(final Iterator<ImageCacheEntry> entries);
+
+}
@@ -112,6 +112,15 @@ public class ImageRawStream extends AbstractImage {
         this.streamFactory = factory;
     }
 
+    /**
+     * Returns the InputStreamFactory used by this image.
+     * 
+     * @return the InputStreamFactory
+     */
+    public InputStreamFactory getInputStreamFactory() {
+        return this.streamFactory;
+    }
+
     /**
      * Returns a new InputStream to access the raw image.
      * 
@@ -244,6 +253,15 @@ public class ImageRawStream extends AbstractImage {
             this.data = data;
         }
 
+        /**
+         * Returns the number of bytes held by this factory.
+         * 
+         * @return the length of the byte array
+         */
+        public int getLength() {
+            return this.data.length;
+        }
+
         /** {@inheritDoc} */
         @Override
         public InputStream createInputStream() {
@@ -85,6 +85,19 @@ public class ImageProviderPipeline {
         this(null, null);
     }
 
+    /**
+     * Creates a pipeline with the same cache, loader and converters as this
+     * one.
+     *
+     * @return the new pipeline
+     */
+    ImageProviderPipeline copy() {
+        final ImageProviderPipeline copy = new ImageProviderPipeline(
+                this.cache, this.loader);
+        copy.converters.addAll(this.converters);
+        return copy;
+    }
+
     /**
      * Executes the image converter pipeline. First, the image indicated by the
      * ImageInfo instance is loaded through an ImageLoader and then optionally
@@ -136,7 +149,8 @@ public class ImageProviderPipeline {
         if (hints == null) {
             hints = Collections.EMPTY_MAP;
         }
-        long start = System.currentTimeMillis();
+        final long pipelineStart = System.currentTimeMillis();
+        long start = pipelineStart;
         Image img = null;
 
         // Remember the last image in the pipeline that is cacheable and cache
@@ -222,6 +236,8 @@ public class ImageProviderPipeline {
                 }
                 this.cache.putImage(lastCacheableImage);
             }
+            this.cache.registerLoadTime(System.currentTimeMillis()
+                    - pipelineStart);
         }
         return img;
     }
@@ -21,10 +21,14 @@ package org.apache.xmlgraphics.image.loader.pipeline;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -55,6 +59,18 @@ public class PipelineFactory {
     /** Holds the EdgeDirectory for all image conversions */
     private DefaultEdgeDirectory converterEdgeDirectory;
 
+    /** Marks a memoized "no pipeline found" result */
+    private static final ImageProviderPipeline NO_PIPELINE = new ImageProviderPipeline();
+
+    /**
+     * The pipelines chosen by
+     * {@link #newImageConverterPipeline(ImageInfo, ImageFlavor)}, so the
+     * pipeline search runs once per kind of image rather than once per image
+     */
+    private final Map<PlanKey, ImageProviderPipeline> plans = new ConcurrentHashMap<PlanKey, ImageProviderPipeline>();
+
+    private volatile int plansVersion = -1;
+
     /**
      * Main constructor.
      *
@@ -128,6 +144,49 @@ public class PipelineFactory {
      */
     public ImageProviderPipeline newImageConverterPipeline(
             final ImageInfo imageInfo, final ImageFlavor targetFlavor) {
+        final ImageImplRegistry registry = this.manager.getRegistry();
+        final int version = registry.getModifications();
+        if (version != this.plansVersion) {
+            this.plans.clear();
+            this.plansVersion = version;
+        }
+        final PlanKey key = new PlanKey(imageInfo.getMimeType(), targetFlavor,
+                getUnsupportingLoaderFactories(registry, imageInfo), version);
+        ImageProviderPipeline plan = this.plans.get(key);
+        if (plan == null) {
+            plan = choosePipeline(imageInfo, targetFlavor);
+            this.plans.put(key, plan != null ? plan : NO_PIPELINE);
+        }
+        // Hand out copies, the callers may modify the pipeline
+        return plan != NO_PIPELINE && plan != null ? plan.copy() : null;
+    }
+
+    /**
+     * Returns the ImageLoaderFactories registered for the image's MIME type
+     * which don't support this particular image. Apart from the MIME type and
+     * the target flavor, this is the only property of the image the choice of
+     * the pipeline depends on.
+     */
+    private static Set<ImageLoaderFactory> getUnsupportingLoaderFactories(
+            final ImageImplRegistry registry, final ImageInfo imageInfo) {
+        final ImageLoaderFactory[] factories = registry
+                .getImageLoaderFactories(imageInfo.getMimeType());
+        Set<ImageLoaderFactory> unsupporting = Collections.emptySet();
+        if (factories != null) {
+            for (final ImageLoaderFactory factory : factories) {
+                if (!factory.isSupported(imageInfo)) {
+                    if (unsupporting.isEmpty()) {
+                        unsupporting = new java.util.HashSet<ImageLoaderFactory>();
+                    }
+                    unsupporting.add(factory);
+                }
+            }
+        }
+        return unsupporting;
+    }
+
+    private ImageProviderPipeline choosePipeline(final ImageInfo imageInfo,
+            final ImageFlavor targetFlavor) {
         final ImageProviderPipeline[] candidates = determineCandidatePipelines(
                 imageInfo, targetFlavor);
 
@@ -220,6 +279,47 @@ public class PipelineFactory {
                 .toArray(new ImageProviderPipeline[candidates.size()]);
     }
 
+    /** Identifies a memoized pipeline. */
+    private static final class PlanKey {
+
+        private final String mime;
+        private final ImageFlavor targetFlavor;
+        private final Set<ImageLoaderFactory> unsupportingFactories;
+        private final int registryVersion;
+
+        PlanKey(final String mime, final ImageFlavor targetFlavor,
+                final Set<ImageLoaderFactory> unsupportingFactories,
+                final int registryVersion) {
+            this.mime = mime;
+            this.targetFlavor = targetFlavor;
+            this.unsupportingFactories = unsupportingFactories;
+            this.registryVersion = registryVersion;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof PlanKey)) {
+                return false;
+            }
+            final PlanKey other = (PlanKey) obj;
+            return this.registryVersion == other.registryVersion
+                    && (this.mime == null ? other.mime == null : this.mime
+                            .equals(other.mime))
+                    && this.targetFlavor.equals(other.targetFlavor)
+                    && this.unsupportingFactories
+                            .equals(other.unsupportingFactories);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int hashCode() {
+            int hash = this.mime != null ? this.mime.hashCode() : 0;
+            hash = 31 * hash + this.targetFlavor.hashCode();
+            return 31 * hash + this.unsupportingFactories.hashCode();
+        }
+    }
+
     /** Compares two pipelines based on their conversion penalty. */
     private static class PipelineComparator implements Comparator {
 
@@ -63,6 +63,8 @@ public class ImageImplRegistry {
 
     private int converterModifications;
 
+    private volatile int modifications;
+
     /**
      * A Map (key: implementation classes) with additional penalties to
      * fine-tune the registry.
@@ -227,6 +229,7 @@ public class ImageImplRegistry {
                         flavorMap.put(flavor, factoryList);
                     }
                     factoryList.add(loaderFactory);
+                    this.modifications++;
 
                     if (log.isDebugEnabled()) {
                         log.debug("Registered "
@@ -258,6 +261,18 @@ public class ImageImplRegistry {
         return this.converterModifications;
     }
 
+    /**
+     * Returns the number of modifications to this registry that may influence
+     * the choice of an image loading pipeline (registration of ImageLoaders and
+     * ImageConverters, changes to the additional penalties). This is used to
+     * invalidate information derived from the registry.
+     *
+     * @return the number of modifications
+     */
+    public int getModifications() {
+        return this.modifications;
+    }
+
     /**
      * Registers a new ImageConverter.
      *
@@ -267,6 +282,7 @@ public class ImageImplRegistry {
     public void registerConverter(final ImageConverter converter) {
         this.converters.add(converter);
         this.converterModifications++;
+        this.modifications++;
         if (log.isDebugEnabled()) {
             log.debug("Registered: " + converter.getClass().getName());
         }
@@ -461,6 +477,7 @@ public class ImageImplRegistry {
         } else {
             this.additionalPenalties.remove(className);
         }
+        this.modifications++;
         this.lastPreloaderSort = -1; // Force resort, just in case this was a
         // preloader
     }
@@ -220,4 +220,41 @@ public class PipelineFactoryTestCase extends TestCase {
         // penalty.
     }
 
+    /**
+     * Tests that the pipelines are memoized per kind of image and invalidated
+     * when the registry changes.
+     *
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testPipelineMemoization() throws Exception {
+        final MockImageContext imageContext = MockImageContext
+                .newSafeInstance();
+        final ImageManager manager = imageContext.getImageManager();
+        final PipelineFactory pFactory = new PipelineFactory(manager);
+
+        final ImageInfo imageInfo1 = new ImageInfo("test:tiff1", "image/tiff");
+        final ImageInfo imageInfo2 = new ImageInfo("test:tiff2", "image/tiff");
+        final ImageFlavor targetFlavor = ImageFlavor.GRAPHICS2D;
+
+        final ImageProviderPipeline pipeline1 = pFactory
+                .newImageConverterPipeline(imageInfo1, targetFlavor);
+        final ImageProviderPipeline pipeline2 = pFactory
+                .newImageConverterPipeline(imageInfo2, targetFlavor);
+        // Every caller gets its own, equivalent pipeline
+        assertNotSame(pipeline1, pipeline2);
+        assertEquals(pipeline1.toString(), pipeline2.toString());
+        assertEquals(1010, pipeline2.getConversionPenalty());
+
+        assertNull(pFactory.newImageConverterPipeline(imageInfo1,
+                new ImageFlavor("unknown")));
+
+        // A new loader must be taken into account
+        manager.getRegistry().registerLoaderFactory(
+                new MockImageLoaderFactoryTIFF());
+        final ImageProviderPipeline pipeline3 = pFactory
+                .newImageConverterPipeline(imageInfo1, targetFlavor);
+        assertEquals(10, pipeline3.getConversionPenalty());
+    }
+
 }
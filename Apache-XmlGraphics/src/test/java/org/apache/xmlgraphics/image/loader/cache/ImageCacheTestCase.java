@@ -19,6 +19,7 @@
 
 package org.apache.xmlgraphics.image.loader.cache;
 
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 
 import junit.framework.TestCase;
@@ -29,6 +30,8 @@ import org.apache.xmlgraphics.image.loader.ImageManager;
 import org.apache.xmlgraphics.image.loader.ImageSessionContext;
 import org.apache.xmlgraphics.image.loader.MockImageContext;
 import org.apache.xmlgraphics.image.loader.impl.ImageBuffered;
+import org.apache.xmlgraphics.image.loader.impl.ImageGraphics2D;
+import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
 
 /**
  * Tests for bundled ImageLoader implementations.
@@ -203,4 +206,105 @@ public class ImageCacheTestCase extends TestCase {
         }
         imageCache.doHouseKeeping();
     }
+
+    private static ImageBuffered createImage(final String uri, final int size) {
+        final ImageInfo info = new ImageInfo(uri, "image/png");
+        // 4 bytes per pixel
+        return new ImageBuffered(info, new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_ARGB), null);
+    }
+
+    /**
+     * Tests the eviction of the least recently used images once the weight
+     * limit is reached.
+     */
+    public void testWeightLimitLRU() {
+        final ImageCache cache = new ImageCache(new DefaultImageCachePolicy(
+                1000));
+        final ImageBuffered img1 = createImage("img1", 10);
+        assertEquals(400, cache.getCachePolicy().getWeight(img1));
+
+        cache.putImage(img1);
+        cache.putImage(createImage("img2", 10));
+        assertEquals(2, cache.getImageCount());
+        assertEquals(800, cache.getImageWeight());
+
+        // Touch img1 so img2 is evicted first
+        assertSame(img1, cache.getImage("img1", ImageFlavor.BUFFERED_IMAGE));
+        cache.putImage(createImage("img3", 10));
+        assertEquals(2, cache.getImageCount());
+        assertEquals(800, cache.getImageWeight());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.getImage("img1", ImageFlavor.BUFFERED_IMAGE));
+        assertNull(cache.getImage("img2", ImageFlavor.BUFFERED_IMAGE));
+        assertNotNull(cache.getImage("img3", ImageFlavor.BUFFERED_IMAGE));
+
+        // Too large to be cached at all
+        cache.putImage(createImage("img4", 20));
+        assertNull(cache.getImage("img4", ImageFlavor.BUFFERED_IMAGE));
+        assertEquals(2, cache.getImageCount());
+
+        cache.clearCache();
+        assertEquals(0, cache.getImageCount());
+        assertEquals(0, cache.getImageWeight());
+    }
+
+    /**
+     * Tests the eviction of the least frequently used images and the limits
+     * per flavor.
+     */
+    public void testWeightLimitLFUAndFlavorLimit() {
+        final DefaultImageCachePolicy policy = new DefaultImageCachePolicy(
+                10000, DefaultImageCachePolicy.EVICTION_LFU);
+        final ImageCache cache = new ImageCache(policy);
+        cache.putImage(createImage("img1", 10));
+        cache.putImage(createImage("img2", 10));
+        cache.putImage(new ImageRawStream(new ImageInfo("raw1", "image/png"),
+                ImageFlavor.RAW_PNG, new ImageRawStream.ByteArrayStreamFactory(
+                        new byte[500])));
+        assertEquals(1300, cache.getImageWeight());
+
+        // img1 is used more often but less recently than img2
+        cache.getImage("img1", ImageFlavor.BUFFERED_IMAGE);
+        cache.getImage("img1", ImageFlavor.BUFFERED_IMAGE);
+        cache.getImage("img2", ImageFlavor.BUFFERED_IMAGE);
+
+        policy.setMaxWeight(ImageFlavor.BUFFERED_IMAGE, 800);
+        cache.putImage(createImage("img3", 10));
+        assertNotNull(cache.getImage("img1", ImageFlavor.BUFFERED_IMAGE));
+        assertNull(cache.getImage("img3", ImageFlavor.BUFFERED_IMAGE));
+        assertNotNull(cache.getImage("img2", ImageFlavor.BUFFERED_IMAGE));
+        // The other flavors are not affected
+        assertNotNull(cache.getImage("raw1", ImageFlavor.RAW_PNG));
+        assertEquals(1300, cache.getImageWeight());
+
+        // Tightening the limits evicts immediately
+        cache.setCachePolicy(new DefaultImageCachePolicy(500));
+        assertEquals(1, cache.getImageCount());
+        assertNotNull(cache.getImage("raw1", ImageFlavor.RAW_PNG));
+    }
+
+    /**
+     * Tests that images of unknown weight are held softly and neither count
+     * towards the limits nor are evicted to meet them.
+     */
+    public void testUnknownWeightHeldSoftly() {
+        final ImageCache cache = new ImageCache(new DefaultImageCachePolicy(
+                500));
+        final ImageGraphics2D g2d = new ImageGraphics2D(new ImageInfo("g2d",
+                "image/svg+xml"), null);
+        assertEquals(ImageCachePolicy.UNKNOWN_WEIGHT, cache.getCachePolicy()
+                .getWeight(g2d));
+
+        cache.putImage(g2d);
+        assertEquals(1, cache.getImageCount());
+        assertEquals(0, cache.getImageWeight());
+        assertSame(g2d, cache.getImage("g2d", ImageFlavor.GRAPHICS2D));
+
+        cache.putImage(createImage("img1", 10));
+        cache.putImage(createImage("img2", 10));
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(400, cache.getImageWeight());
+        assertSame(g2d, cache.getImage("g2d", ImageFlavor.GRAPHICS2D));
+    }
 }